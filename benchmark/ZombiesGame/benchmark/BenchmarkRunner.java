@@ -0,0 +1,28 @@
+package ZombiesGame.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result comes with its allocation rate
+ * (gc.alloc.rate in MB/sec and gc.alloc.rate.norm in bytes per operation)
+ */
+public class BenchmarkRunner
+{
+    /**
+     * @param args optional regular expression selecting the benchmarks to run, all of them by default
+     * @throws RunnerException if JMH fails to run the benchmarks
+     */
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : ".*")
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,83 @@
+package ZombiesGame.benchmark;
+
+import ZombiesGame.controller.Valve;
+import ZombiesGame.controller.ValveRegistry;
+import ZombiesGame.controller.ValveResponse;
+import ZombiesGame.messages.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of routing a message to its valve, without the work the valve does
+ * 'linear' is the old Controller dispatch: a LinkedList of valves that each compare the class of the message,
+ * 'registry' is the ValveRegistry used now. Both have the six valves of the Controller in the same order,
+ * so the UpdateEntitiesMessage sent every tick is the fourth valve in the list
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark
+{
+    @Param({"NewGameMessage", "UpdateEntitiesMessage", "FirstScreenMessage"})
+    public String messageType;
+
+    private static final Class<?>[] TYPES = {
+            NewGameMessage.class, CreateProjectileMessage.class, CreateEnemyMessage.class,
+            UpdateEntitiesMessage.class, StartGameMessage.class, FirstScreenMessage.class
+    };
+
+    private final List<Valve> linear        = new LinkedList<>();
+    private final ValveRegistry registry    = new ValveRegistry();
+    private Message message;
+
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp()
+    {
+        for (Class<?> type : TYPES)
+        {
+            linear.add(m -> m.getClass() != type ? ValveResponse.MISS : ValveResponse.EXECUTED);
+            registry.register((Class<Message>) type, m -> ValveResponse.EXECUTED);
+        }
+
+        switch (messageType)
+        {
+            case "NewGameMessage":
+                message = new NewGameMessage(Scenes.WIDTH, Scenes.HEIGHT, Scenes.SPRITE_SIZE);
+                break;
+            case "UpdateEntitiesMessage":
+                message = new UpdateEntitiesMessage();
+                break;
+            default:
+                message = new FirstScreenMessage();
+        }
+    }
+
+
+    @Benchmark
+    public ValveResponse linear()
+    {
+        ValveResponse response = ValveResponse.MISS;
+        for (Valve valve : linear)
+        {
+            response = valve.execute(message);
+            if (response != ValveResponse.MISS)
+                break;
+        }
+        return response;
+    }
+
+
+    @Benchmark
+    public ValveResponse registry()
+    {
+        return registry.dispatch(message);
+    }
+}
@@ -0,0 +1,104 @@
+package ZombiesGame.benchmark;
+
+import ZombiesGame.model.Model;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the per-tick phases of Model, for games with 10 up to 100k entities
+ * the scene is rebuilt before every iteration, so entities flying off the screen or piling up on the player don't
+ * change the workload too much while it is measured
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark
+{
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int entityCount;
+
+    @Param({"ENEMIES", "PROJECTILES", "MIXED"})
+    public String mix;
+
+    private Model model;
+
+
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+        model = Scenes.build(entityCount, mix, 42);
+    }
+
+
+    @Benchmark
+    public void updateEntities()
+    {
+        model.updateEntities();
+    }
+
+
+    @Benchmark
+    public void checkCollisions()
+    {
+        model.checkCollisions();
+    }
+
+
+    @Benchmark
+    public void checkCollisionsSerial()
+    {
+        model.setParallelCollisionThreshold(Integer.MAX_VALUE);
+        model.checkCollisions();
+    }
+
+
+    @Benchmark
+    public void checkCollisionsParallel()
+    {
+        model.setParallelCollisionThreshold(0);
+        model.checkCollisions();
+    }
+
+
+    @Benchmark
+    public void checkBoundaryCollisions()
+    {
+        model.checkBoundaryCollisions();
+    }
+
+
+    /**
+     * removeInactive only has work to do when something died, so every invocation gets a fresh scene where the
+     * boundary check has already marked the entities outside the screen. Includes the cost of the setup for tiny games
+     */
+    @State(Scope.Thread)
+    public static class RemovalState
+    {
+        @Param({"10", "100", "1000", "10000", "100000"})
+        public int entityCount;
+
+        @Param({"ENEMIES", "PROJECTILES", "MIXED"})
+        public String mix;
+
+        Model model;
+
+        @Setup(Level.Invocation)
+        public void setUp()
+        {
+            model = Scenes.build(entityCount, mix, 42);
+            model.checkBoundaryCollisions();
+        }
+    }
+
+
+    @Benchmark
+    public Model removeInactive(RemovalState state)
+    {
+        state.model.removeInactive();
+        return state.model;
+    }
+}
@@ -0,0 +1,131 @@
+package ZombiesGame.benchmark;
+
+import ZombiesGame.model.FrameSnapshot;
+import ZombiesGame.view.GameRenderer;
+import ZombiesGame.view.SpriteData;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of painting a frame by the number of entities, the score is the time per frame
+ * NAIVE draws every entity in frame order, picking its sprite by comparing its type like the game used to and drawing
+ * entities off the screen too. RENDERER is GameRenderer, which culls entities off the screen and draws the sprites in
+ * batches by sprite id. ONSCREEN puts every entity on the screen, SPREAD scatters them over an area four times the
+ * screen like a big horde around the player, so three quarters of them are off the screen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaintBenchmark
+{
+    private static final Dimension SCREEN = new Dimension(Scenes.WIDTH, Scenes.HEIGHT);
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int entityCount;
+
+    @Param({"ONSCREEN", "SPREAD"})
+    public String spread;
+
+    @Param({"NAIVE", "RENDERER"})
+    public String mode;
+
+    private GameRenderer renderer;
+    private SpriteData spriteData;
+    private GraphicsConfiguration config;
+    private Image target;
+    private FrameSnapshot frame;
+
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        if (!GraphicsEnvironment.isHeadless())
+        {
+            config = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDefaultConfiguration();
+            target = config.createCompatibleVolatileImage(SCREEN.width, SCREEN.height);
+        }
+        else
+        {
+            target = new BufferedImage(SCREEN.width, SCREEN.height, BufferedImage.TYPE_INT_RGB);
+        }
+        renderer = new GameRenderer(Scenes.SPRITE_SIZE, SCREEN);
+        spriteData = new SpriteData();
+        spriteData.prepare(config, Scenes.SPRITE_SIZE);
+
+        // the player in the center, then enemies, projectiles and a few items mixed like a busy game
+        int width = spread.equals("SPREAD") ? SCREEN.width * 2 : SCREEN.width - Scenes.SPRITE_SIZE;
+        int height = spread.equals("SPREAD") ? SCREEN.height * 2 : SCREEN.height - Scenes.SPRITE_SIZE;
+        int left = spread.equals("SPREAD") ? -SCREEN.width / 2 : 0;
+        int top = spread.equals("SPREAD") ? -SCREEN.height / 2 : 0;
+        Random random = new Random(42);
+        frame = new FrameSnapshot();
+        frame.begin(entityCount + 1, 0, 0);
+        frame.set(0, 0, FrameSnapshot.PLAYER, 0, SCREEN.width / 2, SCREEN.height / 2);
+        for (int i = 1; i <= entityCount; i++)
+        {
+            int kind = random.nextInt(10);
+            byte type = kind < 5 ? FrameSnapshot.ENEMY : kind < 9 ? FrameSnapshot.PROJECTILE : FrameSnapshot.ITEM;
+            frame.set(i, i, type, type == FrameSnapshot.ITEM ? random.nextInt(3) : 0,
+                    left + random.nextInt(width), top + random.nextInt(height));
+        }
+    }
+
+
+    @Benchmark
+    public Image paint()
+    {
+        if (target instanceof VolatileImage && ((VolatileImage) target).validate(config) != VolatileImage.IMAGE_OK)
+        {
+            target = config.createCompatibleVolatileImage(SCREEN.width, SCREEN.height);
+        }
+
+        Graphics2D g = (Graphics2D) target.getGraphics();
+        if (mode.equals("NAIVE"))
+        {
+            g.drawImage(spriteData.getBackground(), 0, 0, null);
+            spriteData.prepare(config, Scenes.SPRITE_SIZE);
+            for (int i = 0; i < frame.getCount(); i++)
+            {
+                g.drawImage(sprite(frame.getType(i), frame.getItemType(i)), frame.getX(i), frame.getY(i), null);
+            }
+        }
+        else
+        {
+            renderer.render(g, frame, config, 1);
+        }
+        g.dispose();
+        return target;
+    }
+
+
+    /**
+     * @param type type of an entity
+     * @param itemType kind of item
+     * @return cached sprite the entity is drawn with
+     */
+    private Image sprite(byte type, int itemType)
+    {
+        if (type == FrameSnapshot.PLAYER)
+        {
+            return spriteData.getScaledPlayerSprite();
+        }
+        else if (type == FrameSnapshot.ENEMY)
+        {
+            return spriteData.getScaledEnemySprite();
+        }
+        else if (type == FrameSnapshot.PROJECTILE)
+        {
+            return spriteData.getScaledProjectileSprite();
+        }
+        return spriteData.getScaledItemSprite(itemType);
+    }
+}
@@ -0,0 +1,171 @@
+package ZombiesGame.benchmark;
+
+import ZombiesGame.messages.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the message queues between the view and the controller
+ * 'transfer' measures throughput with three producers (like the Swing timers and input listeners) and the single
+ * consumer of the controller, counting only messages that actually went through the queue
+ * 'roundTrip' measures latency: a message is handed to an echo thread and back, so each sample is two transfers
+ * including the wake up of a waiting thread
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueBenchmark
+{
+    private static final int CAPACITY = 1024;
+
+
+    /**
+     * The queue shared by the producers and the consumer of a transfer group
+     */
+    @State(Scope.Group)
+    public static class Shared
+    {
+        @Param({"LINKED", "RING_PARK", "RING_YIELD", "RING_BUSY_SPIN"})
+        public String queueType;
+
+        BlockingQueue<Message> queue;
+
+
+        @Setup(Level.Iteration)
+        public void setUp()
+        {
+            queue = create(queueType);
+        }
+    }
+
+
+    /**
+     * Messages that were added and taken, per thread
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Transfers
+    {
+        public long offered;
+        public long taken;
+
+
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            offered = 0;
+            taken = 0;
+        }
+    }
+
+
+    @Benchmark
+    @Group("transfer")
+    @GroupThreads(3)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void produce(Shared shared, Transfers transfers)
+    {
+        if (shared.queue.offer(UpdateEntitiesMessage.INSTANCE))
+        {
+            transfers.offered++;
+        }
+    }
+
+
+    @Benchmark
+    @Group("transfer")
+    @GroupThreads(1)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void consume(Shared shared, Transfers transfers)
+    {
+        if (shared.queue.poll() != null)
+        {
+            transfers.taken++;
+        }
+    }
+
+
+    /**
+     * A request queue served by an echo thread, and the queue the echo comes back on
+     */
+    @State(Scope.Thread)
+    public static class Echo
+    {
+        @Param({"LINKED", "RING_PARK", "RING_YIELD", "RING_BUSY_SPIN"})
+        public String queueType;
+
+        BlockingQueue<Message> requests;
+        BlockingQueue<Message> responses;
+        private Thread echo;
+
+
+        @Setup(Level.Trial)
+        public void start()
+        {
+            requests    = create(queueType);
+            responses   = create(queueType);
+
+            echo = new Thread(() -> {
+                try
+                {
+                    while (true)
+                    {
+                        responses.put(requests.take());
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    // benchmark is over
+                }
+            }, "echo");
+            echo.setDaemon(true);
+            echo.start();
+        }
+
+
+        @TearDown(Level.Trial)
+        public void stop() throws InterruptedException
+        {
+            echo.interrupt();
+            echo.join();
+        }
+    }
+
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Message roundTrip(Echo echo) throws InterruptedException
+    {
+        echo.requests.put(UpdateEntitiesMessage.INSTANCE);
+        return echo.responses.take();
+    }
+
+
+    /**
+     * @param type LINKED for the old LinkedBlockingQueue, RING_ and a wait strategy for a RingBufferMessageQueue
+     * @return new empty queue
+     */
+    private static BlockingQueue<Message> create(String type)
+    {
+        switch (type)
+        {
+            case "LINKED":
+                // bounded like the ring buffer, so the producers can't grow it without limit
+                return new LinkedBlockingQueue<>(CAPACITY);
+            case "RING_PARK":
+                return new RingBufferMessageQueue(CAPACITY, WaitStrategy.PARK);
+            case "RING_YIELD":
+                return new RingBufferMessageQueue(CAPACITY, WaitStrategy.YIELD);
+            case "RING_BUSY_SPIN":
+                return new RingBufferMessageQueue(CAPACITY, WaitStrategy.BUSY_SPIN);
+            default:
+                throw new IllegalArgumentException("unknown queue " + type);
+        }
+    }
+}
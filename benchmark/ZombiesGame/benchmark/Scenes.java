@@ -0,0 +1,50 @@
+package ZombiesGame.benchmark;
+
+import ZombiesGame.model.*;
+
+import java.util.Random;
+
+/**
+ * Builds the game states used by the benchmarks
+ * entities are scattered over the screen (and the border around it) with a fixed seed, so every run measures the same
+ * workload
+ */
+public class Scenes
+{
+    // same screen and sprite size as the Swing view
+    public static final int WIDTH       = 1024;
+    public static final int HEIGHT      = 768;
+    public static final int SPRITE_SIZE = 64;
+
+    /**
+     * Creates a new game with a player in the center and 'count' other entities
+     * @param count number of entities besides the player
+     * @param mix "ENEMIES" for only enemies, "PROJECTILES" for only projectiles, "MIXED" for half of each
+     * @param seed seed of the random positions and velocities
+     * @return the model holding the new game
+     */
+    public static Model build(int count, String mix, long seed)
+    {
+        Model model = new Model();
+        model.createNewGame(WIDTH, HEIGHT, SPRITE_SIZE);
+        model.createPlayer();
+
+        Random r = new Random(seed);
+        for (int i = 0; i < count; i++)
+        {
+            int x = r.nextInt(WIDTH + 20) - 10;
+            int y = r.nextInt(HEIGHT + 20) - 10;
+
+            boolean isEnemy = mix.equals("ENEMIES") || (mix.equals("MIXED") && i % 2 == 0);
+            if (isEnemy)
+            {
+                model.addEntity(new Enemy(x, y));
+            }
+            else
+            {
+                model.addEntity(new Projectile(new Enemy(x, y), r.nextInt(51) - 25, r.nextInt(51) - 25));
+            }
+        }
+        return model;
+    }
+}
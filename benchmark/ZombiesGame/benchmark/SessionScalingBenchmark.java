@@ -0,0 +1,123 @@
+package ZombiesGame.benchmark;
+
+import ZombiesGame.arena.GameSession;
+import ZombiesGame.arena.SessionManager;
+import ZombiesGame.arena.SessionState;
+import ZombiesGame.headless.HeadlessGame;
+import ZombiesGame.headless.RandomInputScript;
+import ZombiesGame.metrics.LatencyHistogram;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows how hosting more sessions in one JVM scales: for a growing number of bot sessions it measures the ticks that
+ * were actually run compared to the tick rate, the tick jitter (how late ticks start) and the CPU time used, which
+ * gives the number of sessions a single core keeps up with
+ * unlike the JMH benchmarks this runs the sessions in real time, since jitter only shows up when ticks are paced
+ */
+public class SessionScalingBenchmark
+{
+    private static final int TICK_RATE = 60;
+
+
+    /**
+     * @param args optional: seconds measured per step (default 5), then the session counts to measure (default 1, 10,
+     *             100, 500, 1000, 2000)
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static void main(String[] args) throws InterruptedException
+    {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int[] counts = {1, 10, 100, 500, 1000, 2000};
+        if (args.length > 1)
+        {
+            counts = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++)
+            {
+                counts[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d cores, %s threads, %d ticks/s per session%n", cores,
+                SessionManager.usesVirtualThreads() ? "virtual" : "platform", TICK_RATE);
+        System.out.printf("%8s %12s %10s %10s %10s %10s %14s %8s%n", "sessions", "ticks/s", "of target",
+                "p50 ms", "p99 ms", "max ms", "sessions/core", "failed");
+
+        for (int count : counts)
+        {
+            measure(count, seconds);
+        }
+    }
+
+
+    /**
+     * Runs a number of sessions and prints one row of results
+     * @param count number of sessions
+     * @param seconds seconds to measure after a second of warm up
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static void measure(int count, int seconds) throws InterruptedException
+    {
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        try (SessionManager manager = new SessionManager(TICK_RATE, false))
+        {
+            for (int i = 0; i < count; i++)
+            {
+                manager.openBot(new RandomInputScript(i, TICK_RATE, HeadlessGame.WIDTH, HeadlessGame.HEIGHT), i);
+            }
+            TimeUnit.SECONDS.sleep(1);
+
+            long[] jitterBefore = manager.getTickJitterCounts();
+            long ticksBefore = ticks(manager);
+            long cpuBefore = os.getProcessCpuTime();
+            long start = System.nanoTime();
+
+            TimeUnit.SECONDS.sleep(seconds);
+
+            long elapsed = System.nanoTime() - start;
+            long cpu = os.getProcessCpuTime() - cpuBefore;
+            long ticks = ticks(manager) - ticksBefore;
+            long[] jitter = manager.getTickJitterCounts();
+            for (int i = 0; i < jitter.length; i++)
+            {
+                jitter[i] -= jitterBefore[i];
+            }
+
+            int failed = 0;
+            for (GameSession session : manager.getSessions())
+            {
+                failed += session.getState() == SessionState.FAILED ? 1 : 0;
+            }
+
+            double ticksPerSecond = ticks * 1e9 / elapsed;
+            double coresUsed = (double) cpu / elapsed;
+            double keptUp = ticksPerSecond / ((double) count * TICK_RATE);
+            // sessions a fully busy core would host at the measured cost, only as many as keep up
+            double perCore = coresUsed > 0 ? count * Math.min(1, keptUp) / coresUsed : 0;
+
+            System.out.printf("%8d %,12.0f %9.1f%% %10.2f %10.2f %10.2f %,14.0f %8d%n", count, ticksPerSecond,
+                    keptUp * 100, LatencyHistogram.percentile(jitter, 50) / 1e6,
+                    LatencyHistogram.percentile(jitter, 99) / 1e6, LatencyHistogram.percentile(jitter, 100) / 1e6,
+                    perCore, failed);
+        }
+    }
+
+
+    /**
+     * @param manager a session manager
+     * @return ticks run by all its sessions
+     */
+    private static long ticks(SessionManager manager)
+    {
+        long ticks = 0;
+        for (GameSession session : manager.getSessions())
+        {
+            ticks += session.getTicks();
+        }
+        return ticks;
+    }
+}
@@ -0,0 +1,74 @@
+package ZombiesGame.benchmark;
+
+import ZombiesGame.model.Model;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of Model.createProjectile and Model.createEnemy
+ * creating entities grows the game, so each invocation starts a new game, fills it with a batch of entities and the
+ * result is reported per created entity. The new game is part of the measurement
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnBenchmark
+{
+    private static final int PROJECTILE_BATCH = 1000;
+
+    // highest enemy limit of the game, reached once the score is above the last difficulty threshold
+    private static final int ENEMY_BATCH = 11;
+
+    @Param({"10", "1000", "100000"})
+    public int entityCount;
+
+    @Param({"ENEMIES", "PROJECTILES", "MIXED"})
+    public String mix;
+
+    private final Point target = new Point(900, 100);
+    private Model model;
+
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        // the existing entities are only relevant for the first batch, they show the cost of growing a big game
+        model = Scenes.build(entityCount, mix, 42);
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(PROJECTILE_BATCH)
+    public Model createProjectile()
+    {
+        for (int i = 0; i < PROJECTILE_BATCH; i++)
+        {
+            model.createProjectile(target);
+        }
+
+        model.createNewGame(Scenes.WIDTH, Scenes.HEIGHT, Scenes.SPRITE_SIZE);
+        model.createPlayer();
+        return model;
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(ENEMY_BATCH)
+    public Model createEnemy()
+    {
+        model.createNewGame(Scenes.WIDTH, Scenes.HEIGHT, Scenes.SPRITE_SIZE);
+        model.createPlayer();
+        model.updateScore(1000); // raises the enemy limit to ENEMY_BATCH
+
+        for (int i = 0; i < ENEMY_BATCH; i++)
+        {
+            model.createEnemy();
+        }
+        return model;
+    }
+}
@@ -0,0 +1,146 @@
+package ZombiesGame.benchmark;
+
+import ZombiesGame.view.SpriteData;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of drawing a frame of sprites, the score is frames per second
+ * RAW scales the decoded PNGs on every draw like the game used to, CACHED draws the sprites SpriteData scaled once
+ * into the format of the screen. With a screen the frame is drawn into an accelerated VolatileImage like a Swing back
+ * buffer, without one (headless) into a plain RGB image
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpriteRenderBenchmark
+{
+    private static final int WIDTH          = 1024;
+    private static final int HEIGHT         = 768;
+    private static final int SPRITE_SIZE    = 64;
+
+    @Param({"1000", "5000", "20000"})
+    public int sprites;
+
+    @Param({"RAW", "CACHED"})
+    public String mode;
+
+    private SpriteData spriteData;
+    private GraphicsConfiguration config;
+    private Image target;
+    private int[] x;
+    private int[] y;
+    private int[] kind;
+
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        spriteData = new SpriteData();
+        if (!GraphicsEnvironment.isHeadless())
+        {
+            config = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDefaultConfiguration();
+            target = config.createCompatibleVolatileImage(WIDTH, HEIGHT);
+        }
+        else
+        {
+            target = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        }
+        spriteData.prepare(config, SPRITE_SIZE);
+
+        // mostly enemies and projectiles like a busy game
+        Random random = new Random(42);
+        x = new int[sprites];
+        y = new int[sprites];
+        kind = new int[sprites];
+        for (int i = 0; i < sprites; i++)
+        {
+            x[i] = random.nextInt(WIDTH - SPRITE_SIZE);
+            y[i] = random.nextInt(HEIGHT - SPRITE_SIZE);
+            kind[i] = random.nextInt(10);
+        }
+    }
+
+
+    @Benchmark
+    public Image frame()
+    {
+        if (target instanceof VolatileImage && ((VolatileImage) target).validate(config) != VolatileImage.IMAGE_OK)
+        {
+            target = config.createCompatibleVolatileImage(WIDTH, HEIGHT);
+        }
+
+        Graphics2D g = (Graphics2D) target.getGraphics();
+        g.drawImage(spriteData.getBackground(), 0, 0, null);
+        if (mode.equals("RAW"))
+        {
+            for (int i = 0; i < sprites; i++)
+            {
+                g.drawImage(raw(kind[i]), x[i], y[i], SPRITE_SIZE, SPRITE_SIZE, null);
+            }
+        }
+        else
+        {
+            spriteData.prepare(config, SPRITE_SIZE);
+            for (int i = 0; i < sprites; i++)
+            {
+                g.drawImage(cached(kind[i]), x[i], y[i], null);
+            }
+        }
+        g.dispose();
+        return target;
+    }
+
+
+    /**
+     * @param kind 0 to 9
+     * @return decoded sprite of that kind
+     */
+    private Image raw(int kind)
+    {
+        if (kind < 5)
+        {
+            return spriteData.getEnemySprite();
+        }
+        else if (kind < 8)
+        {
+            return spriteData.getProjectileSprite();
+        }
+        else if (kind == 8)
+        {
+            return spriteData.getCoffeeSprite();
+        }
+        return spriteData.getPlayerSprite();
+    }
+
+
+    /**
+     * @param kind 0 to 9
+     * @return cached sprite of that kind
+     */
+    private Image cached(int kind)
+    {
+        if (kind < 5)
+        {
+            return spriteData.getScaledEnemySprite();
+        }
+        else if (kind < 8)
+        {
+            return spriteData.getScaledProjectileSprite();
+        }
+        else if (kind == 8)
+        {
+            return spriteData.getScaledItemSprite(0);
+        }
+        return spriteData.getScaledPlayerSprite();
+    }
+}
@@ -0,0 +1,95 @@
+package ZombiesGame.benchmark;
+
+import ZombiesGame.model.SteeringKernel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares ways of steering every enemy towards the player
+ * 'perEntity' is the old path of Model.updateEnemyVelocity (atan2, round trip through degrees, cos and sin per enemy),
+ * 'scalarKernel' and 'platformKernel' are the batch SteeringKernel, the latter vectorized when the JVM was started with
+ * --add-modules jdk.incubator.vector and the vector/ sources were compiled in
+ * every invocation steers all 'entityCount' entities
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SteeringBenchmark
+{
+    private static final int SPEED = 6;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int entityCount;
+
+    private int[] x;
+    private int[] y;
+    private int[] dx;
+    private int[] dy;
+    private int targetX;
+    private int targetY;
+
+    private final SteeringKernel scalar     = SteeringKernel.scalar();
+    private final SteeringKernel platform   = SteeringKernel.forPlatform();
+
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        Random r = new Random(42);
+        x   = new int[entityCount];
+        y   = new int[entityCount];
+        dx  = new int[entityCount];
+        dy  = new int[entityCount];
+
+        for (int i = 0; i < entityCount; i++)
+        {
+            x[i] = r.nextInt(Scenes.WIDTH + 20) - 10;
+            y[i] = r.nextInt(Scenes.HEIGHT + 20) - 10;
+        }
+        targetX = Scenes.WIDTH / 2;
+        targetY = Scenes.HEIGHT / 2;
+    }
+
+
+    @Benchmark
+    public void perEntity(Blackhole bh)
+    {
+        for (int i = 0; i < entityCount; i++)
+        {
+            int deltaX = targetX - x[i];
+            int deltaY = targetY - y[i];
+
+            double theta  = Math.toDegrees(Math.atan2(deltaY, deltaX));
+            theta         = Math.toRadians(theta);
+
+            dx[i] = (int) (SPEED * Math.cos(theta));
+            dy[i] = (int) (SPEED * Math.sin(theta));
+        }
+        bh.consume(dx);
+        bh.consume(dy);
+    }
+
+
+    @Benchmark
+    public void scalarKernel(Blackhole bh)
+    {
+        scalar.steer(targetX, targetY, x, y, 0, entityCount, SPEED, dx, dy);
+        bh.consume(dx);
+        bh.consume(dy);
+    }
+
+
+    @Benchmark
+    public void platformKernel(Blackhole bh)
+    {
+        platform.steer(targetX, targetY, x, y, 0, entityCount, SPEED, dx, dy);
+        bh.consume(dx);
+        bh.consume(dy);
+    }
+}
@@ -0,0 +1,48 @@
+package ZombiesGame.benchmark;
+
+import ZombiesGame.controller.Controller;
+import ZombiesGame.headless.HeadlessDisplay;
+import ZombiesGame.messages.Message;
+import ZombiesGame.messages.UpdateEntitiesMessage;
+import ZombiesGame.model.Model;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of a full game update, handled by Controller.UpdateEntitiesValve exactly like in the game:
+ * all Model phases, the game over check and building the GameInfo for the view
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark
+{
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int entityCount;
+
+    @Param({"ENEMIES", "PROJECTILES", "MIXED"})
+    public String mix;
+
+    private final Message update = UpdateEntitiesMessage.INSTANCE;
+    private Controller controller;
+
+
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+        Model model = Scenes.build(entityCount, mix, 42);
+        controller = new Controller(new LinkedBlockingQueue<>(), model, new HeadlessDisplay());
+    }
+
+
+    @Benchmark
+    public Object fullTick()
+    {
+        return controller.dispatch(update);
+    }
+}
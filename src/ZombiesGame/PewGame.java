@@ -1,31 +1,127 @@
 package ZombiesGame;
 
 import ZombiesGame.controller.Controller;
+import ZombiesGame.controller.FixedTimestep;
 import ZombiesGame.model.Model;
+import ZombiesGame.messages.CoalescingMessageQueue;
 import ZombiesGame.messages.Message;
+import ZombiesGame.messages.OverflowPolicy;
+import ZombiesGame.messages.RingBufferMessageQueue;
+import ZombiesGame.messages.WaitStrategy;
+import ZombiesGame.replay.SessionRecorder;
 import ZombiesGame.view.View;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 
 public class PewGame
 {
-    private static BlockingQueue<Message> queue = new LinkedBlockingQueue<Message>();
+    // most pending messages, can be changed with -Dpew.queueCapacity
+    private static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    // messages go through a CoalescingMessageQueue, or with -Dpew.queue=ring through a RingBufferMessageQueue
+    // the coalescing queue drops projectiles once full as set with -Dpew.queueOverflow (BLOCK, DROP_NEWEST, DROP_OLDEST),
+    // the ring buffer waits for space as set with -Dpew.queueWait (BUSY_SPIN, YIELD, PARK)
+    private static final String DEFAULT_QUEUE = "coalescing";
+    private static final String DEFAULT_QUEUE_OVERFLOW = "DROP_OLDEST";
+    private static final String DEFAULT_QUEUE_WAIT = "PARK";
+
+    private static BlockingQueue<Message> queue = createQueue();
     private static Controller controller;
     private static Model model;
     private static View view;
 
+    // ticks per second of the simulation, can be changed with -Dpew.tickRate (30-240)
+    private static final int DEFAULT_TICK_RATE = 60;
+
+    // most ticks the simulation runs back to back when it falls behind
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    // the game screen is repainted by Swing after every tick, or with -Dpew.render=active drawn by a render thread at
+    // -Dpew.maxFps frames per second (default the refresh rate of the screen)
+    private static final String DEFAULT_RENDER = "passive";
+
     public static void main(String[] args)
     {
         model = new Model();
-        view = new View("Pew Pew", queue);
+        boolean activeRendering = System.getProperty("pew.render", DEFAULT_RENDER).equals("active");
+        view = new View("Pew Pew", queue, activeRendering, Integer.getInteger("pew.maxFps", 0));
         controller = new Controller(queue, model, view);
 
+        // latency and queue metrics, visible in jconsole under ZombiesGame
+        controller.getMetrics().publish("main");
+
+        int tickRate = Integer.getInteger("pew.tickRate", DEFAULT_TICK_RATE);
+        FixedTimestep clock = new FixedTimestep(tickRate, MAX_CATCH_UP_TICKS);
+
+        // -Dpew.record=<file> records the session, replay it with ZombiesGame.replay.SessionReplayer
+        String record = System.getProperty("pew.record");
+        if (record != null)
+        {
+            startRecording(record, tickRate);
+        }
+
+        // the game runs on its own thread so tick timing doesn't depend on the event dispatch thread
+        Thread simulation = new Thread(() -> {
+            try {
+                controller.runSimulation(clock);
+            } catch (Exception e)
+            {
+                e.printStackTrace();
+            }
+        }, "simulation");
+        simulation.start();
+    }
+
+
+    /**
+     * Records the session into a file until the game is closed
+     * @param file path of the log
+     * @param tickRate ticks per second of the simulation
+     */
+    private static void startRecording(String file, int tickRate)
+    {
         try {
-            controller.mainLoop();
-        } catch (Exception e)
+            SessionRecorder recorder = new SessionRecorder(new FileOutputStream(file), model, tickRate);
+            controller.setRecorder(recorder);
+
+            // the window exits the JVM when it's closed, the rest of the log is written on the way out
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    recorder.close();
+                } catch (IOException e)
+                {
+                    e.printStackTrace();
+                }
+            }, "recorder"));
+        } catch (IOException e)
         {
             e.printStackTrace();
         }
     }
+
+
+    /**
+     * Creates the queue between the view and the controller as configured by the system properties
+     * @return the message queue
+     */
+    private static BlockingQueue<Message> createQueue()
+    {
+        int capacity = Integer.getInteger("pew.queueCapacity", DEFAULT_QUEUE_CAPACITY);
+
+        switch (System.getProperty("pew.queue", DEFAULT_QUEUE))
+        {
+            case "ring":
+                String wait = System.getProperty("pew.queueWait", DEFAULT_QUEUE_WAIT);
+                WaitStrategy strategy = wait.equals("BUSY_SPIN") ? WaitStrategy.BUSY_SPIN
+                        : wait.equals("YIELD") ? WaitStrategy.YIELD : WaitStrategy.PARK;
+                return new RingBufferMessageQueue(capacity, strategy);
+            case "coalescing":
+                return new CoalescingMessageQueue(capacity,
+                        OverflowPolicy.valueOf(System.getProperty("pew.queueOverflow", DEFAULT_QUEUE_OVERFLOW)));
+            default:
+                throw new IllegalArgumentException("unknown queue " + System.getProperty("pew.queue"));
+        }
+    }
 }
@@ -0,0 +1,315 @@
+package ZombiesGame.arena;
+
+import ZombiesGame.controller.Controller;
+import ZombiesGame.controller.FixedTimestep;
+import ZombiesGame.headless.HeadlessDisplay;
+import ZombiesGame.headless.HeadlessGame;
+import ZombiesGame.headless.InputScript;
+import ZombiesGame.messages.CoalescingMessageQueue;
+import ZombiesGame.messages.Message;
+import ZombiesGame.messages.NewGameMessage;
+import ZombiesGame.messages.OverflowPolicy;
+import ZombiesGame.metrics.GameMetrics;
+import ZombiesGame.model.Model;
+import ZombiesGame.view.ActionTracker;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single game hosted by a SessionManager: its own Model, Controller, message queue and key states, ticked at a fixed
+ * rate on its own thread without a screen
+ * a bot session takes its input from an InputScript and starts a new game whenever the player dies. A player session
+ * takes its input from whoever holds it, through getQueue and getKeys, like the Swing view would
+ * nothing is shared with other sessions, the high score is kept in memory
+ */
+public class GameSession implements Runnable
+{
+    // same kind of queue as the Swing game
+    private static final int QUEUE_CAPACITY     = 256;
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    private final int id;
+    private final String name;
+    private final CoalescingMessageQueue queue;
+    private final ActionTracker keys = new ActionTracker();
+    private final Model model;
+    private final HeadlessDisplay display;
+    private final Controller controller;
+    private final FixedTimestep clock;
+    private final InputScript script;
+
+    private volatile SessionState state = SessionState.CREATED;
+    private volatile Throwable failure;
+    private volatile Thread thread;
+
+    // written by the session thread only
+    private volatile long ticks;
+    private volatile int gamesPlayed;
+    private long gameTicks;
+
+
+    /**
+     * Creates a session, it doesn't tick until started by the manager
+     * @param id id of the session, unique within its manager
+     * @param name name of the session, used for its thread and metrics
+     * @param seed seed of the random numbers of the model
+     * @param tickRate ticks per second
+     * @param script input of a bot, null for a session played through getQueue and getKeys
+     */
+    GameSession(int id, String name, long seed, int tickRate, InputScript script)
+    {
+        this.id         = id;
+        this.name       = name;
+        this.script     = script;
+        this.queue      = new CoalescingMessageQueue(QUEUE_CAPACITY, OverflowPolicy.DROP_OLDEST);
+        this.model      = new Model(null);
+        this.display    = new HeadlessDisplay();
+        this.controller = new Controller(queue, model, display);
+        this.clock      = new FixedTimestep(tickRate, MAX_CATCH_UP_TICKS);
+
+        model.getRandom().setState(seed);
+    }
+
+
+    /**
+     * Starts ticking on a thread of the given factory
+     * @param threads factory of the session threads
+     */
+    void start(ThreadFactory threads)
+    {
+        Thread t = threads.newThread(this);
+        thread = t;
+        state = SessionState.RUNNING;
+        t.start();
+    }
+
+
+    /**
+     * Ticks the game at the rate of its clock and handles the queued messages in between, until stopped
+     */
+    @Override
+    public void run()
+    {
+        clock.reset(System.nanoTime());
+        long due = System.nanoTime();
+        try
+        {
+            while (state == SessionState.RUNNING)
+            {
+                long now = System.nanoTime();
+                int ticks = clock.advance(now);
+                if (ticks > 0)
+                {
+                    controller.getMetrics().getTickJitter().record(Math.max(0, now - due));
+                }
+                for (int i = 0; i < ticks; i++)
+                {
+                    step();
+                }
+
+                long wait = clock.nanosUntilNextTick(System.nanoTime());
+                due = System.nanoTime() + wait;
+                Message message = queue.poll(wait, TimeUnit.NANOSECONDS);
+                if (message != null)
+                {
+                    controller.dispatch(message);
+                }
+            }
+            state = SessionState.STOPPED;
+        }
+        catch (InterruptedException e)
+        {
+            // interrupted by stop
+            state = SessionState.STOPPED;
+        }
+        catch (RuntimeException | Error e)
+        {
+            failure = e;
+            state = SessionState.FAILED;
+        }
+    }
+
+
+    /**
+     * Asks the session to stop after the current tick, returns right away
+     */
+    public void stop()
+    {
+        if (state == SessionState.CREATED)
+        {
+            state = SessionState.STOPPED;
+        }
+        else if (state == SessionState.RUNNING)
+        {
+            state = SessionState.STOPPING;
+        }
+        Thread t = thread;
+        if (t != null)
+        {
+            t.interrupt();
+        }
+    }
+
+
+    /**
+     * Waits for the thread of the session to end
+     * @param millis most milliseconds to wait
+     * @return true if the thread ended or was never started
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean await(long millis) throws InterruptedException
+    {
+        Thread t = thread;
+        if (t == null)
+        {
+            return true;
+        }
+        t.join(millis);
+        return !t.isAlive();
+    }
+
+
+    /**
+     * A single tick: a bot starts a new game if none is running and sets its input, then the game is ticked with the
+     * keys of the session
+     */
+    private void step()
+    {
+        if (script != null)
+        {
+            if (!controller.isRunning())
+            {
+                controller.dispatch(new NewGameMessage(HeadlessGame.WIDTH, HeadlessGame.HEIGHT,
+                        HeadlessGame.SPRITE_SIZE));
+                gamesPlayed++;
+                gameTicks = 0;
+            }
+
+            script.beforeTick(gameTicks, keys, queue);
+            Message message;
+            while ((message = queue.poll()) != null)
+            {
+                controller.dispatch(message);
+            }
+            gameTicks++;
+        }
+
+        if (controller.isRunning())
+        {
+            controller.tick(keys.getState());
+            ticks++;
+        }
+    }
+
+
+    /**
+     * @return id of the session, unique within its manager
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+
+    /**
+     * @return name of the session
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+
+    /**
+     * @return where the session is in its lifecycle
+     */
+    public SessionState getState()
+    {
+        return state;
+    }
+
+
+    /**
+     * @return exception that ended the session, null unless the state is FAILED
+     */
+    public Throwable getFailure()
+    {
+        return failure;
+    }
+
+
+    /**
+     * @return true if input comes from an InputScript, false if it's played through getQueue and getKeys
+     */
+    public boolean isBot()
+    {
+        return script != null;
+    }
+
+
+    /**
+     * Gets the queue a player sends messages through, the same messages the Swing view sends
+     * @return message queue of the controller
+     */
+    public BlockingQueue<Message> getQueue()
+    {
+        return queue;
+    }
+
+
+    /**
+     * @return keys held in this session, read once per tick
+     */
+    public ActionTracker getKeys()
+    {
+        return keys;
+    }
+
+
+    /**
+     * @return number of ticks run while a game was in progress
+     */
+    public long getTicks()
+    {
+        return ticks;
+    }
+
+
+    /**
+     * @return number of games a bot started, 0 for a player session
+     */
+    public int getGamesPlayed()
+    {
+        return gamesPlayed;
+    }
+
+
+    /**
+     * @return latency of the phases and valves, tick jitter and queue state of the session
+     */
+    public GameMetrics getMetrics()
+    {
+        return controller.getMetrics();
+    }
+
+
+    /**
+     * Gets the model of the session, only safe to read from other threads once the session has ended
+     * @return the model
+     */
+    public Model getModel()
+    {
+        return model;
+    }
+
+
+    /**
+     * @return display receiving the score and screen changes of the session
+     */
+    public HeadlessDisplay getDisplay()
+    {
+        return display;
+    }
+}
@@ -0,0 +1,249 @@
+package ZombiesGame.arena;
+
+import ZombiesGame.headless.HeadlessGame;
+import ZombiesGame.headless.InputScript;
+import ZombiesGame.headless.RandomInputScript;
+import ZombiesGame.metrics.LatencyHistogram;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many independent GameSessions in one JVM, each ticking on its own thread (virtual where available)
+ * sessions are opened for bots or players, can be stopped one by one and are all stopped when the manager is closed.
+ * The metrics of every session can be published through JMX under its own name
+ */
+public class SessionManager implements Closeable
+{
+    // how long close waits for each session to end
+    private static final long STOP_MILLIS = 1000;
+
+    private final int tickRate;
+    private final boolean publishMetrics;
+    private final ThreadFactory threads = SessionThreads.create("session-");
+    private final AtomicInteger nextId  = new AtomicInteger();
+    private final Map<Integer, GameSession> sessions = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+
+    /**
+     * @param tickRate ticks per second of every session
+     * @param publishMetrics true to publish the metrics of every session as game "session-<id>" while it runs
+     */
+    public SessionManager(int tickRate, boolean publishMetrics)
+    {
+        this.tickRate       = tickRate;
+        this.publishMetrics = publishMetrics;
+    }
+
+
+    /**
+     * Opens and starts a session played by a bot
+     * @param script input of the bot
+     * @param seed seed of the random numbers of the model
+     * @return the running session
+     */
+    public GameSession openBot(InputScript script, long seed)
+    {
+        return open(script, seed);
+    }
+
+
+    /**
+     * Opens and starts a session played through its queue and keys, it waits for a NewGameMessage like the game does
+     * @param seed seed of the random numbers of the model
+     * @return the running session
+     */
+    public GameSession openPlayer(long seed)
+    {
+        return open(null, seed);
+    }
+
+
+    /**
+     * Stops a session, waits for it to end and forgets it
+     * @param id id of the session
+     * @return true if the session ended, false if it's unknown or didn't end in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean stop(int id) throws InterruptedException
+    {
+        GameSession session = sessions.remove(id);
+        if (session == null)
+        {
+            return false;
+        }
+        session.stop();
+        boolean ended = session.await(STOP_MILLIS);
+        if (publishMetrics)
+        {
+            session.getMetrics().unpublish();
+        }
+        return ended;
+    }
+
+
+    /**
+     * @param id id of a session
+     * @return the session, null if there is none with that id
+     */
+    public GameSession get(int id)
+    {
+        return sessions.get(id);
+    }
+
+
+    /**
+     * @return all open sessions, in no particular order
+     */
+    public List<GameSession> getSessions()
+    {
+        return new ArrayList<>(sessions.values());
+    }
+
+
+    /**
+     * @return number of open sessions
+     */
+    public int size()
+    {
+        return sessions.size();
+    }
+
+
+    /**
+     * @return ticks per second of every session
+     */
+    public int getTickRate()
+    {
+        return tickRate;
+    }
+
+
+    /**
+     * @return true if the sessions run on virtual threads, false if on platform threads
+     */
+    public static boolean usesVirtualThreads()
+    {
+        return SessionThreads.isVirtual();
+    }
+
+
+    /**
+     * Adds up the tick jitter of all open sessions
+     * @return counts of the buckets of LatencyHistogram, use LatencyHistogram.percentile on them
+     */
+    public long[] getTickJitterCounts()
+    {
+        long[] total = new long[LatencyHistogram.BUCKETS];
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        for (GameSession session : sessions.values())
+        {
+            session.getMetrics().getTickJitter().copyCounts(counts);
+            for (int i = 0; i < total.length; i++)
+            {
+                total[i] += counts[i];
+            }
+        }
+        return total;
+    }
+
+
+    /**
+     * Stops every session and waits for them to end
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        List<GameSession> open = getSessions();
+        for (GameSession session : open)
+        {
+            session.stop();
+        }
+        try
+        {
+            for (GameSession session : open)
+            {
+                stop(session.getId());
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Creates, registers and starts a session
+     * @param script input of a bot, null for a player
+     * @param seed seed of the random numbers of the model
+     * @return the running session
+     */
+    private GameSession open(InputScript script, long seed)
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("the session manager is closed");
+        }
+
+        int id = nextId.getAndIncrement();
+        GameSession session = new GameSession(id, "session-" + id, seed, tickRate, script);
+        if (publishMetrics)
+        {
+            session.getMetrics().publish(session.getName());
+        }
+        sessions.put(id, session);
+        session.start(threads);
+        return session;
+    }
+
+
+    /**
+     * Hosts bot sessions and prints their ticks and tick jitter once per second
+     * @param args optional: number of sessions (default 1000), seconds (default 30), tick rate (default 60)
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static void main(String[] args) throws InterruptedException
+    {
+        int count       = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds     = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int tickRate    = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+
+        System.out.printf("%d sessions on %s threads%n", count, usesVirtualThreads() ? "virtual" : "platform");
+        try (SessionManager manager = new SessionManager(tickRate, true))
+        {
+            for (int i = 0; i < count; i++)
+            {
+                manager.openBot(new RandomInputScript(i, tickRate, HeadlessGame.WIDTH, HeadlessGame.HEIGHT), i);
+            }
+
+            long lastTicks = 0;
+            for (int s = 0; s < seconds; s++)
+            {
+                TimeUnit.SECONDS.sleep(1);
+
+                long ticks = 0;
+                int failed = 0;
+                for (GameSession session : manager.getSessions())
+                {
+                    ticks += session.getTicks();
+                    failed += session.getState() == SessionState.FAILED ? 1 : 0;
+                }
+                long[] jitter = manager.getTickJitterCounts();
+                System.out.printf("%,d ticks/s (%,d expected) | jitter p50 %.2f ms, p99 %.2f ms | failed %d%n",
+                        ticks - lastTicks, (long) count * tickRate, LatencyHistogram.percentile(jitter, 50) / 1e6,
+                        LatencyHistogram.percentile(jitter, 99) / 1e6, failed);
+                lastTicks = ticks;
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ZombiesGame.arena;
+
+/**
+ * Lifecycle of a GameSession
+ */
+public enum SessionState
+{
+    // created, its thread isn't running yet
+    CREATED,
+    // ticking on its own thread
+    RUNNING,
+    // asked to stop, finishing the current tick
+    STOPPING,
+    // its thread ended after being stopped
+    STOPPED,
+    // its thread ended with an exception, see GameSession.getFailure
+    FAILED
+}
@@ -0,0 +1,71 @@
+package ZombiesGame.arena;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads sessions run on: virtual threads where the JVM has them, platform threads otherwise
+ * virtual threads are looked up through reflection so the game still builds and runs on JDKs without them. Sessions
+ * spend nearly all of their time waiting for the next tick, which is what virtual threads are cheap at; platform
+ * threads work the same but cost a native thread and its stack per session
+ */
+final class SessionThreads
+{
+    private SessionThreads()
+    {
+        // factory only
+    }
+
+
+    /**
+     * @param prefix prefix of the thread names, followed by a counter
+     * @return factory of virtual threads if the JVM supports them, of daemon platform threads otherwise
+     */
+    static ThreadFactory create(String prefix)
+    {
+        ThreadFactory virtual = virtualThreads(prefix);
+        if (virtual != null)
+        {
+            return virtual;
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+
+    /**
+     * @return true if create hands out virtual threads
+     */
+    static boolean isVirtual()
+    {
+        return virtualThreads("probe") != null;
+    }
+
+
+    /**
+     * Gets Thread.ofVirtual().name(prefix, 0).factory() if it's available and enabled
+     * @param prefix prefix of the thread names
+     * @return the factory, null if this JVM has no virtual threads or they are a disabled preview feature
+     */
+    private static ThreadFactory virtualThreads(String prefix)
+    {
+        try
+        {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Object ofVirtual = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method name = builder.getMethod("name", String.class, long.class);
+            Object named = name.invoke(ofVirtual, prefix, 0L);
+            return (ThreadFactory) builder.getMethod("factory").invoke(named);
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            return null;
+        }
+    }
+}
@@ -2,12 +2,16 @@ package ZombiesGame.controller;
 
 
 import ZombiesGame.messages.*;
+import ZombiesGame.metrics.GameMetrics;
 import ZombiesGame.model.*;
-import ZombiesGame.view.View;
+import ZombiesGame.replay.SessionRecorder;
+import ZombiesGame.view.ActionTracker;
+import ZombiesGame.view.GameDisplay;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Controller classes connects the game by having direct communication to the model and the view. It is responsible for changing the state of the game for
@@ -18,33 +22,57 @@ public class Controller
 {
     private BlockingQueue<Message> queue;
     private Model model;
-    private View view;
+    private GameDisplay view;
 
-    private List<Valve> valves = new LinkedList<>();
+    // valves by the class of message they handle
+    private final ValveRegistry valves = new ValveRegistry();
+
+    // latency of valves and model phases, state of the queue
+    private final GameMetrics metrics;
+
+    // true while a game is in progress, the simulation only ticks while this is set
+    private boolean running;
+
+    // records the handled messages and ticks if set, so the session can be replayed
+    private volatile SessionRecorder recorder;
 
 
     /**
      * Creates an instance of the Controller class
      * @param queue the queue that contains all the messages passed from the view
      * @param model the model class that handles all the model objects in the game
-     * @param view the view class that handles all the view objects in the game
+     * @param view the view class that handles all the view objects in the game, or any other display of the game
      */
-    public Controller(BlockingQueue<Message> queue, Model model, View view)
+    public Controller(BlockingQueue<Message> queue, Model model, GameDisplay view)
     {
-        this.queue  = queue;
-        this.model  = model;
-        this.view   = view;
-
-        valves.add(new NewGameValve());
-        valves.add(new CreateProjectileValve());
-        valves.add(new CreateEnemyValve());
-        valves.add(new UpdateEntitiesValve());
-        valves.add(new StartGameValve());
-        valves.add(new FirstScreenValve());
+        this.queue      = queue;
+        this.model      = model;
+        this.view       = view;
+        this.metrics    = new GameMetrics(queue);
+
+        register(NewGameMessage.class, new NewGameValve());
+        register(CreateProjectileMessage.class, new CreateProjectileValve());
+        register(CreateEnemyMessage.class, new CreateEnemyValve());
+        register(UpdateEntitiesMessage.class, new UpdateEntitiesValve());
+        register(StartGameMessage.class, new StartGameValve());
+        register(FirstScreenMessage.class, new FirstScreenValve());
+
+        view.setMetrics(metrics);
     }
 
+
     /**
-     * The function that loops over the queue and checks whether the message can executed by any of the valves in the list
+     * Registers a valve for a class of messages, measuring how long it takes
+     * @param type class of messages the valve handles
+     * @param valve the valve
+     */
+    private void register(Class<? extends Message> type, Valve valve)
+    {
+        valves.register(type, new TimedValve(valve, metrics.addValve(type), metrics.getQueue()));
+    }
+
+    /**
+     * The function that loops over the queue and passes every message to the valve registered for it
      * @throws Exception
      */
     public void mainLoop() throws Exception
@@ -62,19 +90,196 @@ public class Controller
             {
                 e.printStackTrace();
             }
-            for (Valve valve : valves)
+            response = dispatch(message);
+        }
+    }
+
+
+    /**
+     * The loop run by the simulation thread. The game is ticked at the fixed rate of the given clock, independent of
+     * any timers in the view, and the messages from the queue are handled while waiting for the next tick
+     * The view is updated once after every batch of ticks, and how late each batch starts is recorded as tick jitter
+     * @param clock fixed timestep that decides when ticks are due
+     * @throws InterruptedException if the simulation thread is interrupted
+     */
+    public void runSimulation(FixedTimestep clock) throws InterruptedException
+    {
+        ValveResponse response = ValveResponse.EXECUTED;
+        view.setSimulationClock(clock);
+        clock.reset(System.nanoTime());
+        long due = System.nanoTime();
+
+        while (response != ValveResponse.FINISH)
+        {
+            long now = System.nanoTime();
+            int ticks = clock.advance(now);
+            if (ticks > 0)
+            {
+                metrics.getTickJitter().record(Math.max(0, now - due));
+            }
+            for (int i = 0; i < ticks && running; i++)
             {
-                response = valve.execute(message);
-                // if successfully processed or game over, leave the loop
-                if (response != ValveResponse.MISS)
-                    break;
+                tick();
             }
+
+            if (ticks > 0 && running)
+            {
+                view.updateView(gameStatus());
+            }
+
+            // handle messages until the next tick is due
+            long wait = clock.nanosUntilNextTick(System.nanoTime());
+            due = System.nanoTime() + wait;
+            Message message = queue.poll(wait, TimeUnit.NANOSECONDS);
+            if (message != null)
+            {
+                response = dispatch(message);
+            }
+        }
+    }
+
+
+    /**
+     * Gets whether a game is in progress
+     * @return true from the start of a new game until the player dies
+     */
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+
+    /**
+     * Passes a message to the valve registered for its class
+     * @param message the message to handle
+     * @return response of the valve that handled the message, MISS if no valve is registered for it
+     */
+    public ValveResponse dispatch(Message message)
+    {
+        SessionRecorder recorder = this.recorder;
+        if (recorder != null)
+        {
+            recorder.recordMessage(message);
+        }
+        return valves.dispatch(message);
+    }
+
+
+    /**
+     * Advances the game by a single tick with the keys currently held
+     */
+    public void tick()
+    {
+        tick(ActionTracker.getInstance().getState());
+    }
+
+
+    /**
+     * Advances the game by a single tick: updates the positions of the entities and handles collisions
+     * It is also responsible for switching the state of the game when the player is hit by an enemy.
+     * @param keys keys held during the tick, read once so the recorded keys are the ones the model used
+     */
+    public void tick(int keys)
+    {
+        SessionRecorder recorder = this.recorder;
+        if (recorder != null)
+        {
+            recorder.recordTick(keys);
+        }
+
+        long start = System.nanoTime();
+        model.updateEntities(keys);
+        long updated = System.nanoTime();
+        model.checkCollisions();
+        long collided = System.nanoTime();
+        model.checkBoundaryCollisions();
+        long bounded = System.nanoTime();
+
+        metrics.getUpdateEntities().record(updated - start);
+        metrics.getCheckCollisions().record(collided - updated);
+        metrics.getCheckBoundaryCollisions().record(bounded - collided);
+
+        // *player is always assumed to be first entity added
+        Entity player = model.getPlayer();
+        if (!player.isActive())
+        {
+            running = false;
+            model.updateHighScore();
+            GameInfo info = gameStatus();
+            view.updateScore(info);
+            view.switchPanel("gameOverPanel");
         }
+
+        long removing = System.nanoTime();
+        model.removeInactive();
+        long end = System.nanoTime();
+
+        metrics.getRemoveInactive().record(end - removing);
+        metrics.getTick().record(end - start);
+    }
+
+
+    /**
+     * Saves a checkpoint of the current game, must be called from the thread running the game
+     * @param file file to save to, replaced if it exists
+     * @throws IOException if the file can't be written
+     */
+    public void saveGame(Path file) throws IOException
+    {
+        model.saveState(file);
+    }
+
+
+    /**
+     * Resumes a game from a checkpoint saved with saveGame, must be called from the thread running the game
+     * the game keeps running if the player was alive when it was saved
+     * @param file file to load
+     * @throws IOException if the file can't be read or is damaged, the current game is left as it was
+     */
+    public void loadGame(Path file) throws IOException
+    {
+        model.loadState(file);
+
+        running = model.getEntityCount(Player.class) > 0 && model.getPlayer().isActive();
+        view.updateView(gameStatus());
+    }
+
+
+    /**
+     * Starts or stops recording the session, start before the first game so it can be replayed from a fresh model
+     * @param recorder recorder that gets every handled message and tick, null to stop recording
+     */
+    public void setRecorder(SessionRecorder recorder)
+    {
+        this.recorder = recorder;
+    }
+
+
+    /**
+     * Gets the metrics of this controller, publish them to make them visible through JMX
+     * @return latency of the valves and model phases, and the state of the queue
+     */
+    public GameMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+
+    /**
+     * Builds the data for the view, measuring how long that takes
+     * @return current game data
+     */
+    private GameInfo gameStatus()
+    {
+        long start = System.nanoTime();
+        GameInfo info = model.getGameStatus();
+        metrics.getGetGameStatus().record(System.nanoTime() - start);
+        return info;
     }
 
 
     /**
-     * One of the valves that the controller checks whether the message from the queue is from the class "NewGameMessage"
+     * Valve registered for messages of the class "NewGameMessage"
      */
     private class NewGameValve implements Valve
     {
@@ -85,19 +290,15 @@ public class Controller
          */
         @Override
         public ValveResponse execute(Message message) {
-            if (message.getClass() != NewGameMessage.class)
-            {
-                return ValveResponse.MISS;
-            }
-
             NewGameMessage m = (NewGameMessage) message;
 
             // reset game state
             model.createNewGame(m.getWidth(),m.getHeight(),m.getSpriteSize());
 
             model.createPlayer();
+            running = true;
             // send render data to View
-            GameInfo data = model.getGameStatus();
+            GameInfo data = gameStatus();
             view.updateView(data);
 
             return ValveResponse.EXECUTED;
@@ -105,7 +306,7 @@ public class Controller
     }
 
     /**
-     * One of the valves that the controller checks whether the message from the queue is from the class "CreateProjectileMessage"
+     * Valve registered for messages of the class "CreateProjectileMessage"
      */
     private class CreateProjectileValve implements Valve
     {
@@ -117,15 +318,10 @@ public class Controller
         @Override
         public ValveResponse execute(Message message)
         {
-            if (message.getClass() != CreateProjectileMessage.class)
-            {
-                return ValveResponse.MISS;
-            }
-
             CreateProjectileMessage m = (CreateProjectileMessage) message;
 
             model.createProjectile(m.getMousePosition());
-            GameInfo data = model.getGameStatus();
+            GameInfo data = gameStatus();
             view.updateView(data);
 
             return ValveResponse.EXECUTED;
@@ -133,27 +329,26 @@ public class Controller
     }
 
     /**
-     * One of the valves that the controller checks whether the message from the queue is from the class "CreateEnemyMessage"
+     * Valve registered for messages of the class "CreateEnemyMessage"
      */
     private class CreateEnemyValve implements Valve
     {
         /**
-         * Calls the functions that creates the enemy, and it sends new updates back to the view for rendering the enemy
+         * Calls the functions that creates the enemies, and it sends new updates back to the view for rendering the enemies
          * @param message the message passed from the view to execute the following function
          * @return a return value whether the valve response is either ignored or executed
          */
         @Override
         public ValveResponse execute(Message message)
         {
-            if (message.getClass() != CreateEnemyMessage.class)
-            {
-                return ValveResponse.MISS;
-            }
-
             CreateEnemyMessage m = (CreateEnemyMessage) message;
 
-            model.createEnemy();
-            GameInfo data = model.getGameStatus();
+            // merged spawn requests arrive as a single message
+            for (int i = 0; i < m.getCount(); i++)
+            {
+                model.createEnemy();
+            }
+            GameInfo data = gameStatus();
             view.updateView(data);
 
             return ValveResponse.EXECUTED;
@@ -162,7 +357,7 @@ public class Controller
 
 
     /**
-     * One of the valves that the controller checks whether the message from the queue is from the class "UpdateEntitiesMessage"
+     * Valve registered for messages of the class "UpdateEntitiesMessage"
      */
     private class UpdateEntitiesValve implements Valve
     {
@@ -174,28 +369,11 @@ public class Controller
          */
         @Override
         public ValveResponse execute(Message message) {
-            if (message.getClass() != UpdateEntitiesMessage.class) {
-                return ValveResponse.MISS;
-            }
-
             UpdateEntitiesMessage m = (UpdateEntitiesMessage) message;
 
-            model.updateEntities();
-            model.checkCollisions();
-            model.checkBoundaryCollisions();
-
-            // *player is always assumed to be first entity added
-            Entity player = model.getEntities().getFirst();
-            if (!player.isActive())
-            {
-                 model.updateHighScore();
-                 GameInfo info = model.getGameStatus();
-                 view.updateScore(info);
-                 view.switchPanel("gameOverPanel");
-            }
-            model.removeInactive();
+            tick();
 
-            GameInfo data = model.getGameStatus();
+            GameInfo data = gameStatus();
             view.updateView(data);
           
             return ValveResponse.EXECUTED;
@@ -204,7 +382,7 @@ public class Controller
 
 
     /**
-     * Valve that handles messages of type StartGameMessage
+     * Valve registered for messages of the class "StartGameMessage"
      */
     private class StartGameValve implements Valve
     {
@@ -216,15 +394,10 @@ public class Controller
          */
         @Override
         public ValveResponse execute(Message message) {
-            if (message.getClass() != StartGameMessage.class)
-            {
-                return ValveResponse.MISS;
-            }
-
             StartGameMessage m = (StartGameMessage) message;
 
             model.updateHighScore();
-            GameInfo info = model.getGameStatus();
+            GameInfo info = gameStatus();
             view.updateScore(info);
             view.updateView(info);
             view.switchPanel("gamePanel");
@@ -235,7 +408,7 @@ public class Controller
 
 
     /**
-     * One of the valves that the controller checks whether the message from the queue is from the class "FirstScreenMessage"
+     * Valve registered for messages of the class "FirstScreenMessage"
      */
     private class FirstScreenValve implements Valve
     {
@@ -246,15 +419,10 @@ public class Controller
          */
         @Override
         public ValveResponse execute(Message message) {
-            if (message.getClass() != FirstScreenMessage.class)
-            {
-                return ValveResponse.MISS;
-            }
-
             FirstScreenMessage m = (FirstScreenMessage) message;
 
             model.updateHighScore();
-            GameInfo info = model.getGameStatus();
+            GameInfo info = gameStatus();
             view.updateScore(info);
 
             return ValveResponse.EXECUTED;
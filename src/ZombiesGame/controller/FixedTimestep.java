@@ -0,0 +1,129 @@
+package ZombiesGame.controller;
+
+/**
+ * Accumulator based fixed timestep used by the simulation thread
+ * real time is added to an accumulator and consumed in steps of exactly one tick, so the simulation advances at the
+ * same rate no matter how often the loop wakes up. If the loop falls behind, only a bounded number of ticks are
+ * caught up and the rest of the backlog is dropped
+ * the fraction of a tick that has passed since the last tick is exposed as an interpolation alpha for the renderer
+ */
+public class FixedTimestep
+{
+    // supported tick rates in ticks per second
+    public static final int MIN_TICK_RATE = 30;
+    public static final int MAX_TICK_RATE = 240;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final int tickRate;
+    private final long tickNanos;
+    private final int maxCatchUpTicks;
+
+    // time that hasn't been simulated yet, and the time of the last call to advance
+    private long accumulator;
+    private long lastTime;
+
+    // point in time the last simulated tick corresponds to, read by the renderer
+    private volatile long lastTickTime;
+
+
+    /**
+     * Creates a fixed timestep with the given tick rate
+     * @param tickRate number of ticks per second, between MIN_TICK_RATE and MAX_TICK_RATE
+     * @param maxCatchUpTicks maximum number of ticks returned by a single call to advance
+     */
+    public FixedTimestep(int tickRate, int maxCatchUpTicks)
+    {
+        if (tickRate < MIN_TICK_RATE || tickRate > MAX_TICK_RATE)
+        {
+            throw new IllegalArgumentException("tick rate must be between " + MIN_TICK_RATE + " and "
+                    + MAX_TICK_RATE + " Hz, was " + tickRate);
+        }
+        if (maxCatchUpTicks < 1)
+        {
+            throw new IllegalArgumentException("at least one tick has to be allowed per step, was " + maxCatchUpTicks);
+        }
+
+        this.tickRate           = tickRate;
+        this.tickNanos          = NANOS_PER_SECOND / tickRate;
+        this.maxCatchUpTicks    = maxCatchUpTicks;
+    }
+
+
+    /**
+     * Starts measuring time from the given point, discarding any accumulated time
+     * @param now current time in nanoseconds (System.nanoTime)
+     */
+    public void reset(long now)
+    {
+        accumulator     = 0;
+        lastTime        = now;
+        lastTickTime    = now;
+    }
+
+
+    /**
+     * Adds the time passed since the last call to the accumulator and takes as many whole ticks out of it as allowed
+     * @param now current time in nanoseconds (System.nanoTime)
+     * @return number of ticks the simulation has to run now, at most maxCatchUpTicks
+     */
+    public int advance(long now)
+    {
+        accumulator += now - lastTime;
+        lastTime = now;
+
+        int ticks = (int) Math.min(accumulator / tickNanos, maxCatchUpTicks);
+        accumulator -= ticks * tickNanos;
+
+        // too far behind to catch up, drop the backlog instead of running even more ticks next time
+        if (accumulator >= tickNanos)
+        {
+            accumulator %= tickNanos;
+        }
+
+        lastTickTime = now - accumulator;
+        return ticks;
+    }
+
+
+    /**
+     * Gets how long the loop can wait before the next tick is due
+     * @param now current time in nanoseconds (System.nanoTime)
+     * @return nanoseconds until the next tick, 0 if a tick is already due
+     */
+    public long nanosUntilNextTick(long now)
+    {
+        return Math.max(0, tickNanos - (accumulator + now - lastTime));
+    }
+
+
+    /**
+     * Gets the fraction of a tick that has passed since the last simulated tick, used to interpolate positions
+     * Safe to call from any thread
+     * @param now current time in nanoseconds (System.nanoTime)
+     * @return value between 0 (a tick just happened) and 1 (the next tick is due)
+     */
+    public double getAlpha(long now)
+    {
+        double alpha = (double) (now - lastTickTime) / tickNanos;
+        return Math.max(0, Math.min(1, alpha));
+    }
+
+
+    /**
+     * @return number of ticks per second
+     */
+    public int getTickRate()
+    {
+        return tickRate;
+    }
+
+
+    /**
+     * @return length of a single tick in nanoseconds
+     */
+    public long getTickNanos()
+    {
+        return tickNanos;
+    }
+}
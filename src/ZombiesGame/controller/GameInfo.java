@@ -1,18 +1,16 @@
 package ZombiesGame.controller;
 
-import ZombiesGame.model.Entity;
 import ZombiesGame.model.Model;
-
-import java.util.LinkedList;
-import java.util.List;
+import ZombiesGame.model.SnapshotExchange;
 
 /**
  * The GameInfo class contains the data from the model class that we want to bring to the View package.
  * It is created in the Controller class before passing it to the view
+ * the entities themselves aren't copied, the view reads the latest frame from the model's snapshot exchange
  */
 public class GameInfo
 {
-    private LinkedList<Entity> entities;
+    private SnapshotExchange frames;
     private int score;
     private int highScore;
 
@@ -22,19 +20,33 @@ public class GameInfo
      */
     public GameInfo(Model m)
     {
-        entities = m.getEntities();
+        frames = m.getFrames();
         score = m.getScore();
         highScore = m.getHighScore();
     }
 
 
     /**
-     * Gets the entities list
-     * @return
+     * Creates an instance of the GameInfo class for a game that runs elsewhere, for example on a server
+     * @param frames exchange holding the latest frame of the game
+     * @param score score of the game
+     * @param highScore high score of the game
+     */
+    public GameInfo(SnapshotExchange frames, int score, int highScore)
+    {
+        this.frames = frames;
+        this.score = score;
+        this.highScore = highScore;
+    }
+
+
+    /**
+     * Gets the exchange holding the latest frame of the game
+     * @return exchange to read frame snapshots from
      */
-    public LinkedList<Entity> getEntityInfo()
+    public SnapshotExchange getFrames()
     {
-        return entities;
+        return frames;
     }
 
     /**
@@ -0,0 +1,50 @@
+package ZombiesGame.controller;
+
+import ZombiesGame.messages.Message;
+import ZombiesGame.metrics.LatencyHistogram;
+import ZombiesGame.metrics.MessageQueueMonitor;
+
+/**
+ * Valve that records how long another valve takes to execute, and counts the handled messages
+ */
+class TimedValve implements Valve
+{
+    private final Valve valve;
+    private final LatencyHistogram latency;
+    private final MessageQueueMonitor queue;
+
+
+    /**
+     * @param valve the valve to measure
+     * @param latency histogram that receives the execution times
+     * @param queue monitor that counts the handled messages
+     */
+    TimedValve(Valve valve, LatencyHistogram latency, MessageQueueMonitor queue)
+    {
+        this.valve      = valve;
+        this.latency    = latency;
+        this.queue      = queue;
+    }
+
+
+    /**
+     * Executes the measured valve
+     * @param message the message passed from the view
+     * @return response of the measured valve
+     */
+    @Override
+    public ValveResponse execute(Message message)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            return valve.execute(message);
+        }
+        finally
+        {
+            long end = System.nanoTime();
+            latency.record(end - start);
+            queue.messageHandled(end);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ZombiesGame.controller;
+
+import ZombiesGame.messages.Message;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Routes every message straight to the valve registered for its class
+ * the valve of a class is looked up once through a ClassValue and cached on the class itself, so dispatching a
+ * message costs a single lookup no matter how many valves are registered
+ * messages are matched by their exact class, like the getClass() checks the valves used to do themselves
+ * all valves have to be registered before the first message is dispatched
+ */
+public class ValveRegistry
+{
+    // response of messages that no valve is registered for
+    private static final Valve UNHANDLED = message -> ValveResponse.MISS;
+
+    private final Map<Class<?>, Valve> valves = new HashMap<>();
+    // set by the first lookup, registration may happen on another thread than dispatching
+    private volatile boolean dispatching;
+
+    private final ClassValue<Valve> lookup = new ClassValue<>()
+    {
+        @Override
+        protected Valve computeValue(Class<?> type)
+        {
+            dispatching = true;
+            return valves.getOrDefault(type, UNHANDLED);
+        }
+    };
+
+
+    /**
+     * Registers the valve that handles all messages of the given class
+     * @param type class of the messages
+     * @param valve valve that executes them
+     * @param <T> type of the messages
+     * @throws IllegalArgumentException if a valve is already registered for the class
+     * @throws IllegalStateException if a message has already been dispatched
+     */
+    public <T extends Message> void register(Class<T> type, Valve valve)
+    {
+        if (dispatching)
+        {
+            throw new IllegalStateException("valves have to be registered before the first message is dispatched");
+        }
+        if (valves.putIfAbsent(type, valve) != null)
+        {
+            throw new IllegalArgumentException("a valve is already registered for " + type.getSimpleName());
+        }
+    }
+
+
+    /**
+     * Passes a message to the valve registered for its class
+     * @param message the message to handle
+     * @return response of the valve, MISS if no valve is registered for the message
+     */
+    public ValveResponse dispatch(Message message)
+    {
+        return lookup.get(message.getClass()).execute(message);
+    }
+}
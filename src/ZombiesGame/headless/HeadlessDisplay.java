@@ -0,0 +1,100 @@
+package ZombiesGame.headless;
+
+import ZombiesGame.controller.FixedTimestep;
+import ZombiesGame.controller.GameInfo;
+import ZombiesGame.metrics.GameMetrics;
+import ZombiesGame.view.GameDisplay;
+
+/**
+ * Display used when the game runs without a screen
+ * nothing is drawn, it only keeps track of the scores and of the screen the game would be showing
+ */
+public class HeadlessDisplay implements GameDisplay
+{
+    private String panel = "startPanel";
+    private int score;
+    private int highScore;
+
+
+    /**
+     * keeps the score of the latest game state
+     * @param info GameInfo class storing data from Model
+     */
+    @Override
+    public void updateView(GameInfo info)
+    {
+        score = info.getScore();
+    }
+
+
+    /**
+     * keeps the score and high score
+     * @param info GameInfo class storing data from Model
+     */
+    @Override
+    public void updateScore(GameInfo info)
+    {
+        score = info.getScore();
+        highScore = info.getHighScore();
+    }
+
+
+    /**
+     * remembers which screen would be shown
+     * @param panel name of the screen
+     */
+    @Override
+    public void switchPanel(String panel)
+    {
+        this.panel = panel;
+    }
+
+
+    /**
+     * the headless game steps its own ticks, so the clock isn't needed
+     * @param clock fixed timestep driving the simulation
+     */
+    @Override
+    public void setSimulationClock(FixedTimestep clock)
+    {
+        // nothing to interpolate
+    }
+
+
+    /**
+     * nothing is shown, the metrics are read from the controller directly
+     * @param metrics metrics of the controller
+     */
+    @Override
+    public void setMetrics(GameMetrics metrics)
+    {
+        // no overlay to draw them on
+    }
+
+
+    /**
+     * @return name of the screen that would currently be shown
+     */
+    public String getPanel()
+    {
+        return panel;
+    }
+
+
+    /**
+     * @return latest score passed to this display
+     */
+    public int getScore()
+    {
+        return score;
+    }
+
+
+    /**
+     * @return latest high score passed to this display
+     */
+    public int getHighScore()
+    {
+        return highScore;
+    }
+}
@@ -0,0 +1,241 @@
+package ZombiesGame.headless;
+
+import ZombiesGame.controller.Controller;
+import ZombiesGame.messages.CoalescingMessageQueue;
+import ZombiesGame.messages.Message;
+import ZombiesGame.messages.NewGameMessage;
+import ZombiesGame.messages.OverflowPolicy;
+import ZombiesGame.metrics.LatencyHistogram;
+import ZombiesGame.model.*;
+import ZombiesGame.replay.SessionRecorder;
+import ZombiesGame.view.ActionTracker;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * Runs the model and controller without Swing, for soak tests on machines without a display
+ * input comes from an InputScript and ticks are stepped as fast as the CPU allows instead of at the tick rate, so
+ * hours of play are simulated in minutes. A new game is started whenever the player dies
+ */
+public class HeadlessGame
+{
+    // same screen and sprite size as the Swing view
+    public static final int WIDTH       = 1024;
+    public static final int HEIGHT      = 768;
+    public static final int SPRITE_SIZE = 64;
+
+    // same kind of queue as the Swing game, the script never fills it since it's drained every tick
+    private static final int QUEUE_CAPACITY = 1024;
+
+    // seconds between checkpoints when -Dpew.checkpoint is set, can be changed with -Dpew.checkpointSeconds
+    private static final int DEFAULT_CHECKPOINT_SECONDS = 5;
+
+    private final CoalescingMessageQueue queue = new CoalescingMessageQueue(QUEUE_CAPACITY, OverflowPolicy.DROP_OLDEST);
+    private final Model model;
+    private final HeadlessDisplay display;
+    private final Controller controller;
+    private final InputScript script;
+
+    private long ticks;         // ticks stepped in total
+    private long gameTicks;     // ticks stepped in the current game
+    private int gamesPlayed;
+
+
+    /**
+     * Creates a headless game
+     * @param model model to simulate
+     * @param script source of the player input
+     */
+    public HeadlessGame(Model model, InputScript script)
+    {
+        this.model      = model;
+        this.script     = script;
+        this.display    = new HeadlessDisplay();
+        this.controller = new Controller(queue, model, display);
+    }
+
+
+    /**
+     * Steps a single tick: starts a new game if none is running, applies the scripted input, handles the queued
+     * messages and ticks the game
+     */
+    public void step()
+    {
+        if (!controller.isRunning())
+        {
+            controller.dispatch(new NewGameMessage(WIDTH, HEIGHT, SPRITE_SIZE));
+            gamesPlayed++;
+            gameTicks = 0;
+        }
+
+        script.beforeTick(gameTicks, ActionTracker.getInstance(), queue);
+
+        Message message;
+        while ((message = queue.poll()) != null)
+        {
+            controller.dispatch(message);
+        }
+
+        controller.tick();
+        ticks++;
+        gameTicks++;
+    }
+
+
+    /**
+     * @return number of ticks stepped so far
+     */
+    public long getTicks()
+    {
+        return ticks;
+    }
+
+
+    /**
+     * @return number of games started so far
+     */
+    public int getGamesPlayed()
+    {
+        return gamesPlayed;
+    }
+
+
+    /**
+     * @return the simulated model
+     */
+    public Model getModel()
+    {
+        return model;
+    }
+
+
+    /**
+     * @return the controller handling the messages and ticks
+     */
+    public Controller getController()
+    {
+        return controller;
+    }
+
+
+    /**
+     * @return the queue the scripted input goes through
+     */
+    public CoalescingMessageQueue getQueue()
+    {
+        return queue;
+    }
+
+
+    /**
+     * @return the display that receives the updates of the controller
+     */
+    public HeadlessDisplay getDisplay()
+    {
+        return display;
+    }
+
+
+    /**
+     * Runs a headless game and prints ticks/sec and entity counts once per second
+     * the seed is used for the input and the model, so the same arguments always play the same games
+     * with -Dpew.checkpoint=<file> the game is saved every few seconds, and resumed from the file if it already exists
+     * @param args optional: number of simulated seconds (default 3600), tick rate (default 60), seed (default 0),
+     *             file to record the session into
+     * @throws IOException if the session can't be recorded, or a checkpoint can't be loaded or saved
+     */
+    public static void main(String[] args) throws IOException
+    {
+        long seconds    = args.length > 0 ? Long.parseLong(args[0]) : 3600;
+        int tickRate    = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        long seed       = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        Model model = new Model();
+        model.getRandom().setState(seed);
+        HeadlessGame game = new HeadlessGame(model, new RandomInputScript(seed, tickRate, WIDTH, HEIGHT));
+        long totalTicks = seconds * tickRate;
+
+        SessionRecorder recorder = null;
+        if (args.length > 3)
+        {
+            recorder = new SessionRecorder(new FileOutputStream(args[3]), model, tickRate);
+            game.getController().setRecorder(recorder);
+        }
+
+        String checkpointProperty = System.getProperty("pew.checkpoint");
+        Path checkpoint = checkpointProperty != null ? Path.of(checkpointProperty) : null;
+        long checkpointInterval = Integer.getInteger("pew.checkpointSeconds", DEFAULT_CHECKPOINT_SECONDS) * 1_000_000_000L;
+        if (checkpoint != null && Files.exists(checkpoint))
+        {
+            game.getController().loadGame(checkpoint);
+            System.out.printf("resumed from %s with score %d%n", checkpoint, model.getScore());
+        }
+
+        long start = System.nanoTime();
+        long lastReport = start;
+        long lastTicks = 0;
+        long lastCheckpoint = start;
+        int checkpoints = 0;
+        long checkpointNanos = 0;
+        long slowestCheckpoint = 0;
+
+        while (game.getTicks() < totalTicks)
+        {
+            game.step();
+
+            long now = System.nanoTime();
+            if (checkpoint != null && now - lastCheckpoint >= checkpointInterval)
+            {
+                game.getController().saveGame(checkpoint);
+                lastCheckpoint = System.nanoTime();
+
+                checkpoints++;
+                checkpointNanos += lastCheckpoint - now;
+                slowestCheckpoint = Math.max(slowestCheckpoint, lastCheckpoint - now);
+            }
+
+            if (now - lastReport >= 1_000_000_000L || game.getTicks() == totalTicks)
+            {
+                double ticksPerSecond = (game.getTicks() - lastTicks) * 1e9 / (now - lastReport);
+                Model m = game.getModel();
+
+                System.out.printf("%,.0f ticks/s | simulated %ds | games %d | score %d | enemies %d, projectiles %d, items %d%n",
+                        ticksPerSecond, game.getTicks() / tickRate, game.getGamesPlayed(), m.getScore(),
+                        m.getEntityCount(Enemy.class), m.getEntityCount(Projectile.class), m.getEntityCount(Item.class));
+
+                lastReport = now;
+                lastTicks = game.getTicks();
+            }
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        if (recorder != null)
+        {
+            recorder.close();
+        }
+        System.out.printf("simulated %ds of play in %.1fs (%,.0f ticks/s on average)%n",
+                seconds, elapsed, game.getTicks() / elapsed);
+
+        Model m = game.getModel();
+        System.out.printf("pool hit rate: projectiles %.1f%%, enemies %.1f%%, items %.1f%%%n",
+                m.getProjectilePool().getHitRate() * 100, m.getEnemyPool().getHitRate() * 100,
+                m.getItemPool().getHitRate() * 100);
+        System.out.printf("queue: %,d messages merged, %,d dropped%n",
+                game.getQueue().getMergedCount(), game.getQueue().getDroppedCount());
+        if (checkpoints > 0)
+        {
+            System.out.printf("checkpoints: %d, %.2f ms on average, %.2f ms at most%n",
+                    checkpoints, checkpointNanos / 1e6 / checkpoints, slowestCheckpoint / 1e6);
+        }
+
+        for (LatencyHistogram phase : game.getController().getMetrics().getPhases())
+        {
+            System.out.printf("%-24s p50 %8.1f us | p99 %8.1f us | max %8.1f us%n",
+                    phase.getName(), phase.getP50Micros(), phase.getP99Micros(), phase.getMaxMicros());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ZombiesGame.headless;
+
+import ZombiesGame.messages.Message;
+import ZombiesGame.view.ActionTracker;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The InputScript interface replaces the keyboard, the mouse and the Swing timers when the game runs headless
+ * before every tick it decides which keys are held and which messages the view would have sent
+ */
+public interface InputScript
+{
+    /**
+     * Sets the input for the next tick
+     * @param tick number of ticks since the game started, starting at 0
+     * @param keys key states read by the model when updating the player
+     * @param queue message queue of the controller, messages put here are handled before the tick
+     */
+    public void beforeTick(long tick, ActionTracker keys, BlockingQueue<Message> queue);
+}
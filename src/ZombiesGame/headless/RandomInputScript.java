@@ -0,0 +1,86 @@
+package ZombiesGame.headless;
+
+import ZombiesGame.messages.CreateEnemyMessage;
+import ZombiesGame.messages.CreateProjectileMessage;
+import ZombiesGame.messages.Message;
+import ZombiesGame.view.ActionTracker;
+
+import java.awt.*;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input script that plays like a restless player: it walks in a random direction for a while, keeps shooting at random
+ * points on the screen and requests enemies at the same rate as the timers in GamePanel
+ */
+public class RandomInputScript implements InputScript
+{
+    // same rates as the timers in GamePanel
+    private static final int SHOTS_PER_SECOND   = 5;
+    private static final int SPAWNS_PER_SECOND  = 25;
+
+    // ticks between changes of direction
+    private static final int MOVE_INTERVAL      = 30;
+
+    private final Random r;
+    private final int tickRate;
+    private final int width;
+    private final int height;
+
+
+    /**
+     * Creates a script
+     * @param seed seed of the random choices, the same seed always gives the same input
+     * @param tickRate ticks per second, used to convert the timer rates to ticks
+     * @param width width of the screen, shots are aimed inside it
+     * @param height height of the screen, shots are aimed inside it
+     */
+    public RandomInputScript(long seed, int tickRate, int width, int height)
+    {
+        this.r          = new Random(seed);
+        this.tickRate   = tickRate;
+        this.width      = width;
+        this.height     = height;
+    }
+
+
+    /**
+     * changes direction every MOVE_INTERVAL ticks, sends projectile and enemy messages when their timers would fire
+     * @param tick number of ticks since the game started, starting at 0
+     * @param keys key states read by the model when updating the player
+     * @param queue message queue of the controller
+     */
+    @Override
+    public void beforeTick(long tick, ActionTracker keys, BlockingQueue<Message> queue)
+    {
+        if (tick % MOVE_INTERVAL == 0)
+        {
+            keys.setUp(r.nextBoolean());
+            keys.setDown(r.nextBoolean());
+            keys.setLeft(r.nextBoolean());
+            keys.setRight(r.nextBoolean());
+        }
+
+        if (isDue(tick, SHOTS_PER_SECOND))
+        {
+            queue.offer(new CreateProjectileMessage(new Point(r.nextInt(width), r.nextInt(height))));
+        }
+
+        if (isDue(tick, SPAWNS_PER_SECOND))
+        {
+            queue.offer(CreateEnemyMessage.SINGLE);
+        }
+    }
+
+
+    /**
+     * checks whether a timer firing 'perSecond' times a second would fire during the given tick
+     * @param tick number of the tick
+     * @param perSecond rate of the timer
+     * @return true if the timer fires during this tick
+     */
+    private boolean isDue(long tick, int perSecond)
+    {
+        return tick == 0 || (tick * perSecond) / tickRate != ((tick - 1) * perSecond) / tickRate;
+    }
+}
@@ -0,0 +1,496 @@
+package ZombiesGame.messages;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded message queue between the view and the controller that collapses redundant messages
+ * while an UpdateEntitiesMessage is pending, further update messages are dropped since one tick catches up just as
+ * well, and while a CreateEnemyMessage is pending, further spawn requests are added to its count. Merged messages don't
+ * take up any space, everything else is queued in order until the capacity is reached, then the OverflowPolicy decides
+ * what happens. The DROP policies only ever drop projectiles: losing a shot is harmless, but losing a new game, a
+ * screen change or a tick would leave the game stuck, so those are queued past the capacity instead
+ * the number of merged and dropped messages is counted, so a slow consumer shows up as climbing counters instead of
+ * climbing input lag
+ */
+public class CoalescingMessageQueue extends AbstractQueue<Message> implements BlockingQueue<Message>
+{
+    private final int capacity;
+    private final OverflowPolicy policy;
+
+    private final ArrayDeque<Message> messages;
+    private final ReentrantLock lock    = new ReentrantLock();
+    private final Condition notEmpty    = lock.newCondition();
+    private final Condition notFull     = lock.newCondition();
+
+    // messages still in the queue that later messages of the same kind are merged into
+    private UpdateEntitiesMessage pendingUpdate;
+    private CreateEnemyMessage pendingEnemies;
+
+    // written under the lock, read from any thread
+    private volatile long merged;
+    private volatile long dropped;
+
+
+    /**
+     * Creates an empty queue
+     * @param capacity most messages that can be pending at once
+     * @param policy what to do with messages that arrive while the queue is full
+     */
+    public CoalescingMessageQueue(int capacity, OverflowPolicy policy)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity must be at least 1, was " + capacity);
+        }
+
+        this.capacity   = capacity;
+        this.policy     = policy;
+        this.messages   = new ArrayDeque<>(capacity);
+    }
+
+
+    /**
+     * Adds a message, merging it into a pending one if possible
+     * @param message message to add
+     * @return true if the message was queued or merged, false if the queue is full and the policy is BLOCK
+     */
+    @Override
+    public boolean offer(Message message)
+    {
+        lock.lock();
+        try
+        {
+            return enqueue(message);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Adds a message, waiting for space if the queue is full and the policy is BLOCK
+     * @param message message to add
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public void put(Message message) throws InterruptedException
+    {
+        lock.lockInterruptibly();
+        try
+        {
+            while (!enqueue(message))
+            {
+                notFull.await();
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Adds a message, waiting up to the given time for space if the queue is full and the policy is BLOCK
+     * @param message message to add
+     * @param timeout how long to wait
+     * @param unit unit of the timeout
+     * @return true if the message was queued or merged, false if there was no space in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public boolean offer(Message message, long timeout, TimeUnit unit) throws InterruptedException
+    {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try
+        {
+            while (!enqueue(message))
+            {
+                if (nanos <= 0)
+                {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            return true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Takes the oldest message, waiting until one is available
+     * @return the oldest message
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public Message take() throws InterruptedException
+    {
+        lock.lockInterruptibly();
+        try
+        {
+            while (messages.isEmpty())
+            {
+                notEmpty.await();
+            }
+            return dequeue();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Takes the oldest message, waiting up to the given time until one is available
+     * @param timeout how long to wait
+     * @param unit unit of the timeout
+     * @return the oldest message, null if none arrived in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public Message poll(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try
+        {
+            while (messages.isEmpty())
+            {
+                if (nanos <= 0)
+                {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * @return the oldest message, null if the queue is empty
+     */
+    @Override
+    public Message poll()
+    {
+        lock.lock();
+        try
+        {
+            return messages.isEmpty() ? null : dequeue();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * @return the oldest message without removing it, null if the queue is empty
+     */
+    @Override
+    public Message peek()
+    {
+        lock.lock();
+        try
+        {
+            return messages.peekFirst();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * @return number of pending messages
+     */
+    @Override
+    public int size()
+    {
+        lock.lock();
+        try
+        {
+            return messages.size();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * @return number of messages that can be added before the queue is full
+     */
+    @Override
+    public int remainingCapacity()
+    {
+        lock.lock();
+        try
+        {
+            // lifecycle messages may be queued past the capacity
+            return Math.max(0, capacity - messages.size());
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Moves all pending messages to a collection
+     * @param c collection that receives the messages
+     * @return number of messages moved
+     */
+    @Override
+    public int drainTo(Collection<? super Message> c)
+    {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+
+    /**
+     * Moves up to 'maxElements' pending messages to a collection
+     * @param c collection that receives the messages
+     * @param maxElements most messages to move
+     * @return number of messages moved
+     */
+    @Override
+    public int drainTo(Collection<? super Message> c, int maxElements)
+    {
+        if (c == this)
+        {
+            throw new IllegalArgumentException("can't drain a queue into itself");
+        }
+
+        lock.lock();
+        try
+        {
+            int moved = 0;
+            while (moved < maxElements && !messages.isEmpty())
+            {
+                c.add(dequeue());
+                moved++;
+            }
+            return moved;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Removes a pending message, nothing can be merged into it afterwards
+     * @param o message to remove
+     * @return true if the message was pending
+     */
+    @Override
+    public boolean remove(Object o)
+    {
+        lock.lock();
+        try
+        {
+            if (!messages.removeFirstOccurrence(o))
+            {
+                return false;
+            }
+            if (o == pendingUpdate)
+            {
+                pendingUpdate = null;
+            }
+            else if (o == pendingEnemies)
+            {
+                pendingEnemies = null;
+            }
+            notFull.signal();
+            return true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Gets the pending messages at the time of the call
+     * removing through the iterator throws UnsupportedOperationException, so removeAll, retainAll and removeIf do as
+     * well instead of quietly removing from a copy
+     * @return iterator over a copy of the pending messages
+     */
+    @Override
+    public Iterator<Message> iterator()
+    {
+        lock.lock();
+        try
+        {
+            return Collections.unmodifiableList(new ArrayList<>(messages)).iterator();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * @return number of messages that were merged into a pending message
+     */
+    public long getMergedCount()
+    {
+        return merged;
+    }
+
+
+    /**
+     * @return number of messages dropped because the queue was full
+     */
+    public long getDroppedCount()
+    {
+        return dropped;
+    }
+
+
+    /**
+     * @return most messages that can be pending at once
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+
+    /**
+     * @return what happens to messages that arrive while the queue is full
+     */
+    public OverflowPolicy getPolicy()
+    {
+        return policy;
+    }
+
+
+    /**
+     * Merges or queues a message, the lock must be held
+     * @param message message to add
+     * @return false if the queue is full and the policy is BLOCK, true otherwise
+     */
+    private boolean enqueue(Message message)
+    {
+        if (message == null)
+        {
+            throw new NullPointerException();
+        }
+
+        // redundant update ticks and spawn requests don't need a slot of their own
+        if (message instanceof UpdateEntitiesMessage && pendingUpdate != null)
+        {
+            merged++;
+            return true;
+        }
+        if (message instanceof CreateEnemyMessage && pendingEnemies != null)
+        {
+            pendingEnemies.merge((CreateEnemyMessage) message);
+            merged++;
+            return true;
+        }
+
+        if (messages.size() >= capacity)
+        {
+            if (policy == OverflowPolicy.BLOCK)
+            {
+                return false;
+            }
+            if (message instanceof CreateProjectileMessage)
+            {
+                dropped++;
+                if (policy == OverflowPolicy.DROP_NEWEST || !removeOldestProjectile())
+                {
+                    return true;
+                }
+            }
+            // anything else isn't dropped and goes past the capacity
+        }
+
+        if (message instanceof UpdateEntitiesMessage)
+        {
+            pendingUpdate = (UpdateEntitiesMessage) message;
+        }
+        else if (message instanceof CreateEnemyMessage)
+        {
+            // later requests are merged into a copy, the sender's message may be shared
+            message = pendingEnemies = new CreateEnemyMessage(((CreateEnemyMessage) message).getCount());
+        }
+        messages.addLast(message);
+
+        notEmpty.signal();
+        return true;
+    }
+
+
+    /**
+     * Removes the oldest pending projectile to make room for a new one, the lock must be held
+     * @return true if a projectile was removed, false if none is pending
+     */
+    private boolean removeOldestProjectile()
+    {
+        Iterator<Message> it = messages.iterator();
+        while (it.hasNext())
+        {
+            if (it.next() instanceof CreateProjectileMessage)
+            {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Removes the oldest message, the lock must be held and the queue must not be empty
+     * @return the oldest message
+     */
+    private Message dequeue()
+    {
+        Message message = messages.pollFirst();
+
+        // once a message has left the queue, nothing may be merged into it anymore
+        if (message == pendingUpdate)
+        {
+            pendingUpdate = null;
+        }
+        else if (message == pendingEnemies)
+        {
+            pendingEnemies = null;
+        }
+
+        notFull.signal();
+        return message;
+    }
+}
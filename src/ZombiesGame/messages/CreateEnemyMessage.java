@@ -2,7 +2,48 @@ package ZombiesGame.messages;
 
 /**
  * The CreateEnemyMessage class is a message passed to the controller which tells the game to create an enemy
+ * A CoalescingMessageQueue merges pending spawn requests into one message, so a single message may ask for several enemies
  */
 public class CreateEnemyMessage implements Message
 {
+    // shared request for a single enemy, lets the spawn timer send messages without allocating
+    // queues only ever merge into their own copies, so this instance never changes
+    public static final CreateEnemyMessage SINGLE = new CreateEnemyMessage();
+
+    private int count;
+
+    /**
+     * Creates a message that requests a single enemy
+     */
+    public CreateEnemyMessage()
+    {
+        this(1);
+    }
+
+    /**
+     * Creates a message that requests several enemies at once
+     * @param count number of enemies to create
+     */
+    public CreateEnemyMessage(int count)
+    {
+        this.count = count;
+    }
+
+    /**
+     * This function gets the number of enemies requested by this message
+     * @return number of enemies to create
+     */
+    public int getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Adds the enemies requested by another message to this one, used while the message is still in a queue
+     * @param other message whose requests are taken over
+     */
+    void merge(CreateEnemyMessage other)
+    {
+        count += other.count;
+    }
 }
@@ -0,0 +1,14 @@
+package ZombiesGame.messages;
+
+/**
+ * What a bounded CoalescingMessageQueue does with a message that arrives while it is full
+ * only projectiles are dropped, other messages are queued past the capacity by the DROP policies
+ */
+public enum OverflowPolicy {
+    /** put() waits for space, offer() returns false */
+    BLOCK,
+    /** the new projectile is dropped */
+    DROP_NEWEST,
+    /** the oldest pending projectile is dropped to make room for the new one, or the new one if none is pending */
+    DROP_OLDEST
+}
@@ -0,0 +1,387 @@
+package ZombiesGame.messages;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer, backed by a preallocated ring of slots
+ * producers claim a slot by advancing the tail with a CAS, store the message and publish it through the sequence
+ * number of the slot. The consumer reads slots in order and hands them back to the producers the same way
+ * (Vyukov's bounded queue). Putting or taking a message doesn't allocate or take a lock, so together with the shared
+ * instances of payload-free messages, the timers of the view no longer create garbage on every tick
+ * only one thread may take messages out of the queue (the controller), any number may add them
+ * waiting on a full or empty queue is left to a WaitStrategy
+ */
+public class RingBufferMessageQueue extends AbstractQueue<Message> implements BlockingQueue<Message>
+{
+    private final int capacity;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+
+    // slot i holds the message with sequence number s where s % capacity == i
+    private final Message[] slots;
+
+    // per slot: s if it's free for the producer of message s, s + 1 once message s is published
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();   // next sequence number claimed by a producer
+    private final AtomicLong head = new AtomicLong();   // next sequence number read by the consumer
+
+    // consumer thread while it waits for a message, null otherwise
+    private volatile Thread waitingConsumer;
+
+
+    /**
+     * Creates an empty queue
+     * @param capacity most messages that can be pending at once, rounded up to a power of two (at least 2)
+     * @param waitStrategy how threads wait for messages and free slots
+     */
+    public RingBufferMessageQueue(int capacity, WaitStrategy waitStrategy)
+    {
+        if (capacity < 1 || capacity > 1 << 30)
+        {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30, was " + capacity);
+        }
+
+        // a single slot couldn't tell a published message from a slot freed for the next round
+        this.capacity       = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        this.mask           = this.capacity - 1;
+        this.waitStrategy   = waitStrategy;
+        this.slots          = new Message[this.capacity];
+        this.sequences      = new AtomicLongArray(this.capacity);
+
+        for (int i = 0; i < this.capacity; i++)
+        {
+            sequences.set(i, i);
+        }
+    }
+
+
+    /**
+     * Adds a message if a slot is free, safe to call from any thread
+     * @param message message to add
+     * @return true if the message was added, false if the queue is full
+     */
+    @Override
+    public boolean offer(Message message)
+    {
+        if (message == null)
+        {
+            throw new NullPointerException();
+        }
+
+        long sequence = tail.get();
+        int index;
+        while (true)
+        {
+            index = (int) sequence & mask;
+            long difference = sequences.get(index) - sequence;
+
+            if (difference == 0)
+            {
+                // slot is free, claim it
+                if (tail.compareAndSet(sequence, sequence + 1))
+                {
+                    break;
+                }
+                sequence = tail.get();
+            }
+            else if (difference < 0)
+            {
+                // the consumer hasn't freed the slot from the previous round yet
+                return false;
+            }
+            else
+            {
+                // another producer claimed the slot first
+                sequence = tail.get();
+            }
+        }
+
+        slots[index] = message;
+        sequences.set(index, sequence + 1); // publishes the message to the consumer
+
+        Thread consumer = waitingConsumer;
+        if (consumer != null)
+        {
+            waitStrategy.wake(consumer);
+        }
+        return true;
+    }
+
+
+    /**
+     * Adds a message, waiting for a free slot
+     * @param message message to add
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public void put(Message message) throws InterruptedException
+    {
+        while (!offer(message))
+        {
+            checkInterrupt();
+            waitStrategy.idle(WaitStrategy.PRODUCER_PARK_NANOS);
+        }
+    }
+
+
+    /**
+     * Adds a message, waiting up to the given time for a free slot
+     * @param message message to add
+     * @param timeout how long to wait
+     * @param unit unit of the timeout
+     * @return true if the message was added, false if no slot became free in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public boolean offer(Message message, long timeout, TimeUnit unit) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        while (!offer(message))
+        {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+            {
+                return false;
+            }
+            checkInterrupt();
+            waitStrategy.idle(Math.min(remaining, WaitStrategy.PRODUCER_PARK_NANOS));
+        }
+        return true;
+    }
+
+
+    /**
+     * Takes the oldest message if there is one, consumer thread only
+     * @return the oldest message, null if the queue is empty
+     */
+    @Override
+    public Message poll()
+    {
+        long sequence = head.get();
+        int index = (int) sequence & mask;
+
+        if (sequences.get(index) != sequence + 1)
+        {
+            return null;
+        }
+
+        Message message = slots[index];
+        slots[index] = null;
+
+        // the slot is free for the message one round later
+        sequences.set(index, sequence + capacity);
+        head.lazySet(sequence + 1);
+
+        return message;
+    }
+
+
+    /**
+     * Takes the oldest message, waiting until one is available, consumer thread only
+     * @return the oldest message
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public Message take() throws InterruptedException
+    {
+        return await(Long.MAX_VALUE);
+    }
+
+
+    /**
+     * Takes the oldest message, waiting up to the given time until one is available, consumer thread only
+     * @param timeout how long to wait
+     * @param unit unit of the timeout
+     * @return the oldest message, null if none arrived in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public Message poll(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return await(unit.toNanos(timeout));
+    }
+
+
+    /**
+     * @return the oldest message without removing it, null if the queue is empty, consumer thread only
+     */
+    @Override
+    public Message peek()
+    {
+        long sequence = head.get();
+        int index = (int) sequence & mask;
+
+        return sequences.get(index) == sequence + 1 ? slots[index] : null;
+    }
+
+
+    /**
+     * @return number of pending messages, including slots that are claimed but not published yet
+     */
+    @Override
+    public int size()
+    {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+
+    /**
+     * @return number of free slots
+     */
+    @Override
+    public int remainingCapacity()
+    {
+        return capacity - size();
+    }
+
+
+    /**
+     * Moves all pending messages to a collection, consumer thread only
+     * @param c collection that receives the messages
+     * @return number of messages moved
+     */
+    @Override
+    public int drainTo(Collection<? super Message> c)
+    {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+
+    /**
+     * Moves up to 'maxElements' pending messages to a collection, consumer thread only
+     * @param c collection that receives the messages
+     * @param maxElements most messages to move
+     * @return number of messages moved
+     */
+    @Override
+    public int drainTo(Collection<? super Message> c, int maxElements)
+    {
+        if (c == this)
+        {
+            throw new IllegalArgumentException("can't drain a queue into itself");
+        }
+
+        int moved = 0;
+        Message message;
+        while (moved < maxElements && (message = poll()) != null)
+        {
+            c.add(message);
+            moved++;
+        }
+        return moved;
+    }
+
+
+    /**
+     * Messages can only leave the ring in order, through the consumer
+     * @param o message to remove
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean remove(Object o)
+    {
+        throw new UnsupportedOperationException("messages can only be taken in order");
+    }
+
+
+    /**
+     * Gets the published messages, consumer thread only
+     * removing through the iterator throws UnsupportedOperationException, so removeAll, retainAll and removeIf do as
+     * well instead of quietly removing from a copy
+     * @return iterator over a copy of the published messages
+     */
+    @Override
+    public Iterator<Message> iterator()
+    {
+        List<Message> pending = new ArrayList<>();
+
+        for (long sequence = head.get(); ; sequence++)
+        {
+            int index = (int) sequence & mask;
+            if (sequences.get(index) != sequence + 1)
+            {
+                break;
+            }
+            pending.add(slots[index]);
+        }
+        return Collections.unmodifiableList(pending).iterator();
+    }
+
+
+    /**
+     * @return number of slots in the ring
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+
+    /**
+     * Waits for a message using the wait strategy
+     * @param timeoutNanos how long to wait, Long.MAX_VALUE to wait forever
+     * @return the oldest message, null if none arrived in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private Message await(long timeoutNanos) throws InterruptedException
+    {
+        Message message = poll();
+        if (message != null)
+        {
+            return message;
+        }
+
+        long now = System.nanoTime();
+        long deadline = now + timeoutNanos < now ? Long.MAX_VALUE : now + timeoutNanos; // no overflow on long waits
+        waitingConsumer = Thread.currentThread();
+        try
+        {
+            while (true)
+            {
+                // checked again after waitingConsumer is set, so a producer either sees the waiter or its message is seen
+                message = poll();
+                if (message != null)
+                {
+                    return message;
+                }
+
+                long remaining = deadline == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - System.nanoTime();
+                if (remaining <= 0)
+                {
+                    return null;
+                }
+                checkInterrupt();
+                waitStrategy.idle(remaining);
+            }
+        }
+        finally
+        {
+            waitingConsumer = null;
+        }
+    }
+
+
+    /**
+     * @throws InterruptedException if the current thread was interrupted, clearing the flag
+     */
+    private static void checkInterrupt() throws InterruptedException
+    {
+        if (Thread.interrupted())
+        {
+            throw new InterruptedException();
+        }
+    }
+}
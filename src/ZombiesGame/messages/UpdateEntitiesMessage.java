@@ -6,4 +6,6 @@ package ZombiesGame.messages;
  */
 public class UpdateEntitiesMessage implements Message
 {
+    // the message carries no data, so a single instance can be sent for every tick
+    public static final UpdateEntitiesMessage INSTANCE = new UpdateEntitiesMessage();
 }
@@ -0,0 +1,54 @@
+package ZombiesGame.messages;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a thread waits on a RingBufferMessageQueue, the consumer for a message to arrive and producers for a free slot
+ * spinning reacts fastest but keeps a core busy, parking gives the core away and relies on being woken up
+ */
+public interface WaitStrategy
+{
+    // how long producers waiting for a free slot sleep between checks, they aren't woken up by the consumer
+    long PRODUCER_PARK_NANOS = 100_000;
+
+    /** spins on the CPU, lowest latency but a fully busy core, only worth it with a core to spare for every waiter */
+    WaitStrategy BUSY_SPIN = remainingNanos -> Thread.onSpinWait();
+
+    /** gives the rest of the time slice to other threads between checks */
+    WaitStrategy YIELD = remainingNanos -> Thread.yield();
+
+    /** parks the thread until it is woken up or the time is up */
+    WaitStrategy PARK = new WaitStrategy()
+    {
+        @Override
+        public void idle(long remainingNanos)
+        {
+            if (remainingNanos == Long.MAX_VALUE)
+                LockSupport.park();
+            else
+                LockSupport.parkNanos(remainingNanos);
+        }
+
+        @Override
+        public void wake(Thread waiter)
+        {
+            LockSupport.unpark(waiter);
+        }
+    };
+
+
+    /**
+     * Waits a little before the queue is checked again, may return early at any time
+     * @param remainingNanos time left until the wait times out, Long.MAX_VALUE if the thread is sure to be woken up
+     */
+    void idle(long remainingNanos);
+
+
+    /**
+     * Wakes up the consumer after a message was added while it was waiting, nothing to do for strategies that don't sleep
+     * @param waiter the waiting consumer thread
+     */
+    default void wake(Thread waiter)
+    {
+    }
+}
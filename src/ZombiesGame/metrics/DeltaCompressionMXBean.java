@@ -0,0 +1,42 @@
+package ZombiesGame.metrics;
+
+/**
+ * JMX view of the delta compression of the frames sent to network clients
+ */
+public interface DeltaCompressionMXBean
+{
+    /**
+     * @return number of delta frames encoded so far
+     */
+    long getFrameCount();
+
+    /**
+     * @return number of full frames encoded for clients that joined or fell behind
+     */
+    long getKeyframeCount();
+
+    /**
+     * @return bytes a frame would take with the full entity list, averaged over the last full second
+     */
+    double getRawBytesPerTick();
+
+    /**
+     * @return bytes a delta frame took, averaged over the last full second
+     */
+    double getEncodedBytesPerTick();
+
+    /**
+     * @return encoded bytes divided by raw bytes over the last full second, 0 if nothing was encoded
+     */
+    double getCompressionRatio();
+
+    /**
+     * @return bytes all frames would have taken with the full entity list
+     */
+    long getRawBytes();
+
+    /**
+     * @return bytes all delta frames took
+     */
+    long getEncodedBytes();
+}
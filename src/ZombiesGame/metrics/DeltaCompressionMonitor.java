@@ -0,0 +1,111 @@
+package ZombiesGame.metrics;
+
+/**
+ * Tracks how much delta compression saves: for every encoded frame the size it would have with the full entity list
+ * and the size it actually has are added up, and turned into averages per tick once per second
+ */
+public class DeltaCompressionMonitor implements DeltaCompressionMXBean
+{
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    // written by the thread encoding the frames only
+    private long windowStart = System.nanoTime();
+    private long windowFrames;
+    private long windowRawBytes;
+    private long windowEncodedBytes;
+
+    private volatile long frames;
+    private volatile long keyframes;
+    private volatile long rawBytes;
+    private volatile long encodedBytes;
+    private volatile double rawBytesPerTick;
+    private volatile double encodedBytesPerTick;
+
+
+    /**
+     * Counts an encoded delta frame, must be called from the thread encoding the frames
+     * @param raw bytes the frame would take with the full entity list
+     * @param encoded bytes the delta took
+     * @param now current time in nanoseconds (System.nanoTime)
+     */
+    public void frameEncoded(int raw, int encoded, long now)
+    {
+        frames          = frames + 1;
+        rawBytes        = rawBytes + raw;
+        encodedBytes    = encodedBytes + encoded;
+
+        windowFrames++;
+        windowRawBytes      += raw;
+        windowEncodedBytes  += encoded;
+
+        if (now - windowStart >= WINDOW_NANOS)
+        {
+            rawBytesPerTick     = (double) windowRawBytes / windowFrames;
+            encodedBytesPerTick = (double) windowEncodedBytes / windowFrames;
+            windowStart         = now;
+            windowFrames        = 0;
+            windowRawBytes      = 0;
+            windowEncodedBytes  = 0;
+        }
+    }
+
+
+    /**
+     * Counts a full frame encoded for a client that has to catch up, must be called from the thread encoding the
+     * frames
+     */
+    public void keyframeEncoded()
+    {
+        keyframes = keyframes + 1;
+    }
+
+
+    @Override
+    public long getFrameCount()
+    {
+        return frames;
+    }
+
+
+    @Override
+    public long getKeyframeCount()
+    {
+        return keyframes;
+    }
+
+
+    @Override
+    public double getRawBytesPerTick()
+    {
+        return rawBytesPerTick;
+    }
+
+
+    @Override
+    public double getEncodedBytesPerTick()
+    {
+        return encodedBytesPerTick;
+    }
+
+
+    @Override
+    public double getCompressionRatio()
+    {
+        double raw = rawBytesPerTick;
+        return raw > 0 ? encodedBytesPerTick / raw : 0;
+    }
+
+
+    @Override
+    public long getRawBytes()
+    {
+        return rawBytes;
+    }
+
+
+    @Override
+    public long getEncodedBytes()
+    {
+        return encodedBytes;
+    }
+}
@@ -0,0 +1,246 @@
+package ZombiesGame.metrics;
+
+import ZombiesGame.messages.Message;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * All performance metrics of a single game: latency of every valve and every Model phase, the state of the
+ * message queue, and the delta compression of frames when the game is served to network clients
+ * the histograms are created up front by the controller, recording never allocates. publish() makes everything
+ * visible as MBeans under the "ZombiesGame" domain, so it can be watched with jconsole or any other JMX client
+ */
+public class GameMetrics
+{
+    public static final String DOMAIN = "ZombiesGame";
+
+    // Model phases, the whole tick and building the data for the view
+    private final LatencyHistogram tick                     = new LatencyHistogram("tick");
+    private final LatencyHistogram updateEntities           = new LatencyHistogram("updateEntities");
+    private final LatencyHistogram checkCollisions          = new LatencyHistogram("checkCollisions");
+    private final LatencyHistogram checkBoundaryCollisions  = new LatencyHistogram("checkBoundaryCollisions");
+    private final LatencyHistogram removeInactive           = new LatencyHistogram("removeInactive");
+    private final LatencyHistogram getGameStatus            = new LatencyHistogram("getGameStatus");
+
+    // how late ticks start compared to when the fixed timestep has them due
+    private final LatencyHistogram tickJitter               = new LatencyHistogram("tickJitter");
+
+    // valves by the class of message they handle, in registration order
+    private final Map<Class<? extends Message>, LatencyHistogram> valves = new LinkedHashMap<>();
+
+    private final MessageQueueMonitor queue;
+
+    // only counts anything while a GameServer encodes the frames of the game
+    private final DeltaCompressionMonitor delta = new DeltaCompressionMonitor();
+
+    // names the MBeans were published under, empty until publish() is called
+    private final List<ObjectName> published = new ArrayList<>();
+
+
+    /**
+     * @param queue the queue the controller takes its messages from
+     */
+    public GameMetrics(BlockingQueue<Message> queue)
+    {
+        this.queue = new MessageQueueMonitor(queue);
+    }
+
+
+    /**
+     * Creates the histogram for the valve handling a class of messages, done while the valves are registered
+     * @param type class of messages
+     * @return the new histogram
+     */
+    public LatencyHistogram addValve(Class<? extends Message> type)
+    {
+        LatencyHistogram histogram = new LatencyHistogram(type.getSimpleName());
+        valves.put(type, histogram);
+        return histogram;
+    }
+
+
+    /**
+     * Registers all metrics with the platform MBean server
+     * @param game name that tells this game apart from others in the same JVM, used as the "game" key of the names
+     * @throws IllegalStateException if the metrics can't be registered, for example because the name is taken
+     */
+    public void publish(String game)
+    {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+            for (LatencyHistogram phase : getPhases())
+            {
+                register(server, phase, name(game, "Phase", phase.getName()));
+            }
+            for (LatencyHistogram valve : valves.values())
+            {
+                register(server, valve, name(game, "Valve", valve.getName()));
+            }
+            register(server, tickJitter, name(game, "Clock", tickJitter.getName()));
+            register(server, queue, name(game, "Queue", "messages"));
+            register(server, delta, name(game, "Delta", "frames"));
+        }
+        catch (JMException e)
+        {
+            unpublish();
+            throw new IllegalStateException("could not publish the metrics of game " + game, e);
+        }
+    }
+
+
+    /**
+     * Removes all metrics from the platform MBean server again, nothing happens if they were never published
+     */
+    public void unpublish()
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : published)
+        {
+            try
+            {
+                server.unregisterMBean(name);
+            }
+            catch (JMException e)
+            {
+                // already gone
+            }
+        }
+        published.clear();
+    }
+
+
+    /**
+     * @return histograms of the tick, the Model phases and getGameStatus, in that order
+     */
+    public List<LatencyHistogram> getPhases()
+    {
+        return List.of(tick, updateEntities, checkCollisions, checkBoundaryCollisions, removeInactive, getGameStatus);
+    }
+
+
+    /**
+     * @return histograms of the valves by the class of message they handle
+     */
+    public Map<Class<? extends Message>, LatencyHistogram> getValves()
+    {
+        return Collections.unmodifiableMap(valves);
+    }
+
+
+    /**
+     * @return latency of a whole tick
+     */
+    public LatencyHistogram getTick()
+    {
+        return tick;
+    }
+
+
+    /**
+     * @return latency of Model.updateEntities
+     */
+    public LatencyHistogram getUpdateEntities()
+    {
+        return updateEntities;
+    }
+
+
+    /**
+     * @return latency of Model.checkCollisions
+     */
+    public LatencyHistogram getCheckCollisions()
+    {
+        return checkCollisions;
+    }
+
+
+    /**
+     * @return latency of Model.checkBoundaryCollisions
+     */
+    public LatencyHistogram getCheckBoundaryCollisions()
+    {
+        return checkBoundaryCollisions;
+    }
+
+
+    /**
+     * @return latency of Model.removeInactive
+     */
+    public LatencyHistogram getRemoveInactive()
+    {
+        return removeInactive;
+    }
+
+
+    /**
+     * @return latency of Model.getGameStatus
+     */
+    public LatencyHistogram getGetGameStatus()
+    {
+        return getGameStatus;
+    }
+
+
+    /**
+     * @return how late ticks started, recorded by whatever runs the fixed timestep
+     */
+    public LatencyHistogram getTickJitter()
+    {
+        return tickJitter;
+    }
+
+
+    /**
+     * @return depth and throughput of the message queue
+     */
+    public MessageQueueMonitor getQueue()
+    {
+        return queue;
+    }
+
+
+    /**
+     * @return bytes per frame before and after delta compression
+     */
+    public DeltaCompressionMonitor getDelta()
+    {
+        return delta;
+    }
+
+
+    /**
+     * @param server server to register with
+     * @param bean the MXBean
+     * @param name name to register it under
+     * @throws JMException if the registration fails
+     */
+    private void register(MBeanServer server, Object bean, ObjectName name) throws JMException
+    {
+        server.registerMBean(bean, name);
+        published.add(name);
+    }
+
+
+    /**
+     * @param game name of the game
+     * @param type kind of metric
+     * @param name name of the metric
+     * @return object name under the DOMAIN
+     * @throws JMException if the name isn't valid
+     */
+    private static ObjectName name(String game, String type, String name) throws JMException
+    {
+        return new ObjectName(DOMAIN + ":game=" + ObjectName.quote(game) + ",type=" + type + ",name=" + name);
+    }
+}
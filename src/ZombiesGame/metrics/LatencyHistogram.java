@@ -0,0 +1,236 @@
+package ZombiesGame.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bucket histogram of latencies in nanoseconds
+ * every power of two is split into 16 linear buckets, so a bucket is never wider than 1/16 of its values, from single
+ * nanoseconds up to about 18 minutes (longer latencies land in the last bucket). The buckets are allocated once,
+ * recording a latency is a couple of shifts and a store
+ * latencies are recorded by one thread at a time (the simulation thread), while any thread may read them
+ */
+public class LatencyHistogram implements LatencyHistogramMXBean
+{
+    // linear buckets per power of two, as a number of bits
+    private static final int SUB_BITS       = 4;
+    private static final int SUB_BUCKETS    = 1 << SUB_BITS;
+
+    // highest power of two with buckets of its own
+    private static final int MAX_EXPONENT   = 40;
+
+    /** number of buckets of every histogram */
+    public static final int BUCKETS         = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalNanos  = new AtomicLong();
+    private final AtomicLong maxNanos    = new AtomicLong();
+
+
+    /**
+     * Creates an empty histogram
+     * @param name what is measured, shown in JMX and the overlay
+     */
+    public LatencyHistogram(String name)
+    {
+        this.name = name;
+    }
+
+
+    /**
+     * Records a single latency, must not be called by two threads at once
+     * the single writer only needs ordered stores, no atomic read-modify-write
+     * @param nanos the latency in nanoseconds, negative values count as 0
+     */
+    public void record(long nanos)
+    {
+        if (nanos < 0)
+        {
+            nanos = 0;
+        }
+
+        int bucket = bucketOf(nanos);
+        counts.lazySet(bucket, counts.get(bucket) + 1);
+        totalNanos.lazySet(totalNanos.get() + nanos);
+        if (nanos > maxNanos.get())
+        {
+            maxNanos.lazySet(nanos);
+        }
+    }
+
+
+    /**
+     * Copies the current bucket counts, used to compute percentiles over a window by subtracting two copies
+     * @param into array of at least BUCKETS entries
+     */
+    public void copyCounts(long[] into)
+    {
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            into[i] = counts.get(i);
+        }
+    }
+
+
+    /**
+     * Gets a percentile of the latencies in a set of bucket counts
+     * @param counts bucket counts, as copied by copyCounts or the difference of two copies
+     * @param percentile percentile between 0 and 100
+     * @return upper bound of the bucket holding the percentile in nanoseconds, 0 if the counts are empty
+     */
+    public static long percentile(long[] counts, double percentile)
+    {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            total += counts[i];
+        }
+        if (total == 0)
+        {
+            return 0;
+        }
+
+        // rank of the wanted latency, counting from 1
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            seen += counts[i];
+            if (seen >= rank)
+            {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+
+    /**
+     * Gets a percentile of all latencies recorded so far
+     * walks the live buckets, so the result may already include latencies recorded during the call
+     * @param percentile percentile between 0 and 100
+     * @return upper bound of the bucket holding the percentile in nanoseconds, 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile)
+    {
+        long[] copy = new long[BUCKETS];
+        copyCounts(copy);
+        return percentile(copy, percentile);
+    }
+
+
+    /**
+     * @return what is measured
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+
+    /**
+     * @return number of recorded latencies
+     */
+    @Override
+    public long getCount()
+    {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+
+    /**
+     * @return average latency in microseconds, 0 if nothing was recorded
+     */
+    @Override
+    public double getMeanMicros()
+    {
+        long count = getCount();
+        return count == 0 ? 0 : totalNanos.get() / NANOS_PER_MICRO / count;
+    }
+
+
+    @Override
+    public double getP50Micros()
+    {
+        return getPercentileNanos(50) / NANOS_PER_MICRO;
+    }
+
+
+    @Override
+    public double getP90Micros()
+    {
+        return getPercentileNanos(90) / NANOS_PER_MICRO;
+    }
+
+
+    @Override
+    public double getP99Micros()
+    {
+        return getPercentileNanos(99) / NANOS_PER_MICRO;
+    }
+
+
+    @Override
+    public double getP999Micros()
+    {
+        return getPercentileNanos(99.9) / NANOS_PER_MICRO;
+    }
+
+
+    @Override
+    public double getMaxMicros()
+    {
+        return maxNanos.get() / NANOS_PER_MICRO;
+    }
+
+
+    /**
+     * Maps a latency to its bucket
+     * values below SUB_BUCKETS get a bucket each, above that every power of two 2^e is split into SUB_BUCKETS
+     * buckets by the SUB_BITS bits below its highest bit
+     * @param nanos latency, not negative
+     * @return index of the bucket
+     */
+    static int bucketOf(long nanos)
+    {
+        if (nanos < SUB_BUCKETS)
+        {
+            return (int) nanos;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT)
+        {
+            return BUCKETS - 1;
+        }
+
+        int shift = exponent - SUB_BITS;
+        int sub = (int) (nanos >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+
+    /**
+     * @param bucket index of a bucket
+     * @return highest latency that falls in the bucket
+     */
+    static long upperBound(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+        {
+            return bucket;
+        }
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
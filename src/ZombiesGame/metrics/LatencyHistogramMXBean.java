@@ -0,0 +1,43 @@
+package ZombiesGame.metrics;
+
+/**
+ * JMX view of a LatencyHistogram, all times in microseconds
+ * percentiles are the upper bound of the bucket they fall in, at most 1/16 above the real value
+ */
+public interface LatencyHistogramMXBean
+{
+    /**
+     * @return number of recorded latencies
+     */
+    long getCount();
+
+    /**
+     * @return average latency
+     */
+    double getMeanMicros();
+
+    /**
+     * @return median latency
+     */
+    double getP50Micros();
+
+    /**
+     * @return 90th percentile latency
+     */
+    double getP90Micros();
+
+    /**
+     * @return 99th percentile latency
+     */
+    double getP99Micros();
+
+    /**
+     * @return 99.9th percentile latency
+     */
+    double getP999Micros();
+
+    /**
+     * @return highest recorded latency
+     */
+    double getMaxMicros();
+}
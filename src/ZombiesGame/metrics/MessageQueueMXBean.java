@@ -0,0 +1,37 @@
+package ZombiesGame.metrics;
+
+/**
+ * JMX view of the message queue between the view and the controller
+ */
+public interface MessageQueueMXBean
+{
+    /**
+     * @return number of messages waiting to be handled
+     */
+    int getDepth();
+
+    /**
+     * @return number of messages that can be added before the queue is full, Integer.MAX_VALUE if it's unbounded
+     */
+    int getRemainingCapacity();
+
+    /**
+     * @return number of messages handled by the controller so far
+     */
+    long getMessageCount();
+
+    /**
+     * @return messages handled per second, measured over the last full second
+     */
+    double getMessagesPerSecond();
+
+    /**
+     * @return messages merged into pending ones, 0 if the queue doesn't coalesce
+     */
+    long getMergedCount();
+
+    /**
+     * @return messages dropped because the queue was full, 0 if the queue doesn't drop messages
+     */
+    long getDroppedCount();
+}
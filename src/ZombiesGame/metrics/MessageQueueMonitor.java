@@ -0,0 +1,98 @@
+package ZombiesGame.metrics;
+
+import ZombiesGame.messages.CoalescingMessageQueue;
+import ZombiesGame.messages.Message;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Tracks the message queue of a controller: its depth is read from the queue when asked for, the handled messages
+ * are counted by the controller and turned into a rate once per second
+ */
+public class MessageQueueMonitor implements MessageQueueMXBean
+{
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private final BlockingQueue<Message> queue;
+
+    // written by the thread handling the messages only
+    private long windowStart;
+    private long windowMessages;
+    private volatile long messages;
+    private volatile double messagesPerSecond;
+    private volatile long lastWindowEnd;
+
+
+    /**
+     * @param queue the queue to monitor
+     */
+    public MessageQueueMonitor(BlockingQueue<Message> queue)
+    {
+        this.queue          = queue;
+        this.windowStart    = System.nanoTime();
+        this.lastWindowEnd  = windowStart;
+    }
+
+
+    /**
+     * Counts a handled message, must be called from the thread handling the messages
+     * @param now current time in nanoseconds (System.nanoTime)
+     */
+    public void messageHandled(long now)
+    {
+        windowMessages++;
+        messages = messages + 1;
+
+        long elapsed = now - windowStart;
+        if (elapsed >= WINDOW_NANOS)
+        {
+            messagesPerSecond   = windowMessages * 1e9 / elapsed;
+            lastWindowEnd       = now;
+            windowStart         = now;
+            windowMessages      = 0;
+        }
+    }
+
+
+    @Override
+    public int getDepth()
+    {
+        return queue.size();
+    }
+
+
+    @Override
+    public int getRemainingCapacity()
+    {
+        return queue.remainingCapacity();
+    }
+
+
+    @Override
+    public long getMessageCount()
+    {
+        return messages;
+    }
+
+
+    @Override
+    public double getMessagesPerSecond()
+    {
+        // no message for a whole window means the rate dropped to 0, even though no window was closed
+        return System.nanoTime() - lastWindowEnd > 2 * WINDOW_NANOS ? 0 : messagesPerSecond;
+    }
+
+
+    @Override
+    public long getMergedCount()
+    {
+        return queue instanceof CoalescingMessageQueue ? ((CoalescingMessageQueue) queue).getMergedCount() : 0;
+    }
+
+
+    @Override
+    public long getDroppedCount()
+    {
+        return queue instanceof CoalescingMessageQueue ? ((CoalescingMessageQueue) queue).getDroppedCount() : 0;
+    }
+}
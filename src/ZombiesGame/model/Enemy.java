@@ -19,6 +19,16 @@ public class Enemy extends Entity
 	}
 
 
+	/**
+	 * @return type tag of enemies in the EntityStore
+	 */
+	@Override
+	byte getTypeTag()
+	{
+		return EntityStore.ENEMY;
+	}
+
+
 	/**
 	 * get enemy hitbox for collision checks
 	 * @return Rectangle with width and height of 64, at position of enemy
@@ -26,11 +36,11 @@ public class Enemy extends Entity
 	@Override
 	public Rectangle getHitBox()
 	{
-		int hitboxWidth 	= 64;
-		int hitboxHeight 	= 64;
+		int hitboxWidth 	= HitBoxes.SIZE[EntityStore.ENEMY];
+		int hitboxHeight 	= HitBoxes.SIZE[EntityStore.ENEMY];
 
 		// creates hit box that should be in the center of the enemy;
-		return new Rectangle(x, y, hitboxWidth, hitboxHeight);
+		return new Rectangle(getX(), getY(), hitboxWidth, hitboxHeight);
 	}
 
 
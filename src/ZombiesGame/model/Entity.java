@@ -6,18 +6,23 @@ import java.awt.*;
  * abstract class inherited by all game objects,
  * stores data about position, velocity, activity, collision
  * defines common methods for updating position, activity, collision, and checking for collision
+ * once added to a Model, the data is kept in the model's EntityStore and this object acts as a view of its slot
  */
 public abstract class Entity
 {
-	// entity collision and activity state
-	protected boolean isColliding;
+	// entity collision and activity state, used while the entity is not stored in a model
+	private boolean isColliding;
 	private boolean isActive;
 
-	// entity positions and velocities
-	protected int x;
-	protected int y;
-	protected int dx;
-	protected int dy;
+	// entity positions and velocities, used while the entity is not stored in a model
+	private int x;
+	private int y;
+	private int dx;
+	private int dy;
+
+	// store and slot holding this entity's data, null while the entity is not part of a model
+	private EntityStore store;
+	private int slot;
 
 
 	/**
@@ -40,8 +45,16 @@ public abstract class Entity
 	 */
 	public void translate()
 	{
-		 x += dx;
-		 y += dy;
+		if (store != null)
+		{
+			store.x[slot] += store.dx[slot];
+			store.y[slot] += store.dy[slot];
+		}
+		else
+		{
+			x += dx;
+			y += dy;
+		}
 	}
 
 
@@ -51,7 +64,10 @@ public abstract class Entity
 	 */
 	public void setInactive()
 	{
-		isActive = false;
+		if (store != null)
+			store.setActive(slot, false);
+		else
+			isActive = false;
 	}
 
 
@@ -61,7 +77,7 @@ public abstract class Entity
 	 */
 	public int getX()
 	{
-		return x;
+		return store != null ? store.x[slot] : x;
 	}
 
 
@@ -71,7 +87,47 @@ public abstract class Entity
 	 */
 	public int getY()
 	{
-		return y;
+		return store != null ? store.y[slot] : y;
+	}
+
+
+	/**
+	 * Gets the x component of entity velocity
+	 * @return change in x per call to translate
+	 */
+	public int getDx()
+	{
+		return store != null ? store.dx[slot] : dx;
+	}
+
+
+	/**
+	 * Gets the y component of entity velocity
+	 * @return change in y per call to translate
+	 */
+	public int getDy()
+	{
+		return store != null ? store.dy[slot] : dy;
+	}
+
+
+	/**
+	 * Sets the velocity of the entity
+	 * @param dx change in x per call to translate
+	 * @param dy change in y per call to translate
+	 */
+	protected void setVelocity(int dx, int dy)
+	{
+		if (store != null)
+		{
+			store.dx[slot] = dx;
+			store.dy[slot] = dy;
+		}
+		else
+		{
+			this.dx = dx;
+			this.dy = dy;
+		}
 	}
 
 
@@ -81,13 +137,76 @@ public abstract class Entity
 	 */
 	public boolean isActive()
 	{
-		return this.isActive;
+		return store != null ? store.isActive(slot) : isActive;
+	}
+
+
+	/**
+	 * Gets whether the entity is currently colliding with another enemy
+	 * @return true if a collision changed the velocity of this entity during the last collision check
+	 */
+	boolean isColliding()
+	{
+		return store != null ? store.isColliding(slot) : isColliding;
 	}
 
 
+	/**
+	 * Brings an entity that was removed from a game back to its initial state, so it can be added again
+	 * Only used on entities that aren't stored in a model
+	 * @param x integer value specifying the x-coordinates of entity
+	 * @param y integer value specifying the y-coordinates of entity
+	 * @param dx velocity in x
+	 * @param dy velocity in y
+	 */
+	void reset(int x, int y, int dx, int dy)
+	{
+		this.x      = x;
+		this.y      = y;
+		this.dx     = dx;
+		this.dy     = dy;
+		isActive    = true;
+		isColliding = false;
+	}
+
+
+	/**
+	 * Binds this entity to a slot of a store, all reads and writes go to the store from then on
+	 * @param store store that holds the entity data
+	 * @param slot slot of the entity in the store
+	 */
+	void bind(EntityStore store, int slot)
+	{
+		this.store = store;
+		this.slot  = slot;
+	}
+
+
+	/**
+	 * Copies the data from the store back into this entity and detaches it, called when it's removed from a model
+	 */
+	void unbind()
+	{
+		x           = store.x[slot];
+		y           = store.y[slot];
+		dx          = store.dx[slot];
+		dy          = store.dy[slot];
+		isActive    = store.isActive(slot);
+		isColliding = store.isColliding(slot);
+		store       = null;
+	}
+
+
+	/**
+	 * Gets the tag identifying the kind of entity in the EntityStore type column
+	 * @return one of the type constants defined in EntityStore
+	 */
+	abstract byte getTypeTag();
+
+
 	/**
 	 * Gets hitbox defined by a rectangle
-	 * Used for collision checks
+	 * Model checks collisions on its columns through HitBoxes, this creates a new Rectangle on every call
 	 * @return Rectangle with specific width and height, created at center of entity sprite
 	 */
 	public abstract Rectangle getHitBox();
@@ -0,0 +1,117 @@
+package ZombiesGame.model;
+
+/**
+ * Bounded pool of entities of one type that were removed from the game
+ * Model takes entities from here before creating new ones, so a long game doesn't keep allocating projectiles, enemies
+ * and items. Once the pool is full, removed entities are left to the garbage collector
+ * @param <T> type of the pooled entities
+ */
+public class EntityPool<T extends Entity>
+{
+    private final Object[] entities;
+    private int size;
+
+    // statistics
+    private long hits;
+    private long misses;
+    private int highWaterMark;
+
+
+    /**
+     * Creates an empty pool
+     * @param capacity most entities the pool holds at once
+     */
+    EntityPool(int capacity)
+    {
+        entities = new Object[capacity];
+    }
+
+
+    /**
+     * Takes an entity out of the pool, the caller has to reset it before adding it to the game
+     * @return an entity that is no longer part of any game, null if the pool is empty
+     */
+    @SuppressWarnings("unchecked")
+    T obtain()
+    {
+        if (size == 0)
+        {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        T e = (T) entities[--size];
+        entities[size] = null;
+        return e;
+    }
+
+
+    /**
+     * Returns an entity that was removed from the game to the pool
+     * @param e entity to keep for later, dropped if the pool is full
+     */
+    void release(T e)
+    {
+        if (size < entities.length)
+        {
+            entities[size++] = e;
+            highWaterMark = Math.max(highWaterMark, size);
+        }
+    }
+
+
+    /**
+     * @return number of entities taken from the pool instead of being created
+     */
+    public long getHits()
+    {
+        return hits;
+    }
+
+
+    /**
+     * @return number of times the pool was empty and a new entity had to be created
+     */
+    public long getMisses()
+    {
+        return misses;
+    }
+
+
+    /**
+     * @return share of requests served from the pool, between 0 and 1
+     */
+    public double getHitRate()
+    {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+
+    /**
+     * @return most entities that were held by the pool at the same time
+     */
+    public int getHighWaterMark()
+    {
+        return highWaterMark;
+    }
+
+
+    /**
+     * @return number of entities currently held by the pool
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+
+    /**
+     * @return most entities the pool can hold
+     */
+    public int getCapacity()
+    {
+        return entities.length;
+    }
+}
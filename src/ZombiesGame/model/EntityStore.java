@@ -0,0 +1,223 @@
+package ZombiesGame.model;
+
+import java.util.Arrays;
+
+/**
+ * Columnar storage for all entities in a game
+ * position and velocity live in primitive int columns, the kind of entity in a byte column and activity/collision
+ * state in bitsets, so the per-tick loops in Model walk flat arrays instead of chasing object references
+ * Entity objects stay around as thin views: while an entity is stored here, its getters and setters read and write
+ * the columns at its slot
+ * slots are kept in insertion order, the player is always assumed to be in slot 0
+ * every added entity gets the next id of a counter that is never reset, so ids are stable while an entity is stored,
+ * never reused, and ascending in slot order
+ * the position before the last move is kept as well, so the renderer can draw entities in between two ticks
+ */
+class EntityStore
+{
+    // type tags stored in the type column
+    static final byte PLAYER        = 0;
+    static final byte ENEMY         = 1;
+    static final byte PROJECTILE    = 2;
+    static final byte ITEM          = 3;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // number of occupied slots
+    int size;
+
+    // id of the next added entity
+    private int nextId;
+
+    // entity columns, indexed by slot
+    int[] x         = new int[INITIAL_CAPACITY];
+    int[] y         = new int[INITIAL_CAPACITY];
+    int[] dx        = new int[INITIAL_CAPACITY];
+    int[] dy        = new int[INITIAL_CAPACITY];
+    int[] prevX     = new int[INITIAL_CAPACITY];
+    int[] prevY     = new int[INITIAL_CAPACITY];
+    int[] id        = new int[INITIAL_CAPACITY];
+    byte[] type     = new byte[INITIAL_CAPACITY];
+    Entity[] views  = new Entity[INITIAL_CAPACITY];
+
+    // one bit per slot
+    long[] active       = new long[INITIAL_CAPACITY / 64];
+    long[] colliding    = new long[INITIAL_CAPACITY / 64];
+
+
+    /**
+     * adds an entity to the end of the store, copying its current state into the columns and binding it to its slot
+     * @param e entity to add, must not already be stored
+     * @return slot that the entity was stored in
+     */
+    int add(Entity e)
+    {
+        if (size == x.length)
+        {
+            grow();
+        }
+
+        int slot = size++;
+        x[slot]     = e.getX();
+        y[slot]     = e.getY();
+        dx[slot]    = e.getDx();
+        dy[slot]    = e.getDy();
+        prevX[slot] = x[slot];
+        prevY[slot] = y[slot];
+        id[slot]    = nextId++;
+        type[slot]  = e.getTypeTag();
+        setActive(slot, e.isActive());
+        setColliding(slot, e.isColliding());
+
+        views[slot] = e;
+        e.bind(this, slot);
+
+        return slot;
+    }
+
+
+    /**
+     * removes all entities from the store, detached views keep their last state
+     */
+    void clear()
+    {
+        for (int i = 0; i < size; i++)
+        {
+            views[i].unbind();
+            views[i] = null;
+        }
+        size = 0;
+    }
+
+
+    /**
+     * removes every inactive entity except the player, keeping the remaining entities in their current order
+     * @return number of entities removed
+     */
+    int removeInactive()
+    {
+        int kept = 0;
+
+        for (int i = 0; i < size; i++)
+        {
+            if (isActive(i) || type[i] == PLAYER)
+            {
+                if (kept != i)
+                {
+                    move(i, kept);
+                }
+                kept++;
+            }
+            else
+            {
+                views[i].unbind();
+            }
+        }
+
+        Arrays.fill(views, kept, size, null);
+        int removed = size - kept;
+        size = kept;
+
+        return removed;
+    }
+
+
+    /**
+     * @param slot slot to check
+     * @return true if the entity in the slot is active
+     */
+    boolean isActive(int slot)
+    {
+        return (active[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+
+    /**
+     * @param slot slot to change
+     * @param value new activity state of the entity in the slot
+     */
+    void setActive(int slot, boolean value)
+    {
+        if (value)
+            active[slot >>> 6] |= 1L << slot;
+        else
+            active[slot >>> 6] &= ~(1L << slot);
+    }
+
+
+    /**
+     * @param slot slot to check
+     * @return true if the entity in the slot is currently colliding with another enemy
+     */
+    boolean isColliding(int slot)
+    {
+        return (colliding[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+
+    /**
+     * @param slot slot to change
+     * @param value new collision state of the entity in the slot
+     */
+    void setColliding(int slot, boolean value)
+    {
+        if (value)
+            colliding[slot >>> 6] |= 1L << slot;
+        else
+            colliding[slot >>> 6] &= ~(1L << slot);
+    }
+
+
+    /**
+     * resets the collision state of every entity
+     */
+    void clearColliding()
+    {
+        Arrays.fill(colliding, 0L);
+    }
+
+
+    /**
+     * moves an entity to a lower slot during compaction, rebinding its view
+     * @param from current slot of the entity
+     * @param to slot to move the entity to
+     */
+    private void move(int from, int to)
+    {
+        x[to]       = x[from];
+        y[to]       = y[from];
+        dx[to]      = dx[from];
+        dy[to]      = dy[from];
+        prevX[to]   = prevX[from];
+        prevY[to]   = prevY[from];
+        id[to]      = id[from];
+        type[to]    = type[from];
+        setActive(to, isActive(from));
+        setColliding(to, isColliding(from));
+
+        views[to] = views[from];
+        views[to].bind(this, to);
+    }
+
+
+    /**
+     * doubles the capacity of every column
+     */
+    private void grow()
+    {
+        int capacity = x.length * 2;
+
+        x       = Arrays.copyOf(x, capacity);
+        y       = Arrays.copyOf(y, capacity);
+        dx      = Arrays.copyOf(dx, capacity);
+        dy      = Arrays.copyOf(dy, capacity);
+        prevX   = Arrays.copyOf(prevX, capacity);
+        prevY   = Arrays.copyOf(prevY, capacity);
+        id      = Arrays.copyOf(id, capacity);
+        type    = Arrays.copyOf(type, capacity);
+        views   = Arrays.copyOf(views, capacity);
+
+        active      = Arrays.copyOf(active, capacity / 64);
+        colliding   = Arrays.copyOf(colliding, capacity / 64);
+    }
+}
@@ -0,0 +1,211 @@
+package ZombiesGame.model;
+
+import java.util.Arrays;
+
+/**
+ * Everything the view needs to draw one frame: the id, type, position and item kind of every entity plus the scores
+ * the position every entity had before the last tick is included, so the renderer can interpolate between the two
+ * snapshots are filled by the model and handed to the renderer through a SnapshotExchange. The renderer only gets
+ * read access, and a snapshot isn't written to again until the renderer has let go of it
+ */
+public class FrameSnapshot
+{
+    // entity types, same values as the type tags of the model
+    public static final byte PLAYER     = EntityStore.PLAYER;
+    public static final byte ENEMY      = EntityStore.ENEMY;
+    public static final byte PROJECTILE = EntityStore.PROJECTILE;
+    public static final byte ITEM       = EntityStore.ITEM;
+
+    private int count;
+    private int[] id        = new int[64];
+    private byte[] type     = new byte[64];
+    private byte[] itemType = new byte[64];
+    private int[] x         = new int[64];
+    private int[] y         = new int[64];
+    private int[] prevX     = new int[64];
+    private int[] prevY     = new int[64];
+
+    private int score;
+    private int highScore;
+
+
+    /**
+     * Copies the current state of the game into this snapshot, growing the arrays if needed
+     * @param entities entities of the game
+     * @param score current score
+     * @param highScore current high score
+     */
+    void fill(EntityStore entities, int score, int highScore)
+    {
+        setCount(entities.size);
+
+        System.arraycopy(entities.id, 0, id, 0, count);
+        System.arraycopy(entities.type, 0, type, 0, count);
+        System.arraycopy(entities.x, 0, x, 0, count);
+        System.arraycopy(entities.y, 0, y, 0, count);
+        System.arraycopy(entities.prevX, 0, prevX, 0, count);
+        System.arraycopy(entities.prevY, 0, prevY, 0, count);
+
+        for (int i = 0; i < count; i++)
+        {
+            itemType[i] = type[i] == ITEM ? (byte) ((Item) entities.views[i]).getType() : 0;
+        }
+
+        this.score      = score;
+        this.highScore  = highScore;
+    }
+
+
+    /**
+     * Starts filling this snapshot entity by entity, used by whatever builds frames outside of the model (a network
+     * client), the entities are set with set(...) afterwards
+     * @param count number of entities in the frame
+     * @param score current score
+     * @param highScore current high score
+     */
+    public void begin(int count, int score, int highScore)
+    {
+        setCount(count);
+        this.score      = score;
+        this.highScore  = highScore;
+    }
+
+
+    /**
+     * Sets a single entity of a snapshot started with begin, its previous position is the same as the current one
+     * @param i index of the entity, below the count passed to begin
+     * @param id stable id of the entity
+     * @param type one of PLAYER, ENEMY, PROJECTILE or ITEM
+     * @param itemType kind of item, 0 for other entities
+     * @param x x component of the entity position
+     * @param y y component of the entity position
+     */
+    public void set(int i, int id, byte type, int itemType, int x, int y)
+    {
+        this.id[i]          = id;
+        this.type[i]        = type;
+        this.itemType[i]    = (byte) itemType;
+        this.x[i]           = x;
+        this.y[i]           = y;
+        this.prevX[i]       = x;
+        this.prevY[i]       = y;
+    }
+
+
+    /**
+     * Sets the number of entities, growing the arrays if needed
+     * @param count number of entities in the frame
+     */
+    private void setCount(int count)
+    {
+        this.count = count;
+        if (x.length < count)
+        {
+            int capacity = Math.max(count, x.length * 2);
+            id          = Arrays.copyOf(id, capacity);
+            type        = Arrays.copyOf(type, capacity);
+            itemType    = Arrays.copyOf(itemType, capacity);
+            x           = Arrays.copyOf(x, capacity);
+            y           = Arrays.copyOf(y, capacity);
+            prevX       = Arrays.copyOf(prevX, capacity);
+            prevY       = Arrays.copyOf(prevY, capacity);
+        }
+    }
+
+
+    /**
+     * @return number of entities in the frame
+     */
+    public int getCount()
+    {
+        return count;
+    }
+
+
+    /**
+     * @param i index of the entity
+     * @return id of the entity, stays the same from frame to frame and ascends with the index
+     */
+    public int getId(int i)
+    {
+        return id[i];
+    }
+
+
+    /**
+     * @param i index of the entity, the player is at index 0 while a game is running
+     * @return one of PLAYER, ENEMY, PROJECTILE or ITEM
+     */
+    public byte getType(int i)
+    {
+        return type[i];
+    }
+
+
+    /**
+     * @param i index of the entity
+     * @return kind of item (same as Item.getType), 0 for other entities
+     */
+    public int getItemType(int i)
+    {
+        return itemType[i];
+    }
+
+
+    /**
+     * @param i index of the entity
+     * @return x component of the entity position
+     */
+    public int getX(int i)
+    {
+        return x[i];
+    }
+
+
+    /**
+     * @param i index of the entity
+     * @return y component of the entity position
+     */
+    public int getY(int i)
+    {
+        return y[i];
+    }
+
+
+    /**
+     * @param i index of the entity
+     * @return x component of the entity position before the last tick, the current one for entities added since
+     */
+    public int getPrevX(int i)
+    {
+        return prevX[i];
+    }
+
+
+    /**
+     * @param i index of the entity
+     * @return y component of the entity position before the last tick, the current one for entities added since
+     */
+    public int getPrevY(int i)
+    {
+        return prevY[i];
+    }
+
+
+    /**
+     * @return score at the time of the frame
+     */
+    public int getScore()
+    {
+        return score;
+    }
+
+
+    /**
+     * @return high score at the time of the frame
+     */
+    public int getHighScore()
+    {
+        return highScore;
+    }
+}
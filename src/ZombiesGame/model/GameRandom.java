@@ -0,0 +1,89 @@
+package ZombiesGame.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Random numbers of the model: where enemies spawn and which items drop
+ * unlike java.util.Random the whole state is a single long that can be read and set again, so a recorded game can be
+ * replayed from the exact same sequence of numbers (SplitMix64)
+ */
+public class GameRandom
+{
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+
+    /**
+     * Creates a generator with a different seed every time
+     */
+    public GameRandom()
+    {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+
+    /**
+     * Creates a generator, the same seed always gives the same numbers
+     * @param seed initial state
+     */
+    public GameRandom(long seed)
+    {
+        this.state = seed;
+    }
+
+
+    /**
+     * @return next random long, all values equally likely
+     */
+    public long nextLong()
+    {
+        long z = state += GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+
+    /**
+     * @param bound upper bound (exclusive), must be positive
+     * @return random int between 0 and bound - 1
+     */
+    public int nextInt(int bound)
+    {
+        if (bound <= 0)
+        {
+            throw new IllegalArgumentException("bound must be positive, was " + bound);
+        }
+
+        // top 32 bits scaled to the bound, the bias is far below anything a game could notice
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+
+    /**
+     * @return random boolean
+     */
+    public boolean nextBoolean()
+    {
+        return nextLong() < 0;
+    }
+
+
+    /**
+     * @return the whole state of the generator, setState with it repeats the numbers from here on
+     */
+    public long getState()
+    {
+        return state;
+    }
+
+
+    /**
+     * @param state state returned by getState, or a seed
+     */
+    public void setState(long state)
+    {
+        this.state = state;
+    }
+}
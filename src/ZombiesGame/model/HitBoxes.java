@@ -0,0 +1,85 @@
+package ZombiesGame.model;
+
+/**
+ * Hitbox geometry and interaction rules for every type of entity, indexed by the type tags in EntityStore
+ * lets collision checks work on the primitive columns without creating a Rectangle per entity
+ * getHitBox() and collidesWith() in the entity classes describe the same boxes and rules
+ */
+final class HitBoxes
+{
+    // offset of the hitbox from the entity position, and its width/height (hitboxes are square)
+    static final int[] OFFSET   = { 0, 0, 16, 0 };
+    static final int[] SIZE     = { 64, 64, 32, 64 };
+
+    // largest hitbox of any entity type
+    static final int MAX_SIZE   = 64;
+
+    // INTERACTS[a][b] is true if an entity of type 'a' reacts to touching an entity of type 'b'
+    private static final boolean[][] INTERACTS = {
+            //            player  enemy  projectile  item
+            /* player */     { false, true,  false,      true  },
+            /* enemy */      { true,  true,  true,       false },
+            /* projectile */ { false, true,  false,      false },
+            /* item */       { true,  false, false,      false },
+    };
+
+
+    /**
+     * not meant to be instantiated
+     */
+    private HitBoxes()
+    {
+    }
+
+
+    /**
+     * gets the left edge of the hitbox of an entity
+     * @param store store holding the entity
+     * @param slot slot of the entity
+     * @return x coordinate of the hitbox
+     */
+    static int left(EntityStore store, int slot)
+    {
+        return store.x[slot] + OFFSET[store.type[slot]];
+    }
+
+
+    /**
+     * gets the top edge of the hitbox of an entity
+     * @param store store holding the entity
+     * @param slot slot of the entity
+     * @return y coordinate of the hitbox
+     */
+    static int top(EntityStore store, int slot)
+    {
+        return store.y[slot] + OFFSET[store.type[slot]];
+    }
+
+
+    /**
+     * checks whether two stored entities collide, same result as store.views[a].collidesWith(store.views[b])
+     * @param store store holding both entities
+     * @param a slot of the entity whose interaction rules apply
+     * @param b slot of the other entity
+     * @return true if the hitboxes overlap and entity 'a' interacts with the type of entity 'b'
+     */
+    static boolean collides(EntityStore store, int a, int b)
+    {
+        byte typeA = store.type[a];
+        byte typeB = store.type[b];
+
+        if (a == b || !INTERACTS[typeA][typeB])
+        {
+            return false;
+        }
+
+        int ax = store.x[a] + OFFSET[typeA];
+        int ay = store.y[a] + OFFSET[typeA];
+        int bx = store.x[b] + OFFSET[typeB];
+        int by = store.y[b] + OFFSET[typeB];
+
+        // same overlap test as Rectangle.intersects, touching edges don't count
+        return ax < bx + SIZE[typeB] && bx < ax + SIZE[typeA]
+                && ay < by + SIZE[typeB] && by < ay + SIZE[typeA];
+    }
+}
@@ -1,7 +1,7 @@
 package ZombiesGame.model;
 
 import java.awt.*;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Item class that inherits from Entity
@@ -9,8 +9,9 @@ import java.util.Random;
  */
 public class Item extends Entity
 {
+    // number of different items (coffee, mushroom, chicken)
+    static final int TYPE_COUNT = 3;
 
-    Random r = new Random();
     private int type = 0;
 
     /**
@@ -19,14 +20,48 @@ public class Item extends Entity
      */
     public Item (Entity e)
     {
-        super(e.x, e.y);
-        type = r.nextInt(3);
+        super(e.getX(), e.getY());
+        type = ThreadLocalRandom.current().nextInt(TYPE_COUNT);
+    }
+
+    /**
+     * Constructor used by the model, which picks the type of item itself
+     * @param x integer value specifying the x-coordinates of item
+     * @param y integer value specifying the y-coordinates of item
+     * @param type kind of item, between 0 and TYPE_COUNT - 1
+     */
+    Item(int x, int y, int type)
+    {
+        super(x, y);
+        this.type = type;
+    }
+
+    /**
+     * Prepares an item taken from a pool for another drop
+     * @param x integer value specifying the x-coordinates of item
+     * @param y integer value specifying the y-coordinates of item
+     * @param type kind of item, between 0 and TYPE_COUNT - 1
+     */
+    void reset(int x, int y, int type)
+    {
+        reset(x, y, 0, 0);
+        this.type = type;
     }
 
     public int getType(){
         return type;
     }
 
+    /**
+     * @return type tag of items in the EntityStore
+     */
+    @Override
+    byte getTypeTag()
+    {
+        return EntityStore.ITEM;
+    }
+
+
     /**
      * get item hitbox for collision checks
      * @return Rectangle with width and height of 64, at position of item
@@ -34,10 +69,10 @@ public class Item extends Entity
     @Override
     public Rectangle getHitBox()
     {
-        int hitboxHeight = 64;
-        int hitboxWidth = 64;
+        int hitboxHeight = HitBoxes.SIZE[EntityStore.ITEM];
+        int hitboxWidth = HitBoxes.SIZE[EntityStore.ITEM];
 
-        return new Rectangle(x, y, hitboxWidth, hitboxHeight);
+        return new Rectangle(getX(), getY(), hitboxWidth, hitboxHeight);
     }
 
 
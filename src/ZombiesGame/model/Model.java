@@ -5,8 +5,13 @@ import ZombiesGame.view.ActionTracker;
 
 import java.awt.*;
 import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.LinkedList;
-import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  *  Model class:
@@ -29,7 +34,7 @@ public class Model
     // score data
     private int score;
     private int highScore;
-    private File scoreFile;
+    private File scoreFile;     // null if the high score is only kept in memory
 
     // point values
     private static final int NORMAL_POINT   = 5;
@@ -40,8 +45,40 @@ public class Model
     private final int NORMAL                = 250;
     private final int HARD                  = 500;
 
-    private final LinkedList<Entity> entities   = new LinkedList<>(); // list of entities that are on the field
-    private final Random r                      = new Random();
+    private final EntityStore entities          = new EntityStore(); // columns of entities that are on the field
+    private final GameRandom r                  = new GameRandom(); // spawns and drops, can be seeded for replays
+
+    // broad phase for collision checks, arrays are reused between calls
+    private final SpatialHash broadPhase        = new SpatialHash();
+    private int[] neighbours                    = new int[0];
+
+    // parallel collision search, used once a game has at least 'parallelCollisionThreshold' entities
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 2000;
+    private int parallelCollisionThreshold      = DEFAULT_PARALLEL_THRESHOLD;
+    private ForkJoinPool collisionPool          = ForkJoinPool.commonPool();
+    private ParallelCollisionFinder parallelFinder;
+
+    // enemy steering, velocities are computed for all slots at once into these arrays
+    private final SteeringKernel steering       = SteeringKernel.forPlatform();
+    private int[] steerDx                       = new int[0];
+    private int[] steerDy                       = new int[0];
+
+    // frames handed to the renderer
+    private final SnapshotExchange frames       = new SnapshotExchange();
+
+    // pools of removed entities, reused by the create methods instead of allocating new ones
+    private static final int PROJECTILE_POOL_SIZE   = 512;
+    private static final int ENEMY_POOL_SIZE        = 256;
+    private static final int ITEM_POOL_SIZE         = 64;
+
+    private final EntityPool<Projectile> projectilePool = new EntityPool<>(PROJECTILE_POOL_SIZE);
+    private final EntityPool<Enemy> enemyPool           = new EntityPool<>(ENEMY_POOL_SIZE);
+    private final EntityPool<Item> itemPool             = new EntityPool<>(ITEM_POOL_SIZE);
+
+    // items dropped during a call to removeInactive (position and type), added once the dead entities are gone
+    private int[] dropX     = new int[16];
+    private int[] dropY     = new int[16];
+    private int[] dropType  = new int[16];
 
 
     /**
@@ -49,8 +86,23 @@ public class Model
      */
     public Model()
     {
+        this(new File("score.txt"));
+    }
+
+
+    /**
+     * model constructor for games that keep their high score elsewhere, or not at all
+     * @param scoreFile file storing the high score, created if it doesn't exist, null to keep the high score in memory
+     *                  (for example for many games in the same process)
+     */
+    public Model(File scoreFile)
+    {
+        this.scoreFile = scoreFile;
+        if (scoreFile == null)
+        {
+            return;
+        }
         try {
-            scoreFile = new File("score.txt");
             if (scoreFile.createNewFile()) {
                 System.out.println("File created: " + scoreFile.getName());
                 saveScoreToFile();
@@ -80,6 +132,11 @@ public class Model
 
         this.score              = 0; // reinitialize score to 0
 
+        // keep the entities of the previous game around for reuse
+        for (int i = 0; i < entities.size; i++)
+        {
+            recycle(i);
+        }
         entities.clear();
     }
 
@@ -110,20 +167,27 @@ public class Model
     public void createProjectile(Point mousePos)
     {
         // projectile velocity and position calculated upon creation, no need to change it afterwards
-        Entity player   = entities.getFirst();
+        Entity player   = entities.views[0];
         int deltaX      = mousePos.x - player.getX(); // difference in x pos between mouse and player (x1 - x0)
         int deltaY      = mousePos.y - player.getY(); // difference in y pos between mouse and player (y1 - y0)
 
         int k         = 25; // speed/magnitude
-        double theta  = Math.toDegrees(Math.atan2(deltaY, deltaX));
-        theta         = Math.toRadians(theta); // direction defined in radians (relative to player)
 
-        // Velocity : change in x and change in y per call to translate
-        double dx   = k * Math.cos(theta);
-        double dy   = k * Math.sin(theta);
+        // Velocity : change in x and change in y per call to translate, direction normalized and scaled by k
+        int dx      = SteeringKernel.velocityX(deltaX, deltaY, k);
+        int dy      = SteeringKernel.velocityY(deltaX, deltaY, k);
 
-        // new projectile created based on position of player, add to entities
-        entities.add(new Projectile(player, (int) dx, (int) dy));
+        // new projectile created based on position of player (or reused from the pool), add to entities
+        Projectile projectile = projectilePool.obtain();
+        if (projectile == null)
+        {
+            projectile = new Projectile(player, dx, dy);
+        }
+        else
+        {
+            projectile.reset(player.getX(), player.getY(), dx, dy);
+        }
+        entities.add(projectile);
     }
 
 
@@ -170,7 +234,17 @@ public class Model
                 }
             }
 
-            entities.add(new Enemy(x, y)); // creates new enemy using generated x and y coords, adds to game
+            // creates new enemy (or reuses one from the pool) using generated x and y coords, adds to game
+            Enemy enemy = enemyPool.obtain();
+            if (enemy == null)
+            {
+                enemy = new Enemy(x, y);
+            }
+            else
+            {
+                enemy.reset(x, y, 0, 0);
+            }
+            entities.add(enemy);
             currentEnemies++; // increment enemy counter
         }
     }
@@ -181,90 +255,117 @@ public class Model
      */
     public void updatePlayerVelocity()
     {
-        Player player               = (Player) entities.getFirst();
-        ActionTracker keysPressed   = ActionTracker.getInstance();
+        updatePlayerVelocity(ActionTracker.getInstance().getState());
+    }
+
+
+    /**
+     * updates the player velocity based on a given set of pressed keys
+     * @param keys key states as combined by ActionTracker.getState
+     */
+    public void updatePlayerVelocity(int keys)
+    {
+        boolean isUp                = (keys & ActionTracker.UP) != 0;
+        boolean isDown              = (keys & ActionTracker.DOWN) != 0;
+        boolean isLeft              = (keys & ActionTracker.LEFT) != 0;
+        boolean isRight             = (keys & ActionTracker.RIGHT) != 0;
         int speed                   = 7;
+        int player                  = 0; // slot of the player
 
         // when either both left and right aren't being pressed, or when both are being pressed -- x velocity is 0
         // else only one of the two is being pressed, update x velocity accordingly
-        if (!(keysPressed.isLeft() || keysPressed.isRight()) || (keysPressed.isLeft() && keysPressed.isRight()))
+        if (!(isLeft || isRight) || (isLeft && isRight))
         {
-            player.dx = 0;
+            entities.dx[player] = 0;
         }
-        else if (keysPressed.isLeft())
+        else if (isLeft)
         {
-            player.dx = -speed;
+            entities.dx[player] = -speed;
         }
-        else if (keysPressed.isRight())
+        else if (isRight)
         {
-            player.dx = speed;
+            entities.dx[player] = speed;
         }
 
         // when either both up and down aren't being pressed, or when both are being pressed -- y velocity is 0
         // else only of the two is pressed, update y velocity accordingly
-        if (!(keysPressed.isDown() || keysPressed.isUp()) || (keysPressed.isDown() && keysPressed.isUp()))
+        if (!(isDown || isUp) || (isDown && isUp))
         {
-            player.dy = 0;
+            entities.dy[player] = 0;
         }
-        else if (keysPressed.isUp())
+        else if (isUp)
         {
-            player.dy = -speed;
+            entities.dy[player] = -speed;
         }
-        else if (keysPressed.isDown())
+        else if (isDown)
         {
-            player.dy = speed;
+            entities.dy[player] = speed;
         }
     }
 
 
     /**
-     * updates the velocity of a given enemy
-     * recalculates velocity so that enemy moves towards player
-     *
-     * @param enemy Enemy object whose velocity will be updated
+     * updates the velocities of all enemies so that they move towards the player
+     * the steering kernel computes the velocities for every slot in one pass, only the enemies that aren't
+     * colliding take theirs (velocity calculated differently under collision)
      */
-    private void updateEnemyVelocity(Entity enemy)
+    private void updateEnemyVelocities()
     {
-        // checks to make sure collision isn't occurring (velocity calculated differently under collision)
-        if (!enemy.isColliding)
+        int count = entities.size;
+        if (steerDx.length < count)
         {
-            // updates enemy velocity using same calculations as projectile velocity calculation
-            Entity player   = entities.getFirst();
-            int deltaX      = player.getX() - enemy.getX();
-            int deltaY      = player.getY() - enemy.getY();
-
-            double theta  = Math.toDegrees(Math.atan2(deltaY, deltaX));
-            theta         = Math.toRadians(theta);
+            steerDx = new int[Math.max(count, steerDx.length * 2)];
+            steerDy = new int[steerDx.length];
+        }
 
-            // Velocity : change in x and y per update call, will differ depending on difficulty
-            double dx   = enemySpeed * Math.cos(theta);
-            double dy   = enemySpeed * Math.sin(theta);
+        // same calculation as the projectile velocity, towards the player in slot 0
+        int player = 0;
+        steering.steer(entities.x[player], entities.y[player], entities.x, entities.y, 0, count, enemySpeed,
+                steerDx, steerDy);
 
-            // set velocity
-            enemy.dx = (int) dx;
-            enemy.dy = (int) dy;
+        for (int i = 0; i < count; i++)
+        {
+            if (entities.type[i] == EntityStore.ENEMY && !entities.isColliding(i))
+            {
+                entities.dx[i] = steerDx[i];
+                entities.dy[i] = steerDy[i];
+            }
         }
     }
 
 
     /**
-     * updates all entity positions and player and enemy velocities
+     * updates all entity positions and player and enemy velocities, with the keys currently held
      */
     public void updateEntities()
     {
-        for(Entity e : entities)
+        updateEntities(ActionTracker.getInstance().getState());
+    }
+
+
+    /**
+     * updates all entity positions and player and enemy velocities
+     * @param keys key states moving the player, as combined by ActionTracker.getState
+     */
+    public void updateEntities(int keys)
+    {
+        // updates entity positions, keeping the previous ones for interpolation
+        for (int i = 0; i < entities.size; i++)
         {
-            e.translate(); // updates entity positions
+            entities.prevX[i] = entities.x[i];
+            entities.prevY[i] = entities.y[i];
+            entities.x[i] += entities.dx[i];
+            entities.y[i] += entities.dy[i];
+        }
 
-            // update velocities if entity is player or zombie
-            if (e.getClass() == Player.class)
-            {
-                updatePlayerVelocity();
-            }
-            else if (e.getClass() == Enemy.class)
+        // update velocities of player and zombies, enemies follow the player's new position
+        if (entities.size > 0)
+        {
+            if (entities.type[0] == EntityStore.PLAYER)
             {
-                updateEnemyVelocity(e);
+                updatePlayerVelocity(keys);
             }
+            updateEnemyVelocities();
         }
     }
 
@@ -312,6 +413,10 @@ public class Model
      */
     public void saveScoreToFile()
     {
+        if (scoreFile == null)
+        {
+            return;
+        }
         try {
             BufferedWriter bw = new BufferedWriter(new FileWriter(scoreFile));
             bw.write(String.valueOf(score));
@@ -329,6 +434,10 @@ public class Model
      */
     public String checkScoreInFile()
     {
+        if (scoreFile == null)
+        {
+            return String.valueOf(highScore);
+        }
         String firstLine = "";
         try {
             BufferedReader br = new BufferedReader(new FileReader(scoreFile));
@@ -351,7 +460,10 @@ public class Model
         String keptScore = checkScoreInFile();
         if (getScore() > Integer.parseInt(keptScore)){
             saveScoreToFile();
-            System.out.println("New high score is " + getScore() + ". Previous high score was " + keptScore);
+            if (scoreFile != null)
+            {
+                System.out.println("New high score is " + getScore() + ". Previous high score was " + keptScore);
+            }
             highScore = getScore();
         }
         else {
@@ -364,88 +476,168 @@ public class Model
      * checks collisions between every entity in the game
      * makes appropriate changes to game states when collision occurs between specific entities
      * (velocities, score, alive/dead state)
+     * a spatial hash narrows the search down so only entities in neighbouring cells are compared
+     * games with at least 'parallelCollisionThreshold' entities search for colliding pairs on several threads,
+     * the pairs are then resolved in the same order as the serial check, so both give identical results
      */
     public void checkCollisions()
     {
-        Entity e1;
-        Entity e2;
-
         // reset collision states for active entities
-        for (Entity e : entities)
+        int count = entities.size;
+        entities.clearColliding();
+
+        if (neighbours.length < count)
         {
-            e.isColliding = false;
+            neighbours = new int[Math.max(count, neighbours.length * 2)];
         }
 
-        // check for collisions
-        for(int i = 0; i < entities.size(); i++)
+        broadPhase.rebuild(entities, spriteSize);
+
+        if (count >= parallelCollisionThreshold)
         {
-            e1 = entities.get(i); // entity A
+            checkCollisionsInParallel();
+            return;
+        }
 
+        // check for collisions
+        for(int i = 0; i < count; i++)
+        {
+            // entity A is in slot i
             // once collision is checked for A, no need to check that specific entity again until next call
-            for (int j = i + 1; j < entities.size(); j++)
+            // only entities after A that share or border its cell can possibly touch it
+            int found = broadPhase.queryNeighbours(i, neighbours);
+            for (int n = 0; n < found; n++)
             {
-                e2 = entities.get(j); // the rest of the entities (B)
+                int j = neighbours[n]; // the rest of the entities (B)
 
                 // check for collision between A and B
-                if(e1.collidesWith(e2))
+                if(HitBoxes.collides(entities, i, j) && !resolveCollision(i, j))
                 {
-                    if (e1.getClass() == Player.class && e2.getClass() == Enemy.class)
-                    {
-                        // if player collides with entity, set player to inactive(dead)
-                        e1.setInactive();
-                    }
-                    else if (e1.getClass() == Player.class && e2.getClass() == Item.class)
-                    {
-                        // if player collides with any items, update current score, set item to inactive
-                        updateScore(ITEM_POINT);
-                        e2.setInactive();
-                    }
-                    else if (e1.getClass() == Enemy.class && e2.getClass() == Enemy.class)
-                    {
-                        // if both are enemies -- do very complicated calculations
+                    break;
+                }
+            }
+        }
+    }
 
-                        e1.isColliding = true;
-                        e2.isColliding = true;
 
-                        // collision vectors(x and y component)
-                        int colVectorX = e2.getX() - e1.getX();
-                        int colVectorY = e2.getY() - e1.getY();
+    /**
+     * searches the colliding pairs on the collision pool, then resolves them one by one in slot order
+     */
+    private void checkCollisionsInParallel()
+    {
+        if (parallelFinder == null)
+        {
+            parallelFinder = new ParallelCollisionFinder(collisionPool.getParallelism());
+        }
 
-                        // calculate distance
-                        double distance = (float) Math.sqrt((colVectorX * colVectorX) + (colVectorY * colVectorY));
+        int pairCount = parallelFinder.find(entities, broadPhase, collisionPool);
+        long[] pairs = parallelFinder.getPairs();
 
-                        // calculate normalized collision vector (direction)
-                        double normColVectorX = colVectorX / distance;
-                        double normColVectorY = colVectorY / distance;
+        int skipped = -1; // entity A whose remaining collisions are skipped
+        for (int p = 0; p < pairCount; p++)
+        {
+            int i = (int) (pairs[p] >>> 32);
+            int j = (int) pairs[p];
 
-                        // relative velocity vector
-                        int relVelX = e1.dx - e2.dx;
-                        int relVelY = e1.dy - e2.dy;
-                        double speed = (relVelX * normColVectorX) + (relVelY * normColVectorY);
+            if (i != skipped && !resolveCollision(i, j))
+            {
+                skipped = i;
+            }
+        }
+    }
 
-                        if (speed < 0)
-                        {
-                            break;
-                        }
 
-                        // calculate and assign new velocities to enemies
-                        e1.dx -= (speed * normColVectorX);
-                        e1.dy -= (speed * normColVectorY);
-                        e2.dx += (speed * normColVectorX);
-                        e2.dy += (speed * normColVectorY);
-                    }
-                    else if ((e1.getClass() == Enemy.class && e2.getClass() == Projectile.class)
-                            || (e1.getClass() == Projectile.class && e2.getClass() == Enemy.class))
-                    {
-                        // if an enemy collides with a projectile or a projectile collides with an enemy
-                        // (depends on which is checked first), update score, set both to inactive
-                        updateScore(NORMAL_POINT);
-                        e1.setInactive();
-                        e2.setInactive();
-                    }
-                }
+    /**
+     * makes the changes to the game state caused by a collision between two entities
+     *
+     * @param i slot of entity A
+     * @param j slot of entity B, higher than the slot of A
+     * @return false if the rest of the collisions of entity A have to be skipped, true otherwise
+     */
+    private boolean resolveCollision(int i, int j)
+    {
+        byte type1 = entities.type[i];
+        byte type2 = entities.type[j];
+
+        if (type1 == EntityStore.PLAYER && type2 == EntityStore.ENEMY)
+        {
+            // if player collides with entity, set player to inactive(dead)
+            entities.setActive(i, false);
+        }
+        else if (type1 == EntityStore.PLAYER && type2 == EntityStore.ITEM)
+        {
+            // if player collides with any items, update current score, set item to inactive
+            updateScore(ITEM_POINT);
+            entities.setActive(j, false);
+        }
+        else if (type1 == EntityStore.ENEMY && type2 == EntityStore.ENEMY)
+        {
+            // if both are enemies -- do very complicated calculations
+
+            entities.setColliding(i, true);
+            entities.setColliding(j, true);
+
+            // collision vectors(x and y component)
+            int colVectorX = entities.x[j] - entities.x[i];
+            int colVectorY = entities.y[j] - entities.y[i];
+
+            // calculate distance
+            double distance = (float) Math.sqrt((colVectorX * colVectorX) + (colVectorY * colVectorY));
+
+            // calculate normalized collision vector (direction)
+            double normColVectorX = colVectorX / distance;
+            double normColVectorY = colVectorY / distance;
+
+            // relative velocity vector
+            int relVelX = entities.dx[i] - entities.dx[j];
+            int relVelY = entities.dy[i] - entities.dy[j];
+            double speed = (relVelX * normColVectorX) + (relVelY * normColVectorY);
+
+            if (speed < 0)
+            {
+                return false;
             }
+
+            // calculate and assign new velocities to enemies
+            entities.dx[i] -= (speed * normColVectorX);
+            entities.dy[i] -= (speed * normColVectorY);
+            entities.dx[j] += (speed * normColVectorX);
+            entities.dy[j] += (speed * normColVectorY);
+        }
+        else if ((type1 == EntityStore.ENEMY && type2 == EntityStore.PROJECTILE)
+                || (type1 == EntityStore.PROJECTILE && type2 == EntityStore.ENEMY))
+        {
+            // if an enemy collides with a projectile or a projectile collides with an enemy
+            // (depends on which is checked first), update score, set both to inactive
+            updateScore(NORMAL_POINT);
+            entities.setActive(i, false);
+            entities.setActive(j, false);
         }
+        return true;
+    }
+
+
+    /**
+     * sets how many entities a game needs before collisions are searched on several threads
+     * small games stay serial, the threads only pay off with thousands of entities
+     *
+     * @param threshold number of entities, Integer.MAX_VALUE to always check serially
+     */
+    public void setParallelCollisionThreshold(int threshold)
+    {
+        this.parallelCollisionThreshold = threshold;
+    }
+
+
+    /**
+     * sets the pool that searches collisions in parallel, the common pool by default
+     *
+     * @param pool fork/join pool to use
+     */
+    public void setCollisionPool(ForkJoinPool pool)
+    {
+        this.collisionPool  = pool;
+        this.parallelFinder = null;
     }
 
 
@@ -455,54 +647,61 @@ public class Model
      */
     public void checkBoundaryCollisions()
     {
+        int[] x     = entities.x;
+        int[] y     = entities.y;
+        int[] dx    = entities.dx;
+        int[] dy    = entities.dy;
+
         // checks all active entities
-        for (Entity e : entities)
+        for (int i = 0; i < entities.size; i++)
         {
-            Class type = e.getClass(); // is the entity a player, enemy, projectile, or item?
+            byte type = entities.type[i]; // is the entity a player, enemy, projectile, or item?
 
-            if (type == Player.class)
+            if (type == EntityStore.PLAYER)
             {
-                if ((e.dx < 0 && e.x < 0) || (e.dx > 0 && e.x >= screenWidth - e.getHitBox().width))
+                int hitBoxSize = HitBoxes.SIZE[type];
+
+                if ((dx[i] < 0 && x[i] < 0) || (dx[i] > 0 && x[i] >= screenWidth - hitBoxSize))
                 {
                     // if player is moving left and hits left wall
                     // or if player is moving right and hits right wall -> stop (x-velocity = 0)
-                    e.dx = 0;
+                    dx[i] = 0;
                 }
 
-                if ((e.dy < 0 && e.y < 0) || (e.dy > 0 && e.y >= screenHeight - e.getHitBox().height))
+                if ((dy[i] < 0 && y[i] < 0) || (dy[i] > 0 && y[i] >= screenHeight - hitBoxSize))
                 {
                     // if player is moving up and hits top wall
                     // or if player is moving down and hits lower wall -> stop (y-velocity = 0)
-                    e.dy = 0;
+                    dy[i] = 0;
                 }
             }
             else
             {
                 // if x position exceeds the left or right boundaries of the screen,
                 // set to inactive if it's a projectile, reverse velocity if enemy
-                if (e.x < 0 || e.x > screenWidth)
+                if (x[i] < 0 || x[i] > screenWidth)
                 {
-                    if (type == Projectile.class)
+                    if (type == EntityStore.PROJECTILE)
                     {
-                        e.setInactive();
+                        entities.setActive(i, false);
                     }
                     else
                     {
-                        e.dx *= -1;
+                        dx[i] *= -1;
                     }
                 }
 
                 // if y position exceeds top or bottom boundary,
                 // set to inactive if projectile, reverse y-velocity if enemy
-                if (e.y < 0 || e.y > screenHeight)
+                if (y[i] < 0 || y[i] > screenHeight)
                 {
-                    if (type == Projectile.class)
+                    if (type == EntityStore.PROJECTILE)
                     {
-                        e.setInactive();
+                        entities.setActive(i, false);
                     }
                     else
                     {
-                        e.dy *= -1;
+                        dy[i] *= -1;
                     }
                 }
             }
@@ -511,12 +710,12 @@ public class Model
             // the smaller the margin, the easier it is for them to be removed
             int errorMargin = 15;
 
-            if ((e.x < -errorMargin || e.x > screenWidth + errorMargin) ||
-                    (e.y < -errorMargin || e.y > screenHeight + errorMargin))
+            if ((x[i] < -errorMargin || x[i] > screenWidth + errorMargin) ||
+                    (y[i] < -errorMargin || y[i] > screenHeight + errorMargin))
             {
                 // don't remove if player (just in case)
-                if (e.getClass() != Player.class)
-                    e.setInactive();
+                if (type != EntityStore.PLAYER)
+                    entities.setActive(i, false);
             }
         }
     }
@@ -528,19 +727,16 @@ public class Model
      */
     public void removeInactive()
     {
-        LinkedList<Entity> inactiveEntities = new LinkedList<>(); // entities to be removed
-        LinkedList<Entity> itemsGenerated   = new LinkedList<>(); // items to be added
         int enemiesRemoved = 0; // number of enemies removed during the call
+        int drops = 0; // number of items generated during the call
 
-        // collects the list of "dead"/inactive game entities for removal
-        for (Entity e : entities)
+        // looks through the "dead"/inactive game entities before they are removed
+        for (int i = 0; i < entities.size; i++)
         {
-            if(!e.isActive() && e.getClass() != Player.class)
+            if(!entities.isActive(i) && entities.type[i] != EntityStore.PLAYER)
             {
-                inactiveEntities.add(e);
-
                 // if entity is an enemy, increment enemies removed counter, have chance of creating item
-                if (e.getClass() == Enemy.class)
+                if (entities.type[i] == EntityStore.ENEMY)
                 {
                     enemiesRemoved++;
 
@@ -550,16 +746,222 @@ public class Model
 
                     if (itemIsGenerated)
                     {
-                        itemsGenerated.add(new Item(e)); // create new item at position of enemy
+                        // remember the position of the enemy, the item is created once the dead entities are gone
+                        if (drops == dropX.length)
+                        {
+                            dropX       = Arrays.copyOf(dropX, drops * 2);
+                            dropY       = Arrays.copyOf(dropY, drops * 2);
+                            dropType    = Arrays.copyOf(dropType, drops * 2);
+                        }
+                        dropX[drops]    = entities.x[i];
+                        dropY[drops]    = entities.y[i];
+                        dropType[drops] = r.nextInt(Item.TYPE_COUNT);
+                        drops++;
                     }
-
                 }
+
+                recycle(i);
             }
         }
 
         currentEnemies -= enemiesRemoved; // update current enemy counter
-        entities.removeAll(inactiveEntities); // remove "dead" entities from game
-        entities.addAll(itemsGenerated); // add all generated items to game
+        entities.removeInactive(); // remove "dead" entities from game
+
+        // add all generated items to game
+        for (int i = 0; i < drops; i++)
+        {
+            Item item = itemPool.obtain();
+            if (item == null)
+            {
+                item = new Item(dropX[i], dropY[i], dropType[i]);
+            }
+            else
+            {
+                item.reset(dropX[i], dropY[i], dropType[i]);
+            }
+            entities.add(item);
+        }
+    }
+
+
+    /**
+     * hands the entity in a slot to the pool of its type, it can be reused once it has been removed from the game
+     * the player is never pooled
+     *
+     * @param slot slot of the entity that is about to be removed
+     */
+    private void recycle(int slot)
+    {
+        Entity e = entities.views[slot];
+
+        switch (entities.type[slot])
+        {
+            case EntityStore.PROJECTILE:
+                projectilePool.release((Projectile) e);
+                break;
+            case EntityStore.ENEMY:
+                enemyPool.release((Enemy) e);
+                break;
+            case EntityStore.ITEM:
+                itemPool.release((Item) e);
+                break;
+            default:
+                break;
+        }
+    }
+
+
+    /**
+     * saves the whole game state (entities, score, difficulty, enemy counter, random numbers) to a file, so it can be
+     * resumed later with loadState
+     * the state is written through a memory mapped file in the layout of StateFile, the columns of the entities are
+     * copied in bulk. It's written to a temporary file first, flushed to disk and then moved over the old one, so a
+     * crash while saving keeps the previous save intact
+     * @param file file to save to, replaced if it exists
+     * @throws IOException if the file can't be written
+     */
+    public void saveState(Path file) throws IOException
+    {
+        int count = entities.size;
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        MappedByteBuffer buffer = StateFile.create(temp, count);
+
+        buffer.putInt(StateFile.OFFSET_MAGIC, StateFile.MAGIC);
+        buffer.putInt(StateFile.OFFSET_VERSION, StateFile.VERSION);
+        buffer.putInt(StateFile.OFFSET_COUNT, count);
+        buffer.putLong(StateFile.OFFSET_RANDOM, r.getState());
+        buffer.putInt(StateFile.OFFSET_WIDTH, screenWidth);
+        buffer.putInt(StateFile.OFFSET_HEIGHT, screenHeight);
+        buffer.putInt(StateFile.OFFSET_SPRITE_SIZE, spriteSize);
+        buffer.putInt(StateFile.OFFSET_ENEMY_SPEED, enemySpeed);
+        buffer.putInt(StateFile.OFFSET_MAX_ENEMIES, maxEnemies);
+        buffer.putInt(StateFile.OFFSET_ENEMIES, currentEnemies);
+        buffer.putInt(StateFile.OFFSET_SCORE, score);
+        buffer.putInt(StateFile.OFFSET_HIGH_SCORE, highScore);
+
+        int[][] columns = {entities.x, entities.y, entities.dx, entities.dy};
+        for (int c = 0; c < columns.length; c++)
+        {
+            buffer.position(StateFile.intColumn(count, c));
+            buffer.asIntBuffer().put(columns[c], 0, count);
+        }
+
+        buffer.put(StateFile.byteColumn(count, 0), entities.type, 0, count);
+        int flags = StateFile.byteColumn(count, 1);
+        int itemTypes = StateFile.byteColumn(count, 2);
+        for (int i = 0; i < count; i++)
+        {
+            byte flag = 0;
+            if (entities.isActive(i))
+                flag |= StateFile.ACTIVE;
+            if (entities.isColliding(i))
+                flag |= StateFile.COLLIDING;
+            buffer.put(flags + i, flag);
+
+            int itemType = entities.type[i] == EntityStore.ITEM ? ((Item) entities.views[i]).getType() : 0;
+            buffer.put(itemTypes + i, (byte) itemType);
+        }
+
+        buffer.putInt(StateFile.OFFSET_CHECKSUM, StateFile.checksum(buffer));
+        // the pages have to be on disk before the rename, or a crash could leave a renamed file with pages missing
+        buffer.force();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+
+    /**
+     * replaces the game state with one saved by saveState, the game goes on exactly where it was saved
+     * the file is checked completely before anything is changed, so a broken file leaves the current game as it is
+     * @param file file to load
+     * @throws IOException if the file can't be read, has another version, or is damaged
+     */
+    public void loadState(Path file) throws IOException
+    {
+        MappedByteBuffer buffer = StateFile.open(file);
+
+        int count = buffer.getInt(StateFile.OFFSET_COUNT);
+        int types = StateFile.byteColumn(count, 0);
+        int flags = StateFile.byteColumn(count, 1);
+        int itemTypes = StateFile.byteColumn(count, 2);
+        for (int i = 0; i < count; i++)
+        {
+            byte type = buffer.get(types + i);
+            if (type < EntityStore.PLAYER || type > EntityStore.ITEM || (type == EntityStore.PLAYER) != (i == 0)
+                    || buffer.get(itemTypes + i) < 0 || buffer.get(itemTypes + i) >= Item.TYPE_COUNT)
+            {
+                throw new IOException(file + " holds an invalid entity in slot " + i);
+            }
+        }
+
+        r.setState(buffer.getLong(StateFile.OFFSET_RANDOM));
+        screenWidth     = buffer.getInt(StateFile.OFFSET_WIDTH);
+        screenHeight    = buffer.getInt(StateFile.OFFSET_HEIGHT);
+        spriteSize      = buffer.getInt(StateFile.OFFSET_SPRITE_SIZE);
+        enemySpeed      = buffer.getInt(StateFile.OFFSET_ENEMY_SPEED);
+        maxEnemies      = buffer.getInt(StateFile.OFFSET_MAX_ENEMIES);
+        currentEnemies  = buffer.getInt(StateFile.OFFSET_ENEMIES);
+        score           = buffer.getInt(StateFile.OFFSET_SCORE);
+        highScore       = buffer.getInt(StateFile.OFFSET_HIGH_SCORE);
+
+        // keep the entities of the current game around for reuse
+        for (int i = 0; i < entities.size; i++)
+        {
+            recycle(i);
+        }
+        entities.clear();
+
+        // one entity per slot, their positions and velocities are overwritten by the columns below
+        for (int i = 0; i < count; i++)
+        {
+            int slot = entities.add(restoreEntity(buffer.get(types + i), buffer.get(itemTypes + i)));
+            byte flag = buffer.get(flags + i);
+            entities.setActive(slot, (flag & StateFile.ACTIVE) != 0);
+            entities.setColliding(slot, (flag & StateFile.COLLIDING) != 0);
+        }
+
+        int[][] columns = {entities.x, entities.y, entities.dx, entities.dy};
+        for (int c = 0; c < columns.length; c++)
+        {
+            buffer.position(StateFile.intColumn(count, c));
+            buffer.asIntBuffer().get(columns[c], 0, count);
+        }
+        // the loaded positions are the previous ones too, so the first frame isn't interpolated from (0, 0)
+        System.arraycopy(entities.x, 0, entities.prevX, 0, count);
+        System.arraycopy(entities.y, 0, entities.prevY, 0, count);
+    }
+
+
+    /**
+     * creates an entity of a given kind for loadState, reusing pooled entities
+     * @param type type tag of the entity
+     * @param itemType kind of item, only used for items
+     * @return entity at (0, 0) without velocity
+     */
+    private Entity restoreEntity(byte type, int itemType)
+    {
+        switch (type)
+        {
+            case EntityStore.PLAYER:
+                return new Player(0, 0);
+            case EntityStore.ENEMY:
+                Enemy enemy = enemyPool.obtain();
+                if (enemy == null)
+                    return new Enemy(0, 0);
+                enemy.reset(0, 0, 0, 0);
+                return enemy;
+            case EntityStore.PROJECTILE:
+                Projectile projectile = projectilePool.obtain();
+                if (projectile == null)
+                    return new Projectile(entities.views[0], 0, 0);
+                projectile.reset(0, 0, 0, 0);
+                return projectile;
+            default:
+                Item item = itemPool.obtain();
+                if (item == null)
+                    return new Item(0, 0, itemType);
+                item.reset(0, 0, itemType);
+                return item;
+        }
     }
 
 
@@ -583,28 +985,117 @@ public class Model
     }
 
 
+    /**
+     * gets the random numbers of the model, set their state to repeat the spawns and drops of a recorded game
+     * @return generator used for enemy spawns and item drops
+     */
+    public GameRandom getRandom()
+    {
+        return r;
+    }
+
+
     /**
      * gets the list of entities that are active(for drawing in the view)
      * @return list containing currently active entities
      */
     public LinkedList<Entity> getEntities()
     {
-        return new LinkedList<>(entities);
+        LinkedList<Entity> list = new LinkedList<>();
+        for (int i = 0; i < entities.size; i++)
+        {
+            list.add(entities.views[i]);
+        }
+        return list;
+    }
+
+
+    /**
+     * counts the entities of a given kind that are currently in the game
+     * @param type class of the entities to count (Player, Enemy, Projectile or Item)
+     * @return number of entities of that class
+     */
+    public int getEntityCount(Class<? extends Entity> type)
+    {
+        int count = 0;
+        for (int i = 0; i < entities.size; i++)
+        {
+            if (entities.views[i].getClass() == type)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * gets the player, which is always the first entity added to the game
+     * @return the player of the current game
+     */
+    public Entity getPlayer()
+    {
+        return entities.views[0];
+    }
+
+
+    /**
+     * gets the pool of removed projectiles, for its hit rate and high-water mark
+     * @return pool used by createProjectile
+     */
+    public EntityPool<Projectile> getProjectilePool()
+    {
+        return projectilePool;
+    }
+
+
+    /**
+     * gets the pool of removed enemies, for its hit rate and high-water mark
+     * @return pool used by createEnemy
+     */
+    public EntityPool<Enemy> getEnemyPool()
+    {
+        return enemyPool;
+    }
+
+
+    /**
+     * gets the pool of removed items, for its hit rate and high-water mark
+     * @return pool used for item drops
+     */
+    public EntityPool<Item> getItemPool()
+    {
+        return itemPool;
+    }
+
+
+    /**
+     * gets the exchange that the latest frames are published to, the renderer reads from it
+     * @return exchange holding the latest frame
+     */
+    public SnapshotExchange getFrames()
+    {
+        return frames;
     }
 
 
     /**
      * gets info from model necessary for drawing in the view
+     * publishes a snapshot of the current entities to the frame exchange first
      * @return GameInfo class that stores necessary info from model to draw in view
      */
     public GameInfo getGameStatus()
     {
+        frames.beginWrite().fill(entities, score, highScore);
+        frames.publish();
+
         return new GameInfo(this);
     }
 
 
     /**
      * used for testing model class only
+     * entities removed from the game may be reused by the create methods later on
      * @param e Entity to be added to list of active entities
      */
     public void addEntity(Entity e){
@@ -0,0 +1,224 @@
+package ZombiesGame.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds colliding pairs of entities on several threads
+ * the arena is cut into horizontal bands of grid rows, and every band is searched by its own fork/join task. A pair
+ * belongs to the band of its lower slot, so every pair is found exactly once. Nothing is changed while searching: the
+ * pairs are merged and sorted by slot, so Model can resolve them in exactly the order the serial check would
+ */
+class ParallelCollisionFinder
+{
+    // bands searched in parallel, a few per core so uneven bands still balance out
+    private final int regions;
+
+    // entities sorted by band: members[regionStart[r] .. regionStart[r + 1]) are the slots in band r
+    private final int[] regionStart;
+    private int[] members = new int[0];
+
+    // pairs found in every band, encoded as (lower slot << 32 | higher slot)
+    private final long[][] regionPairs;
+    private final int[] regionPairCount;
+
+    // all pairs in ascending order after a search
+    private long[] pairs = new long[64];
+
+    // neighbour lists of the worker threads
+    private final ThreadLocal<int[]> neighbours = ThreadLocal.withInitial(() -> new int[0]);
+
+    private EntityStore store;
+    private SpatialHash grid;
+
+
+    /**
+     * Creates a finder that splits the arena into bands for the threads of the given pool
+     * @param parallelism number of threads that will search
+     */
+    ParallelCollisionFinder(int parallelism)
+    {
+        regions         = Math.max(1, parallelism * 4);
+        regionStart     = new int[regions + 1];
+        regionPairs     = new long[regions][64];
+        regionPairCount = new int[regions];
+    }
+
+
+    /**
+     * Searches all colliding pairs in parallel
+     * @param store entities to check
+     * @param grid spatial hash that was just rebuilt from the store
+     * @param pool pool running the search
+     * @return number of pairs, available through getPairs in ascending order (by lower slot, then higher slot)
+     */
+    int find(EntityStore store, SpatialHash grid, ForkJoinPool pool)
+    {
+        this.store  = store;
+        this.grid   = grid;
+
+        int count = store.size;
+        sortIntoRegions(count);
+
+        pool.invoke(new RegionTask(0, regions));
+
+        // merge the bands, then bring the pairs back into the order of the serial check
+        int total = 0;
+        for (int r = 0; r < regions; r++)
+        {
+            total += regionPairCount[r];
+        }
+        if (pairs.length < total)
+        {
+            pairs = new long[Math.max(total, pairs.length * 2)];
+        }
+
+        int offset = 0;
+        for (int r = 0; r < regions; r++)
+        {
+            System.arraycopy(regionPairs[r], 0, pairs, offset, regionPairCount[r]);
+            offset += regionPairCount[r];
+        }
+        Arrays.sort(pairs, 0, total);
+
+        this.store  = null;
+        this.grid   = null;
+        return total;
+    }
+
+
+    /**
+     * @return pairs found by the last search, see find for the number of valid entries
+     */
+    long[] getPairs()
+    {
+        return pairs;
+    }
+
+
+    /**
+     * counting sort of the slots into bands of grid rows
+     * @param count number of entities
+     */
+    private void sortIntoRegions(int count)
+    {
+        if (members.length < count)
+        {
+            members = new int[Math.max(count, members.length * 2)];
+        }
+
+        int minRow = Integer.MAX_VALUE;
+        int maxRow = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++)
+        {
+            minRow = Math.min(minRow, grid.cellY(i));
+            maxRow = Math.max(maxRow, grid.cellY(i));
+        }
+        long rows = (long) maxRow - minRow + 1;
+
+        Arrays.fill(regionStart, 0);
+        for (int i = 0; i < count; i++)
+        {
+            regionStart[region(i, minRow, rows) + 1]++;
+        }
+        for (int r = 0; r < regions; r++)
+        {
+            regionStart[r + 1] += regionStart[r];
+        }
+
+        // fill each band in slot order, regionPairCount is borrowed as the write position
+        System.arraycopy(regionStart, 0, regionPairCount, 0, regions);
+        for (int i = 0; i < count; i++)
+        {
+            members[regionPairCount[region(i, minRow, rows)]++] = i;
+        }
+    }
+
+
+    /**
+     * @param slot slot of an entity
+     * @param minRow lowest grid row of any entity
+     * @param rows number of grid rows between the lowest and highest entity
+     * @return band the entity belongs to
+     */
+    private int region(int slot, int minRow, long rows)
+    {
+        return (int) ((grid.cellY(slot) - minRow) * regions / rows);
+    }
+
+
+    /**
+     * searches the pairs whose lower slot lies in the given band
+     * @param region band to search
+     */
+    private void searchRegion(int region)
+    {
+        int[] found = neighbours.get();
+        if (found.length < store.size)
+        {
+            found = new int[store.size];
+            neighbours.set(found);
+        }
+
+        long[] out = regionPairs[region];
+        int pairCount = 0;
+
+        for (int m = regionStart[region]; m < regionStart[region + 1]; m++)
+        {
+            int i = members[m];
+            int n = grid.queryNeighbours(i, found);
+
+            for (int k = 0; k < n; k++)
+            {
+                int j = found[k];
+                if (HitBoxes.collides(store, i, j))
+                {
+                    if (pairCount == out.length)
+                    {
+                        out = Arrays.copyOf(out, out.length * 2);
+                        regionPairs[region] = out;
+                    }
+                    out[pairCount++] = ((long) i << 32) | j;
+                }
+            }
+        }
+
+        regionPairCount[region] = pairCount;
+    }
+
+
+    /**
+     * Fork/join task searching a range of bands, split in halves until a single band is left
+     */
+    @SuppressWarnings("serial") // never serialized
+    private class RegionTask extends RecursiveAction
+    {
+        private final int from;
+        private final int to;
+
+        /**
+         * @param from first band to search
+         * @param to band after the last one to search
+         */
+        RegionTask(int from, int to)
+        {
+            this.from   = from;
+            this.to     = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from == 1)
+            {
+                searchRegion(from);
+            }
+            else
+            {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RegionTask(from, middle), new RegionTask(middle, to));
+            }
+        }
+    }
+}
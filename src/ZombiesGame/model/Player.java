@@ -19,6 +19,16 @@ public class Player extends Entity
     }
 
 
+    /**
+     * @return type tag of players in the EntityStore
+     */
+    @Override
+    byte getTypeTag()
+    {
+        return EntityStore.PLAYER;
+    }
+
+
     /**
      * gets player hitbox for collision checks
      * @return Rectangle, created at player position, with height and width 64
@@ -26,10 +36,10 @@ public class Player extends Entity
     @Override
     public Rectangle getHitBox()
     {
-        int hitboxWidth = 64;
-        int hitboxHeight = 64;
+        int hitboxWidth = HitBoxes.SIZE[EntityStore.PLAYER];
+        int hitboxHeight = HitBoxes.SIZE[EntityStore.PLAYER];
 
-        return new Rectangle(x, y, hitboxWidth, hitboxHeight);
+        return new Rectangle(getX(), getY(), hitboxWidth, hitboxHeight);
     }
 
 
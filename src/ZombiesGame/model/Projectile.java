@@ -16,10 +16,19 @@ public class Projectile extends Entity
      */
     public Projectile(Entity e, int dx, int dy)
     {
-        super(e.x, e.y);
+        super(e.getX(), e.getY());
 
-        this.dx = dx;
-        this.dy = dy;
+        setVelocity(dx, dy);
+    }
+
+
+    /**
+     * @return type tag of projectiles in the EntityStore
+     */
+    @Override
+    byte getTypeTag()
+    {
+        return EntityStore.PROJECTILE;
     }
 
 
@@ -29,10 +38,11 @@ public class Projectile extends Entity
      */
     public Rectangle getHitBox()
     {
-        int hitboxWidth = 32;
-        int hitboxHeight = 32;
+        int hitboxWidth = HitBoxes.SIZE[EntityStore.PROJECTILE];
+        int hitboxHeight = HitBoxes.SIZE[EntityStore.PROJECTILE];
+        int offset = HitBoxes.OFFSET[EntityStore.PROJECTILE];
 
-        return new Rectangle(x + hitboxWidth/2, y + hitboxHeight/2, hitboxWidth, hitboxWidth);
+        return new Rectangle(getX() + offset, getY() + offset, hitboxWidth, hitboxHeight);
     }
 
 
@@ -0,0 +1,58 @@
+package ZombiesGame.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free triple buffer that hands frame snapshots from the simulation to the renderer
+ * the writer fills its back buffer and swaps it with the shared middle buffer, the reader swaps its front buffer with
+ * the middle one whenever a newer frame was published. No frame is copied, and a buffer is only written again after
+ * the reader has moved on to a newer one
+ * there must only be one writer thread and one reader thread at a time
+ */
+public class SnapshotExchange
+{
+    // the middle index is stored together with a flag telling whether it holds a frame the reader hasn't seen
+    private static final int INDEX_MASK = 0b011;
+    private static final int FRESH      = 0b100;
+
+    private final FrameSnapshot[] buffers = { new FrameSnapshot(), new FrameSnapshot(), new FrameSnapshot() };
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    private int back = 0;   // only touched by the writer
+    private int front = 2;  // only touched by the reader
+
+
+    /**
+     * Gets the buffer the writer may fill, it isn't visible to the reader until publish is called
+     * the writer is the model, or a network client filling frames it received from a server
+     * @return snapshot to fill
+     */
+    public FrameSnapshot beginWrite()
+    {
+        return buffers[back];
+    }
+
+
+    /**
+     * Makes the buffer returned by beginWrite the latest frame, and takes over an older buffer for the next write
+     */
+    public void publish()
+    {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+
+    /**
+     * Gets the latest published frame, the previous frame returned by this method is released for reuse
+     * the returned snapshot stays unchanged until the next call
+     * @return latest frame, empty if nothing was published yet
+     */
+    public FrameSnapshot acquire()
+    {
+        if ((middle.get() & FRESH) != 0)
+        {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return buffers[front];
+    }
+}
@@ -0,0 +1,155 @@
+package ZombiesGame.model;
+
+import java.util.Arrays;
+
+/**
+ * Uniform-grid spatial hash used as the broad phase of collision checks
+ * entities are bucketed by the grid cell that contains the top-left corner of their hitbox,
+ * so two hitboxes can only intersect if their cells are the same or neighbouring
+ * the grid is rebuilt once per collision check, all arrays are reused between calls
+ * once built, the grid may be queried from several threads at the same time
+ */
+class SpatialHash
+{
+    // multipliers used to spread cell coordinates over the buckets
+    private static final int HASH_X = 73856093;
+    private static final int HASH_Y = 19349663;
+
+    private int cellSize;
+    private int bucketMask;
+
+    private int[] buckets   = new int[0];   // bucket -> index of first entity in bucket, -1 if empty
+    private int[] next      = new int[0];   // entity index -> index of next entity in same bucket, -1 if last
+    private int[] cellX     = new int[0];   // entity index -> x coordinate of its cell
+    private int[] cellY     = new int[0];   // entity index -> y coordinate of its cell
+
+
+    /**
+     * rebuilds the grid from scratch using the current positions of the given entities
+     * @param entities store holding the entities to insert, the slot of an entity is the index reported by queries
+     * @param spriteSize base size of sprites, used as the minimum cell size
+     */
+    void rebuild(EntityStore entities, int spriteSize)
+    {
+        int count = entities.size;
+        ensureCapacity(count);
+
+        // cells have to be at least as large as the largest hitbox, otherwise colliding pairs may be further
+        // than one cell apart
+        cellSize = Math.max(spriteSize, HitBoxes.MAX_SIZE);
+
+        Arrays.fill(buckets, -1);
+
+        for (int i = 0; i < count; i++)
+        {
+            cellX[i] = Math.floorDiv(HitBoxes.left(entities, i), cellSize);
+            cellY[i] = Math.floorDiv(HitBoxes.top(entities, i), cellSize);
+
+            int bucket = bucket(cellX[i], cellY[i]);
+            next[i] = buckets[bucket];
+            buckets[bucket] = i;
+        }
+    }
+
+
+    /**
+     * collects every entity with a higher index than the given entity that lies in the same or a neighbouring cell
+     * @param index index of the entity whose neighbours are wanted
+     * @param out array that receives the indices, must be at least as long as the number of entities
+     * @return number of indices written to 'out', sorted in ascending order
+     */
+    int queryNeighbours(int index, int[] out)
+    {
+        int found = 0;
+
+        for (int offsetY = -1; offsetY <= 1; offsetY++)
+        {
+            for (int offsetX = -1; offsetX <= 1; offsetX++)
+            {
+                int x = cellX[index] + offsetX;
+                int y = cellY[index] + offsetY;
+
+                // different cells can share a bucket, so the cell of every entry is checked as well
+                for (int j = buckets[bucket(x, y)]; j != -1; j = next[j])
+                {
+                    if (j > index && cellX[j] == x && cellY[j] == y)
+                    {
+                        out[found++] = j;
+                    }
+                }
+            }
+        }
+
+        // collisions are resolved in list order, so neighbours are handed out in the same order
+        sort(out, found);
+        return found;
+    }
+
+
+    /**
+     * gets the row of the grid an entity was put in by the last rebuild
+     * @param index index of the entity
+     * @return y coordinate of the cell of the entity
+     */
+    int cellY(int index)
+    {
+        return cellY[index];
+    }
+
+
+    /**
+     * grows the arrays so that 'count' entities fit, keeping roughly two buckets per entity
+     * @param count number of entities that will be inserted
+     */
+    private void ensureCapacity(int count)
+    {
+        if (next.length < count)
+        {
+            int capacity = Math.max(count, next.length * 2);
+            next    = new int[capacity];
+            cellX   = new int[capacity];
+            cellY   = new int[capacity];
+        }
+
+        int bucketCount = Integer.highestOneBit(Math.max(count, 8) * 2 - 1) << 1;
+        if (buckets.length < bucketCount)
+        {
+            buckets = new int[bucketCount];
+            bucketMask = bucketCount - 1;
+        }
+    }
+
+
+    /**
+     * maps a cell to one of the buckets
+     * @param x x coordinate of the cell
+     * @param y y coordinate of the cell
+     * @return index of the bucket
+     */
+    private int bucket(int x, int y)
+    {
+        return ((x * HASH_X) ^ (y * HASH_Y)) & bucketMask;
+    }
+
+
+    /**
+     * insertion sort, neighbour lists are short so this beats anything fancier
+     * @param values array to sort
+     * @param length number of values to sort from the start of the array
+     */
+    private static void sort(int[] values, int length)
+    {
+        for (int i = 1; i < length; i++)
+        {
+            int value = values[i];
+            int j = i - 1;
+
+            while (j >= 0 && values[j] > value)
+            {
+                values[j + 1] = values[j];
+                j--;
+            }
+            values[j + 1] = value;
+        }
+    }
+}
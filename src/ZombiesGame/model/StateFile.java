@@ -0,0 +1,158 @@
+package ZombiesGame.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Layout of the file Model.saveState writes, little-endian and mapped into memory with a MappedByteBuffer
+ *
+ * a fixed header of HEADER_SIZE bytes (offsets below), then the entity columns in the same order as in the
+ * EntityStore: x, y, dx, dy (count ints each), type, flags, item type (count bytes each)
+ * the checksum covers everything after it, so a file cut short or changed by hand is rejected instead of loaded
+ */
+final class StateFile
+{
+    static final int MAGIC              = 0x50455753; // "PEWS"
+    static final int VERSION            = 1;
+
+    // header offsets
+    static final int OFFSET_MAGIC       = 0;
+    static final int OFFSET_VERSION     = 4;
+    static final int OFFSET_COUNT       = 8;
+    static final int OFFSET_CHECKSUM    = 12;
+    static final int OFFSET_RANDOM      = 16;
+    static final int OFFSET_WIDTH       = 24;
+    static final int OFFSET_HEIGHT      = 28;
+    static final int OFFSET_SPRITE_SIZE = 32;
+    static final int OFFSET_ENEMY_SPEED = 36;
+    static final int OFFSET_MAX_ENEMIES = 40;
+    static final int OFFSET_ENEMIES     = 44;
+    static final int OFFSET_SCORE       = 48;
+    static final int OFFSET_HIGH_SCORE  = 52;
+
+    // the rest of the header is reserved, the columns start aligned
+    static final int HEADER_SIZE        = 64;
+
+    // bits of the flags column
+    static final byte ACTIVE            = 1;
+    static final byte COLLIDING         = 2;
+
+    private static final int BYTES_PER_ENTITY = 4 * Integer.BYTES + 3;
+
+
+    private StateFile()
+    {
+        // layout and helpers only
+    }
+
+
+    /**
+     * @param count number of entities
+     * @return size of a file holding that many entities
+     */
+    static int size(int count)
+    {
+        return HEADER_SIZE + count * BYTES_PER_ENTITY;
+    }
+
+
+    /**
+     * @param count number of entities
+     * @param column index of the column, 0 to 3 for the int columns x, y, dx, dy
+     * @return offset of an int column
+     */
+    static int intColumn(int count, int column)
+    {
+        return HEADER_SIZE + column * count * Integer.BYTES;
+    }
+
+
+    /**
+     * @param count number of entities
+     * @param column index of the column, 0 to 2 for the byte columns type, flags, item type
+     * @return offset of a byte column
+     */
+    static int byteColumn(int count, int column)
+    {
+        return HEADER_SIZE + 4 * count * Integer.BYTES + column * count;
+    }
+
+
+    /**
+     * Creates or replaces a file of the given size and maps it for writing
+     * @param file the file
+     * @param count number of entities that will be written
+     * @return buffer over the whole file, header still empty
+     * @throws IOException if the file can't be created or mapped
+     */
+    static MappedByteBuffer create(Path file, int count) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size(count));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+
+    /**
+     * Maps a saved file for reading and checks that it's complete and unchanged
+     * @param file the file
+     * @return buffer over the whole file
+     * @throws IOException if the file can't be mapped, has another version or doesn't pass the checks
+     */
+    static MappedByteBuffer open(Path file) throws IOException
+    {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            if (channel.size() < HEADER_SIZE)
+            {
+                throw new IOException(file + " is too short for a saved game");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (buffer.getInt(OFFSET_MAGIC) != MAGIC)
+        {
+            throw new IOException(file + " is not a saved game");
+        }
+        int version = buffer.getInt(OFFSET_VERSION);
+        if (version != VERSION)
+        {
+            throw new IOException(file + " was saved in unsupported version " + version);
+        }
+        int count = buffer.getInt(OFFSET_COUNT);
+        if (count < 0 || count > (Integer.MAX_VALUE - HEADER_SIZE) / BYTES_PER_ENTITY
+                || size(count) != buffer.capacity())
+        {
+            throw new IOException(file + " doesn't match the size of its " + count + " entities");
+        }
+        if (buffer.getInt(OFFSET_CHECKSUM) != checksum(buffer))
+        {
+            throw new IOException(file + " is corrupted, its checksum doesn't match");
+        }
+        return buffer;
+    }
+
+
+    /**
+     * @param buffer buffer over a whole file
+     * @return CRC32C of everything after the checksum
+     */
+    static int checksum(ByteBuffer buffer)
+    {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(OFFSET_CHECKSUM + Integer.BYTES));
+        return (int) crc.getValue();
+    }
+}
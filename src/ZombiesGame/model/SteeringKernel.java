@@ -0,0 +1,137 @@
+package ZombiesGame.model;
+
+/**
+ * Batch kernel that computes the velocities of entities heading straight towards a target
+ * every velocity is the normalized vector from the entity to the target scaled by the speed, so no angle has to be
+ * computed: (speed * deltaX / length, speed * deltaY / length), truncated to ints like the old cos/sin version
+ * an entity sitting right on the target moves along +x, the same as the angle of atan2(0, 0)
+ * this class is the scalar version, forPlatform() picks a vectorized subclass when the jdk.incubator.vector module
+ * is available at runtime
+ */
+public class SteeringKernel
+{
+    private static final String VECTOR_KERNEL = "ZombiesGame.model.VectorSteeringKernel";
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+
+    /**
+     * use forPlatform() or scalar()
+     */
+    SteeringKernel()
+    {
+    }
+
+
+    /**
+     * Gets the fastest kernel the running JVM supports
+     * the vectorized kernel is compiled separately (see vector/) and only loaded if the jdk.incubator.vector module
+     * was added to the JVM, otherwise the scalar kernel is used
+     * @return vectorized kernel if possible, scalar kernel otherwise
+     */
+    public static SteeringKernel forPlatform()
+    {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent())
+        {
+            try
+            {
+                return (SteeringKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+            }
+            catch (ReflectiveOperationException | LinkageError e)
+            {
+                // vector kernel wasn't compiled into this build, fall through to the scalar kernel
+            }
+        }
+        return scalar();
+    }
+
+
+    /**
+     * @return kernel that works on one entity at a time
+     */
+    public static SteeringKernel scalar()
+    {
+        return new SteeringKernel();
+    }
+
+
+    /**
+     * Computes the velocities towards a target for a range of entities
+     * @param targetX x position of the target
+     * @param targetY y position of the target
+     * @param x x positions of the entities
+     * @param y y positions of the entities
+     * @param from first index to compute (inclusive)
+     * @param to last index to compute (exclusive)
+     * @param speed length of the velocities
+     * @param outDx receives the x velocities, at the same indices as the positions
+     * @param outDy receives the y velocities, at the same indices as the positions
+     */
+    public void steer(int targetX, int targetY, int[] x, int[] y, int from, int to, int speed, int[] outDx, int[] outDy)
+    {
+        for (int i = from; i < to; i++)
+        {
+            int deltaX = targetX - x[i];
+            int deltaY = targetY - y[i];
+            double length = length(deltaX, deltaY);
+
+            if (length == 0)
+            {
+                outDx[i] = speed;
+                outDy[i] = 0;
+            }
+            else
+            {
+                outDx[i] = (int) (speed * (double) deltaX / length);
+                outDy[i] = (int) (speed * (double) deltaY / length);
+            }
+        }
+    }
+
+
+    /**
+     * @return true if this kernel uses SIMD instructions
+     */
+    public boolean isVectorized()
+    {
+        return false;
+    }
+
+
+    /**
+     * Gets the x velocity of a single entity heading towards a point
+     * @param deltaX x distance from the entity to the point
+     * @param deltaY y distance from the entity to the point
+     * @param speed length of the velocity
+     * @return x component of the velocity
+     */
+    static int velocityX(int deltaX, int deltaY, int speed)
+    {
+        double length = length(deltaX, deltaY);
+        return length == 0 ? speed : (int) (speed * (double) deltaX / length);
+    }
+
+
+    /**
+     * Gets the y velocity of a single entity heading towards a point
+     * @param deltaX x distance from the entity to the point
+     * @param deltaY y distance from the entity to the point
+     * @param speed length of the velocity
+     * @return y component of the velocity
+     */
+    static int velocityY(int deltaX, int deltaY, int speed)
+    {
+        double length = length(deltaX, deltaY);
+        return length == 0 ? 0 : (int) (speed * (double) deltaY / length);
+    }
+
+
+    /**
+     * @param deltaX x component of a vector
+     * @param deltaY y component of a vector
+     * @return length of the vector, every kernel does the same double operations so they all get the same result
+     */
+    private static double length(int deltaX, int deltaY)
+    {
+        return Math.sqrt((double) deltaX * deltaX + (double) deltaY * deltaY);
+    }
+}
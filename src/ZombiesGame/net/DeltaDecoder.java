@@ -0,0 +1,230 @@
+package ZombiesGame.net;
+
+import ZombiesGame.model.FrameSnapshot;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Rebuilds the full frames written by a DeltaEncoder
+ * the decoder keeps the last frame it rebuilt, and merges the removed, moved and spawned entities of the next delta
+ * into it by id. A delta can only be applied to the frame it was encoded against, so decoding starts at a keyframe
+ */
+public class DeltaDecoder
+{
+    // the last rebuilt frame, and the one being rebuilt, swapped after every delta
+    private Entities current    = new Entities();
+    private Entities next       = new Entities();
+    private boolean hasKeyframe;
+
+    // lists of the delta being decoded, reused from delta to delta
+    private int[] removed   = new int[64];
+    private int[] moved     = new int[64];
+    private int[] movedX    = new int[64];
+    private int[] movedY    = new int[64];
+    private final Entities spawned = new Entities();
+
+
+    /**
+     * Applies an encoded frame and writes the rebuilt frame into a snapshot
+     * @param in buffer positioned at the encoded frame, read up to its end
+     * @param into snapshot to fill with the rebuilt frame
+     * @throws IOException if the frame isn't valid, or is a delta and no keyframe was decoded yet; nothing is changed
+     *                     in that case, and only a keyframe can be decoded next
+     */
+    public void decode(ByteBuffer in, FrameSnapshot into) throws IOException
+    {
+        try
+        {
+            apply(in);
+        }
+        catch (BufferUnderflowException e)
+        {
+            hasKeyframe = false;
+            throw new ProtocolException("frame cut short");
+        }
+        catch (IOException e)
+        {
+            hasKeyframe = false;
+            throw e;
+        }
+
+        Entities f = current;
+        into.begin(f.count, f.score, f.highScore);
+        for (int i = 0; i < f.count; i++)
+        {
+            into.set(i, f.id[i], f.type[i], f.itemType[i], f.x[i], f.y[i]);
+        }
+    }
+
+
+    /**
+     * Reads the lists of an encoded frame and merges them into the current frame
+     * @param in buffer positioned at the encoded frame
+     * @throws IOException if the frame isn't valid
+     */
+    private void apply(ByteBuffer in) throws IOException
+    {
+        boolean keyframe = (in.get() & DeltaEncoder.KEYFRAME) != 0;
+        if (!keyframe && !hasKeyframe)
+        {
+            throw new ProtocolException("delta without a keyframe to apply it to");
+        }
+        int score       = Protocol.getVarInt(in);
+        int highScore   = Protocol.getVarInt(in);
+
+        int removedCount = count(in);
+        removed = ensure(removed, removedCount);
+        int last = -1;
+        for (int k = 0; k < removedCount; k++)
+        {
+            last = removed[k] = last + 1 + Protocol.getVarInt(in);
+        }
+
+        int movedCount = count(in);
+        moved   = ensure(moved, movedCount);
+        movedX  = ensure(movedX, movedCount);
+        movedY  = ensure(movedY, movedCount);
+        last = -1;
+        for (int k = 0; k < movedCount; k++)
+        {
+            last = moved[k] = last + 1 + Protocol.getVarInt(in);
+            movedX[k] = Protocol.unzigzag(Protocol.getVarInt(in));
+            movedY[k] = Protocol.unzigzag(Protocol.getVarInt(in));
+        }
+
+        int spawnedCount = count(in);
+        spawned.ensure(spawnedCount);
+        last = -1;
+        for (int k = 0; k < spawnedCount; k++)
+        {
+            last = spawned.id[k] = last + 1 + Protocol.getVarInt(in);
+            spawned.type[k]     = in.get();
+            spawned.itemType[k] = in.get();
+            spawned.x[k]        = Protocol.unzigzag(Protocol.getVarInt(in));
+            spawned.y[k]        = Protocol.unzigzag(Protocol.getVarInt(in));
+        }
+
+        Entities base = current;
+        int previous = keyframe ? 0 : base.count;
+        next.ensure(previous - removedCount + spawnedCount);
+
+        // merge by id, all lists ascend
+        int n = 0, r = 0, m = 0, s = 0;
+        for (int i = 0; i < previous; i++)
+        {
+            int id = base.id[i];
+            while (s < spawnedCount && spawned.id[s] < id)
+            {
+                next.copy(n++, spawned, s++);
+            }
+            if (r < removedCount && removed[r] == id)
+            {
+                r++;
+                continue;
+            }
+
+            next.copy(n, base, i);
+            if (m < movedCount && moved[m] == id)
+            {
+                next.x[n] += movedX[m];
+                next.y[n] += movedY[m];
+                m++;
+            }
+            n++;
+        }
+        while (s < spawnedCount)
+        {
+            next.copy(n++, spawned, s++);
+        }
+        if (r != removedCount || m != movedCount)
+        {
+            throw new ProtocolException("delta refers to entities that aren't in the frame");
+        }
+
+        next.count      = n;
+        next.score      = score;
+        next.highScore  = highScore;
+        current = next;
+        next = base;
+        hasKeyframe = true;
+    }
+
+
+    /**
+     * @param in buffer positioned at a count
+     * @return the count
+     * @throws IOException if the count can't be right, every entity takes at least a byte
+     */
+    private static int count(ByteBuffer in) throws IOException
+    {
+        int count = Protocol.getVarInt(in);
+        if (count < 0 || count > in.remaining())
+        {
+            throw new ProtocolException("list of " + count + " entities in " + in.remaining() + " bytes");
+        }
+        return count;
+    }
+
+
+    /**
+     * @param a an array
+     * @param length length needed
+     * @return the array, or a longer copy of it
+     */
+    private static int[] ensure(int[] a, int length)
+    {
+        return a.length >= length ? a : Arrays.copyOf(a, Math.max(length, a.length * 2));
+    }
+
+
+    /**
+     * Columns of the entities of a frame
+     */
+    private static class Entities
+    {
+        private int count;
+        private int[] id        = new int[64];
+        private byte[] type     = new byte[64];
+        private byte[] itemType = new byte[64];
+        private int[] x         = new int[64];
+        private int[] y         = new int[64];
+        private int score;
+        private int highScore;
+
+
+        /**
+         * @param capacity number of entities the columns need to hold
+         */
+        private void ensure(int capacity)
+        {
+            if (id.length < capacity)
+            {
+                int grown = Math.max(capacity, id.length * 2);
+                id          = Arrays.copyOf(id, grown);
+                type        = Arrays.copyOf(type, grown);
+                itemType    = Arrays.copyOf(itemType, grown);
+                x           = Arrays.copyOf(x, grown);
+                y           = Arrays.copyOf(y, grown);
+            }
+        }
+
+
+        /**
+         * @param to index to copy to
+         * @param from columns to copy from
+         * @param i index to copy from
+         */
+        private void copy(int to, Entities from, int i)
+        {
+            id[to]          = from.id[i];
+            type[to]        = from.type[i];
+            itemType[to]    = from.itemType[i];
+            x[to]           = from.x[i];
+            y[to]           = from.y[i];
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package ZombiesGame.net;
+
+import ZombiesGame.metrics.DeltaCompressionMonitor;
+import ZombiesGame.model.FrameSnapshot;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Encodes frames as the difference to the previously encoded frame, decoded again by a DeltaDecoder
+ * entities are matched by their stable ids, and only the ones that were removed, moved or spawned since the last frame
+ * are written. Ids ascend with the index in a frame, so both frames are walked side by side without any lookup.
+ * Ids, counts and positions are varints, moves are the change of the position in whole pixels (zigzag), so an enemy
+ * moving a few pixels per tick costs 3 bytes instead of a full entity
+ *
+ * layout:
+ *   flags (byte, KEYFRAME if the decoder has to drop what it has first), score, high score
+ *   removed count, then per entity the id
+ *   moved count, then per entity the id, change of x, change of y
+ *   spawned count, then per entity the id, type (byte), item type (byte), x, y
+ * ids are written as the gap to the previous id of the same list
+ */
+public class DeltaEncoder
+{
+    static final byte KEYFRAME = 1;
+
+    // bytes of a frame holding the full entity list in fixed width fields, the size without compression
+    private static final int RAW_HEADER_BYTES   = 3 * Integer.BYTES;
+    private static final int RAW_ENTITY_BYTES   = 3 * Integer.BYTES + 2;
+
+    // longest a varint gets, and the longest a single entity gets in any list
+    private static final int MAX_VARINT_BYTES   = 5;
+    private static final int MAX_ENTITY_BYTES   = 3 * MAX_VARINT_BYTES + 2;
+
+    private final DeltaCompressionMonitor monitor;
+
+    // the previously encoded frame
+    private int count;
+    private int[] id    = new int[64];
+    private int[] x     = new int[64];
+    private int[] y     = new int[64];
+    private boolean hasBase;
+
+    // indices of the entities in each list, reused from frame to frame, movedFrom is the index in the previous frame
+    private int[] removed   = new int[64];
+    private int[] moved     = new int[64];
+    private int[] movedFrom = new int[64];
+    private int[] spawned   = new int[64];
+
+
+    /**
+     * @param monitor receives the size of every encoded frame, may be null
+     */
+    public DeltaEncoder(DeltaCompressionMonitor monitor)
+    {
+        this.monitor = monitor;
+    }
+
+
+    /**
+     * @param count number of entities
+     * @return size of a frame holding the full entity list in fixed width fields
+     */
+    public static int rawSize(int count)
+    {
+        return RAW_HEADER_BYTES + count * RAW_ENTITY_BYTES;
+    }
+
+
+    /**
+     * @param frame frame about to be encoded
+     * @return most bytes encode or encodeKeyframe can write for the frame
+     */
+    public int maxSize(FrameSnapshot frame)
+    {
+        return 1 + 8 * MAX_VARINT_BYTES + (count + frame.getCount()) * MAX_ENTITY_BYTES;
+    }
+
+
+    /**
+     * Writes the difference between the previously encoded frame and this one, and remembers this one for the next
+     * call. The first frame, and a frame whose ids don't ascend, are written as a keyframe
+     * @param frame frame to encode
+     * @param out buffer to append to, needs room for maxSize(frame) bytes
+     * @return number of bytes written
+     */
+    public int encode(FrameSnapshot frame, ByteBuffer out)
+    {
+        int start = out.position();
+        boolean keyframe = !hasBase || !ascending(frame);
+        write(frame, out, keyframe);
+        int encoded = out.position() - start;
+
+        // the new base
+        int n = frame.getCount();
+        if (id.length < n)
+        {
+            int capacity = Math.max(n, id.length * 2);
+            id  = Arrays.copyOf(id, capacity);
+            x   = Arrays.copyOf(x, capacity);
+            y   = Arrays.copyOf(y, capacity);
+        }
+        for (int i = 0; i < n; i++)
+        {
+            id[i]   = frame.getId(i);
+            x[i]    = frame.getX(i);
+            y[i]    = frame.getY(i);
+        }
+        count   = n;
+        hasBase = true;
+
+        if (monitor != null)
+        {
+            monitor.frameEncoded(rawSize(n), encoded, System.nanoTime());
+        }
+        return encoded;
+    }
+
+
+    /**
+     * Writes a frame in full, for a decoder that has nothing yet or fell behind
+     * The previously encoded frame stays the base, so pass the frame that was just passed to encode and the decoder
+     * can go on with the next delta
+     * @param frame frame to encode
+     * @param out buffer to append to, needs room for maxSize(frame) bytes
+     * @return number of bytes written
+     */
+    public int encodeKeyframe(FrameSnapshot frame, ByteBuffer out)
+    {
+        int start = out.position();
+        write(frame, out, true);
+        if (monitor != null)
+        {
+            monitor.keyframeEncoded();
+        }
+        return out.position() - start;
+    }
+
+
+    /**
+     * @param frame a frame
+     * @return true if the ids of the frame ascend with the index
+     */
+    private static boolean ascending(FrameSnapshot frame)
+    {
+        for (int i = 1; i < frame.getCount(); i++)
+        {
+            if (frame.getId(i) <= frame.getId(i - 1))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Sorts the entities into the three lists and writes them
+     * @param frame frame to encode
+     * @param out buffer to append to
+     * @param keyframe true to write every entity as spawned
+     */
+    private void write(FrameSnapshot frame, ByteBuffer out, boolean keyframe)
+    {
+        int n = frame.getCount();
+        int previous = keyframe ? 0 : count;
+        if (removed.length < previous)
+        {
+            removed = new int[Math.max(previous, removed.length * 2)];
+        }
+        if (moved.length < n)
+        {
+            moved       = new int[Math.max(n, moved.length * 2)];
+            movedFrom   = new int[moved.length];
+            spawned     = new int[moved.length];
+        }
+
+        int removedCount = 0, movedCount = 0, spawnedCount = 0;
+        int i = 0, j = 0;
+        while (i < previous || j < n)
+        {
+            if (j == n || (i < previous && id[i] < frame.getId(j)))
+            {
+                removed[removedCount++] = i++;
+            }
+            else if (i == previous || id[i] > frame.getId(j))
+            {
+                spawned[spawnedCount++] = j++;
+            }
+            else
+            {
+                if (x[i] != frame.getX(j) || y[i] != frame.getY(j))
+                {
+                    moved[movedCount]       = j;
+                    movedFrom[movedCount++] = i;
+                }
+                i++;
+                j++;
+            }
+        }
+
+        out.put(keyframe ? KEYFRAME : 0);
+        Protocol.putVarInt(out, frame.getScore());
+        Protocol.putVarInt(out, frame.getHighScore());
+
+        Protocol.putVarInt(out, removedCount);
+        int last = -1;
+        for (int k = 0; k < removedCount; k++)
+        {
+            int e = id[removed[k]];
+            Protocol.putVarInt(out, e - last - 1);
+            last = e;
+        }
+
+        Protocol.putVarInt(out, movedCount);
+        last = -1;
+        for (int k = 0; k < movedCount; k++)
+        {
+            int m = moved[k], b = movedFrom[k];
+            int e = frame.getId(m);
+            Protocol.putVarInt(out, e - last - 1);
+            Protocol.putVarInt(out, Protocol.zigzag(frame.getX(m) - x[b]));
+            Protocol.putVarInt(out, Protocol.zigzag(frame.getY(m) - y[b]));
+            last = e;
+        }
+
+        Protocol.putVarInt(out, spawnedCount);
+        last = -1;
+        for (int k = 0; k < spawnedCount; k++)
+        {
+            int s = spawned[k];
+            int e = frame.getId(s);
+            Protocol.putVarInt(out, e - last - 1);
+            out.put(frame.getType(s)).put((byte) frame.getItemType(s));
+            Protocol.putVarInt(out, Protocol.zigzag(frame.getX(s)));
+            Protocol.putVarInt(out, Protocol.zigzag(frame.getY(s)));
+            last = e;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package ZombiesGame.net;
+
+import ZombiesGame.controller.GameInfo;
+import ZombiesGame.messages.Message;
+import ZombiesGame.model.FrameSnapshot;
+import ZombiesGame.model.SnapshotExchange;
+import ZombiesGame.view.ActionTracker;
+import ZombiesGame.view.GameDisplay;
+import ZombiesGame.view.View;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a game served by a GameServer, in place of the local controller
+ * the view puts its messages into the queue of the client as usual, and the client sends them to the server together
+ * with the keys held. Frames, screens and scores from the server are passed to the display the same way the
+ * controller would. A single thread with its own selector does the networking
+ */
+public class GameClient implements Closeable
+{
+    // how often the held keys are checked, they are only sent when they change
+    private static final long KEY_POLL_MILLIS   = 5;
+
+    private static final int IN_BUFFER_SIZE     = 64 * 1024;
+    private static final int OUT_BUFFER_SIZE    = 4 * 1024;
+
+    private final SocketChannel channel;
+    private final Selector selector;
+    private final ActionTracker keys;
+    private final WakingQueue queue = new WakingQueue();
+    private final SnapshotExchange frames = new SnapshotExchange();
+    private final DeltaDecoder decoder = new DeltaDecoder();
+
+    private ByteBuffer in = ByteBuffer.allocate(IN_BUFFER_SIZE);
+    private final ByteBuffer out = ByteBuffer.allocate(OUT_BUFFER_SIZE);
+
+    private GameDisplay display;
+    private int score;
+    private int highScore;
+    private int sentKeys = -1;
+
+    private Thread thread;
+    private volatile boolean closed;
+
+    // written by the client thread only
+    private volatile long framesReceived;
+    private volatile long lastTick = -1;
+    private volatile String screen;
+
+
+    /**
+     * Connects to a server, sending the keys the Swing view tracks, nothing is received until start is called
+     * @param server address of the server
+     * @throws IOException if the server can't be reached
+     */
+    public GameClient(InetSocketAddress server) throws IOException
+    {
+        this(server, ActionTracker.getInstance());
+    }
+
+
+    /**
+     * Connects to a server, nothing is received until start is called
+     * @param server address of the server
+     * @param keys keys held by the player, sent whenever they change
+     * @throws IOException if the server can't be reached
+     */
+    public GameClient(InetSocketAddress server, ActionTracker keys) throws IOException
+    {
+        this.keys       = keys;
+        this.channel    = SocketChannel.open(server);
+        this.selector   = Selector.open();
+
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ);
+    }
+
+
+    /**
+     * Gets the queue to pass to the view in place of the controller's queue
+     * @return queue of messages for the server
+     */
+    public BlockingQueue<Message> getQueue()
+    {
+        return queue;
+    }
+
+
+    /**
+     * Starts receiving the game on a new thread
+     * @param display display to show the game on
+     */
+    public synchronized void start(GameDisplay display)
+    {
+        this.display = display;
+        thread = new Thread(this::run, "client");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    /**
+     * @return number of frames received
+     */
+    public long getFramesReceived()
+    {
+        return framesReceived;
+    }
+
+
+    /**
+     * @return tick of the latest frame, -1 if none was received
+     */
+    public long getLastTick()
+    {
+        return lastTick;
+    }
+
+
+    /**
+     * @return screen the server asked to show last, null if it didn't yet
+     */
+    public String getScreen()
+    {
+        return screen;
+    }
+
+
+    /**
+     * Disconnects from the server and waits for the client thread if it was started
+     * @throws IOException if the connection can't be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        closed = true;
+        selector.wakeup();
+
+        Thread t;
+        synchronized (this)
+        {
+            t = thread;
+        }
+        if (t != null)
+        {
+            try
+            {
+                t.join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        channel.close();
+        selector.close();
+    }
+
+
+    /**
+     * The loop of the client thread: receives packets, and sends the keys and queued messages
+     */
+    private void run()
+    {
+        try
+        {
+            while (!closed)
+            {
+                selector.select(KEY_POLL_MILLIS);
+                selector.selectedKeys().clear();
+
+                if (!read())
+                {
+                    break;
+                }
+                write();
+            }
+        }
+        catch (IOException e)
+        {
+            if (!closed)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+
+
+    /**
+     * Reads what the server sent and handles every complete packet
+     * @return false if the server closed the connection
+     * @throws IOException if the connection fails or the server sent an unknown packet
+     */
+    private boolean read() throws IOException
+    {
+        int n = channel.read(in);
+        if (n < 0)
+        {
+            return false;
+        }
+
+        in.flip();
+        while (in.remaining() >= Protocol.LENGTH_BYTES)
+        {
+            int length = in.getInt(in.position());
+            if (length < 1)
+            {
+                throw new ProtocolException("packet of " + length + " bytes");
+            }
+            if (in.remaining() < Protocol.LENGTH_BYTES + length)
+            {
+                // frames grow with the number of entities, make sure the next one fits
+                if (in.capacity() < Protocol.LENGTH_BYTES + length)
+                {
+                    ByteBuffer grown = ByteBuffer.allocate(Math.max(in.capacity() * 2, Protocol.LENGTH_BYTES + length));
+                    in = grown.put(in).flip();
+                }
+                break;
+            }
+
+            int end = in.position() + Protocol.LENGTH_BYTES + length;
+            in.position(in.position() + Protocol.LENGTH_BYTES);
+            // the decoder reads up to the end of the packet
+            int limit = in.limit();
+            in.limit(end);
+            handle(in.get());
+            in.limit(limit).position(end);
+        }
+        in.compact();
+        return true;
+    }
+
+
+    /**
+     * Handles a single packet of the server
+     * @param kind kind of the packet
+     * @throws IOException if the packet isn't known
+     */
+    private void handle(byte kind) throws IOException
+    {
+        switch (kind)
+        {
+            case Protocol.FRAME:
+                long tick = in.getLong();
+                FrameSnapshot frame = frames.beginWrite();
+                decoder.decode(in, frame);
+                score = frame.getScore();
+                highScore = frame.getHighScore();
+                frames.publish();
+                lastTick = tick;
+                framesReceived++;
+                display.updateView(new GameInfo(frames, score, highScore));
+                break;
+            case Protocol.SCORE:
+                score = in.getInt();
+                highScore = in.getInt();
+                display.updateScore(new GameInfo(frames, score, highScore));
+                break;
+            case Protocol.SCREEN:
+                int code = in.get();
+                if (code < 0 || code >= Protocol.SCREENS.length)
+                {
+                    throw new ProtocolException("unknown screen " + code);
+                }
+                screen = Protocol.SCREENS[code];
+                display.switchPanel(screen);
+                break;
+            default:
+                throw new ProtocolException("unknown packet " + kind);
+        }
+    }
+
+
+    /**
+     * Sends the keys if they changed, and as many queued messages as fit
+     * @throws IOException if the connection fails
+     */
+    private void write() throws IOException
+    {
+        int state = keys.getState();
+        if (state != sentKeys && out.remaining() >= Protocol.MAX_CLIENT_PACKET)
+        {
+            Protocol.writeKeys(out, state);
+            sentKeys = state;
+        }
+
+        Message message;
+        while (out.remaining() >= Protocol.MAX_CLIENT_PACKET && (message = queue.poll()) != null)
+        {
+            Protocol.writeMessage(out, message);
+        }
+
+        if (out.position() > 0)
+        {
+            out.flip();
+            channel.write(out);
+            out.compact();
+        }
+    }
+
+
+    /**
+     * Queue that wakes the client thread up whenever the view adds a message, so it's sent right away
+     */
+    @SuppressWarnings("serial") // never serialized
+    private class WakingQueue extends LinkedBlockingQueue<Message>
+    {
+        @Override
+        public boolean offer(Message message)
+        {
+            boolean added = super.offer(message);
+            selector.wakeup();
+            return added;
+        }
+
+
+        @Override
+        public boolean offer(Message message, long timeout, TimeUnit unit) throws InterruptedException
+        {
+            boolean added = super.offer(message, timeout, unit);
+            selector.wakeup();
+            return added;
+        }
+
+
+        @Override
+        public void put(Message message) throws InterruptedException
+        {
+            super.put(message);
+            selector.wakeup();
+        }
+    }
+
+
+    /**
+     * Connects a Swing view to a server
+     * @param args optional: host (default localhost), port (default 7777)
+     * @throws IOException if the server can't be reached
+     */
+    public static void main(String[] args) throws IOException
+    {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port    = args.length > 1 ? Integer.parseInt(args[1]) : 7777;
+
+        GameClient client = new GameClient(new InetSocketAddress(host, port));
+        View view = new View("Pew Pew", client.getQueue());
+        client.start(view);
+    }
+}
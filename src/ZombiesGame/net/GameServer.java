@@ -0,0 +1,748 @@
+package ZombiesGame.net;
+
+import ZombiesGame.controller.Controller;
+import ZombiesGame.controller.FixedTimestep;
+import ZombiesGame.controller.GameInfo;
+import ZombiesGame.messages.CreateEnemyMessage;
+import ZombiesGame.messages.Message;
+import ZombiesGame.messages.NewGameMessage;
+import ZombiesGame.messages.StartGameMessage;
+import ZombiesGame.metrics.DeltaCompressionMonitor;
+import ZombiesGame.metrics.GameMetrics;
+import ZombiesGame.metrics.LatencyHistogram;
+import ZombiesGame.model.FrameSnapshot;
+import ZombiesGame.model.Model;
+import ZombiesGame.view.GameDisplay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the game authoritatively without a screen and serves it to GameClients over TCP (see Protocol)
+ * a single thread does everything: it waits on a selector for connections and packets until the next tick of a
+ * fixed timestep is due, ticks the model and sends the new frame to every client. Clients only send input, enemies
+ * are spawned by the server at the rate the Swing view spawns them
+ * frames are delta encoded once per tick and the same delta is copied to every client that is up to date, a client
+ * that just connected or missed a delta gets a keyframe of the same frame instead
+ * the model has a single player, so all clients play the same game: the keys of all clients are combined and every
+ * client may shoot, start a game or start over
+ */
+public class GameServer implements Runnable, Closeable
+{
+    // same spawn rate as the enemy timer of the GamePanel
+    private static final int SPAWNS_PER_SECOND  = 25;
+
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    // starting size of the buffers, grown for frames that don't fit
+    private static final int OUT_BUFFER_SIZE    = 64 * 1024;
+    private static final int IN_BUFFER_SIZE     = 1024;
+
+    // connections waiting to be accepted, enough for a load test connecting all at once
+    private static final int BACKLOG            = 1024;
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final FixedTimestep clock;
+    private final Model model;
+    private final Controller controller;
+    private final List<Connection> connections = new ArrayList<>();
+
+    // the latest frame as a delta and in full, each encoded once and copied to every client that needs it
+    private final DeltaEncoder encoder;
+    private ByteBuffer frame    = ByteBuffer.allocate(OUT_BUFFER_SIZE);
+    private ByteBuffer keyframe = ByteBuffer.allocate(OUT_BUFFER_SIZE);
+    private boolean frameChanged;
+
+    private String screen = "startPanel";
+    private int spawnCredit;
+
+    private Thread thread;
+    private volatile boolean closed;
+
+    // written by the server thread only
+    private volatile long ticks;
+    private volatile int connectionCount;
+    private volatile long framesSent;
+    private volatile long framesDropped;
+    private volatile long bytesSent;
+    private volatile long bytesReceived;
+
+
+    /**
+     * Creates a server listening on the given port, nothing is served until start or run is called
+     * @param port port to listen on, 0 for any free port
+     * @param tickRate ticks per second of the game
+     * @throws IOException if the port can't be bound
+     */
+    public GameServer(int port, int tickRate) throws IOException
+    {
+        this.clock      = new FixedTimestep(tickRate, MAX_CATCH_UP_TICKS);
+        this.model      = new Model();
+        this.controller = new Controller(new LinkedBlockingQueue<>(), model, new ServerDisplay());
+        this.encoder    = new DeltaEncoder(controller.getMetrics().getDelta());
+        this.selector   = Selector.open();
+        this.server     = ServerSocketChannel.open();
+
+        server.bind(new InetSocketAddress(port), BACKLOG);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+
+    /**
+     * Runs the server on a new thread
+     */
+    public synchronized void start()
+    {
+        thread = new Thread(this, "server");
+        thread.start();
+    }
+
+
+    /**
+     * Serves the game until the server is closed
+     */
+    @Override
+    public void run()
+    {
+        clock.reset(System.nanoTime());
+        try
+        {
+            while (!closed)
+            {
+                long wait = clock.nanosUntilNextTick(System.nanoTime());
+                if (wait > 0)
+                {
+                    // round up, waking up a little early only means another round of waiting
+                    selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait + 999_999)));
+                }
+                else
+                {
+                    selector.selectNow();
+                }
+                handleSelected();
+
+                int due = clock.advance(System.nanoTime());
+                for (int i = 0; i < due && controller.isRunning(); i++)
+                {
+                    tick();
+                }
+                if (due > 0 && controller.isRunning())
+                {
+                    model.getGameStatus();
+                    frameChanged = true;
+                }
+
+                if (frameChanged)
+                {
+                    frameChanged = false;
+                    sendFrame();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            if (!closed)
+            {
+                e.printStackTrace();
+            }
+        }
+        finally
+        {
+            closeChannels();
+        }
+    }
+
+
+    /**
+     * Stops serving and disconnects every client, waits for the server thread if it was started
+     * @throws IOException if the channels can't be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        closed = true;
+        selector.wakeup();
+
+        Thread t;
+        synchronized (this)
+        {
+            t = thread;
+        }
+        if (t == null)
+        {
+            closeChannels();
+            return;
+        }
+        try
+        {
+            t.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * @return port the server listens on
+     * @throws IOException if the port can't be read
+     */
+    public int getPort() throws IOException
+    {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+
+    /**
+     * @return number of connected clients
+     */
+    public int getConnectionCount()
+    {
+        return connectionCount;
+    }
+
+
+    /**
+     * @return number of frames queued for sending, counted once per client
+     */
+    public long getFramesSent()
+    {
+        return framesSent;
+    }
+
+
+    /**
+     * @return number of frames skipped because a client didn't read the previous ones fast enough
+     */
+    public long getFramesDropped()
+    {
+        return framesDropped;
+    }
+
+
+    /**
+     * @return number of bytes sent to all clients
+     */
+    public long getBytesSent()
+    {
+        return bytesSent;
+    }
+
+
+    /**
+     * @return number of bytes received from all clients
+     */
+    public long getBytesReceived()
+    {
+        return bytesReceived;
+    }
+
+
+    /**
+     * @return number of ticks run
+     */
+    public long getTicks()
+    {
+        return ticks;
+    }
+
+
+    /**
+     * @return the controller of the served game, to read its metrics
+     */
+    public Controller getController()
+    {
+        return controller;
+    }
+
+
+    /**
+     * Spawns the enemies due this tick and ticks the game with the keys of all clients
+     */
+    private void tick()
+    {
+        spawnCredit += SPAWNS_PER_SECOND;
+        int spawns = spawnCredit / clock.getTickRate();
+        if (spawns > 0)
+        {
+            spawnCredit -= spawns * clock.getTickRate();
+            controller.dispatch(new CreateEnemyMessage(spawns));
+        }
+
+        int keys = 0;
+        for (int i = 0; i < connections.size(); i++)
+        {
+            keys |= connections.get(i).keys;
+        }
+        controller.tick(keys);
+        ticks++;
+    }
+
+
+    /**
+     * Accepts new connections and reads or writes the ones that are ready
+     */
+    private void handleSelected()
+    {
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext())
+        {
+            SelectionKey key = it.next();
+            it.remove();
+
+            try
+            {
+                if (key.isAcceptable())
+                {
+                    accept();
+                    continue;
+                }
+
+                Connection c = (Connection) key.attachment();
+                if (key.isValid() && key.isReadable())
+                {
+                    read(c);
+                }
+                if (key.isValid() && key.isWritable())
+                {
+                    flush(c);
+                }
+            }
+            catch (IOException e)
+            {
+                // a single client going away or misbehaving doesn't concern the others
+                disconnect((Connection) key.attachment());
+            }
+        }
+    }
+
+
+    /**
+     * Accepts a client and sends it the current screen and score, the frame follows with the next tick
+     * @throws IOException if the client can't be accepted
+     */
+    private void accept() throws IOException
+    {
+        SocketChannel channel = server.accept();
+        if (channel == null)
+        {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+        Connection c = new Connection(channel);
+        c.key = channel.register(selector, SelectionKey.OP_READ, c);
+        connections.add(c);
+        connectionCount = connections.size();
+
+        ByteBuffer hello = ByteBuffer.allocate(64);
+        Protocol.writeScreen(hello, screen);
+        Protocol.writeScore(hello, model.getScore(), model.getHighScore());
+        c.enqueue(hello.flip(), false);
+        flush(c);
+    }
+
+
+    /**
+     * Reads what a client sent and handles every complete packet
+     * @param c the client
+     * @throws IOException if the client is gone or sent something that isn't a valid packet
+     */
+    private void read(Connection c) throws IOException
+    {
+        int n = c.channel.read(c.in);
+        if (n < 0)
+        {
+            disconnect(c);
+            return;
+        }
+        bytesReceived += n;
+
+        ByteBuffer in = c.in.flip();
+        while (in.remaining() >= Protocol.LENGTH_BYTES)
+        {
+            int length = in.getInt(in.position());
+            if (length < 1 || length > Protocol.MAX_CLIENT_PACKET)
+            {
+                throw new ProtocolException("packet of " + length + " bytes");
+            }
+            if (in.remaining() < Protocol.LENGTH_BYTES + length)
+            {
+                break;
+            }
+
+            // the packet on its own, so a short payload can't run into the next packet
+            ByteBuffer packet = in.slice(in.position() + Protocol.LENGTH_BYTES, length);
+            in.position(in.position() + Protocol.LENGTH_BYTES + length);
+            try
+            {
+                handle(c, packet.get(), packet);
+            }
+            catch (RuntimeException e)
+            {
+                // whatever the packet broke only disconnects the client that sent it
+                throw new ProtocolException("bad packet: " + e);
+            }
+        }
+        in.compact();
+    }
+
+
+    /**
+     * Handles a single packet of a client
+     * @param c the client
+     * @param kind kind of the packet
+     * @param in buffer holding exactly the payload
+     * @throws IOException if the packet isn't known or its payload doesn't fit its kind
+     */
+    private void handle(Connection c, byte kind, ByteBuffer in) throws IOException
+    {
+        if (kind == Protocol.KEYS)
+        {
+            if (in.remaining() != Protocol.payloadLength(kind))
+            {
+                throw new ProtocolException("keys with " + in.remaining() + " bytes of payload");
+            }
+            c.keys = in.get() & 0xFF;
+            return;
+        }
+
+        Message message = Protocol.readMessage(kind, in);
+        if (message instanceof NewGameMessage)
+        {
+            // every client asks for a new game when it shows the game screen, the first one wins
+            if (controller.isRunning())
+            {
+                return;
+            }
+            spawnCredit = 0;
+        }
+        else if (message instanceof StartGameMessage && screen.equals("gamePanel"))
+        {
+            return; // another client got there first
+        }
+        else if (kind == Protocol.PROJECTILE && !controller.isRunning())
+        {
+            return; // there's no player to shoot from
+        }
+        controller.dispatch(message);
+    }
+
+
+    /**
+     * Encodes the latest published frame and sends it to every client, as a delta to the clients that got the previous
+     * frame and as a keyframe to the others
+     * a frame that doesn't fit behind the data still pending for a client is dropped, the client gets the next one as
+     * a keyframe
+     */
+    private void sendFrame()
+    {
+        FrameSnapshot snapshot = model.getFrames().acquire();
+        int size = Protocol.FRAME_HEADER_BYTES + encoder.maxSize(snapshot);
+        frame = encodeFrame(frame, size, snapshot, false);
+
+        boolean keyframeEncoded = false;
+        for (int i = 0; i < connections.size(); i++)
+        {
+            Connection c = connections.get(i);
+            if (c.needsKeyframe && !keyframeEncoded)
+            {
+                keyframe = encodeFrame(keyframe, size, snapshot, true);
+                keyframeEncoded = true;
+            }
+
+            if (c.enqueue(c.needsKeyframe ? keyframe : frame, true))
+            {
+                c.needsKeyframe = false;
+                framesSent++;
+            }
+            else
+            {
+                c.needsKeyframe = true;
+                framesDropped++;
+            }
+        }
+        flushAll();
+    }
+
+
+    /**
+     * Writes a FRAME packet
+     * @param buffer buffer to write into, replaced by a larger one if it's too small
+     * @param size most bytes the packet can take
+     * @param snapshot frame to encode
+     * @param full true for a keyframe, false for the delta to the previous frame
+     * @return the buffer holding the packet, ready to be read
+     */
+    private ByteBuffer encodeFrame(ByteBuffer buffer, int size, FrameSnapshot snapshot, boolean full)
+    {
+        if (buffer.capacity() < size)
+        {
+            buffer = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+        }
+        buffer.clear();
+        buffer.position(Protocol.LENGTH_BYTES);
+        buffer.put(Protocol.FRAME).putLong(ticks);
+        if (full)
+        {
+            encoder.encodeKeyframe(snapshot, buffer);
+        }
+        else
+        {
+            encoder.encode(snapshot, buffer);
+        }
+        buffer.putInt(0, buffer.position() - Protocol.LENGTH_BYTES);
+        return buffer.flip();
+    }
+
+
+    /**
+     * Sends a packet to every client, never dropped
+     * @param packet the packet, ready to be read
+     */
+    private void broadcast(ByteBuffer packet)
+    {
+        for (int i = 0; i < connections.size(); i++)
+        {
+            connections.get(i).enqueue(packet, false);
+        }
+        flushAll();
+    }
+
+
+    /**
+     * Writes as much of every client's pending data as the sockets take
+     */
+    private void flushAll()
+    {
+        for (int i = connections.size() - 1; i >= 0; i--)
+        {
+            Connection c = connections.get(i);
+            try
+            {
+                flush(c);
+            }
+            catch (IOException e)
+            {
+                disconnect(c);
+            }
+        }
+    }
+
+
+    /**
+     * Writes as much of a client's pending data as the socket takes, and waits for the socket to become writable if
+     * anything is left
+     * @param c the client
+     * @throws IOException if the client is gone
+     */
+    private void flush(Connection c) throws IOException
+    {
+        if (c.out.position() == 0)
+        {
+            return;
+        }
+        c.out.flip();
+        bytesSent += c.channel.write(c.out);
+        c.out.compact();
+
+        int ops = c.out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+        if (c.key.interestOps() != ops)
+        {
+            c.key.interestOps(ops);
+        }
+    }
+
+
+    /**
+     * Closes the connection to a client
+     * @param c the client
+     */
+    private void disconnect(Connection c)
+    {
+        if (c == null || !connections.remove(c))
+        {
+            return;
+        }
+        connectionCount = connections.size();
+        c.key.cancel();
+        try
+        {
+            c.channel.close();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+
+    /**
+     * Closes every client, the server socket and the selector
+     */
+    private void closeChannels()
+    {
+        for (int i = connections.size() - 1; i >= 0; i--)
+        {
+            disconnect(connections.get(i));
+        }
+        try
+        {
+            server.close();
+            selector.close();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+
+    /**
+     * A connected client and its buffers
+     */
+    private static class Connection
+    {
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(IN_BUFFER_SIZE);
+        private ByteBuffer out      = ByteBuffer.allocate(OUT_BUFFER_SIZE);
+        private SelectionKey key;
+
+        // keys the client holds, combined with the other clients' every tick
+        private int keys;
+
+        // true until the client got a frame it can apply the next delta to
+        private boolean needsKeyframe = true;
+
+
+        private Connection(SocketChannel channel)
+        {
+            this.channel = channel;
+        }
+
+
+        /**
+         * Appends a packet to the pending data
+         * @param packet the packet, ready to be read, its position isn't changed
+         * @param droppable true if the packet may be skipped while older data is still pending (frames, a keyframe
+         *                  follows), false to grow the buffer instead
+         * @return true if the packet was appended
+         */
+        private boolean enqueue(ByteBuffer packet, boolean droppable)
+        {
+            if (out.remaining() < packet.remaining())
+            {
+                if (droppable && out.position() > 0)
+                {
+                    return false;
+                }
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + packet.remaining()));
+                out = grown.put(out.flip());
+            }
+            out.put(packet.duplicate());
+            return true;
+        }
+    }
+
+
+    /**
+     * Display of the served game: screen and score changes are sent to every client right away, frames are sent
+     * once after each batch of ticks or handled messages
+     */
+    private class ServerDisplay implements GameDisplay
+    {
+        private final ByteBuffer packet = ByteBuffer.allocate(64);
+
+
+        @Override
+        public void updateView(GameInfo info)
+        {
+            frameChanged = true;
+        }
+
+
+        @Override
+        public void updateScore(GameInfo info)
+        {
+            packet.clear();
+            Protocol.writeScore(packet, info.getScore(), info.getHighScore());
+            broadcast(packet.flip());
+        }
+
+
+        @Override
+        public void switchPanel(String panel)
+        {
+            screen = panel;
+            packet.clear();
+            Protocol.writeScreen(packet, panel);
+            broadcast(packet.flip());
+        }
+
+
+        @Override
+        public void setSimulationClock(FixedTimestep clock)
+        {
+            // the server runs its own loop
+        }
+
+
+        @Override
+        public void setMetrics(GameMetrics metrics)
+        {
+            // published by main
+        }
+    }
+
+
+    /**
+     * Runs a server and prints its traffic once per second, the metrics are published through JMX as game "server"
+     * @param args optional: port (default 7777), tick rate (default 60)
+     * @throws Exception if the server can't be started
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int port        = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        int tickRate    = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+
+        GameServer server = new GameServer(port, tickRate);
+        server.getController().getMetrics().publish("server");
+        server.start();
+        System.out.printf("serving on port %d at %d ticks/s%n", server.getPort(), tickRate);
+
+        long lastTicks = 0, lastFrames = 0, lastBytes = 0;
+        while (true)
+        {
+            TimeUnit.SECONDS.sleep(1);
+
+            long ticks = server.getTicks(), frames = server.getFramesSent(), bytes = server.getBytesSent();
+            LatencyHistogram tick = server.getController().getMetrics().getTick();
+            DeltaCompressionMonitor delta = server.getController().getMetrics().getDelta();
+            System.out.printf("clients %d | %d ticks/s | %,d frames/s, %,d dropped in total | %,.1f KB/s out | frame %,.0f bytes, %,.0f as delta | tick p99 %.1f us%n",
+                    server.getConnectionCount(), ticks - lastTicks, frames - lastFrames, server.getFramesDropped(),
+                    (bytes - lastBytes) / 1024.0, delta.getRawBytesPerTick(), delta.getEncodedBytesPerTick(),
+                    tick.getP99Micros());
+
+            lastTicks = ticks;
+            lastFrames = frames;
+            lastBytes = bytes;
+        }
+    }
+}
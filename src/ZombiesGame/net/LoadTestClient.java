@@ -0,0 +1,382 @@
+package ZombiesGame.net;
+
+import ZombiesGame.headless.HeadlessGame;
+import ZombiesGame.messages.CreateProjectileMessage;
+import ZombiesGame.messages.NewGameMessage;
+import ZombiesGame.messages.StartGameMessage;
+import ZombiesGame.view.ActionTracker;
+
+import java.awt.*;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Simulates many players connected to a GameServer from a single thread, to see how the server copes
+ * every bot holds random keys, shoots at random points as fast as the Swing view allows and starts a new game
+ * whenever the server shows the start or game over screen. Frames are only checked for their tick, a gap in the
+ * ticks a bot receives means the server skipped frames for it
+ */
+public class LoadTestClient implements Closeable
+{
+    // same fire rate as the projectile timer of the GamePanel
+    private static final int SHOTS_PER_SECOND   = 5;
+
+    private static final long KEYS_NANOS        = 500_000_000L;
+    private static final long SELECT_MILLIS     = 5;
+
+    private static final int IN_BUFFER_SIZE     = 64 * 1024;
+    private static final int OUT_BUFFER_SIZE    = 1024;
+
+    private static final int[] DIRECTIONS       = {0, ActionTracker.UP, ActionTracker.DOWN, ActionTracker.LEFT,
+            ActionTracker.RIGHT, ActionTracker.UP | ActionTracker.LEFT, ActionTracker.DOWN | ActionTracker.RIGHT};
+
+    private final Selector selector;
+    private final Bot[] bots;
+    private final Random random;
+
+    // written by the thread running the bots only
+    private volatile int connected;
+    private volatile long framesReceived;
+    private volatile long framesMissed;
+    private volatile long bytesReceived;
+    private volatile long packetsSent;
+
+
+    /**
+     * Starts connecting the bots, they play once run is called
+     * @param server address of the server
+     * @param players number of bots
+     * @param seed seed of the random keys and shots
+     * @throws IOException if a connection can't be started
+     */
+    public LoadTestClient(InetSocketAddress server, int players, long seed) throws IOException
+    {
+        this.selector   = Selector.open();
+        this.bots       = new Bot[players];
+        this.random     = new Random(seed);
+
+        for (int i = 0; i < players; i++)
+        {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            bots[i] = new Bot(channel);
+            if (channel.connect(server))
+            {
+                bots[i].key = channel.register(selector, SelectionKey.OP_READ, bots[i]);
+                connected++;
+            }
+            else
+            {
+                bots[i].key = channel.register(selector, SelectionKey.OP_CONNECT, bots[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Plays with all bots for a while
+     * @param nanos how long to play
+     * @throws IOException if the selector fails, bots that lose their connection just stop playing
+     */
+    public void run(long nanos) throws IOException
+    {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end)
+        {
+            selector.select(SELECT_MILLIS);
+
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext())
+            {
+                SelectionKey key = it.next();
+                it.remove();
+                Bot bot = (Bot) key.attachment();
+                try
+                {
+                    if (key.isConnectable() && bot.channel.finishConnect())
+                    {
+                        key.interestOps(SelectionKey.OP_READ);
+                        connected++;
+                    }
+                    else if (key.isReadable())
+                    {
+                        read(bot);
+                    }
+                }
+                catch (IOException e)
+                {
+                    disconnect(bot);
+                }
+            }
+
+            long now = System.nanoTime();
+            for (Bot bot : bots)
+            {
+                if (bot.key.isValid() && bot.channel.isConnected())
+                {
+                    try
+                    {
+                        play(bot, now);
+                    }
+                    catch (IOException e)
+                    {
+                        disconnect(bot);
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * @return number of bots connected
+     */
+    public int getConnected()
+    {
+        return connected;
+    }
+
+
+    /**
+     * @return number of frames received by all bots
+     */
+    public long getFramesReceived()
+    {
+        return framesReceived;
+    }
+
+
+    /**
+     * @return number of ticks the bots didn't get a frame for
+     */
+    public long getFramesMissed()
+    {
+        return framesMissed;
+    }
+
+
+    /**
+     * @return number of bytes received by all bots
+     */
+    public long getBytesReceived()
+    {
+        return bytesReceived;
+    }
+
+
+    /**
+     * @return number of packets sent by all bots
+     */
+    public long getPacketsSent()
+    {
+        return packetsSent;
+    }
+
+
+    /**
+     * Disconnects all bots
+     * @throws IOException if a connection can't be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        for (Bot bot : bots)
+        {
+            bot.channel.close();
+        }
+        selector.close();
+    }
+
+
+    /**
+     * Changes the keys of a bot and shoots when it's time to, and sends what the bot has to say
+     * @param bot the bot
+     * @param now current time in nanoseconds
+     * @throws IOException if the connection fails
+     */
+    private void play(Bot bot, long now) throws IOException
+    {
+        // a bot the server doesn't read from fast enough waits instead of piling up input
+        boolean room = bot.out.remaining() >= 2 * Protocol.MAX_CLIENT_PACKET;
+        if (room && bot.playing && now >= bot.nextKeys)
+        {
+            Protocol.writeKeys(bot.out, DIRECTIONS[random.nextInt(DIRECTIONS.length)]);
+            bot.nextKeys = now + KEYS_NANOS;
+            packetsSent++;
+        }
+        if (room && bot.playing && now >= bot.nextShot)
+        {
+            Point target = new Point(random.nextInt(HeadlessGame.WIDTH), random.nextInt(HeadlessGame.HEIGHT));
+            Protocol.writeMessage(bot.out, new CreateProjectileMessage(target));
+            bot.nextShot = now + 1_000_000_000L / SHOTS_PER_SECOND;
+            packetsSent++;
+        }
+
+        if (bot.out.position() > 0)
+        {
+            bot.out.flip();
+            bot.channel.write(bot.out);
+            bot.out.compact();
+        }
+    }
+
+
+    /**
+     * Reads what the server sent a bot and reacts to every complete packet
+     * @param bot the bot
+     * @throws IOException if the connection fails or the server sent an unknown packet
+     */
+    private void read(Bot bot) throws IOException
+    {
+        int n = bot.channel.read(bot.in);
+        if (n < 0)
+        {
+            disconnect(bot);
+            return;
+        }
+        bytesReceived += n;
+
+        ByteBuffer in = bot.in.flip();
+        while (in.remaining() >= Protocol.LENGTH_BYTES)
+        {
+            int length = in.getInt(in.position());
+            if (in.remaining() < Protocol.LENGTH_BYTES + length)
+            {
+                if (in.capacity() < Protocol.LENGTH_BYTES + length)
+                {
+                    ByteBuffer grown = ByteBuffer.allocate(Math.max(in.capacity() * 2, Protocol.LENGTH_BYTES + length));
+                    in = grown.put(in).flip();
+                    bot.in = in;
+                }
+                break;
+            }
+
+            int end = in.position() + Protocol.LENGTH_BYTES + length;
+            in.position(in.position() + Protocol.LENGTH_BYTES);
+            byte kind = in.get();
+            if (kind == Protocol.FRAME)
+            {
+                long tick = in.getLong();
+                if (bot.lastTick >= 0 && tick > bot.lastTick + 1)
+                {
+                    framesMissed += tick - bot.lastTick - 1;
+                }
+                bot.lastTick = tick;
+                framesReceived++;
+            }
+            else if (kind == Protocol.SCREEN)
+            {
+                // what the view does when it shows a screen, and the player clicking play right away
+                bot.playing = Protocol.SCREENS[in.get()].equals("gamePanel");
+                if (bot.playing)
+                {
+                    Protocol.writeMessage(bot.out, new NewGameMessage(HeadlessGame.WIDTH, HeadlessGame.HEIGHT,
+                            HeadlessGame.SPRITE_SIZE));
+                }
+                else
+                {
+                    Protocol.writeMessage(bot.out, new StartGameMessage());
+                }
+                packetsSent++;
+            }
+            else if (kind != Protocol.SCORE)
+            {
+                throw new ProtocolException("unknown packet " + kind);
+            }
+            in.position(end);
+        }
+        in.compact();
+    }
+
+
+    /**
+     * Closes the connection of a bot that failed
+     * @param bot the bot
+     */
+    private void disconnect(Bot bot)
+    {
+        if (bot.channel.isConnected())
+        {
+            connected--;
+        }
+        bot.key.cancel();
+        try
+        {
+            bot.channel.close();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+
+    /**
+     * A simulated player
+     */
+    private static class Bot
+    {
+        private final SocketChannel channel;
+        private final ByteBuffer out    = ByteBuffer.allocate(OUT_BUFFER_SIZE);
+        private ByteBuffer in           = ByteBuffer.allocate(IN_BUFFER_SIZE);
+        private SelectionKey key;
+
+        private boolean playing;
+        private long nextKeys;
+        private long nextShot;
+        private long lastTick = -1;
+
+
+        private Bot(SocketChannel channel)
+        {
+            this.channel = channel;
+        }
+    }
+
+
+    /**
+     * Connects bots to a server and prints what they receive once per second
+     * @param args optional: host (default localhost), port (default 7777), bots (default 200), seconds (default 30)
+     * @throws IOException if the bots can't connect
+     */
+    public static void main(String[] args) throws IOException
+    {
+        String host     = args.length > 0 ? args[0] : "localhost";
+        int port        = args.length > 1 ? Integer.parseInt(args[1]) : 7777;
+        int players     = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int seconds     = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+
+        try (LoadTestClient client = new LoadTestClient(new InetSocketAddress(host, port), players, 0))
+        {
+            long lastFrames = 0, lastMissed = 0, lastBytes = 0;
+            for (int i = 0; i < seconds; i++)
+            {
+                client.run(1_000_000_000L);
+
+                long frames = client.getFramesReceived(), missed = client.getFramesMissed();
+                long bytes = client.getBytesReceived();
+                System.out.printf("bots %d | %,d frames/s, %,d missed | %,.1f KB/s in | %,d packets sent%n",
+                        client.getConnected(), frames - lastFrames, missed - lastMissed, (bytes - lastBytes) / 1024.0,
+                        client.getPacketsSent());
+
+                lastFrames = frames;
+                lastMissed = missed;
+                lastBytes = bytes;
+            }
+            System.out.printf("%,d frames received, %,d missed (%.2f%%)%n", client.getFramesReceived(),
+                    client.getFramesMissed(),
+                    100.0 * client.getFramesMissed() / Math.max(1, client.getFramesReceived() + client.getFramesMissed()));
+        }
+    }
+}
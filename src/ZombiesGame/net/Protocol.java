@@ -0,0 +1,258 @@
+package ZombiesGame.net;
+
+import ZombiesGame.messages.*;
+
+import java.awt.*;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format between GameServer and its clients, over TCP
+ * every packet is its length (int, counting everything after it), a kind (byte) and the payload of that kind
+ *
+ * client to server:
+ *   KEYS           keys held by the player (byte, ActionTracker.getState)
+ *   NEW_GAME       width, height, sprite size (ints)
+ *   PROJECTILE     x, y of the mouse (ints)
+ *   START_GAME     nothing
+ *   FIRST_SCREEN   nothing
+ * server to client:
+ *   FRAME          tick (long), then the frame as the difference to the previous one sent to the client, or in full as
+ *                  a keyframe (see DeltaEncoder)
+ *   SCREEN         screen to show (byte, index into SCREENS)
+ *   SCORE          score, high score (ints)
+ */
+final class Protocol
+{
+    // bytes of the length in front of every packet
+    static final int LENGTH_BYTES       = Integer.BYTES;
+
+    // longest packet a client may send, anything longer is a protocol error
+    static final int MAX_CLIENT_PACKET  = 64;
+
+    static final byte KEYS              = 1;
+    static final byte NEW_GAME          = 2;
+    static final byte PROJECTILE        = 3;
+    static final byte START_GAME        = 4;
+    static final byte FIRST_SCREEN      = 5;
+
+    static final byte FRAME             = 16;
+    static final byte SCREEN            = 17;
+    static final byte SCORE             = 18;
+
+    static final String[] SCREENS       = {"startPanel", "gamePanel", "gameOverPanel"};
+
+    // widest and highest screen a client may ask a new game for
+    static final int MAX_SCREEN_SIZE    = 8192;
+
+    // bytes in front of the encoded frame of a FRAME packet: length, kind, tick
+    static final int FRAME_HEADER_BYTES = LENGTH_BYTES + 1 + Long.BYTES;
+
+
+    private Protocol()
+    {
+        // constants and helpers only
+    }
+
+
+    /**
+     * @param out buffer to append to, needs room for MAX_CLIENT_PACKET bytes
+     * @param keys keys held by the player
+     */
+    static void writeKeys(ByteBuffer out, int keys)
+    {
+        out.putInt(2).put(KEYS).put((byte) keys);
+    }
+
+
+    /**
+     * Appends a message for the server
+     * enemy spawns and ticks are decided by the server, so CreateEnemyMessage and UpdateEntitiesMessage aren't sent
+     * @param out buffer to append to, needs room for MAX_CLIENT_PACKET bytes
+     * @param message the message
+     * @return true if the message was written, false if the server doesn't take messages of its class
+     */
+    static boolean writeMessage(ByteBuffer out, Message message)
+    {
+        if (message instanceof NewGameMessage)
+        {
+            NewGameMessage m = (NewGameMessage) message;
+            out.putInt(1 + 3 * Integer.BYTES).put(NEW_GAME)
+               .putInt(m.getWidth()).putInt(m.getHeight()).putInt(m.getSpriteSize());
+        }
+        else if (message instanceof CreateProjectileMessage)
+        {
+            Point mouse = ((CreateProjectileMessage) message).getMousePosition();
+            out.putInt(1 + 2 * Integer.BYTES).put(PROJECTILE).putInt(mouse.x).putInt(mouse.y);
+        }
+        else if (message instanceof StartGameMessage)
+        {
+            out.putInt(1).put(START_GAME);
+        }
+        else if (message instanceof FirstScreenMessage)
+        {
+            out.putInt(1).put(FIRST_SCREEN);
+        }
+        else
+        {
+            return false;
+        }
+        return true;
+    }
+
+
+    /**
+     * @param kind kind of a packet a client sends
+     * @return bytes of its payload, -1 if clients don't send packets of that kind
+     */
+    static int payloadLength(byte kind)
+    {
+        switch (kind)
+        {
+            case KEYS:
+                return 1;
+            case NEW_GAME:
+                return 3 * Integer.BYTES;
+            case PROJECTILE:
+                return 2 * Integer.BYTES;
+            case START_GAME:
+            case FIRST_SCREEN:
+                return 0;
+            default:
+                return -1;
+        }
+    }
+
+
+    /**
+     * Reads the payload of a message packet
+     * @param kind kind of the packet
+     * @param in buffer holding exactly the payload
+     * @return the message
+     * @throws IOException if the kind isn't a message or the payload doesn't fit it
+     */
+    static Message readMessage(byte kind, ByteBuffer in) throws IOException
+    {
+        if (kind == KEYS || payloadLength(kind) < 0)
+        {
+            throw new ProtocolException("unknown packet " + kind);
+        }
+        if (in.remaining() != payloadLength(kind))
+        {
+            throw new ProtocolException("packet " + kind + " with " + in.remaining() + " bytes of payload");
+        }
+
+        switch (kind)
+        {
+            case NEW_GAME:
+                int width = in.getInt();
+                int height = in.getInt();
+                int spriteSize = in.getInt();
+                // enemies spawn between the sprite size and the screen edge, so the screen has to be bigger
+                if (spriteSize < 1 || width <= spriteSize || height <= spriteSize
+                        || width > MAX_SCREEN_SIZE || height > MAX_SCREEN_SIZE)
+                {
+                    throw new ProtocolException("new game of " + width + "x" + height + " with sprites of "
+                            + spriteSize);
+                }
+                return new NewGameMessage(width, height, spriteSize);
+            case PROJECTILE:
+                return new CreateProjectileMessage(new Point(in.getInt(), in.getInt()));
+            case START_GAME:
+                return new StartGameMessage();
+            case FIRST_SCREEN:
+                return new FirstScreenMessage();
+            default:
+                throw new ProtocolException("unknown packet " + kind);
+        }
+    }
+
+
+    /**
+     * Appends an int in as few bytes as it needs, 7 bits per byte with the high bit set on all but the last byte
+     * negative values take 5 bytes, zigzag them first if they can be negative
+     * @param out buffer to append to
+     * @param value the value
+     */
+    static void putVarInt(ByteBuffer out, int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+
+    /**
+     * Reads an int written by putVarInt
+     * @param in buffer to read from
+     * @return the value
+     * @throws ProtocolException if the value is longer than 5 bytes
+     */
+    static int getVarInt(ByteBuffer in) throws ProtocolException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+            {
+                return value;
+            }
+        }
+        throw new ProtocolException("varint longer than 5 bytes");
+    }
+
+
+    /**
+     * @param value any int
+     * @return the value with the sign moved to the lowest bit, so small negative values stay small varints
+     */
+    static int zigzag(int value)
+    {
+        return (value << 1) ^ (value >> 31);
+    }
+
+
+    /**
+     * @param value a zigzagged int
+     * @return the original value
+     */
+    static int unzigzag(int value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+
+    /**
+     * @param out buffer to append to
+     * @param panel name of the screen, one of SCREENS
+     */
+    static void writeScreen(ByteBuffer out, String panel)
+    {
+        byte code = 0;
+        for (byte i = 0; i < SCREENS.length; i++)
+        {
+            if (SCREENS[i].equals(panel))
+            {
+                code = i;
+            }
+        }
+        out.putInt(2).put(SCREEN).put(code);
+    }
+
+
+    /**
+     * @param out buffer to append to
+     * @param score current score
+     * @param highScore current high score
+     */
+    static void writeScore(ByteBuffer out, int score, int highScore)
+    {
+        out.putInt(1 + 2 * Integer.BYTES).put(SCORE).putInt(score).putInt(highScore);
+    }
+}
@@ -0,0 +1,175 @@
+package ZombiesGame.replay;
+
+import ZombiesGame.messages.*;
+import ZombiesGame.model.Model;
+
+import java.awt.*;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes everything that decides how a game plays out to a compact binary log (see SessionLog): the messages handled
+ * by the controller and the keys held during every tick, together with the state of the model's random numbers
+ * recording has to start before the first game, while the model is still fresh, a SessionReplayer then repeats the
+ * session tick for tick
+ * the controller records from its own thread, the methods are synchronized so the log can be closed from any other
+ */
+public class SessionRecorder implements Closeable
+{
+    private final DataOutputStream out;
+    private boolean closed;
+    private long ticks;
+    private long messages;
+
+
+    /**
+     * Starts a recording by writing the header of the log
+     * @param out where the log is written, closed together with the recorder
+     * @param model model whose game is recorded, its random numbers must not have been used yet
+     * @param tickRate ticks per second of the game, used to replay it at the same speed
+     * @throws IOException if the header can't be written
+     */
+    public SessionRecorder(OutputStream out, Model model, int tickRate) throws IOException
+    {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(SessionLog.MAGIC);
+        this.out.writeByte(SessionLog.VERSION);
+        this.out.writeInt(tickRate);
+        this.out.writeLong(model.getRandom().getState());
+    }
+
+
+    /**
+     * Records a tick
+     * @param keys keys held during the tick, as combined by ActionTracker.getState
+     */
+    public synchronized void recordTick(int keys)
+    {
+        if (closed)
+        {
+            return;
+        }
+
+        try
+        {
+            out.writeByte(SessionLog.TICK | keys << SessionLog.TAG_BITS);
+            ticks++;
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+
+    /**
+     * Records a message before the controller handles it
+     * update messages aren't written, the tick they cause is recorded by recordTick
+     * @param message the message
+     * @throws IllegalArgumentException if the log has no record for the class of the message
+     */
+    public synchronized void recordMessage(Message message)
+    {
+        if (closed || message instanceof UpdateEntitiesMessage)
+        {
+            return;
+        }
+
+        try
+        {
+            if (message instanceof NewGameMessage)
+            {
+                NewGameMessage m = (NewGameMessage) message;
+                out.writeByte(SessionLog.NEW_GAME);
+                out.writeInt(m.getWidth());
+                out.writeInt(m.getHeight());
+                out.writeInt(m.getSpriteSize());
+            }
+            else if (message instanceof CreateProjectileMessage)
+            {
+                Point mouse = ((CreateProjectileMessage) message).getMousePosition();
+                out.writeByte(SessionLog.PROJECTILE);
+                out.writeInt(mouse.x);
+                out.writeInt(mouse.y);
+            }
+            else if (message instanceof CreateEnemyMessage)
+            {
+                out.writeByte(SessionLog.ENEMY);
+                out.writeInt(((CreateEnemyMessage) message).getCount());
+            }
+            else if (message instanceof StartGameMessage)
+            {
+                out.writeByte(SessionLog.START_GAME);
+            }
+            else if (message instanceof FirstScreenMessage)
+            {
+                out.writeByte(SessionLog.FIRST_SCREEN);
+            }
+            else
+            {
+                throw new IllegalArgumentException("can't record messages of " + message.getClass());
+            }
+            messages++;
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+
+    /**
+     * @return true until the recorder is closed or writing the log failed
+     */
+    public synchronized boolean isRecording()
+    {
+        return !closed;
+    }
+
+
+    /**
+     * @return number of ticks recorded so far
+     */
+    public synchronized long getTicks()
+    {
+        return ticks;
+    }
+
+
+    /**
+     * @return number of messages recorded so far
+     */
+    public synchronized long getMessages()
+    {
+        return messages;
+    }
+
+
+    /**
+     * Stops recording and closes the log, later ticks and messages are ignored
+     * @throws IOException if the rest of the log can't be written
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if (!closed)
+        {
+            closed = true;
+            out.close();
+        }
+    }
+
+
+    /**
+     * Stops recording after the log couldn't be written, the game itself goes on
+     * @param e the error
+     */
+    private void fail(IOException e)
+    {
+        e.printStackTrace();
+        closed = true;
+    }
+}
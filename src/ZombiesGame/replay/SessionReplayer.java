@@ -0,0 +1,217 @@
+package ZombiesGame.replay;
+
+import ZombiesGame.controller.Controller;
+import ZombiesGame.headless.HeadlessDisplay;
+import ZombiesGame.messages.*;
+import ZombiesGame.metrics.LatencyHistogram;
+import ZombiesGame.model.*;
+
+import java.awt.*;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds a session recorded by SessionRecorder back into a controller
+ * the model's random numbers are set to where they were when recording started, then every message and tick is
+ * handed to the controller in the recorded order, so a fresh model ends up with the same score and entities as the
+ * recorded game. Replays run as fast as possible, or paced at a multiple of the recorded tick rate
+ */
+public class SessionReplayer implements Closeable
+{
+    private final DataInputStream in;
+    private final int tickRate;
+    private final long randomState;
+
+    private long ticks;
+    private long messages;
+
+
+    /**
+     * Opens a recorded session by reading the header of its log
+     * @param in the log, closed together with the replayer
+     * @throws IOException if the log can't be read or wasn't written by a SessionRecorder
+     */
+    public SessionReplayer(InputStream in) throws IOException
+    {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+
+        if (this.in.readInt() != SessionLog.MAGIC)
+        {
+            throw new IOException("not a recorded session");
+        }
+        int version = this.in.readUnsignedByte();
+        if (version != SessionLog.VERSION)
+        {
+            throw new IOException("unsupported session log version " + version);
+        }
+        this.tickRate       = this.in.readInt();
+        this.randomState    = this.in.readLong();
+    }
+
+
+    /**
+     * Replays the rest of the log
+     * a log that ends in the middle of a record, for example because the game was killed, is replayed up to its last
+     * complete record
+     * @param model model of the controller, must be fresh like the recorded one
+     * @param controller controller to feed the messages and ticks to
+     * @param speed multiple of the recorded tick rate to replay at, 0 to replay as fast as possible
+     * @return number of ticks replayed
+     * @throws IOException if the log can't be read or holds an unknown record
+     * @throws InterruptedException if interrupted while waiting for the next tick
+     */
+    public long replay(Model model, Controller controller, double speed) throws IOException, InterruptedException
+    {
+        model.getRandom().setState(randomState);
+
+        long nanosPerTick = speed > 0 ? (long) (1e9 / (tickRate * speed)) : 0;
+        long start = System.nanoTime();
+
+        int record;
+        while ((record = in.read()) != -1)
+        {
+            int tag = record & SessionLog.TAG_MASK;
+            if (tag == SessionLog.TICK)
+            {
+                if (nanosPerTick > 0)
+                {
+                    long wait = start + ticks * nanosPerTick - System.nanoTime();
+                    if (wait > 0)
+                    {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+
+                controller.tick(record >>> SessionLog.TAG_BITS);
+                ticks++;
+            }
+            else
+            {
+                Message message;
+                try
+                {
+                    message = readMessage(tag);
+                }
+                catch (EOFException e)
+                {
+                    break; // cut off in the middle of the record
+                }
+
+                controller.dispatch(message);
+                messages++;
+            }
+        }
+        return ticks;
+    }
+
+
+    /**
+     * @return ticks per second of the recorded game
+     */
+    public int getTickRate()
+    {
+        return tickRate;
+    }
+
+
+    /**
+     * @return number of ticks replayed so far
+     */
+    public long getTicks()
+    {
+        return ticks;
+    }
+
+
+    /**
+     * @return number of messages replayed so far
+     */
+    public long getMessages()
+    {
+        return messages;
+    }
+
+
+    /**
+     * Closes the log
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+
+
+    /**
+     * Reads the rest of a message record
+     * @param tag tag of the record
+     * @return the recorded message
+     * @throws IOException if the log can't be read or the tag is unknown
+     */
+    private Message readMessage(int tag) throws IOException
+    {
+        switch (tag)
+        {
+            case SessionLog.NEW_GAME:
+                return new NewGameMessage(in.readInt(), in.readInt(), in.readInt());
+            case SessionLog.PROJECTILE:
+                return new CreateProjectileMessage(new Point(in.readInt(), in.readInt()));
+            case SessionLog.ENEMY:
+                return new CreateEnemyMessage(in.readInt());
+            case SessionLog.START_GAME:
+                return new StartGameMessage();
+            case SessionLog.FIRST_SCREEN:
+                return new FirstScreenMessage();
+            default:
+                throw new IOException("unknown record " + tag + " after " + ticks + " ticks");
+        }
+    }
+
+
+    /**
+     * Replays a recorded session without a screen and prints the final state of the game
+     * @param args path of the log, optional: speed as a multiple of the recorded tick rate (default 0, as fast as
+     *             possible)
+     * @throws Exception if the log can't be replayed
+     */
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length == 0)
+        {
+            System.out.println("usage: SessionReplayer <log> [speed]");
+            return;
+        }
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+
+        Model model = new Model();
+        Controller controller = new Controller(new LinkedBlockingQueue<>(), model, new HeadlessDisplay());
+
+        try (SessionReplayer replayer = new SessionReplayer(new FileInputStream(args[0])))
+        {
+            long start = System.nanoTime();
+            long ticks = replayer.replay(model, controller, speed);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("replayed %,d ticks and %,d messages (%ds of play) in %.1fs (%,.0f ticks/s)%n",
+                    ticks, replayer.getMessages(), ticks / replayer.getTickRate(), elapsed, ticks / elapsed);
+        }
+
+        System.out.printf("score %d | enemies %d, projectiles %d, items %d%n", model.getScore(),
+                model.getEntityCount(Enemy.class), model.getEntityCount(Projectile.class),
+                model.getEntityCount(Item.class));
+
+        for (LatencyHistogram phase : controller.getMetrics().getPhases())
+        {
+            System.out.printf("%-24s p50 %8.1f us | p99 %8.1f us | max %8.1f us%n",
+                    phase.getName(), phase.getP50Micros(), phase.getP99Micros(), phase.getMaxMicros());
+        }
+    }
+}
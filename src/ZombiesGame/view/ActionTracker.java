@@ -3,20 +3,29 @@ package ZombiesGame.view;
 /**
  * ActionTracker class tracks changes between which keys are currently being pressed
  * implements Singleton design pattern to ensure single instance of object exists and to share one reference
+ * games that don't take input from the keyboard (headless sessions) create their own instances instead
  */
 public class ActionTracker
 {
     // ensures one instance of ActionTracker exists
     private static ActionTracker instance;
 
-    // booleans defining whether specific keys are being pressed or not
-    private boolean isUp, isDown, isLeft, isRight, isClicked;
+    // bits of the keys and mouse button that can be held, combined in the state
+    public static final int UP      = 1;
+    public static final int DOWN    = 2;
+    public static final int LEFT    = 4;
+    public static final int RIGHT   = 8;
+    public static final int CLICKED = 16;
+
+    // which keys are being pressed, as bits, so the simulation thread reads all of them at once
+    // only the thread handling input writes it
+    private volatile int state;
 
 
     /**
-     * Default constructor that does nothing
+     * Creates key states of their own, independent of the instance shared with the Swing view
      */
-    private ActionTracker()
+    public ActionTracker()
     {
         // does nothing
     }
@@ -36,54 +45,85 @@ public class ActionTracker
     // setter methods
     public void setUp(boolean b)
     {
-        this.isUp = b;
+        set(UP, b);
     }
 
     public void setDown(boolean b)
     {
-        this.isDown = b;
+        set(DOWN, b);
     }
 
     public void setRight(boolean b)
     {
-        this.isRight = b;
+        set(RIGHT, b);
     }
 
     public void setLeft(boolean b)
     {
-        this.isLeft = b;
+        set(LEFT, b);
     }
 
     public void setClicked(boolean b)
     {
-        isClicked = b;
+        set(CLICKED, b);
     }
 
 
     // getter methods
     public boolean isUp()
     {
-        return isUp;
+        return (state & UP) != 0;
     }
 
     public boolean isDown()
     {
-        return isDown;
+        return (state & DOWN) != 0;
     }
 
     public boolean isRight()
     {
-        return isRight;
+        return (state & RIGHT) != 0;
     }
 
     public boolean isLeft()
     {
-        return isLeft;
+        return (state & LEFT) != 0;
     }
 
     public boolean isClicked()
     {
-        return isClicked;
+        return (state & CLICKED) != 0;
+    }
+
+
+    /**
+     * gets all key states at once
+     * @return combination of the UP, DOWN, LEFT, RIGHT and CLICKED bits of the keys being pressed
+     */
+    public int getState()
+    {
+        return state;
+    }
+
+
+    /**
+     * sets all key states at once, used when input is replayed
+     * @param state combination of the UP, DOWN, LEFT, RIGHT and CLICKED bits
+     */
+    public void setState(int state)
+    {
+        this.state = state;
+    }
+
+
+    /**
+     * sets or clears a single bit of the state
+     * @param bit the bit
+     * @param b true if the key is pressed
+     */
+    private void set(int bit, boolean b)
+    {
+        state = b ? state | bit : state & ~bit;
     }
 
 
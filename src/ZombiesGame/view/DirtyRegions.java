@@ -0,0 +1,246 @@
+package ZombiesGame.view;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Tracks which parts of the screen have to be redrawn, on a grid of square tiles
+ * rectangles are marked by the tiles they touch, and the dirty tiles of every row are merged into runs, so a frame
+ * with a few moving sprites is redrawn as a handful of rectangles instead of the whole screen
+ * nothing is allocated after construction
+ */
+public class DirtyRegions
+{
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final int columns;
+    private final int rows;
+    private final boolean[] dirty;
+
+    // runs of dirty tiles, valid after findRuns
+    private final int[] runX;
+    private final int[] runY;
+    private final int[] runWidth;
+    private final int[] runHeight;
+    private int runCount;
+    private long area;
+    private final Rectangle bounds = new Rectangle();
+
+
+    /**
+     * Creates a grid with every tile clean
+     * @param width width of the screen in pixels
+     * @param height height of the screen in pixels
+     * @param tileSize width and height of a tile in pixels
+     */
+    public DirtyRegions(int width, int height, int tileSize)
+    {
+        this.width      = width;
+        this.height     = height;
+        this.tileSize   = tileSize;
+        this.columns    = (width + tileSize - 1) / tileSize;
+        this.rows       = (height + tileSize - 1) / tileSize;
+        this.dirty      = new boolean[columns * rows];
+
+        // at most every other tile of a row starts a run
+        int maxRuns = rows * ((columns + 1) / 2);
+        runX        = new int[maxRuns];
+        runY        = new int[maxRuns];
+        runWidth    = new int[maxRuns];
+        runHeight   = new int[maxRuns];
+    }
+
+
+    /**
+     * Marks every tile clean
+     */
+    public void clear()
+    {
+        Arrays.fill(dirty, false);
+        runCount = 0;
+        area = 0;
+    }
+
+
+    /**
+     * Marks the tiles touched by a rectangle dirty, the part outside the screen is ignored
+     * @param x left edge
+     * @param y top edge
+     * @param w width
+     * @param h height
+     */
+    public void mark(int x, int y, int w, int h)
+    {
+        int left    = Math.max(0, x);
+        int top     = Math.max(0, y);
+        int right   = Math.min(width, x + w);
+        int bottom  = Math.min(height, y + h);
+        if (left >= right || top >= bottom)
+        {
+            return;
+        }
+
+        int lastColumn = (right - 1) / tileSize;
+        int lastRow = (bottom - 1) / tileSize;
+        for (int row = top / tileSize; row <= lastRow; row++)
+        {
+            for (int column = left / tileSize; column <= lastColumn; column++)
+            {
+                dirty[row * columns + column] = true;
+            }
+        }
+    }
+
+
+    /**
+     * Marks the whole screen dirty
+     */
+    public void markAll()
+    {
+        Arrays.fill(dirty, true);
+    }
+
+
+    /**
+     * Merges the dirty tiles of every row into runs, clipped to the screen
+     * @return number of runs
+     */
+    public int findRuns()
+    {
+        runCount = 0;
+        area = 0;
+        int minX = width, minY = height, maxX = 0, maxY = 0;
+
+        for (int row = 0; row < rows; row++)
+        {
+            int column = 0;
+            while (column < columns)
+            {
+                if (!dirty[row * columns + column])
+                {
+                    column++;
+                    continue;
+                }
+
+                int start = column;
+                while (column < columns && dirty[row * columns + column])
+                {
+                    column++;
+                }
+
+                int x = start * tileSize;
+                int y = row * tileSize;
+                int w = Math.min(width, column * tileSize) - x;
+                int h = Math.min(height, y + tileSize) - y;
+                runX[runCount]      = x;
+                runY[runCount]      = y;
+                runWidth[runCount]  = w;
+                runHeight[runCount] = h;
+                runCount++;
+                area += (long) w * h;
+
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x + w);
+                maxY = Math.max(maxY, y + h);
+            }
+        }
+
+        if (runCount > 0)
+        {
+            bounds.setBounds(minX, minY, maxX - minX, maxY - minY);
+        }
+        else
+        {
+            bounds.setBounds(0, 0, 0, 0);
+        }
+        return runCount;
+    }
+
+
+    /**
+     * @return number of runs found by the last findRuns
+     */
+    public int getRunCount()
+    {
+        return runCount;
+    }
+
+
+    /**
+     * @param run index of a run
+     * @return left edge of the run
+     */
+    public int getRunX(int run)
+    {
+        return runX[run];
+    }
+
+
+    /**
+     * @param run index of a run
+     * @return top edge of the run
+     */
+    public int getRunY(int run)
+    {
+        return runY[run];
+    }
+
+
+    /**
+     * @param run index of a run
+     * @return width of the run
+     */
+    public int getRunWidth(int run)
+    {
+        return runWidth[run];
+    }
+
+
+    /**
+     * @param run index of a run
+     * @return height of the run
+     */
+    public int getRunHeight(int run)
+    {
+        return runHeight[run];
+    }
+
+
+    /**
+     * @return number of pixels in all runs
+     */
+    public long getArea()
+    {
+        return area;
+    }
+
+
+    /**
+     * Gets the smallest rectangle around all runs, the same instance is returned every time
+     * @return bounds of the runs, empty if there are none
+     */
+    public Rectangle getBounds()
+    {
+        return bounds;
+    }
+
+
+    /**
+     * @return width of the screen
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+
+    /**
+     * @return height of the screen
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+}
@@ -0,0 +1,123 @@
+package ZombiesGame.view;
+
+import java.awt.*;
+
+/**
+ * Frame rate cap used by the render thread of GameCanvas
+ * frames start on a fixed grid of slots, one every 1 / maxFps seconds. A frame that finishes after the end of its slot
+ * misses every slot it ran into, those are counted and the next frame starts at the first free slot instead of
+ * rendering the missed frames back to back
+ * only used by the render thread, the counts can be read from other threads
+ */
+public class FramePacer
+{
+    // frame rate used when the refresh rate of the screen is unknown
+    public static final int DEFAULT_FPS = 60;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final int maxFps;
+    private final long frameNanos;
+
+    // start of the next slot
+    private long next;
+
+    private volatile long frames;
+    private volatile long missedFrames;
+
+
+    /**
+     * Creates a pacer with the given frame rate
+     * @param maxFps most frames per second
+     */
+    public FramePacer(int maxFps)
+    {
+        if (maxFps < 1)
+        {
+            throw new IllegalArgumentException("the frame rate must be positive, was " + maxFps);
+        }
+
+        this.maxFps     = maxFps;
+        this.frameNanos = NANOS_PER_SECOND / maxFps;
+    }
+
+
+    /**
+     * Starts the grid of slots at the given point, keeping the counts
+     * @param now current time in nanoseconds (System.nanoTime)
+     */
+    public void reset(long now)
+    {
+        next = now;
+    }
+
+
+    /**
+     * Counts a frame that was just drawn and moves on to the slot the next frame starts in
+     * @param now time the frame was finished in nanoseconds (System.nanoTime)
+     * @return nanoseconds to wait before the next frame, 0 or less to start it right away
+     */
+    public long frameDone(long now)
+    {
+        frames++;
+        next += frameNanos;
+        if (now > next)
+        {
+            long missed = (now - next) / frameNanos + 1;
+            missedFrames += missed;
+            next += missed * frameNanos;
+        }
+        return next - now;
+    }
+
+
+    /**
+     * @return refresh rate of the default screen, DEFAULT_FPS if it's unknown or there is no screen
+     */
+    public static int screenRefreshRate()
+    {
+        if (GraphicsEnvironment.isHeadless())
+        {
+            return DEFAULT_FPS;
+        }
+        int rate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode()
+                .getRefreshRate();
+        return rate != DisplayMode.REFRESH_RATE_UNKNOWN ? rate : DEFAULT_FPS;
+    }
+
+
+    /**
+     * @return most frames per second
+     */
+    public int getMaxFps()
+    {
+        return maxFps;
+    }
+
+
+    /**
+     * @return length of a slot in nanoseconds
+     */
+    public long getFrameNanos()
+    {
+        return frameNanos;
+    }
+
+
+    /**
+     * @return number of frames drawn
+     */
+    public long getFrames()
+    {
+        return frames;
+    }
+
+
+    /**
+     * @return number of slots missed because a frame took too long
+     */
+    public long getMissedFrames()
+    {
+        return missedFrames;
+    }
+}
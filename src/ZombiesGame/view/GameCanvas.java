@@ -0,0 +1,249 @@
+package ZombiesGame.view;
+
+import ZombiesGame.model.FrameSnapshot;
+import ZombiesGame.model.SnapshotExchange;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Canvas of the game screen for active rendering: instead of painting when Swing gets around to it after a repaint(),
+ * a render thread of its own draws the latest frame through a page flipping BufferStrategy at a fixed rate
+ * frames are capped by a FramePacer, which also counts the frames missed because drawing took too long.
+ * Toolkit.sync() pushes every frame to the screen right away
+ * paint events are ignored, everything on the canvas is drawn by the render thread
+ */
+@SuppressWarnings("serial") // never serialized
+public class GameCanvas extends Canvas implements Runnable
+{
+    private static final int BUFFERS        = 2;
+    // how long the render thread waits for the canvas to be shown
+    private static final long IDLE_NANOS    = 10_000_000;
+    private static final Font SCORE_FONT    = new Font("Serif", Font.PLAIN, 30);
+
+    private final GameRenderer renderer;
+    private final PerformanceOverlay overlay;
+    private final FramePacer pacer;
+
+    private volatile SnapshotExchange frames;
+    private volatile int score;
+    private volatile int highScore;
+    // text of the scores, only rebuilt when they change
+    private String scoreText = "";
+    private int textScore = -1;
+    private int textHighScore = -1;
+
+    private volatile boolean running;
+    private Thread thread;
+
+
+    /**
+     * Creates a canvas that doesn't render until started
+     * @param renderer draws the game screen, only used by the render thread while it runs
+     * @param overlay performance overlay drawn on top, it gets the render times and missed frames
+     * @param maxFps most frames per second, 0 or less for the refresh rate of the screen
+     * @param d size of the canvas
+     */
+    public GameCanvas(GameRenderer renderer, PerformanceOverlay overlay, int maxFps, Dimension d)
+    {
+        this.renderer   = renderer;
+        this.overlay    = overlay;
+        this.pacer      = new FramePacer(maxFps > 0 ? maxFps : FramePacer.screenRefreshRate());
+
+        setPreferredSize(d);
+        setIgnoreRepaint(true);
+        // keys stay with the panel, which listens to them
+        setFocusable(false);
+    }
+
+
+    /**
+     * sets the frames to draw, the latest one is drawn every frame
+     * @param frames exchange the simulation publishes its frames to
+     * @param score score shown at the top
+     * @param highScore high score shown at the top
+     */
+    public void setFrames(SnapshotExchange frames, int score, int highScore)
+    {
+        this.frames     = frames;
+        this.score      = score;
+        this.highScore  = highScore;
+    }
+
+
+    /**
+     * Starts the render thread, does nothing if it's running already
+     */
+    public synchronized void start()
+    {
+        if (running)
+        {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "render");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    /**
+     * Stops the render thread and waits for the frame it's drawing
+     */
+    public synchronized void stop()
+    {
+        running = false;
+        if (thread == null)
+        {
+            return;
+        }
+        try
+        {
+            thread.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+
+    /**
+     * Render loop, draws a frame at the start of every slot until stopped
+     */
+    @Override
+    public void run()
+    {
+        pacer.reset(System.nanoTime());
+        while (running)
+        {
+            BufferStrategy strategy = getStrategy();
+            if (strategy == null)
+            {
+                LockSupport.parkNanos(IDLE_NANOS);
+                pacer.reset(System.nanoTime());
+                continue;
+            }
+
+            long start = System.nanoTime();
+            renderFrame(strategy);
+            long end = System.nanoTime();
+            overlay.getPaintTimes().record(end - start);
+
+            long wait = pacer.frameDone(end);
+            overlay.setMissedFrames(pacer.getMissedFrames());
+            if (wait > 0)
+            {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+
+    /**
+     * @return frame rate cap of the render thread, with the number of frames drawn and missed
+     */
+    public FramePacer getPacer()
+    {
+        return pacer;
+    }
+
+
+    /**
+     * Ignores paint events, the render thread draws everything
+     * @param g graphics of the canvas
+     */
+    @Override
+    public void paint(Graphics g)
+    {
+    }
+
+
+    /**
+     * Ignores paint events without clearing the canvas first
+     * @param g graphics of the canvas
+     */
+    @Override
+    public void update(Graphics g)
+    {
+    }
+
+
+    /**
+     * Draws one frame into the back buffer and flips it to the screen, again if the buffer was lost meanwhile
+     * @param strategy buffer strategy of the canvas
+     */
+    private void renderFrame(BufferStrategy strategy)
+    {
+        SnapshotExchange frames = this.frames;
+        do
+        {
+            do
+            {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try
+                {
+                    // latest frame, stays unchanged while it's drawn
+                    FrameSnapshot frame = frames != null ? frames.acquire() : null;
+                    // page flipping leaves the back buffer undefined, so every frame is drawn completely
+                    renderer.render(g, frame, getGraphicsConfiguration());
+                    drawScore(g);
+                    overlay.paint(g, frame);
+                }
+                finally
+                {
+                    g.dispose();
+                }
+            }
+            while (strategy.contentsRestored());
+
+            strategy.show();
+        }
+        while (strategy.contentsLost());
+
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+
+    /**
+     * Draws the scores centered at the top, where GamePanel shows them in labels
+     * @param g graphics of the back buffer
+     */
+    private void drawScore(Graphics2D g)
+    {
+        int score = this.score;
+        int highScore = this.highScore;
+        if (score != textScore || highScore != textHighScore)
+        {
+            scoreText = "SCORE: " + score + "   HIGH SCORE: " + highScore;
+            textScore = score;
+            textHighScore = highScore;
+        }
+
+        g.setColor(Color.BLACK);
+        g.setFont(SCORE_FONT);
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString(scoreText, (getWidth() - metrics.stringWidth(scoreText)) / 2, metrics.getAscent() + 5);
+    }
+
+
+    /**
+     * Gets the buffer strategy, creating it once the canvas is on the screen
+     * @return the buffer strategy, null while the canvas isn't shown
+     */
+    private BufferStrategy getStrategy()
+    {
+        if (!isDisplayable() || !isShowing())
+        {
+            return null;
+        }
+        if (getBufferStrategy() == null)
+        {
+            // page flipping where the screen supports it, blitting otherwise
+            createBufferStrategy(BUFFERS);
+        }
+        return getBufferStrategy();
+    }
+}
@@ -0,0 +1,42 @@
+package ZombiesGame.view;
+
+import ZombiesGame.controller.FixedTimestep;
+import ZombiesGame.controller.GameInfo;
+import ZombiesGame.metrics.GameMetrics;
+
+/**
+ * The GameDisplay interface is everything the controller needs from whatever shows the game
+ * it is implemented by the Swing View, and by displays that don't draw anything (headless simulation)
+ */
+public interface GameDisplay
+{
+    /**
+     * shows the current state of the game
+     * @param info GameInfo class storing data from Model needed for drawing
+     */
+    public void updateView(GameInfo info);
+
+    /**
+     * shows the current score and high score outside of the game screen
+     * @param info GameInfo class storing data from Model needed for drawing
+     */
+    public void updateScore(GameInfo info);
+
+    /**
+     * switches between the start, game and game over screens
+     * @param panel name of the screen to show ("startPanel", "gamePanel" or "gameOverPanel")
+     */
+    public void switchPanel(String panel);
+
+    /**
+     * passes the clock of the simulation thread to the display
+     * @param clock fixed timestep driving the simulation
+     */
+    public void setSimulationClock(FixedTimestep clock);
+
+    /**
+     * passes the latency and queue metrics of the controller to the display
+     * @param metrics metrics of the controller
+     */
+    public void setMetrics(GameMetrics metrics);
+}
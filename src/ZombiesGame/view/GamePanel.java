@@ -1,47 +1,75 @@
 package ZombiesGame.view;
 
 
+import ZombiesGame.controller.FixedTimestep;
 import ZombiesGame.controller.GameInfo;
+import ZombiesGame.metrics.GameMetrics;
 import ZombiesGame.messages.*;
 import ZombiesGame.model.*;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.LinkedList;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * GamePanel class that inherits from JPanel
  * defines layout of active game screen(when playing is in progress) and handles drawing and updating of components
  * (player, enemies, projectiles)
- * handles key inputs and button presses, regularly creates messages to animate movement
+ * handles key inputs and button presses, regularly creates messages to create projectiles and enemies
+ * (movement is driven by the simulation thread in the controller)
+ * the game is drawn by Swing after every update, or with active rendering by a GameCanvas filling the panel that
+ * draws at its own fixed frame rate
+ * when Swing draws it, every frame is laid out on the event dispatch thread and only its dirty regions are painted
+ * right away (paintImmediately), other repaints draw the whole frame
  */
 public class GamePanel extends JPanel
 {
     private BlockingQueue<Message> queue;
     private ActionTracker keysPressed;
 
-    // timers for movement, entity creation
-    private final Timer animationTimer;
+    // timers for entity creation
     private final Timer projectileTimer;
     private final Timer enemyTimer;
 
-    // data for drawing
-    private LinkedList<Entity> entities;
-    private final SpriteData spriteData;
+    // data for drawing, the latest frame is read from the exchange when painting
+    private volatile SnapshotExchange frames;
+    private final GameRenderer renderer;
     private Dimension dimensions;
     private Point mousePosition;
     private int spriteSize;
 
+    // repaints between ticks so entities move smoothly when frames are drawn faster than ticks, only without the canvas
+    private final Timer renderTimer;
+    private final int maxFps;
+
+    // set while a frame is waiting to be drawn on the event dispatch thread, so updates don't pile up
+    private final AtomicBoolean framePending = new AtomicBoolean();
+    // true while paintImmediately draws the dirty regions of a frame
+    private boolean paintingDirty;
+
+    // frame rate, latency and memory numbers, toggled with F3
+    private final PerformanceOverlay overlay;
+
+    // draws the game on its own thread with active rendering, null when Swing paints the panel
+    private final GameCanvas canvas;
+
     // labels for score and high score
     private final JLabel highScoreLabel;
     private final JLabel scoreLabel;
 
+    // latest scores, the labels are only changed when they differ from the shown ones
+    private volatile int score;
+    private volatile int highScore;
+    private int shownScore = -1;
+    private int shownHighScore = -1;
+
 
     /**
      * Default constructor that does a lot of stuff
      * initializes variables, adds listeners to this panel, creates timers to handle regular message creation
+     * the game is drawn by Swing, see the other constructor for active rendering
      * @param queue reference to message queue to add messages for game updates(movement)
      *              and creation of projectiles and enemies
      * @param spriteSize constant integer value that defines the base size of sprites for drawing image components
@@ -50,12 +78,35 @@ public class GamePanel extends JPanel
      *          getting preferred dimensions
      */
     public GamePanel(BlockingQueue<Message> queue, int spriteSize, Dimension d)
+    {
+        this(queue, spriteSize, d, false, 0);
+    }
+
+
+    /**
+     * Same as the default constructor, but can draw the game with active rendering
+     * @param queue reference to message queue to add messages for game updates(movement)
+     *              and creation of projectiles and enemies
+     * @param spriteSize constant integer value that defines the base size of sprites for drawing image components
+     *                   (player, enemy, projectile, items)
+     * @param d dimensions of the game screen, used for drawing the background, initializing the game,
+     *          getting preferred dimensions
+     * @param activeRendering true to draw through a GameCanvas while a game runs, false to let Swing paint the panel
+     * @param maxFps most frames per second, 0 or less for the refresh rate of the screen. With active rendering
+     *               the canvas draws at this rate, otherwise the panel is repainted at this rate in between ticks
+     */
+    public GamePanel(BlockingQueue<Message> queue, int spriteSize, Dimension d, boolean activeRendering, int maxFps)
     {
         this.dimensions = d;
         this.spriteSize = spriteSize;
         keysPressed     = ActionTracker.getInstance();
-        this.spriteData = new SpriteData();
+        this.renderer   = new GameRenderer(spriteSize, d);
         this.queue      = queue;
+        this.overlay    = new PerformanceOverlay(this);
+        overlay.setRenderer(renderer);
+        this.canvas     = activeRendering ? new GameCanvas(renderer, overlay, maxFps, d) : null;
+        this.maxFps     = maxFps > 0 ? maxFps : FramePacer.screenRefreshRate();
+        this.renderTimer = new Timer(1000 / this.maxFps, e -> renderFrame());
 
         addMouseMotionListener(new MouseDraggedHandler());
         addMouseListener(new MouseHandler());
@@ -69,11 +120,19 @@ public class GamePanel extends JPanel
         highScoreLabel.setForeground(Color.BLACK);
         highScoreLabel.setFont(new Font("Serif", Font.PLAIN, 30));
 
-        add(scoreLabel);
-        add(highScoreLabel);
-
-        // defines delay in message generation for game updates = ~60 refreshes/sec
-        int REFRESH_DELAY = 1000 / 60;
+        if (canvas != null)
+        {
+            // the canvas covers the whole panel and draws the scores itself, clicks on it are handled like on the panel
+            setLayout(new BorderLayout());
+            add(canvas, BorderLayout.CENTER);
+            canvas.addMouseListener(new MouseHandler());
+            canvas.addMouseMotionListener(new MouseDraggedHandler());
+        }
+        else
+        {
+            add(scoreLabel);
+            add(highScoreLabel);
+        }
 
         // defines delay in message generation for projectile creation = ~5 projectiles/sec
         int FIRE_RATE_DELAY = 1000 / 5;
@@ -81,16 +140,6 @@ public class GamePanel extends JPanel
         // defines delay in message generation for enemy creation = ~2 enemies/sec
         int SPAWN_DELAY = 1000 / 25;
 
-        // timer that should handle all animations(movement)
-        animationTimer = new Timer(REFRESH_DELAY, e -> {
-            try {
-                queue.put(new UpdateEntitiesMessage());
-
-            } catch (InterruptedException ex) {
-                ex.printStackTrace();
-            }
-        });
-
         // timer for rate of projectile generation
         projectileTimer = new Timer(FIRE_RATE_DELAY, e -> {
             try {
@@ -104,7 +153,7 @@ public class GamePanel extends JPanel
         // timer for rate of enemy creation
         enemyTimer = new Timer(SPAWN_DELAY, e -> {
             try {
-                queue.put(new CreateEnemyMessage());
+                queue.put(CreateEnemyMessage.SINGLE);
             } catch (InterruptedException ex) {
                 ex.printStackTrace();
             }
@@ -127,10 +176,19 @@ public class GamePanel extends JPanel
             e.printStackTrace();
         }
 
-        // starts timers for model and view updates, projectile enemy creation
-        animationTimer.start();
+        // starts timers for projectile and enemy creation
         projectileTimer.start();
         enemyTimer.start();
+
+        if (canvas != null)
+        {
+            canvas.start();
+        }
+        else if (renderer.getSimulationClock() != null && maxFps > renderer.getSimulationClock().getTickRate())
+        {
+            // repainting after every tick alone would draw at the tick rate
+            renderTimer.start();
+        }
     }
 
 
@@ -139,10 +197,15 @@ public class GamePanel extends JPanel
      */
     public void stop()
     {
-        animationTimer.stop();
         projectileTimer.stop();
         enemyTimer.stop();
 
+        if (canvas != null)
+        {
+            canvas.stop();
+        }
+        renderTimer.stop();
+
         // reset ActionTracker to prevent key states from carrying over to new game
         keysPressed.reset();
         keysPressed = ActionTracker.getInstance();
@@ -151,20 +214,115 @@ public class GamePanel extends JPanel
 
     /**
      * updates list of active entities to draw, scores to display, redraw active entities
+     * with active rendering nothing is redrawn, the canvas draws the latest frame when its next frame is due
+     * otherwise a frame is drawn on the event dispatch thread, unless one is waiting there already
      * @param info GameInfo class that stores necessary info for drawing, score, high score, and active entities
      */
     public void updateView(GameInfo info)
     {
-        this.entities = info.getEntityInfo();
+        this.frames = info.getFrames();
 
         int highScore = info.getHighScore();
         int score = info.getScore();
-        scoreLabel.setText("SCORE: " + score);
-        highScoreLabel.setText("HIGH SCORE: " + highScore);
+        if (canvas != null)
+        {
+            canvas.setFrames(info.getFrames(), score, highScore);
+            return;
+        }
 
-        repaint();
+        this.score      = score;
+        this.highScore  = highScore;
+        if (framePending.compareAndSet(false, true))
+        {
+            SwingUtilities.invokeLater(this::renderFrame);
+        }
     }
 
+
+    /**
+     * Draws the latest frame on the event dispatch thread: lays it out and paints the regions that changed since the
+     * frame before, the score labels included
+     */
+    private void renderFrame()
+    {
+        framePending.set(false);
+        if (!isShowing())
+        {
+            return;
+        }
+
+        int score = this.score;
+        int highScore = this.highScore;
+        if (score != shownScore || highScore != shownHighScore)
+        {
+            scoreLabel.setText("SCORE: " + score);
+            highScoreLabel.setText("HIGH SCORE: " + highScore);
+            shownScore = score;
+            shownHighScore = highScore;
+        }
+
+        // latest frame, stays unchanged while it's drawn
+        SnapshotExchange frames = this.frames;
+        renderer.layout(frames != null ? frames.acquire() : null, renderer.getInterpolationAlpha());
+        // the labels are drawn over whatever is below them, so the background under them is always restored
+        renderer.markDirty(scoreLabel.getBounds());
+        renderer.markDirty(highScoreLabel.getBounds());
+
+        Rectangle dirty = renderer.getDirtyBounds();
+        if (dirty.isEmpty())
+        {
+            return;
+        }
+        paintingDirty = true;
+        try
+        {
+            paintImmediately(dirty);
+        }
+        finally
+        {
+            paintingDirty = false;
+        }
+    }
+
+    /**
+     * sets the clock of the simulation thread
+     * @param clock fixed timestep driving the simulation
+     */
+    public void setSimulationClock(FixedTimestep clock)
+    {
+        renderer.setSimulationClock(clock);
+    }
+
+
+    /**
+     * sets the metrics shown by the performance overlay
+     * @param metrics metrics of the controller
+     */
+    public void setMetrics(GameMetrics metrics)
+    {
+        overlay.setMetrics(metrics);
+    }
+
+
+    /**
+     * gets how far the simulation is into its current tick, for drawing positions between two ticks
+     * @return fraction of a tick between 0 and 1, 1 if no simulation clock is set
+     */
+    public double getInterpolationAlpha()
+    {
+        return renderer.getInterpolationAlpha();
+    }
+
+
+    /**
+     * @return canvas drawing the game with active rendering, null when Swing paints the panel
+     */
+    public GameCanvas getCanvas()
+    {
+        return canvas;
+    }
+
+
     /**
      * gets preferred dimensions of the JPanel for sizing of the container(JFrame)
      * @return Dimension defined from the constants passed to this class from the JFrame
@@ -177,48 +335,33 @@ public class GamePanel extends JPanel
 
 
     /**
-     * draws all entities with specified sprite data at given position, depending on what type of entity they are
+     * draws all entities of the frame laid out last at their positions, only in its dirty regions when painted by
+     * renderFrame. The background layer covers the whole panel, so the panel isn't filled first
+     * with active rendering the canvas covers the panel, so there is nothing to draw
      * @param g does the drawing
      */
     @Override
     public void paintComponent(Graphics g) {
-        super.paintComponent(g);
+        if (canvas != null)
+        {
+            super.paintComponent(g);
+            return;
+        }
 
+        long start = System.nanoTime();
         Graphics2D g2 = (Graphics2D) g;
 
-        g2.drawImage(spriteData.getBackground(), 0, 0, null); // draw background
-
-        // makes sure entities list is assigned to something first
-        if(entities != null)
+        if (paintingDirty)
         {
-            for(Entity e: entities)
-            {
-                if (e.getClass() == Player.class)
-                {
-                    g2.drawImage(spriteData.getPlayerSprite(), e.getX(), e.getY(), spriteSize, spriteSize, null);
-                }
-                else if (e.getClass() == Projectile.class)
-                {
-                    g2.drawImage(spriteData.getProjectileSprite(), e.getX(), e.getY(), spriteSize, spriteSize, null);
-                }
-                else if (e.getClass() == Enemy.class)
-                {
-                    g2.drawImage(spriteData.getEnemySprite(), e.getX(), e.getY(), spriteSize, spriteSize, null);
-                }
-                else if (e.getClass() == Item.class)
-                {
-                    if (((Item) e).getType() == 0){
-                        g2.drawImage(spriteData.getCoffeeSprite(), e.getX(), e.getY(), spriteSize, spriteSize, null);
-                    }
-                    if (((Item) e).getType() == 1){
-                        g2.drawImage(spriteData.getMushroomSprite(), e.getX(), e.getY(), spriteSize, spriteSize, null);
-                    }
-                    if (((Item) e).getType() == 2){
-                        g2.drawImage(spriteData.getChickenSprite(), e.getX(), e.getY(), spriteSize, spriteSize, null);
-                    }
-                }
-            }
+            renderer.paintDirty(g2, getGraphicsConfiguration());
         }
+        else
+        {
+            renderer.paintFull(g2, getGraphicsConfiguration());
+        }
+
+        overlay.paint(g2, renderer.getFrame());
+        overlay.getPaintTimes().record(System.nanoTime() - start);
     }
 
 
@@ -241,6 +384,8 @@ public class GamePanel extends JPanel
                 keysPressed.setDown(true);
             if(code == KeyEvent.VK_D)
                 keysPressed.setRight(true);
+            if(code == KeyEvent.VK_F3)
+                overlay.toggle();
         }
 
         // when specific keys are released, change states in ActionTracker to false
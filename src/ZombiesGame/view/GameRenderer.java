@@ -0,0 +1,546 @@
+package ZombiesGame.view;
+
+import ZombiesGame.controller.FixedTimestep;
+import ZombiesGame.model.FrameSnapshot;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Arrays;
+
+/**
+ * Draws the game screen, the background and every entity of a frame, onto any Graphics
+ * entities are drawn between their previous and current position by how far the simulation is into its next tick, so
+ * movement looks smooth at frame rates above the tick rate
+ * shared by GamePanel when Swing paints it and GameCanvas when it renders actively, so both look the same
+ * only used by one thread at a time: the event dispatch thread or the render thread of the canvas
+ * the background is kept as a layer in the format of the screen (an accelerated VolatileImage where possible), so
+ * redrawing it is a plain copy. A frame is drawn in two steps: layout works out where every sprite goes and marks the
+ * bounds the sprites had in the frame before and have now as dirty, then the frame is drawn either completely or only
+ * in the dirty regions, restoring the background there first. Dirty regions are only worth it while the frame is
+ * sparse, once they cover more than DENSE_FRACTION of the screen the whole frame is redrawn
+ * layout skips entities that are completely off the screen, looks up the sprite of every entity in a table by its type
+ * and item kind, and orders the sprites by sprite id, so all sprites of a kind are drawn one after another from the
+ * same image. Within a kind sprites keep the order of the frame
+ */
+public class GameRenderer
+{
+    // share of the screen above which a frame is redrawn completely
+    public static final double DENSE_FRACTION = 0.5;
+
+    // size of the tiles dirty regions are tracked in
+    private static final int TILE_SIZE = 32;
+
+    // kinds of items, the sprite lookup has a row of this many entries for every entity type
+    private static final int ITEM_KINDS = 3;
+
+    private final SpriteData spriteData;
+    private final int spriteSize;
+    private final int width;
+    private final int height;
+
+    // clock of the simulation thread, tells how far it is into the current tick
+    private volatile FixedTimestep simulationClock;
+
+    // background layer, built for the configuration it was last drawn with
+    private GraphicsConfiguration layerConfig;
+    private BufferedImage layer;
+    private VolatileImage acceleratedLayer;
+    private boolean layerBuilt;
+
+    // sprite id by type * ITEM_KINDS + item type, -1 for nothing to draw, the player entry is set for every frame
+    private final int[] spriteLookup = new int[(FrameSnapshot.ITEM + 1) * ITEM_KINDS];
+
+    // visible sprites of the frame being laid out, in frame order
+    private int[] layoutX       = new int[64];
+    private int[] layoutY       = new int[64];
+    private byte[] layoutSprite = new byte[64];
+
+    // where the sprites of the laid out frame go ordered by sprite id, and where those of the frame before went
+    // the sprites with id s are at batchStart[s] up to batchStart[s + 1]
+    private FrameSnapshot frame;
+    private int count;
+    private int culled;
+    private int[] drawX         = new int[64];
+    private int[] drawY         = new int[64];
+    private final int[] batchStart = new int[SpriteData.SPRITE_COUNT + 1];
+    private int oldCount;
+    private int[] oldX          = new int[64];
+    private int[] oldY          = new int[64];
+
+    private final DirtyRegions dirty;
+    private boolean dense;
+
+    // pixels filled while drawing, background and sprites
+    private volatile long lastFramePixels;
+    private volatile long pixelsFilled;
+    private volatile long fullRedraws;
+    private volatile long partialRedraws;
+
+
+    /**
+     * Reads the sprites
+     * @param spriteSize width and height entities are drawn with
+     * @param d size of the game screen
+     */
+    public GameRenderer(int spriteSize, Dimension d)
+    {
+        this.spriteData = new SpriteData();
+        this.spriteSize = spriteSize;
+        this.width      = d.width;
+        this.height     = d.height;
+        this.dirty      = new DirtyRegions(width, height, TILE_SIZE);
+
+        Arrays.fill(spriteLookup, -1);
+        spriteLookup[FrameSnapshot.ENEMY * ITEM_KINDS]          = SpriteData.ENEMY;
+        spriteLookup[FrameSnapshot.PROJECTILE * ITEM_KINDS]     = SpriteData.PROJECTILE;
+        spriteLookup[FrameSnapshot.ITEM * ITEM_KINDS]           = SpriteData.COFFEE;
+        spriteLookup[FrameSnapshot.ITEM * ITEM_KINDS + 1]       = SpriteData.MUSHROOM;
+        spriteLookup[FrameSnapshot.ITEM * ITEM_KINDS + 2]       = SpriteData.CHICKEN;
+    }
+
+
+    /**
+     * sets the clock of the simulation thread
+     * @param clock fixed timestep driving the simulation, null to draw entities where they are without interpolating
+     */
+    public void setSimulationClock(FixedTimestep clock)
+    {
+        this.simulationClock = clock;
+    }
+
+
+    /**
+     * @return clock of the simulation thread, null if none was set
+     */
+    public FixedTimestep getSimulationClock()
+    {
+        return simulationClock;
+    }
+
+
+    /**
+     * gets how far the simulation is into its current tick, for drawing positions between two ticks
+     * @return fraction of a tick between 0 and 1, 1 (the current positions) if no simulation clock is set
+     */
+    public double getInterpolationAlpha()
+    {
+        FixedTimestep clock = simulationClock;
+        return clock != null ? clock.getAlpha(System.nanoTime()) : 1;
+    }
+
+
+    /**
+     * draws the background and all entities of a frame with the sprite of their type, interpolated by how far the
+     * simulation is into its current tick
+     * @param g graphics to draw on
+     * @param frame frame to draw, null to only draw the background
+     * @param config graphics configuration of the screen, null when there is none, the sprites are cached for it
+     */
+    public void render(Graphics2D g, FrameSnapshot frame, GraphicsConfiguration config)
+    {
+        render(g, frame, config, getInterpolationAlpha());
+    }
+
+
+    /**
+     * draws the background and all entities of a frame with the sprite of their type
+     * @param g graphics to draw on
+     * @param frame frame to draw, null to only draw the background
+     * @param config graphics configuration of the screen, null when there is none, the sprites are cached for it
+     * @param alpha where to draw entities between their previous (0) and current (1) position
+     */
+    public void render(Graphics2D g, FrameSnapshot frame, GraphicsConfiguration config, double alpha)
+    {
+        layout(frame, alpha);
+        paintFull(g, config);
+    }
+
+
+    /**
+     * works out where every entity of a frame is drawn, and marks where they were drawn before and where they go now
+     * as dirty. More regions can be marked with markDirty before getDirtyBounds
+     * @param frame frame to draw, null for none
+     * @param alpha where to draw entities between their previous (0) and current (1) position
+     */
+    public void layout(FrameSnapshot frame, double alpha)
+    {
+        // the current positions become the old ones
+        int[] swap = oldX;
+        oldX = drawX;
+        drawX = swap;
+        swap = oldY;
+        oldY = drawY;
+        drawY = swap;
+        oldCount = count;
+
+        this.frame = frame;
+        int total = frame != null ? frame.getCount() : 0;
+        if (layoutX.length < total)
+        {
+            int capacity = Math.max(total, layoutX.length * 2);
+            layoutX         = new int[capacity];
+            layoutY         = new int[capacity];
+            layoutSprite    = new byte[capacity];
+        }
+        if (drawX.length < total)
+        {
+            int capacity = Math.max(total, drawX.length * 2);
+            drawX   = new int[capacity];
+            drawY   = new int[capacity];
+        }
+
+        // the player sprite follows the keys being pressed
+        spriteLookup[FrameSnapshot.PLAYER * ITEM_KINDS] = spriteData.getPlayerSpriteId();
+        Arrays.fill(batchStart, 0);
+
+        int visible = 0;
+        for (int i = 0; i < total; i++)
+        {
+            int prevX = frame.getPrevX(i);
+            int prevY = frame.getPrevY(i);
+            int x = prevX + (int) Math.round((frame.getX(i) - prevX) * alpha);
+            int y = prevY + (int) Math.round((frame.getY(i) - prevY) * alpha);
+            if (x >= width || y >= height || x + spriteSize <= 0 || y + spriteSize <= 0)
+            {
+                continue; // off the screen
+            }
+
+            int item = frame.getItemType(i);
+            int sprite = item >= 0 && item < ITEM_KINDS ? spriteLookup[frame.getType(i) * ITEM_KINDS + item] : -1;
+            if (sprite < 0)
+            {
+                continue;
+            }
+
+            layoutX[visible]        = x;
+            layoutY[visible]        = y;
+            layoutSprite[visible]   = (byte) sprite;
+            visible++;
+            batchStart[sprite + 1]++;
+        }
+
+        // counting sort by sprite id, stable so sprites of a kind keep the order of the frame
+        for (int sprite = 0; sprite < SpriteData.SPRITE_COUNT; sprite++)
+        {
+            batchStart[sprite + 1] += batchStart[sprite];
+        }
+        for (int i = 0; i < visible; i++)
+        {
+            int sprite = layoutSprite[i];
+            // batchStart[sprite] is used as the next free index of the batch and restored below
+            int at = batchStart[sprite]++;
+            drawX[at] = layoutX[i];
+            drawY[at] = layoutY[i];
+        }
+        for (int sprite = SpriteData.SPRITE_COUNT; sprite > 0; sprite--)
+        {
+            batchStart[sprite] = batchStart[sprite - 1];
+        }
+        batchStart[0] = 0;
+
+        count = visible;
+        culled = total - visible;
+
+        dirty.clear();
+        for (int i = 0; i < oldCount; i++)
+        {
+            dirty.mark(oldX[i], oldY[i], spriteSize, spriteSize);
+        }
+        for (int i = 0; i < count; i++)
+        {
+            dirty.mark(drawX[i], drawY[i], spriteSize, spriteSize);
+        }
+    }
+
+
+    /**
+     * marks a region that has to be redrawn in the frame laid out last, on top of the sprite bounds
+     * @param r region of the screen
+     */
+    public void markDirty(Rectangle r)
+    {
+        dirty.mark(r.x, r.y, r.width, r.height);
+    }
+
+
+    /**
+     * Gets the region paintDirty draws, the whole screen if the frame is dense
+     * the same instance is returned every time
+     * @return smallest rectangle around the dirty regions, empty if nothing changed
+     */
+    public Rectangle getDirtyBounds()
+    {
+        dirty.findRuns();
+        dense = dirty.getArea() > DENSE_FRACTION * width * height;
+        if (dense)
+        {
+            dirty.markAll();
+            dirty.findRuns();
+        }
+        return dirty.getBounds();
+    }
+
+
+    /**
+     * draws the frame laid out last only in its dirty regions, the rest of the screen has to still show the frame
+     * drawn before. A dense frame is drawn completely
+     * @param g graphics to draw on
+     * @param config graphics configuration of the screen, null when there is none
+     */
+    public void paintDirty(Graphics2D g, GraphicsConfiguration config)
+    {
+        if (dense)
+        {
+            paintFull(g, config);
+            return;
+        }
+
+        Image background = prepareLayer(config);
+        spriteData.prepare(config, spriteSize);
+
+        Shape clip = g.getClip();
+        long pixels = 0;
+        for (int run = 0; run < dirty.getRunCount(); run++)
+        {
+            int x = dirty.getRunX(run);
+            int y = dirty.getRunY(run);
+            int right = x + dirty.getRunWidth(run);
+            int bottom = y + dirty.getRunHeight(run);
+
+            g.setClip(clip);
+            g.clipRect(x, y, right - x, bottom - y);
+            g.drawImage(background, x, y, right, bottom, x, y, right, bottom, null);
+            pixels += (long) (right - x) * (bottom - y);
+
+            for (int sprite = 0; sprite < SpriteData.SPRITE_COUNT; sprite++)
+            {
+                if (batchStart[sprite] == batchStart[sprite + 1])
+                {
+                    continue;
+                }
+                Image image = spriteData.getScaledSprite(sprite);
+                for (int i = batchStart[sprite]; i < batchStart[sprite + 1]; i++)
+                {
+                    int sx = drawX[i];
+                    int sy = drawY[i];
+                    if (sx < right && sy < bottom && sx + spriteSize > x && sy + spriteSize > y)
+                    {
+                        g.drawImage(image, sx, sy, null);
+                        pixels += (long) (Math.min(right, sx + spriteSize) - Math.max(x, sx))
+                                * (Math.min(bottom, sy + spriteSize) - Math.max(y, sy));
+                    }
+                }
+            }
+        }
+        g.setClip(clip);
+
+        lastFramePixels = pixels;
+        pixelsFilled += pixels;
+        partialRedraws++;
+    }
+
+
+    /**
+     * draws the frame laid out last completely
+     * @param g graphics to draw on
+     * @param config graphics configuration of the screen, null when there is none
+     */
+    public void paintFull(Graphics2D g, GraphicsConfiguration config)
+    {
+        g.drawImage(prepareLayer(config), 0, 0, null); // draw background
+        long pixels = (long) width * height;
+
+        // sprites are drawn from a cache already scaled to the sprite size and in the format of the screen
+        // one batch per sprite, the same image is drawn back to back
+        spriteData.prepare(config, spriteSize);
+        for (int sprite = 0; sprite < SpriteData.SPRITE_COUNT; sprite++)
+        {
+            if (batchStart[sprite] == batchStart[sprite + 1])
+            {
+                continue;
+            }
+            Image image = spriteData.getScaledSprite(sprite);
+            for (int i = batchStart[sprite]; i < batchStart[sprite + 1]; i++)
+            {
+                int x = drawX[i];
+                int y = drawY[i];
+                g.drawImage(image, x, y, null);
+                // laid out sprites are at least partly on the screen
+                pixels += (long) (Math.min(width, x + spriteSize) - Math.max(0, x))
+                        * (Math.min(height, y + spriteSize) - Math.max(0, y));
+            }
+        }
+
+        lastFramePixels = pixels;
+        pixelsFilled += pixels;
+        fullRedraws++;
+    }
+
+
+    /**
+     * @return frame laid out last, null if there is none
+     */
+    public FrameSnapshot getFrame()
+    {
+        return frame;
+    }
+
+
+    /**
+     * @return number of sprites of the frame laid out last that are drawn, the ones on the screen
+     */
+    public int getVisibleCount()
+    {
+        return count;
+    }
+
+
+    /**
+     * @return number of entities of the frame laid out last that are skipped because they are off the screen
+     */
+    public int getCulledCount()
+    {
+        return culled;
+    }
+
+
+    /**
+     * @return pixels filled drawing the last frame, background and sprites
+     */
+    public long getLastFramePixels()
+    {
+        return lastFramePixels;
+    }
+
+
+    /**
+     * @return pixels filled drawing all frames so far
+     */
+    public long getPixelsFilled()
+    {
+        return pixelsFilled;
+    }
+
+
+    /**
+     * @return number of frames drawn completely
+     */
+    public long getFullRedraws()
+    {
+        return fullRedraws;
+    }
+
+
+    /**
+     * @return number of frames drawn only in their dirty regions
+     */
+    public long getPartialRedraws()
+    {
+        return partialRedraws;
+    }
+
+
+    /**
+     * @return number of pixels of the whole screen
+     */
+    public long getScreenPixels()
+    {
+        return (long) width * height;
+    }
+
+
+    /**
+     * @return sprites drawn by this renderer
+     */
+    public SpriteData getSpriteData()
+    {
+        return spriteData;
+    }
+
+
+    /**
+     * @return width and height entities are drawn with
+     */
+    public int getSpriteSize()
+    {
+        return spriteSize;
+    }
+
+
+    /**
+     * Builds the background layer if the screen changed and restores it if its surface was lost
+     * @param config graphics configuration of the screen, null for a plain RGB layer
+     * @return the accelerated layer unless it's lost, the layer in memory otherwise
+     */
+    private Image prepareLayer(GraphicsConfiguration config)
+    {
+        if (!layerBuilt || config != layerConfig)
+        {
+            buildLayer(config);
+        }
+
+        if (acceleratedLayer != null)
+        {
+            int status = acceleratedLayer.validate(config);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE)
+            {
+                acceleratedLayer.flush();
+                acceleratedLayer = config.createCompatibleVolatileImage(width, height);
+                copyLayer();
+            }
+            else if (status == VolatileImage.IMAGE_RESTORED)
+            {
+                copyLayer();
+            }
+            if (!acceleratedLayer.contentsLost())
+            {
+                return acceleratedLayer;
+            }
+        }
+        return layer;
+    }
+
+
+    /**
+     * Draws the background into a layer of the screen size in the format of the screen, the panel color where there
+     * is no background
+     * @param config graphics configuration of the screen, null for a plain RGB layer
+     */
+    private void buildLayer(GraphicsConfiguration config)
+    {
+        layer = config != null
+                ? config.createCompatibleImage(width, height, Transparency.OPAQUE)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = layer.createGraphics();
+        g.setColor(SystemColor.control);
+        g.fillRect(0, 0, width, height);
+        g.drawImage(spriteData.getBackground(), 0, 0, null);
+        g.dispose();
+
+        if (acceleratedLayer != null)
+        {
+            acceleratedLayer.flush();
+            acceleratedLayer = null;
+        }
+        if (config != null && config.getImageCapabilities().isAccelerated())
+        {
+            acceleratedLayer = config.createCompatibleVolatileImage(width, height);
+            copyLayer();
+        }
+
+        layerConfig = config;
+        layerBuilt = true;
+    }
+
+
+    /**
+     * Copies the layer in memory into the accelerated one
+     */
+    private void copyLayer()
+    {
+        Graphics2D g = acceleratedLayer.createGraphics();
+        g.drawImage(layer, 0, 0, null);
+        g.dispose();
+    }
+}
@@ -0,0 +1,510 @@
+package ZombiesGame.view;
+
+import ZombiesGame.metrics.GameMetrics;
+import ZombiesGame.metrics.LatencyHistogram;
+import ZombiesGame.model.FrameSnapshot;
+
+import javax.swing.Timer;
+import java.awt.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+
+/**
+ * Overlay drawn on top of the game screen to confirm stutter: render FPS, simulation ticks per second, tick and paint
+ * time percentiles, entity counts, queue backlog, heap usage, GC activity, frames missed by active rendering and the
+ * pixels filled per frame
+ * everything except the entity counts is sampled by a Swing timer a few times per second and turned into text right
+ * away, the numbers cover the last WINDOW_SAMPLES samples. Drawing the overlay only copies preformatted characters to
+ * the screen, so showing it doesn't add allocation to the paint path
+ * all methods are called on the event dispatch thread, except that GameCanvas paints the overlay and sets the missed
+ * frames from its render thread, so painting and sampling are synchronized
+ */
+public class PerformanceOverlay
+{
+    // how often the numbers are sampled, and how many samples the rolling window spans (2 seconds)
+    public static final int SAMPLE_MILLIS   = 250;
+    public static final int WINDOW_SAMPLES  = 8;
+
+    private static final int SLOTS          = WINDOW_SAMPLES + 1;
+    private static final int LINES          = 9;
+    private static final int LINE_LENGTH    = 64;
+    private static final int LINE_HEIGHT    = 16;
+    private static final int PADDING        = 6;
+    private static final long BYTES_PER_MB  = 1024 * 1024;
+
+    private static final Font FONT          = new Font(Font.MONOSPACED, Font.PLAIN, 13);
+    // opaque, filling with a translucent color allocates on every paint in the software pipeline
+    private static final Color BACKGROUND   = new Color(32, 32, 32);
+    private static final Color TEXT         = Color.WHITE;
+
+    // time spent in GamePanel.paintComponent or drawing a frame of GameCanvas, the number of paints doubles as the
+    // frame count
+    private final LatencyHistogram paintTimes = new LatencyHistogram("paint");
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final Timer sampler;
+    private final Component repaint;
+    private volatile GameMetrics metrics;
+    // toggled on the event dispatch thread, read by the render thread of GameCanvas as well
+    private volatile boolean shown;
+    // where the overlay was drawn last
+    private final Rectangle bounds = new Rectangle();
+
+    // ring of samples, 'newest' is the latest and 'samples' how many are valid since the overlay was shown
+    private final long[] times          = new long[SLOTS];
+    private final long[][] tickCounts   = new long[SLOTS][LatencyHistogram.BUCKETS];
+    private final long[][] paintCounts  = new long[SLOTS][LatencyHistogram.BUCKETS];
+    private final long[] gcCounts       = new long[SLOTS];
+    private final long[] gcMillis       = new long[SLOTS];
+    private int newest;
+    private int samples;
+
+    // differences between the newest and the oldest sample
+    private final long[] tickWindow     = new long[LatencyHistogram.BUCKETS];
+    private final long[] paintWindow    = new long[LatencyHistogram.BUCKETS];
+
+    // results of the latest sample
+    private double framesPerSecond;
+    private double ticksPerSecond;
+    private long tickP50, tickP99;
+    private long paintP50, paintP99;
+    private long gcWindowCount;
+
+    // frames missed by GameCanvas, -1 unless rendering actively
+    private volatile long missedFrames = -1;
+
+    // renderer of the game and its redraw counts at the latest sample
+    private volatile GameRenderer renderer;
+    private long fullRedraws;
+    private long partialRedraws;
+
+    // entity counts by type of the latest painted frame, indexed by FrameSnapshot type
+    private final int[] entityCounts = new int[FrameSnapshot.ITEM + 1];
+
+    // preformatted text of the overlay, drawn with drawChars
+    private final char[][] lines        = new char[LINES][LINE_LENGTH];
+    private final int[] lineLengths     = new int[LINES];
+    private final StringBuilder text    = new StringBuilder(LINE_LENGTH);
+    private FontMetrics fontMetrics;
+
+
+    /**
+     * Creates a hidden overlay
+     * @param repaint component to repaint after every sample, so the overlay updates while the game is idle
+     */
+    public PerformanceOverlay(Component repaint)
+    {
+        this.repaint = repaint;
+        sampler = new Timer(SAMPLE_MILLIS, e -> {
+            sample(System.nanoTime());
+            repaint.repaint();
+        });
+    }
+
+
+    /**
+     * Sets the metrics of the game that is shown, the simulation numbers stay empty until then
+     * @param metrics metrics of the controller
+     */
+    public void setMetrics(GameMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
+
+    /**
+     * Shows or hides the overlay, sampling only runs while it is shown
+     * hiding repaints where the overlay was, GamePanel otherwise only repaints the regions sprites moved through
+     */
+    public void toggle()
+    {
+        shown = !shown;
+        if (shown)
+        {
+            samples = 0;
+            sample(System.nanoTime());
+            sampler.start();
+        }
+        else
+        {
+            sampler.stop();
+            Rectangle r = getBounds();
+            repaint.repaint(r.x, r.y, r.width, r.height);
+        }
+    }
+
+
+    /**
+     * @return copy of the region the overlay was drawn in last, empty if it wasn't drawn yet
+     */
+    public synchronized Rectangle getBounds()
+    {
+        return new Rectangle(bounds);
+    }
+
+
+    /**
+     * @return true if the overlay is drawn
+     */
+    public boolean isShown()
+    {
+        return shown;
+    }
+
+
+    /**
+     * @return histogram GamePanel and GameCanvas record their paint times in
+     */
+    public LatencyHistogram getPaintTimes()
+    {
+        return paintTimes;
+    }
+
+
+    /**
+     * Draws the overlay in the top left corner if it is shown, and counts the entities of the frame
+     * @param g graphics of the game panel
+     * @param frame frame that was just drawn, null if there is none yet
+     */
+    public synchronized void paint(Graphics g, FrameSnapshot frame)
+    {
+        if (!shown)
+        {
+            return;
+        }
+
+        countEntities(frame);
+        formatEntities();
+
+        if (fontMetrics == null)
+        {
+            fontMetrics = g.getFontMetrics(FONT);
+        }
+        int width = 0;
+        for (int i = 0; i < LINES; i++)
+        {
+            width = Math.max(width, fontMetrics.charsWidth(lines[i], 0, lineLengths[i]));
+        }
+
+        Color color = g.getColor();
+        Font font = g.getFont();
+
+        bounds.setBounds(0, 0, width + 2 * PADDING, LINES * LINE_HEIGHT + 2 * PADDING);
+        g.setColor(BACKGROUND);
+        g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        g.setColor(TEXT);
+        g.setFont(FONT);
+        for (int i = 0; i < LINES; i++)
+        {
+            g.drawChars(lines[i], 0, lineLengths[i], PADDING, PADDING + (i + 1) * LINE_HEIGHT - 4);
+        }
+
+        g.setColor(color);
+        g.setFont(font);
+    }
+
+
+    /**
+     * Takes a sample of all numbers and formats them, called by the timer every SAMPLE_MILLIS while the overlay is
+     * shown
+     * @param now current time in nanoseconds (System.nanoTime)
+     */
+    public synchronized void sample(long now)
+    {
+        newest = (newest + 1) % SLOTS;
+        samples = Math.min(samples + 1, SLOTS);
+
+        times[newest] = now;
+        paintTimes.copyCounts(paintCounts[newest]);
+        GameMetrics metrics = this.metrics;
+        if (metrics != null)
+        {
+            metrics.getTick().copyCounts(tickCounts[newest]);
+        }
+
+        long count = 0;
+        long millis = 0;
+        for (int i = 0; i < collectors.size(); i++)
+        {
+            count += Math.max(0, collectors.get(i).getCollectionCount());
+            millis += Math.max(0, collectors.get(i).getCollectionTime());
+        }
+        gcCounts[newest] = count;
+        gcMillis[newest] = millis;
+
+        // the window reaches back to the oldest sample still in the ring
+        int oldest = (newest - (samples - 1) + SLOTS) % SLOTS;
+        double seconds = (now - times[oldest]) / 1e9;
+
+        long frames = difference(paintCounts[newest], paintCounts[oldest], paintWindow);
+        long ticks = difference(tickCounts[newest], tickCounts[oldest], tickWindow);
+
+        framesPerSecond = seconds > 0 ? frames / seconds : 0;
+        ticksPerSecond  = seconds > 0 ? ticks / seconds : 0;
+        paintP50        = LatencyHistogram.percentile(paintWindow, 50);
+        paintP99        = LatencyHistogram.percentile(paintWindow, 99);
+        tickP50         = LatencyHistogram.percentile(tickWindow, 50);
+        tickP99         = LatencyHistogram.percentile(tickWindow, 99);
+        gcWindowCount   = gcCounts[newest] - gcCounts[oldest];
+
+        format(metrics);
+    }
+
+
+    /**
+     * Sets the renderer whose pixel fill counts are shown, the line stays empty until then
+     * @param renderer renderer of the game screen
+     */
+    public void setRenderer(GameRenderer renderer)
+    {
+        this.renderer = renderer;
+    }
+
+
+    /**
+     * Sets the number of frames missed so far, shown from the next sample on
+     * @param missedFrames frame slots GameCanvas missed since it was created
+     */
+    public void setMissedFrames(long missedFrames)
+    {
+        this.missedFrames = missedFrames;
+    }
+
+
+    /**
+     * @return frames painted per second over the window
+     */
+    public double getFramesPerSecond()
+    {
+        return framesPerSecond;
+    }
+
+
+    /**
+     * @return simulation ticks per second over the window
+     */
+    public double getTicksPerSecond()
+    {
+        return ticksPerSecond;
+    }
+
+
+    /**
+     * @return 99th percentile of the paint time over the window in nanoseconds
+     */
+    public long getPaintP99Nanos()
+    {
+        return paintP99;
+    }
+
+
+    /**
+     * @return 99th percentile of the tick time over the window in nanoseconds
+     */
+    public long getTickP99Nanos()
+    {
+        return tickP99;
+    }
+
+
+    /**
+     * @return number of garbage collections during the window
+     */
+    public long getGcWindowCount()
+    {
+        return gcWindowCount;
+    }
+
+
+    /**
+     * @param line index of a line of the overlay
+     * @return text of the line
+     */
+    public String getLine(int line)
+    {
+        return new String(lines[line], 0, lineLengths[line]);
+    }
+
+
+    /**
+     * Subtracts two copies of bucket counts
+     * @param newer the later copy
+     * @param older the earlier copy
+     * @param into receives the difference
+     * @return number of latencies in the difference
+     */
+    private static long difference(long[] newer, long[] older, long[] into)
+    {
+        long total = 0;
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++)
+        {
+            into[i] = newer[i] - older[i];
+            total += into[i];
+        }
+        return total;
+    }
+
+
+    /**
+     * Counts the entities of a frame by type
+     * @param frame the frame, null if there is none yet
+     */
+    private void countEntities(FrameSnapshot frame)
+    {
+        for (int i = 0; i < entityCounts.length; i++)
+        {
+            entityCounts[i] = 0;
+        }
+        if (frame == null)
+        {
+            return;
+        }
+        for (int i = 0; i < frame.getCount(); i++)
+        {
+            entityCounts[frame.getType(i)]++;
+        }
+    }
+
+
+    /**
+     * Formats all sampled lines, the entity line is formatted on every paint
+     * @param metrics metrics of the game, null if not set
+     */
+    private void format(GameMetrics metrics)
+    {
+        text.setLength(0);
+        text.append("FPS ");
+        appendFixed(framesPerSecond, 1);
+        text.append("  TPS ");
+        appendFixed(ticksPerSecond, 1);
+        store(0);
+
+        text.append("tick  p50 ");
+        appendMillis(tickP50);
+        text.append("  p99 ");
+        appendMillis(tickP99);
+        store(1);
+
+        text.append("paint p50 ");
+        appendMillis(paintP50);
+        text.append("  p99 ");
+        appendMillis(paintP99);
+        store(2);
+
+        text.append("queue ");
+        if (metrics != null)
+        {
+            text.append(metrics.getQueue().getDepth()).append(" pending, ")
+                .append(metrics.getQueue().getRemainingCapacity()).append(" free");
+        }
+        else
+        {
+            text.append('-');
+        }
+        store(4);
+
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        text.append("heap ").append(heap.getUsed() / BYTES_PER_MB).append(" / ")
+            .append(heap.getCommitted() / BYTES_PER_MB).append(" MB");
+        store(5);
+
+        text.append("GC ").append(gcWindowCount).append(" in window, ").append(gcCounts[newest])
+            .append(" total (").append(gcMillis[newest]).append(" ms)");
+        store(6);
+
+        text.append("missed frames ");
+        if (missedFrames >= 0)
+        {
+            text.append(missedFrames);
+        }
+        else
+        {
+            text.append('-');
+        }
+        store(7);
+
+        text.append("fill ");
+        GameRenderer renderer = this.renderer;
+        if (renderer != null)
+        {
+            // pixels of the last frame and how many frames since the last sample were only redrawn where dirty
+            long full = renderer.getFullRedraws() - fullRedraws;
+            long partial = renderer.getPartialRedraws() - partialRedraws;
+            fullRedraws = renderer.getFullRedraws();
+            partialRedraws = renderer.getPartialRedraws();
+            text.append(renderer.getLastFramePixels() / 1000).append("k px (")
+                .append(100 * renderer.getLastFramePixels() / renderer.getScreenPixels()).append("%), partial ")
+                .append(full + partial > 0 ? 100 * partial / (full + partial) : 0).append('%');
+        }
+        else
+        {
+            text.append('-');
+        }
+        store(8);
+    }
+
+
+    /**
+     * Formats the entity counts of the latest frame into line 3, StringBuilder only appends into its own buffer
+     */
+    private void formatEntities()
+    {
+        text.setLength(0);
+        text.append("players ").append(entityCounts[FrameSnapshot.PLAYER])
+            .append("  enemies ").append(entityCounts[FrameSnapshot.ENEMY])
+            .append("  shots ").append(entityCounts[FrameSnapshot.PROJECTILE])
+            .append("  items ").append(entityCounts[FrameSnapshot.ITEM]);
+        store(3);
+    }
+
+
+    /**
+     * Appends a latency in milliseconds with two decimals
+     * @param nanos latency in nanoseconds
+     */
+    private void appendMillis(long nanos)
+    {
+        appendFixed(nanos / 1e6, 2);
+        text.append(" ms");
+    }
+
+
+    /**
+     * Appends a positive number with a fixed number of decimals, without going through String.format
+     * @param value the number
+     * @param decimals number of decimals
+     */
+    private void appendFixed(double value, int decimals)
+    {
+        long scale = 1;
+        for (int i = 0; i < decimals; i++)
+        {
+            scale *= 10;
+        }
+
+        long scaled = Math.round(value * scale);
+        text.append(scaled / scale).append('.');
+        long fraction = scaled % scale;
+        for (long digit = scale / 10; digit > 0; digit /= 10)
+        {
+            text.append((char) ('0' + fraction / digit % 10));
+        }
+    }
+
+
+    /**
+     * Copies the text built so far into a line and clears it
+     * @param line index of the line
+     */
+    private void store(int line)
+    {
+        int length = Math.min(text.length(), LINE_LENGTH);
+        text.getChars(0, length, lines[line], 0);
+        lineLengths[line] = length;
+        text.setLength(0);
+    }
+}
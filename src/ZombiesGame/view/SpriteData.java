@@ -1,7 +1,9 @@
 package ZombiesGame.view;
 
 import javax.imageio.ImageIO;
+import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -9,6 +11,9 @@ import java.util.Random;
 
 /**
  * contains all sprite data(buffered images), passes them to the view for drawing
+ * the sprites are also cached scaled to the sprite size and in the pixel format of the screen, so drawing them is a
+ * plain copy instead of scaling and converting the decoded PNGs every frame. Where the screen supports it the cache is
+ * kept in accelerated VolatileImages, which are restored from the scaled images when their surface is lost
  */
 public class SpriteData
 {
@@ -21,6 +26,25 @@ public class SpriteData
     BufferedImage mushroom;
     BufferedImage chicken;
 
+    // ids of the cached sprites, see getScaledSprite
+    public static final int PLAYER_UP       = 0;
+    public static final int PLAYER_DOWN     = 1;
+    public static final int PLAYER_LEFT     = 2;
+    public static final int PLAYER_RIGHT    = 3;
+    public static final int PROJECTILE      = 4;
+    public static final int ENEMY           = 5;
+    public static final int COFFEE          = 6;
+    public static final int MUSHROOM        = 7;
+    public static final int CHICKEN         = 8;
+    public static final int SPRITE_COUNT    = 9;
+
+    // cache built by prepare, accelerated is null when the screen has no accelerated images
+    private GraphicsConfiguration cacheConfig;
+    private int cacheSize;
+    private BufferedImage[] scaled;
+    private VolatileImage[] accelerated;
+    private int surfaceLosses;
+
 
     /**
      * Constructor reads all image data from sprites package and stores them in fields
@@ -52,6 +76,143 @@ public class SpriteData
     }
 
 
+    /**
+     * Builds the cache of scaled sprites if the screen or sprite size changed, and restores accelerated sprites whose
+     * surface was lost. Called before every frame, it's cheap when nothing changed
+     * @param config graphics configuration of the component drawn on, null when there is no screen
+     * @param size width and height the sprites are drawn with
+     */
+    public void prepare(GraphicsConfiguration config, int size)
+    {
+        if (scaled == null || config != cacheConfig || size != cacheSize)
+        {
+            build(config, size);
+        }
+
+        if (accelerated != null)
+        {
+            for (int i = 0; i < SPRITE_COUNT; i++)
+            {
+                if (accelerated[i] == null)
+                {
+                    continue;
+                }
+                int status = accelerated[i].validate(config);
+                if (status == VolatileImage.IMAGE_INCOMPATIBLE)
+                {
+                    accelerated[i].flush();
+                    accelerated[i] = createAccelerated(config, scaled[i]);
+                    surfaceLosses++;
+                }
+                else if (status == VolatileImage.IMAGE_RESTORED)
+                {
+                    copy(scaled[i], accelerated[i]);
+                    surfaceLosses++;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Gets how often accelerated sprites had to be restored or recreated since the cache was built
+     * @return number of lost surfaces
+     */
+    public int getSurfaceLosses()
+    {
+        return surfaceLosses;
+    }
+
+
+    /**
+     * Gets a cached sprite by its id
+     * @param sprite one of the sprite ids, PLAYER_UP to CHICKEN
+     * @return Image of the sprite size, draw it without scaling
+     */
+    public Image getScaledSprite(int sprite)
+    {
+        return cached(sprite);
+    }
+
+
+    /**
+     * Gets the id of the player sprite for the direction of the keys being pressed, see getPlayerSprite
+     * @return PLAYER_UP, PLAYER_DOWN, PLAYER_LEFT or PLAYER_RIGHT
+     */
+    public int getPlayerSpriteId()
+    {
+        ActionTracker keysPressed = ActionTracker.getInstance();
+
+        if (keysPressed.isDown())
+        {
+            return PLAYER_DOWN;
+        }
+        else if (keysPressed.isLeft())
+        {
+            return PLAYER_LEFT;
+        }
+        else if (keysPressed.isRight())
+        {
+            return PLAYER_RIGHT;
+        }
+        else
+        {
+            return PLAYER_UP;
+        }
+    }
+
+
+    /**
+     * Gets the cached player sprite for the direction of the keys being pressed, see getPlayerSprite
+     * @return Image of the sprite size, draw it without scaling
+     */
+    public Image getScaledPlayerSprite()
+    {
+        return cached(getPlayerSpriteId());
+    }
+
+
+    /**
+     * Gets the cached projectile sprite
+     * @return Image of the sprite size, draw it without scaling
+     */
+    public Image getScaledProjectileSprite()
+    {
+        return cached(PROJECTILE);
+    }
+
+
+    /**
+     * Gets the cached enemy sprite
+     * @return Image of the sprite size, draw it without scaling
+     */
+    public Image getScaledEnemySprite()
+    {
+        return cached(ENEMY);
+    }
+
+
+    /**
+     * Gets the cached sprite of an item
+     * @param itemType type of the item, 0 coffee, 1 mushroom, 2 chicken
+     * @return Image of the sprite size, draw it without scaling, null for an unknown type
+     */
+    public Image getScaledItemSprite(int itemType)
+    {
+        switch (itemType)
+        {
+            case 0:
+                return cached(COFFEE);
+            case 1:
+                return cached(MUSHROOM);
+            case 2:
+                return cached(CHICKEN);
+            default:
+                return null;
+        }
+    }
+
+
     /**
      * returns a player sprite with specified direction depending on which keys are being pressed
      * @return BufferedImage that stores player sprite
@@ -131,4 +292,117 @@ public class SpriteData
     {
         return background;
     }
+
+
+    /**
+     * Gets a cached sprite, the accelerated one unless its surface was lost since prepare
+     * @param index index of the sprite
+     * @return Image of the sprite size, null if the sprite couldn't be read
+     */
+    private Image cached(int index)
+    {
+        if (scaled == null)
+        {
+            throw new IllegalStateException("the sprites have to be prepared before drawing them scaled");
+        }
+
+        if (accelerated != null)
+        {
+            VolatileImage image = accelerated[index];
+            if (image != null && !image.contentsLost())
+            {
+                return image;
+            }
+        }
+        return scaled[index];
+    }
+
+
+    /**
+     * Scales every sprite into an image compatible with the screen, and into an accelerated image if supported
+     * @param config graphics configuration of the screen, null for plain ARGB images
+     * @param size width and height of the scaled sprites
+     */
+    private void build(GraphicsConfiguration config, int size)
+    {
+        BufferedImage[] raw = new BufferedImage[SPRITE_COUNT];
+        raw[PLAYER_UP]      = playerUp;
+        raw[PLAYER_DOWN]    = playerDown;
+        raw[PLAYER_LEFT]    = playerLeft;
+        raw[PLAYER_RIGHT]   = playerRight;
+        raw[PROJECTILE]     = projectile;
+        raw[ENEMY]          = enemy;
+        raw[COFFEE]         = coffee;
+        raw[MUSHROOM]       = mushroom;
+        raw[CHICKEN]        = chicken;
+
+        if (accelerated != null)
+        {
+            for (VolatileImage image : accelerated)
+            {
+                if (image != null)
+                {
+                    image.flush();
+                }
+            }
+        }
+
+        boolean accelerate = config != null && config.getImageCapabilities().isAccelerated();
+        scaled = new BufferedImage[SPRITE_COUNT];
+        accelerated = accelerate ? new VolatileImage[SPRITE_COUNT] : null;
+        for (int i = 0; i < SPRITE_COUNT; i++)
+        {
+            if (raw[i] == null)
+            {
+                continue;
+            }
+
+            scaled[i] = config != null
+                    ? config.createCompatibleImage(size, size, Transparency.TRANSLUCENT)
+                    : new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g = scaled[i].createGraphics();
+            g.setComposite(AlphaComposite.Src);
+            // same nearest neighbour scaling drawImage did every frame, so the sprites look the same
+            g.drawImage(raw[i], 0, 0, size, size, null);
+            g.dispose();
+
+            if (accelerate)
+            {
+                accelerated[i] = createAccelerated(config, scaled[i]);
+            }
+        }
+
+        cacheConfig = config;
+        cacheSize = size;
+        surfaceLosses = 0;
+    }
+
+
+    /**
+     * Creates an accelerated copy of a scaled sprite
+     * @param config graphics configuration of the screen
+     * @param image scaled sprite
+     * @return the copy
+     */
+    private static VolatileImage createAccelerated(GraphicsConfiguration config, BufferedImage image)
+    {
+        VolatileImage copy = config.createCompatibleVolatileImage(image.getWidth(), image.getHeight(),
+                Transparency.TRANSLUCENT);
+        copy(image, copy);
+        return copy;
+    }
+
+
+    /**
+     * Replaces the contents of an accelerated sprite, also used to restore it after its surface was lost
+     * @param image scaled sprite
+     * @param into accelerated sprite of the same size
+     */
+    private static void copy(BufferedImage image, VolatileImage into)
+    {
+        Graphics2D g = into.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+    }
 }
@@ -1,6 +1,8 @@
 package ZombiesGame.view;
 
+import ZombiesGame.controller.FixedTimestep;
 import ZombiesGame.controller.GameInfo;
+import ZombiesGame.metrics.GameMetrics;
 import ZombiesGame.messages.Message;
 
 import javax.swing.*;
@@ -10,7 +12,7 @@ import java.util.concurrent.BlockingQueue;
 /**
  * Main View class that handles switching between different screens(sub-panels) and passing GameInfo to sub-panels
  */
-public class View extends JFrame
+public class View extends JFrame implements GameDisplay
 {
     // dimension constants
     private final int SCALE             = 4;
@@ -38,6 +40,21 @@ public class View extends JFrame
      *              cases
      */
     public View(String title, BlockingQueue<Message> queue)
+    {
+        this(title, queue, false, 0);
+    }
+
+
+    /**
+     * Same as the other constructor, but the game screen can be drawn with active rendering
+     * @param title String value that determines the title of the JFrame
+     * @param queue message queue for passing messages to the controller -- passed to sub-panels for more specific
+     *              cases
+     * @param activeRendering true to draw the game screen from a render thread at a fixed frame rate, false to let
+     *                        Swing repaint it after every update
+     * @param maxFps most frames per second with active rendering, 0 or less for the refresh rate of the screen
+     */
+    public View(String title, BlockingQueue<Message> queue, boolean activeRendering, int maxFps)
     {
         this.queue = queue;
         setTitle(title);
@@ -47,7 +64,7 @@ public class View extends JFrame
         // all defined panels
         cardPanel = new JPanel(layout); // main Panel that contains all sub-panels(screens)
         startPanel = new StartPanel(queue, new Dimension(WIDTH, HEIGHT));
-        gamePanel = new GamePanel(queue, TILE_SIZE, new Dimension(WIDTH, HEIGHT));
+        gamePanel = new GamePanel(queue, TILE_SIZE, new Dimension(WIDTH, HEIGHT), activeRendering, maxFps);
         gameOverPanel = new GameOverPanel(queue, new Dimension(WIDTH, HEIGHT));
 
         // add sub-panels to main panel
@@ -73,6 +90,7 @@ public class View extends JFrame
      * @param panel String value that specifies the name assigned to each sub-panel
      *              -- used for switching between panels
      */
+    @Override
     public void switchPanel(String panel)
     {
         layout.show(cardPanel, panel);
@@ -98,16 +116,40 @@ public class View extends JFrame
      * passes GameInfo to gamePanel to draw
      * @param info GameInfo class storing data from Model needed for drawing
      */
+    @Override
     public void updateView(GameInfo info)
     {
         gamePanel.updateView(info);
     }
 
 
+    /**
+     * passes the clock of the simulation thread to gamePanel, so it can tell how far into the current tick it draws
+     * @param clock fixed timestep driving the simulation
+     */
+    @Override
+    public void setSimulationClock(FixedTimestep clock)
+    {
+        gamePanel.setSimulationClock(clock);
+    }
+
+
+    /**
+     * passes the metrics of the controller to gamePanel for its performance overlay
+     * @param metrics metrics of the controller
+     */
+    @Override
+    public void setMetrics(GameMetrics metrics)
+    {
+        gamePanel.setMetrics(metrics);
+    }
+
+
     /**
      * passes GameInfo to startPanel and gameOverPanel to update scores displayed
      * @param info GameInfo class storing data from Model needed for drawing
      */
+    @Override
     public void updateScore(GameInfo info) {
         startPanel.updateScore(info);
         gameOverPanel.updateScore(info);
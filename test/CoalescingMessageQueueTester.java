@@ -0,0 +1,103 @@
+import ZombiesGame.messages.*;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CoalescingMessageQueueTester
+{
+    @Test
+    public void testPendingMessagesAreMerged() throws InterruptedException
+    {
+        CoalescingMessageQueue queue = new CoalescingMessageQueue(8, OverflowPolicy.BLOCK);
+        queue.put(new UpdateEntitiesMessage());
+        queue.put(new CreateEnemyMessage());
+        queue.put(new CreateProjectileMessage(new Point(1, 2)));
+        queue.put(new UpdateEntitiesMessage());
+        queue.put(new CreateEnemyMessage());
+        queue.put(new CreateEnemyMessage());
+
+        assertEquals(3, queue.size(), "Only the first update and spawn messages should take a slot");
+        assertEquals(3, queue.getMergedCount(), "One update and two spawns should have been merged");
+
+        assertTrue(queue.take() instanceof UpdateEntitiesMessage, "Messages should keep their order");
+        assertEquals(3, ((CreateEnemyMessage) queue.take()).getCount(), "Spawn requests should add up");
+
+        // the merged messages are gone, so new ones get a slot again
+        queue.put(new CreateEnemyMessage());
+        assertEquals(2, queue.size(), "A spawn request after the pending one was taken should be queued");
+    }
+
+
+    @Test
+    public void testOverflowPolicies()
+    {
+        CoalescingMessageQueue block = new CoalescingMessageQueue(1, OverflowPolicy.BLOCK);
+        block.offer(new StartGameMessage());
+        assertTrue(!block.offer(new FirstScreenMessage()), "A full blocking queue should refuse offers");
+
+        CoalescingMessageQueue newest = new CoalescingMessageQueue(1, OverflowPolicy.DROP_NEWEST);
+        newest.offer(new CreateProjectileMessage(new Point(1, 1)));
+        newest.offer(new CreateProjectileMessage(new Point(2, 2)));
+        assertEquals(new Point(1, 1), ((CreateProjectileMessage) newest.poll()).getMousePosition(),
+                "The new projectile should have been dropped");
+        assertEquals(1, newest.getDroppedCount(), "One message should have been dropped");
+
+        CoalescingMessageQueue oldest = new CoalescingMessageQueue(2, OverflowPolicy.DROP_OLDEST);
+        oldest.offer(new UpdateEntitiesMessage());
+        oldest.offer(new CreateProjectileMessage(new Point(1, 1)));
+        oldest.offer(new CreateProjectileMessage(new Point(2, 2)));
+        assertEquals(1, oldest.getDroppedCount(), "The older projectile should have been dropped");
+        assertTrue(oldest.poll() instanceof UpdateEntitiesMessage, "Updates aren't dropped for projectiles");
+        assertEquals(new Point(2, 2), ((CreateProjectileMessage) oldest.poll()).getMousePosition(),
+                "The newer projectile should be kept");
+    }
+
+
+    @Test
+    public void testLifecycleMessagesAreNeverDropped()
+    {
+        for (OverflowPolicy policy : new OverflowPolicy[]{OverflowPolicy.DROP_NEWEST, OverflowPolicy.DROP_OLDEST})
+        {
+            CoalescingMessageQueue queue = new CoalescingMessageQueue(4, policy);
+            for (int i = 0; i < 10; i++)
+            {
+                queue.offer(new CreateProjectileMessage(new Point(i, i)));
+            }
+            queue.offer(new StartGameMessage());
+            queue.offer(new NewGameMessage(1024, 768, 64));
+            assertEquals(6, queue.size(), policy + " should queue the lifecycle messages past the capacity");
+            assertEquals(0, queue.remainingCapacity());
+            assertEquals(6, queue.getDroppedCount(), policy + " should only have dropped projectiles");
+
+            Message last = null;
+            for (Message m = queue.poll(); m != null; m = queue.poll())
+            {
+                last = m;
+            }
+            assertTrue(last instanceof NewGameMessage, policy + " should let the new game through");
+        }
+    }
+
+
+    @Test
+    public void testRemoval()
+    {
+        CoalescingMessageQueue queue = new CoalescingMessageQueue(8, OverflowPolicy.BLOCK);
+        UpdateEntitiesMessage update = new UpdateEntitiesMessage();
+        queue.offer(update);
+        queue.offer(new StartGameMessage());
+
+        assertTrue(queue.remove(update), "A pending message should be removed");
+        assertTrue(!queue.remove(update), "A message that isn't pending can't be removed");
+        queue.offer(new UpdateEntitiesMessage());
+        assertEquals(2, queue.size(), "Nothing should be merged into a removed update");
+
+        assertThrows(UnsupportedOperationException.class, () -> queue.removeIf(m -> m instanceof StartGameMessage),
+                "Removing through the iterator of a copy should fail instead of doing nothing");
+        assertEquals(2, queue.size());
+    }
+}
@@ -0,0 +1,135 @@
+import ZombiesGame.controller.Controller;
+import ZombiesGame.headless.HeadlessDisplay;
+import ZombiesGame.messages.CreateEnemyMessage;
+import ZombiesGame.messages.CreateProjectileMessage;
+import ZombiesGame.messages.NewGameMessage;
+import ZombiesGame.metrics.DeltaCompressionMonitor;
+import ZombiesGame.model.FrameSnapshot;
+import ZombiesGame.model.Model;
+import ZombiesGame.net.DeltaDecoder;
+import ZombiesGame.net.DeltaEncoder;
+import ZombiesGame.view.ActionTracker;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeltaTester
+{
+    private static final int TICKS = 1200;
+
+
+    @Test
+    public void testDecodedFramesMatch() throws IOException
+    {
+        Model model = new Model();
+        model.getRandom().setState(3);
+        Controller controller = new Controller(new LinkedBlockingQueue<>(), model, new HeadlessDisplay());
+        controller.dispatch(new NewGameMessage(1024, 768, 64));
+
+        DeltaCompressionMonitor monitor = new DeltaCompressionMonitor();
+        DeltaEncoder encoder = new DeltaEncoder(monitor);
+        DeltaDecoder decoder = new DeltaDecoder();
+        DeltaDecoder lateDecoder = new DeltaDecoder();
+        FrameSnapshot decoded = new FrameSnapshot();
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+        for (int tick = 0; tick < TICKS && controller.isRunning(); tick++)
+        {
+            if (tick % 10 == 0)
+            {
+                controller.dispatch(CreateEnemyMessage.SINGLE);
+            }
+            if (tick % 2 == 0)
+            {
+                controller.dispatch(new CreateProjectileMessage(new Point(tick * 37 % 1024, tick * 91 % 768)));
+            }
+            controller.tick((tick / 60) % 2 == 0 ? ActionTracker.LEFT : ActionTracker.RIGHT);
+
+            model.getGameStatus();
+            FrameSnapshot frame = model.getFrames().acquire();
+            if (buffer.capacity() < encoder.maxSize(frame))
+            {
+                buffer = ByteBuffer.allocate(encoder.maxSize(frame));
+            }
+
+            buffer.clear();
+            encoder.encode(frame, buffer);
+            decoder.decode(buffer.flip(), decoded);
+            assertEquals(describe(frame), describe(decoded), "Decoded frame should match after tick " + tick);
+            assertEquals(0, buffer.remaining(), "The whole delta should be read");
+
+            // a decoder joining late starts from a keyframe of the same frame
+            if (tick == TICKS / 2)
+            {
+                buffer.clear();
+                encoder.encodeKeyframe(frame, buffer);
+                lateDecoder.decode(buffer.flip(), new FrameSnapshot());
+            }
+            else if (tick > TICKS / 2)
+            {
+                FrameSnapshot late = new FrameSnapshot();
+                buffer.rewind();
+                lateDecoder.decode(buffer, late);
+                assertEquals(describe(frame), describe(late), "Late decoder should match after tick " + tick);
+            }
+        }
+
+        assertTrue(monitor.getFrameCount() > TICKS / 2, "The game should run long enough to compare frames");
+        assertTrue(monitor.getEncodedBytes() * 4 < monitor.getRawBytes(), "Deltas should be much smaller, "
+                + monitor.getEncodedBytes() + " of " + monitor.getRawBytes() + " bytes");
+        assertEquals(1, monitor.getKeyframeCount(), "Only the requested keyframe should be counted");
+    }
+
+
+    @Test
+    public void testDeltaNeedsKeyframe() throws IOException
+    {
+        Model model = new Model();
+        Controller controller = new Controller(new LinkedBlockingQueue<>(), model, new HeadlessDisplay());
+        controller.dispatch(new NewGameMessage(1024, 768, 64));
+        controller.dispatch(new CreateEnemyMessage(5));
+
+        DeltaEncoder encoder = new DeltaEncoder(null);
+        ByteBuffer first = ByteBuffer.allocate(1024);
+        model.getGameStatus();
+        encoder.encode(model.getFrames().acquire(), first);
+
+        controller.tick(0);
+        model.getGameStatus();
+        ByteBuffer second = ByteBuffer.allocate(1024);
+        encoder.encode(model.getFrames().acquire(), second);
+
+        DeltaDecoder decoder = new DeltaDecoder();
+        assertThrows(IOException.class, () -> decoder.decode(second.flip(), new FrameSnapshot()),
+                "A delta can't be decoded without its keyframe");
+
+        FrameSnapshot decoded = new FrameSnapshot();
+        decoder.decode(first.flip(), decoded);
+        decoder.decode(second.rewind(), decoded);
+        assertEquals(describe(model.getFrames().acquire()), describe(decoded), "Decoding should work from the keyframe");
+    }
+
+
+    /**
+     * @param frame a frame
+     * @return scores and id, type, item type and position of every entity
+     */
+    private static String describe(FrameSnapshot frame)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(frame.getScore()).append('/').append(frame.getHighScore()).append('\n');
+        for (int i = 0; i < frame.getCount(); i++)
+        {
+            sb.append(frame.getId(i)).append(' ').append(frame.getType(i)).append(' ').append(frame.getItemType(i))
+                    .append(' ').append(frame.getX(i)).append(',').append(frame.getY(i)).append('\n');
+        }
+        return sb.toString();
+    }
+}
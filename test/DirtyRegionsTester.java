@@ -0,0 +1,157 @@
+import ZombiesGame.messages.CreateEnemyMessage;
+import ZombiesGame.messages.NewGameMessage;
+import ZombiesGame.controller.Controller;
+import ZombiesGame.headless.HeadlessDisplay;
+import ZombiesGame.model.FrameSnapshot;
+import ZombiesGame.model.Model;
+import ZombiesGame.view.DirtyRegions;
+import ZombiesGame.view.GameRenderer;
+import ZombiesGame.view.PerformanceOverlay;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import javax.swing.JPanel;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DirtyRegionsTester
+{
+    private static final Dimension SCREEN = new Dimension(1024, 768);
+
+
+    @Test
+    public void testRunsMergeTiles()
+    {
+        DirtyRegions regions = new DirtyRegions(100, 70, 32);
+        regions.mark(10, 10, 40, 5);
+        regions.mark(97, 65, 50, 50);
+        regions.mark(-20, -20, 10, 10);
+
+        assertEquals(2, regions.findRuns(), "Touching tiles of a row should merge, offscreen marks are ignored");
+        assertEquals(0, regions.getRunX(0));
+        assertEquals(64, regions.getRunWidth(0), "The first run should span two tiles");
+        assertEquals(96, regions.getRunX(1));
+        assertEquals(64, regions.getRunY(1));
+        assertTrue(regions.getRunWidth(1) == 4 && regions.getRunHeight(1) == 6, "Runs should be clipped to the screen");
+        assertEquals(64 * 32 + 4 * 6, regions.getArea());
+        assertEquals(new Rectangle(0, 0, 100, 70), regions.getBounds());
+
+        regions.clear();
+        assertEquals(0, regions.findRuns(), "A cleared grid has no runs");
+    }
+
+
+    @Test
+    public void testDirtyRedrawMatchesFullRedraw()
+    {
+        Model model = new Model(null);
+        model.getRandom().setState(5);
+        Controller controller = new Controller(new LinkedBlockingQueue<>(), model, new HeadlessDisplay());
+        controller.dispatch(new NewGameMessage(SCREEN.width, SCREEN.height, 64));
+        controller.dispatch(new CreateEnemyMessage(6));
+
+        GameRenderer partial = new GameRenderer(64, SCREEN);
+        BufferedImage screen = new BufferedImage(SCREEN.width, SCREEN.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+        model.getGameStatus();
+        partial.render(g, model.getFrames().acquire(), null, 1);
+
+        for (int tick = 0; tick < 20; tick++)
+        {
+            controller.tick(0);
+            model.getGameStatus();
+            FrameSnapshot frame = model.getFrames().acquire();
+
+            partial.layout(frame, 0.5);
+            Rectangle bounds = partial.getDirtyBounds();
+            g.setClip(bounds);
+            partial.paintDirty(g, null);
+            g.setClip(null);
+
+            GameRenderer full = new GameRenderer(64, SCREEN);
+            BufferedImage expected = new BufferedImage(SCREEN.width, SCREEN.height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D e = expected.createGraphics();
+            full.render(e, frame, null, 0.5);
+            e.dispose();
+
+            for (int y = 0; y < SCREEN.height; y++)
+            {
+                for (int x = 0; x < SCREEN.width; x++)
+                {
+                    if (screen.getRGB(x, y) != expected.getRGB(x, y))
+                    {
+                        throw new AssertionError("Pixel " + x + "," + y + " differs after tick " + tick);
+                    }
+                }
+            }
+        }
+        g.dispose();
+
+        assertEquals(1, partial.getFullRedraws(), "Only the first frame should be drawn completely");
+        assertEquals(20, partial.getPartialRedraws(), "A few enemies should only redraw dirty regions");
+        assertTrue(partial.getLastFramePixels() < partial.getScreenPixels() / 2,
+                "A sparse frame should fill less than half the screen, filled " + partial.getLastFramePixels());
+    }
+
+
+    @Test
+    public void testHiddenOverlayIsRepainted()
+    {
+        Model model = new Model(null);
+        Controller controller = new Controller(new LinkedBlockingQueue<>(), model, new HeadlessDisplay());
+        controller.dispatch(new NewGameMessage(SCREEN.width, SCREEN.height, 64));
+        model.getGameStatus();
+        FrameSnapshot frame = model.getFrames().acquire();
+
+        // a panel that only remembers what it was asked to repaint
+        Rectangle requested = new Rectangle();
+        JPanel panel = new JPanel()
+        {
+            @Override
+            public void repaint(long tm, int x, int y, int width, int height)
+            {
+                requested.add(new Rectangle(x, y, width, height));
+            }
+        };
+        PerformanceOverlay overlay = new PerformanceOverlay(panel);
+        GameRenderer renderer = new GameRenderer(64, SCREEN);
+
+        BufferedImage screen = new BufferedImage(SCREEN.width, SCREEN.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+        overlay.toggle();
+        renderer.render(g, frame, null, 1);
+        overlay.paint(g, frame);
+        Rectangle shownAt = overlay.getBounds();
+        assertTrue(!shownAt.isEmpty(), "The overlay should have been drawn");
+
+        // the sprites don't reach the overlay, so only its own repaint clears it
+        overlay.toggle();
+        renderer.layout(frame, 1);
+        assertTrue(renderer.getDirtyBounds().intersection(shownAt).isEmpty(),
+                "The player in the center shouldn't make the corner of the overlay dirty");
+        assertTrue(requested.contains(shownAt), "Hiding the overlay should repaint where it was, asked for "
+                + requested);
+        g.setClip(requested);
+        renderer.paintFull(g, null);
+        overlay.paint(g, frame);
+        g.dispose();
+
+        BufferedImage expected = new BufferedImage(SCREEN.width, SCREEN.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D e = expected.createGraphics();
+        new GameRenderer(64, SCREEN).render(e, frame, null, 1);
+        e.dispose();
+        for (int y = 0; y < SCREEN.height; y++)
+        {
+            for (int x = 0; x < SCREEN.width; x++)
+            {
+                if (screen.getRGB(x, y) != expected.getRGB(x, y))
+                {
+                    throw new AssertionError("Pixel " + x + "," + y + " still shows the hidden overlay");
+                }
+            }
+        }
+    }
+}
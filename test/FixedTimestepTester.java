@@ -0,0 +1,42 @@
+import ZombiesGame.controller.FixedTimestep;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FixedTimestepTester
+{
+    @Test
+    public void testTicksFollowElapsedTime()
+    {
+        FixedTimestep clock = new FixedTimestep(60, 5);
+        long tick = clock.getTickNanos();
+        clock.reset(0);
+
+        assertEquals(0, clock.advance(tick / 2), "No tick should be due after half a tick");
+        assertEquals(1, clock.advance(tick + tick / 2), "Half a tick left over plus another tick is one tick");
+        assertEquals(0.5, clock.getAlpha(tick + tick / 2), 0.01, "Half a tick should be left in the accumulator");
+        assertEquals(2, clock.advance(3 * tick + tick / 2), "Two more ticks have passed");
+    }
+
+
+    @Test
+    public void testCatchUpIsBounded()
+    {
+        FixedTimestep clock = new FixedTimestep(60, 5);
+        long tick = clock.getTickNanos();
+        clock.reset(0);
+
+        assertEquals(5, clock.advance(100 * tick), "Only five ticks may be caught up at once");
+        assertTrue(clock.advance(100 * tick) == 0, "The rest of the backlog should have been dropped");
+    }
+
+
+    @Test
+    public void testTickRateRange()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new FixedTimestep(20, 5), "20 Hz is below the minimum");
+        assertThrows(IllegalArgumentException.class, () -> new FixedTimestep(300, 5), "300 Hz is above the maximum");
+    }
+}
@@ -0,0 +1,43 @@
+import ZombiesGame.view.FramePacer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FramePacerTester
+{
+    @Test
+    public void testFramesOnTime()
+    {
+        FramePacer pacer = new FramePacer(100);
+        long slot = pacer.getFrameNanos();
+        pacer.reset(0);
+
+        // a frame drawn in 3 ms waits out the rest of its 10 ms slot
+        assertEquals(slot - 3_000_000, pacer.frameDone(3_000_000), "The frame should wait for the next slot");
+        // late wake ups don't move the grid
+        assertEquals(slot - 4_000_000, pacer.frameDone(slot + 4_000_000), "Slots should stay on the grid");
+        assertEquals(2, pacer.getFrames(), "Both frames should be counted");
+        assertEquals(0, pacer.getMissedFrames(), "No frame took too long");
+    }
+
+
+    @Test
+    public void testSlowFramesMissSlots()
+    {
+        FramePacer pacer = new FramePacer(100);
+        long slot = pacer.getFrameNanos();
+        pacer.reset(0);
+
+        // a frame of 25 ms runs into the second and third slot and the next one starts with the fourth
+        assertEquals(5_000_000, pacer.frameDone(25_000_000), "The next frame should start at the next free slot");
+        assertEquals(2, pacer.getMissedFrames(), "Two slots should be missed");
+
+        // finishing right at the end of the slot isn't late
+        assertEquals(0, pacer.frameDone(4 * slot), "A frame ending with its slot should be on time");
+        assertEquals(2, pacer.getMissedFrames(), "No more slots should be missed");
+        assertEquals(2, pacer.getFrames(), "Only drawn frames should be counted");
+
+        assertThrows(IllegalArgumentException.class, () -> new FramePacer(0), "A frame rate of 0 should be rejected");
+    }
+}
@@ -0,0 +1,94 @@
+import ZombiesGame.model.FrameSnapshot;
+import ZombiesGame.view.GameRenderer;
+import ZombiesGame.view.SpriteData;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GameRendererTester
+{
+    private static final Dimension SCREEN = new Dimension(640, 480);
+    private static final int SIZE = 64;
+
+
+    @Test
+    public void testOffscreenEntitiesAreCulled()
+    {
+        FrameSnapshot frame = new FrameSnapshot();
+        frame.begin(7, 0, 0);
+        frame.set(0, 0, FrameSnapshot.PLAYER, 0, 300, 200);
+        frame.set(1, 1, FrameSnapshot.ENEMY, 0, -SIZE, 100);
+        frame.set(2, 2, FrameSnapshot.ENEMY, 0, -SIZE + 1, 100);
+        frame.set(3, 3, FrameSnapshot.PROJECTILE, 0, SCREEN.width, 0);
+        frame.set(4, 4, FrameSnapshot.PROJECTILE, 0, 10, SCREEN.height - 1);
+        frame.set(5, 5, FrameSnapshot.ITEM, 2, 100, -SIZE - 50);
+        frame.set(6, 6, FrameSnapshot.ITEM, 1, 500, 400);
+
+        GameRenderer renderer = new GameRenderer(SIZE, SCREEN);
+        renderer.layout(frame, 1);
+        assertEquals(4, renderer.getVisibleCount(), "Sprites touching the screen by a pixel should still be drawn");
+        assertEquals(3, renderer.getCulledCount(), "Sprites completely off the screen should be skipped");
+    }
+
+
+    @Test
+    public void testBatchedFrameMatchesEntityByEntity()
+    {
+        // one of every sprite, none overlapping, so the order they are drawn in doesn't matter
+        FrameSnapshot frame = new FrameSnapshot();
+        frame.begin(12, 0, 0);
+        byte[] types = {FrameSnapshot.ITEM, FrameSnapshot.ENEMY, FrameSnapshot.PROJECTILE, FrameSnapshot.PLAYER};
+        for (int i = 0; i < 12; i++)
+        {
+            byte type = types[i % types.length];
+            frame.set(i, i, type, type == FrameSnapshot.ITEM ? i % 3 : 0, (i % 8) * 80 - 20, (i / 8) * 200 + 30);
+        }
+
+        GameRenderer renderer = new GameRenderer(SIZE, SCREEN);
+        BufferedImage batched = new BufferedImage(SCREEN.width, SCREEN.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = batched.createGraphics();
+        renderer.render(g, frame, null, 1);
+        g.dispose();
+
+        SpriteData sprites = new SpriteData();
+        sprites.prepare(null, SIZE);
+        BufferedImage expected = new BufferedImage(SCREEN.width, SCREEN.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D e = expected.createGraphics();
+        e.drawImage(sprites.getBackground(), 0, 0, null);
+        for (int i = 0; i < frame.getCount(); i++)
+        {
+            Image sprite;
+            switch (frame.getType(i))
+            {
+                case FrameSnapshot.PLAYER:
+                    sprite = sprites.getScaledPlayerSprite();
+                    break;
+                case FrameSnapshot.ENEMY:
+                    sprite = sprites.getScaledEnemySprite();
+                    break;
+                case FrameSnapshot.PROJECTILE:
+                    sprite = sprites.getScaledProjectileSprite();
+                    break;
+                default:
+                    sprite = sprites.getScaledItemSprite(frame.getItemType(i));
+            }
+            e.drawImage(sprite, frame.getX(i), frame.getY(i), null);
+        }
+        e.dispose();
+
+        assertEquals(12, renderer.getVisibleCount());
+        for (int y = 0; y < SCREEN.height; y++)
+        {
+            for (int x = 0; x < SCREEN.width; x++)
+            {
+                if (batched.getRGB(x, y) != expected.getRGB(x, y))
+                {
+                    throw new AssertionError("Pixel " + x + "," + y + " differs from drawing entity by entity");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import ZombiesGame.controller.GameInfo;
+import ZombiesGame.headless.HeadlessDisplay;
+import ZombiesGame.messages.NewGameMessage;
+import ZombiesGame.messages.StartGameMessage;
+import ZombiesGame.model.FrameSnapshot;
+import ZombiesGame.net.GameClient;
+import ZombiesGame.net.GameServer;
+import ZombiesGame.net.LoadTestClient;
+import ZombiesGame.view.ActionTracker;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GameServerTester
+{
+    private static final int TICK_RATE      = 60;
+    private static final long TIMEOUT_NANOS = 10_000_000_000L;
+
+
+    @Test
+    public void testClientPlaysServedGame() throws Exception
+    {
+        try (GameServer server = new GameServer(0, TICK_RATE))
+        {
+            server.start();
+            FrameDisplay display = new FrameDisplay();
+            // keys of its own, other tests may leave keys held in the shared ActionTracker
+            try (GameClient client = new GameClient(new InetSocketAddress("localhost", server.getPort()),
+                    new ActionTracker()))
+            {
+                client.start(display);
+                waitFor(() -> "startPanel".equals(client.getScreen()), "The client should be shown the start screen");
+
+                // what the view sends when play is clicked and the game screen is shown
+                client.getQueue().put(new StartGameMessage());
+                waitFor(() -> "gamePanel".equals(client.getScreen()), "The server should switch to the game screen");
+                client.getQueue().put(new NewGameMessage(1024, 768, 64));
+
+                // the player may well be eaten meanwhile, so frames that showed it at some point are enough
+                waitFor(() -> display.framesWithPlayer > 0 && client.getLastTick() > TICK_RATE / 2,
+                        "The client should receive frames with the player");
+                assertEquals(1, server.getConnectionCount(), "The server should see the client");
+                assertTrue(server.getTicks() > 0, "The server should have ticked the game");
+            }
+            waitFor(() -> server.getConnectionCount() == 0, "The server should notice the client leaving");
+        }
+    }
+
+
+    @Test
+    public void testManyPlayers() throws Exception
+    {
+        try (GameServer server = new GameServer(0, TICK_RATE))
+        {
+            server.start();
+            try (LoadTestClient bots = new LoadTestClient(new InetSocketAddress("localhost", server.getPort()), 50, 1))
+            {
+                bots.run(2_000_000_000L);
+
+                assertEquals(50, bots.getConnected(), "Every bot should stay connected");
+                assertEquals(50, server.getConnectionCount(), "The server should see every bot");
+                assertTrue(bots.getFramesReceived() > 50 * TICK_RATE, "Every bot should receive frames, got "
+                        + bots.getFramesReceived());
+                assertTrue(server.getTicks() > TICK_RATE, "The bots should have started a game");
+            }
+        }
+    }
+
+
+    @Test
+    public void testBadPacketOnlyDropsItsClient() throws Exception
+    {
+        try (GameServer server = new GameServer(0, TICK_RATE))
+        {
+            server.start();
+            InetSocketAddress address = new InetSocketAddress("localhost", server.getPort());
+            try (GameClient client = new GameClient(address, new ActionTracker()))
+            {
+                client.start(new FrameDisplay());
+                client.getQueue().put(new StartGameMessage());
+                client.getQueue().put(new NewGameMessage(1024, 768, 64));
+                waitFor(() -> client.getLastTick() > 0, "The client should receive frames");
+
+                // a projectile without its coordinates, then a new game with sprites bigger than the screen
+                byte[][] packets = {
+                        {0, 0, 0, 1, 3},
+                        {0, 0, 0, 13, 2, 0, 0, 0, 10, 0, 0, 0, 10, 0, 0, 0, 64}
+                };
+                for (byte[] packet : packets)
+                {
+                    try (SocketChannel bad = SocketChannel.open(address))
+                    {
+                        waitFor(() -> server.getConnectionCount() == 2, "The server should accept the bad client");
+                        bad.write(ByteBuffer.wrap(packet));
+                        waitFor(() -> server.getConnectionCount() == 1, "The server should drop the bad client");
+                    }
+                }
+
+                long tick = client.getLastTick();
+                waitFor(() -> client.getLastTick() > tick + TICK_RATE / 4,
+                        "The other client should keep receiving frames");
+                assertTrue(server.getController().isRunning(), "The game should still run");
+            }
+        }
+    }
+
+
+    /**
+     * Waits until a condition holds
+     * @param condition the condition
+     * @param message failure message if it doesn't hold in time
+     */
+    private static void waitFor(BooleanSupplier condition, String message) throws InterruptedException
+    {
+        long end = System.nanoTime() + TIMEOUT_NANOS;
+        while (!condition.getAsBoolean())
+        {
+            assertTrue(System.nanoTime() < end, message);
+            Thread.sleep(10);
+        }
+    }
+
+
+    /**
+     * Display that counts the frames it's shown with a player in them
+     */
+    private static class FrameDisplay extends HeadlessDisplay
+    {
+        private volatile int framesWithPlayer;
+
+
+        @Override
+        public void updateView(GameInfo info)
+        {
+            FrameSnapshot frame = info.getFrames().acquire();
+            for (int i = 0; i < frame.getCount(); i++)
+            {
+                if (frame.getType(i) == FrameSnapshot.PLAYER)
+                {
+                    framesWithPlayer++;
+                    break;
+                }
+            }
+        }
+    }
+}
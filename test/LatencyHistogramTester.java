@@ -0,0 +1,86 @@
+import ZombiesGame.controller.Controller;
+import ZombiesGame.headless.HeadlessDisplay;
+import ZombiesGame.messages.*;
+import ZombiesGame.metrics.GameMetrics;
+import ZombiesGame.metrics.LatencyHistogram;
+import ZombiesGame.model.Model;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTester
+{
+    @Test
+    public void testPercentiles()
+    {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (int i = 1; i <= 1000; i++)
+        {
+            histogram.record(i * 1000L); // 1 to 1000 microseconds
+        }
+
+        assertEquals(1000, histogram.getCount(), "Every latency should be counted");
+        assertEquals(1000.0, histogram.getMaxMicros(), 0.001, "Max should be exact");
+        assertEquals(500.5, histogram.getMeanMicros(), 0.001, "Mean should be exact");
+
+        // buckets are at most 1/16 wide, and percentiles report their upper bound
+        long p50 = histogram.getPercentileNanos(50);
+        long p99 = histogram.getPercentileNanos(99);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 17 / 16, "p50 was " + p50);
+        assertTrue(p99 >= 990_000 && p99 <= 990_000 * 17 / 16, "p99 was " + p99);
+    }
+
+
+    @Test
+    public void testWindow()
+    {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        long[] before = new long[LatencyHistogram.BUCKETS];
+        long[] after = new long[LatencyHistogram.BUCKETS];
+
+        histogram.record(5_000_000);
+        histogram.copyCounts(before);
+        histogram.record(3);
+        histogram.copyCounts(after);
+
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++)
+        {
+            after[i] -= before[i];
+        }
+        assertEquals(3, LatencyHistogram.percentile(after, 100), "The window should only hold the last latency");
+    }
+
+
+    @Test
+    public void testMetricsArePublished() throws Exception
+    {
+        Controller controller = new Controller(new LinkedBlockingQueue<>(), new Model(), new HeadlessDisplay());
+        controller.dispatch(new NewGameMessage(1024, 768, 64));
+        controller.dispatch(UpdateEntitiesMessage.INSTANCE);
+        controller.dispatch(UpdateEntitiesMessage.INSTANCE);
+
+        GameMetrics metrics = controller.getMetrics();
+        metrics.publish("tester");
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName valve = new ObjectName("ZombiesGame:game=\"tester\",type=Valve,name=UpdateEntitiesMessage");
+            ObjectName tick = new ObjectName("ZombiesGame:game=\"tester\",type=Phase,name=tick");
+            ObjectName queue = new ObjectName("ZombiesGame:game=\"tester\",type=Queue,name=messages");
+
+            assertEquals(2L, server.getAttribute(valve, "Count"), "Both updates should have been timed");
+            assertEquals(2L, server.getAttribute(tick, "Count"), "Both ticks should have been timed");
+            assertEquals(3L, server.getAttribute(queue, "MessageCount"), "All messages should have been counted");
+        }
+        finally
+        {
+            metrics.unpublish();
+        }
+    }
+}
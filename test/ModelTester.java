@@ -75,6 +75,200 @@ public class ModelTester
     }
 
 
+    @Test
+    public void testCollisionAcrossCells(){
+        Model m = new Model();
+        m.createNewGame(1024, 768, 64);
+        m.createPlayer();
+
+        // hitboxes overlap, but each entity sits in a different cell of the broad phase (one of them off-screen)
+        Enemy enemy1 = new Enemy(2, 500);
+        Projectile projectile1 = new Projectile(new Enemy(-40, 470), 0, 0);
+        Enemy enemy2 = new Enemy(120, 60);
+        Projectile projectile2 = new Projectile(new Enemy(150, 90), 0, 0);
+
+        // far away from everything else, must not be affected
+        Enemy enemy3 = new Enemy(900, 100);
+
+        m.addEntity(enemy1);
+        m.addEntity(projectile1);
+        m.addEntity(enemy2);
+        m.addEntity(projectile2);
+        m.addEntity(enemy3);
+
+        m.checkCollisions();
+        assertEquals(10, m.getScore(), "Both projectile and enemy pairs should collide across cell borders");
+        assertTrue(!enemy1.isActive() && !enemy2.isActive() && enemy3.isActive(),
+                "Only the enemies hit by projectiles should be set inactive");
+    }
+
+
+    @Test
+    public void testTickDoesNotAllocate(){
+        Model m = new Model();
+        m.createNewGame(1024, 768, 64);
+        m.createPlayer();
+
+        // enemies pushing into each other and projectiles flying off the screen, nothing gets killed
+        for (int i = 0; i < 200; i++){
+            m.addEntity(new Enemy(100 + (i % 20) * 40, 100 + (i / 20) * 40));
+        }
+        for (int i = 0; i < 50; i++){
+            m.addEntity(new Projectile(new Enemy(10, 10 + i * 10), -20, 0));
+        }
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+
+        // let the arrays reach their final size and the JIT settle first
+        for (int i = 0; i < 3000; i++){
+            tick(m);
+        }
+
+        long overhead = threads.getCurrentThreadAllocatedBytes();
+        overhead = threads.getCurrentThreadAllocatedBytes() - overhead;
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100; i++){
+            tick(m);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before - overhead;
+
+        assertEquals(0, allocated, "A tick without deaths should not allocate");
+    }
+
+
+    private void tick(Model m){
+        m.updateEntities();
+        m.checkCollisions();
+        m.checkBoundaryCollisions();
+        m.removeInactive();
+    }
+
+
+    @Test
+    public void testRemovedProjectilesAreReused(){
+        Model m = new Model();
+        m.createNewGame(1024, 768, 64);
+        m.createPlayer();
+
+        // shoot to the right until the projectile has left the screen and was removed
+        m.createProjectile(new Point(1000, 352));
+        Projectile first = (Projectile) m.getEntities().getLast();
+        for (int i = 0; i < 60; i++){
+            tick(m);
+        }
+        assertEquals(1, m.getEntities().size(), "Projectile should have been removed after leaving the screen");
+
+        m.createProjectile(new Point(1000, 352));
+        assertTrue(m.getEntities().getLast() == first, "The removed projectile should have been reused");
+        assertTrue(first.isActive() && first.getX() == m.getPlayer().getX(), "A reused projectile should start at the player");
+        assertEquals(1, m.getProjectilePool().getHits(), "One projectile should have come from the pool");
+        assertEquals(1, m.getProjectilePool().getHighWaterMark(), "The pool should have held one projectile at most");
+    }
+
+
+    @Test
+    public void testParallelCollisionsMatchSerial(){
+        Model serial = new Model();
+        Model parallel = new Model();
+        serial.setParallelCollisionThreshold(Integer.MAX_VALUE);
+        parallel.setParallelCollisionThreshold(0);
+
+        // a crowd of enemies bumping into each other, with projectiles flying through it
+        for (Model m : new Model[] { serial, parallel }){
+            m.createNewGame(1024, 768, 64);
+            m.createPlayer();
+            for (int i = 0; i < 600; i++){
+                m.addEntity(new Enemy(40 + (i % 30) * 30, 40 + (i / 30) * 30));
+            }
+            for (int i = 0; i < 100; i++){
+                m.addEntity(new Projectile(new Enemy(1000, i * 7), -15, (i % 5) - 2));
+            }
+        }
+
+        // removeInactive is left out, dropped items are random
+        for (int i = 0; i < 50; i++){
+            for (Model m : new Model[] { serial, parallel }){
+                m.updateEntities();
+                m.checkCollisions();
+                m.checkBoundaryCollisions();
+            }
+        }
+
+        assertEquals(serial.getScore(), parallel.getScore(), "Both checks should kill the same enemies");
+        java.util.List<Entity> expected = serial.getEntities();
+        java.util.List<Entity> actual = parallel.getEntities();
+        for (int i = 0; i < expected.size(); i++){
+            Entity e = expected.get(i);
+            Entity a = actual.get(i);
+            assertTrue(e.getX() == a.getX() && e.getY() == a.getY() && e.getDx() == a.getDx()
+                    && e.getDy() == a.getDy() && e.isActive() == a.isActive(),
+                    "Entity " + i + " should end up in the same state");
+        }
+    }
+
+
+    @Test
+    public void testFrameSnapshots(){
+        Model m = new Model();
+        m.createNewGame(1024, 768, 64);
+        m.createPlayer();
+
+        FrameSnapshot frame = m.getGameStatus().getFrames().acquire();
+        assertEquals(1, frame.getCount(), "Frame should hold the player");
+
+        // publishing newer frames must not touch the frame the renderer is holding
+        m.addEntity(new Enemy(10, 20));
+        m.getGameStatus();
+        m.addEntity(new Enemy(30, 40));
+        m.getGameStatus();
+        assertEquals(1, frame.getCount(), "Frame held by the renderer should not change");
+
+        FrameSnapshot latest = m.getFrames().acquire();
+        assertEquals(3, latest.getCount(), "Renderer should get the latest frame");
+        assertTrue(latest.getType(2) == FrameSnapshot.ENEMY && latest.getX(2) == 30 && latest.getY(2) == 40,
+                "Latest frame should hold the last enemy added");
+    }
+
+
+    @Test
+    public void testFramesKeepPreviousPositions(){
+        Model m = new Model();
+        m.createNewGame(1024, 768, 64);
+        m.createPlayer();
+        for (int i = 0; i < 20; i++){
+            m.addEntity(new Enemy(50 + i * 45, 600));
+        }
+
+        m.updateEntities(0);
+        FrameSnapshot before = m.getGameStatus().getFrames().acquire();
+        int[] x = new int[before.getCount()];
+        int[] y = new int[before.getCount()];
+        for (int i = 0; i < x.length; i++){
+            x[i] = before.getX(i);
+            y[i] = before.getY(i);
+        }
+
+        m.updateEntities(0);
+        m.addEntity(new Enemy(500, 20));
+        FrameSnapshot after = m.getGameStatus().getFrames().acquire();
+
+        boolean moved = false;
+        for (int i = 0; i < x.length; i++){
+            assertEquals(before.getId(i), after.getId(i), "Entities should keep their slots");
+            assertTrue(after.getPrevX(i) == x[i] && after.getPrevY(i) == y[i],
+                    "Previous position of entity " + i + " should be its position in the frame before");
+            moved |= after.getX(i) != x[i] || after.getY(i) != y[i];
+        }
+        assertTrue(moved, "Enemies should have moved towards the player");
+
+        int added = after.getCount() - 1;
+        assertTrue(after.getPrevX(added) == 500 && after.getPrevY(added) == 20,
+                "An entity added since the last tick should start where it is");
+    }
+
+
     @Test
     public void testHighScoreInFile(){
         Model m = new Model();
@@ -0,0 +1,95 @@
+import ZombiesGame.messages.CoalescingMessageQueue;
+import ZombiesGame.messages.OverflowPolicy;
+import ZombiesGame.messages.UpdateEntitiesMessage;
+import ZombiesGame.metrics.GameMetrics;
+import ZombiesGame.model.FrameSnapshot;
+import ZombiesGame.view.PerformanceOverlay;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PerformanceOverlayTester
+{
+    private static final long SAMPLE_NANOS = PerformanceOverlay.SAMPLE_MILLIS * 1_000_000L;
+
+
+    @Test
+    public void testRatesOverWindow()
+    {
+        CoalescingMessageQueue queue = new CoalescingMessageQueue(16, OverflowPolicy.BLOCK);
+        GameMetrics metrics = new GameMetrics(queue);
+        PerformanceOverlay overlay = new PerformanceOverlay(new Canvas());
+        overlay.setMetrics(metrics);
+
+        overlay.sample(0);
+
+        // half a second with 30 paints of 2 ms and 30 ticks of 1 ms
+        for (int i = 0; i < 30; i++)
+        {
+            overlay.getPaintTimes().record(2_000_000);
+            metrics.getTick().record(1_000_000);
+        }
+        queue.offer(UpdateEntitiesMessage.INSTANCE);
+        overlay.sample(2 * SAMPLE_NANOS);
+
+        assertEquals(60, overlay.getFramesPerSecond(), 0.001, "30 paints in half a second are 60 FPS");
+        assertEquals(60, overlay.getTicksPerSecond(), 0.001, "30 ticks in half a second are 60 TPS");
+
+        long paintP99 = overlay.getPaintP99Nanos();
+        long tickP99 = overlay.getTickP99Nanos();
+        assertTrue(paintP99 >= 2_000_000 && paintP99 <= 2_000_000 * 17 / 16, "paint p99 was " + paintP99);
+        assertTrue(tickP99 >= 1_000_000 && tickP99 <= 1_000_000 * 17 / 16, "tick p99 was " + tickP99);
+
+        assertEquals("FPS 60.0  TPS 60.0", overlay.getLine(0));
+        assertTrue(overlay.getLine(4).startsWith("queue 1 pending"), "Queue line was " + overlay.getLine(4));
+    }
+
+
+    @Test
+    public void testWindowRollsOver()
+    {
+        PerformanceOverlay overlay = new PerformanceOverlay(new Canvas());
+        overlay.sample(0);
+        for (int i = 0; i < 100; i++)
+        {
+            overlay.getPaintTimes().record(1_000_000);
+        }
+        overlay.sample(SAMPLE_NANOS);
+        assertTrue(overlay.getFramesPerSecond() > 0, "Paints should show up in the window");
+
+        // once the paints are older than the window, they no longer count
+        for (int i = 2; i <= PerformanceOverlay.WINDOW_SAMPLES + 1; i++)
+        {
+            overlay.sample(i * SAMPLE_NANOS);
+        }
+        assertEquals(0, overlay.getFramesPerSecond(), 0.001, "Paints outside of the window shouldn't count");
+        assertEquals(0, overlay.getPaintP99Nanos(), "No paints in the window have no percentile");
+        assertEquals("tick  p50 0.00 ms  p99 0.00 ms", overlay.getLine(1), "Ticks stay empty without metrics");
+    }
+
+
+    @Test
+    public void testEntitiesByType()
+    {
+        FrameSnapshot frame = new FrameSnapshot();
+        frame.begin(5, 0, 0);
+        frame.set(0, 0, FrameSnapshot.PLAYER, 0, 100, 100);
+        frame.set(1, 1, FrameSnapshot.ENEMY, 0, 10, 10);
+        frame.set(2, 2, FrameSnapshot.ENEMY, 0, 20, 20);
+        frame.set(3, 3, FrameSnapshot.PROJECTILE, 0, 30, 30);
+        frame.set(4, 4, FrameSnapshot.ITEM, 1, 40, 40);
+
+        PerformanceOverlay overlay = new PerformanceOverlay(new Canvas());
+        overlay.toggle();
+        Graphics2D g = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB).createGraphics();
+        overlay.paint(g, frame);
+        g.dispose();
+        overlay.toggle();
+
+        assertEquals("players 1  enemies 2  shots 1  items 1", overlay.getLine(3));
+    }
+}
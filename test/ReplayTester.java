@@ -0,0 +1,124 @@
+import ZombiesGame.controller.Controller;
+import ZombiesGame.headless.HeadlessDisplay;
+import ZombiesGame.headless.HeadlessGame;
+import ZombiesGame.headless.RandomInputScript;
+import ZombiesGame.model.Entity;
+import ZombiesGame.model.GameRandom;
+import ZombiesGame.model.Model;
+import ZombiesGame.replay.SessionRecorder;
+import ZombiesGame.replay.SessionReplayer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReplayTester
+{
+    private static final int TICK_RATE  = 60;
+    private static final int TICKS      = 5000;
+
+
+    @Test
+    public void testRandomState()
+    {
+        GameRandom a = new GameRandom(42);
+        for (int i = 0; i < 10; i++)
+        {
+            a.nextLong();
+        }
+
+        GameRandom b = new GameRandom();
+        b.setState(a.getState());
+        for (int i = 0; i < 100; i++)
+        {
+            assertEquals(a.nextInt(1000), b.nextInt(1000), "Same state should give the same numbers");
+        }
+    }
+
+
+    @Test
+    public void testReplayMatchesRecording() throws Exception
+    {
+        // record a headless session with an unseeded model
+        Model recorded = new Model();
+        HeadlessGame game = new HeadlessGame(recorded, new RandomInputScript(7, TICK_RATE, HeadlessGame.WIDTH,
+                HeadlessGame.HEIGHT));
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        SessionRecorder recorder = new SessionRecorder(log, recorded, TICK_RATE);
+        game.getController().setRecorder(recorder);
+
+        for (int i = 0; i < TICKS; i++)
+        {
+            game.step();
+        }
+        recorder.close();
+        assertTrue(game.getGamesPlayed() > 1, "The session should span several games");
+        assertEquals(TICKS, recorder.getTicks(), "Every tick should be recorded");
+
+        // replay it into a fresh model
+        Model replayed = new Model();
+        Controller controller = new Controller(new LinkedBlockingQueue<>(), replayed, new HeadlessDisplay());
+        SessionReplayer replayer = new SessionReplayer(new ByteArrayInputStream(log.toByteArray()));
+
+        assertEquals(TICKS, replayer.replay(replayed, controller, 0), "Every tick should be replayed");
+        assertEquals(recorder.getMessages(), replayer.getMessages(), "Every message should be replayed");
+        assertEquals(recorded.getScore(), replayed.getScore(), "Replay should end with the same score");
+        assertEquals(describe(recorded.getEntities()), describe(replayed.getEntities()),
+                "Replay should end with the same entities");
+        assertEquals(recorded.getRandom().getState(), replayed.getRandom().getState(),
+                "Replay should use the same random numbers");
+    }
+
+
+    @Test
+    public void testCutOffLog() throws Exception
+    {
+        Model recorded = new Model();
+        HeadlessGame game = new HeadlessGame(recorded, new RandomInputScript(3, TICK_RATE, HeadlessGame.WIDTH,
+                HeadlessGame.HEIGHT));
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        SessionRecorder recorder = new SessionRecorder(log, recorded, TICK_RATE);
+        game.getController().setRecorder(recorder);
+        for (int i = 0; i < 100; i++)
+        {
+            game.step();
+        }
+        recorder.close();
+
+        // as if the game was killed before the end of the log was written
+        byte[] bytes = log.toByteArray();
+        byte[] cut = Arrays.copyOf(bytes, bytes.length - 3);
+        Model replayed = new Model();
+        Controller controller = new Controller(new LinkedBlockingQueue<>(), replayed, new HeadlessDisplay());
+        long ticks = new SessionReplayer(new ByteArrayInputStream(cut)).replay(replayed, controller, 0);
+        assertTrue(ticks > 90 && ticks < 100, "Replay should stop at the end of the log, replayed " + ticks);
+
+        byte[] garbage = new byte[16];
+        assertThrows(IOException.class, () -> new SessionReplayer(new ByteArrayInputStream(garbage)),
+                "Logs without the header should be rejected");
+    }
+
+
+    /**
+     * @param entities entities of a model
+     * @return class, position and velocity of every entity
+     */
+    private static String describe(List<Entity> entities)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (Entity e : entities)
+        {
+            sb.append(e.getClass().getSimpleName()).append(' ').append(e.getX()).append(',').append(e.getY())
+                    .append(' ').append(e.getDx()).append(',').append(e.getDy()).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,88 @@
+import ZombiesGame.messages.*;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RingBufferMessageQueueTester
+{
+    @Test
+    public void testBoundedFifo() throws InterruptedException
+    {
+        RingBufferMessageQueue queue = new RingBufferMessageQueue(3, WaitStrategy.PARK);
+        assertEquals(4, queue.getCapacity(), "Capacity should be rounded up to a power of two");
+
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(queue.offer(new CreateProjectileMessage(new Point(i, 0))), "Message " + i + " should fit");
+        }
+        assertTrue(!queue.offer(UpdateEntitiesMessage.INSTANCE), "A full queue should refuse messages");
+        assertEquals(4, queue.size(), "All slots should be taken");
+
+        for (int i = 0; i < 4; i++)
+        {
+            assertEquals(i, ((CreateProjectileMessage) queue.take()).getMousePosition().x, "Messages should keep their order");
+        }
+        assertEquals(null, queue.poll(1, TimeUnit.MILLISECONDS), "An empty queue should time out");
+    }
+
+
+    @Test
+    public void testManyProducers() throws InterruptedException
+    {
+        int producers = 4;
+        int messages = 20000;
+        RingBufferMessageQueue queue = new RingBufferMessageQueue(64, WaitStrategy.YIELD);
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++)
+        {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                try
+                {
+                    for (int i = 0; i < messages; i++)
+                    {
+                        queue.put(new CreateProjectileMessage(new Point(producer, i)));
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[p].start();
+        }
+
+        // every producer's messages have to arrive complete and in the order they were sent
+        int[] next = new int[producers];
+        for (int i = 0; i < producers * messages; i++)
+        {
+            Point position = ((CreateProjectileMessage) queue.take()).getMousePosition();
+            assertEquals(next[position.x]++, position.y, "Messages of producer " + position.x + " out of order");
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertEquals(0, queue.size(), "Nothing should be left in the queue");
+    }
+
+
+    @Test
+    public void testRemovalIsUnsupported()
+    {
+        RingBufferMessageQueue queue = new RingBufferMessageQueue(4, WaitStrategy.PARK);
+        StartGameMessage start = new StartGameMessage();
+        queue.offer(start);
+
+        assertThrows(UnsupportedOperationException.class, () -> queue.remove(start));
+        assertThrows(UnsupportedOperationException.class, () -> queue.removeAll(List.of(start)));
+        assertEquals(1, queue.size(), "The message should still be queued");
+    }
+}
@@ -0,0 +1,145 @@
+import ZombiesGame.controller.Controller;
+import ZombiesGame.headless.HeadlessDisplay;
+import ZombiesGame.messages.CreateEnemyMessage;
+import ZombiesGame.messages.CreateProjectileMessage;
+import ZombiesGame.messages.NewGameMessage;
+import ZombiesGame.model.Entity;
+import ZombiesGame.model.FrameSnapshot;
+import ZombiesGame.model.Model;
+import ZombiesGame.view.ActionTracker;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SaveStateTester
+{
+    @Test
+    public void testRoundTrip() throws IOException
+    {
+        Path dir = Files.createTempDirectory("save");
+        Model original = new Model();
+        original.getRandom().setState(3);
+        Controller controller = new Controller(new LinkedBlockingQueue<>(), original, new HeadlessDisplay());
+        controller.dispatch(new NewGameMessage(1024, 768, 64));
+        play(controller, 0, 400);
+        assertTrue(original.getEntities().size() > 3, "The game should have entities to save");
+
+        Path file = dir.resolve("game.sav");
+        original.saveState(file);
+
+        Model restored = new Model();
+        Controller restoredController = new Controller(new LinkedBlockingQueue<>(), restored, new HeadlessDisplay());
+        restoredController.loadGame(file);
+
+        assertEquals(original.getScore(), restored.getScore(), "Score should be restored");
+        assertEquals(describe(original.getEntities()), describe(restored.getEntities()), "Entities should be restored");
+        assertEquals(original.getRandom().getState(), restored.getRandom().getState(), "Random numbers should be restored");
+        assertTrue(restoredController.isRunning(), "A running game should keep running");
+
+        // nothing moved since loading, so the frame shouldn't move anything in from where the entities were created
+        restored.getGameStatus();
+        FrameSnapshot frame = restored.getFrames().acquire();
+        assertTrue(frame.getCount() > 3, "The frame should show the restored entities");
+        for (int i = 0; i < frame.getCount(); i++)
+        {
+            assertEquals(frame.getX(i), frame.getPrevX(i), "Entity " + i + " should start where it was loaded");
+            assertEquals(frame.getY(i), frame.getPrevY(i), "Entity " + i + " should start where it was loaded");
+        }
+
+        // difficulty and enemy counter aren't visible, so both games are played on to show they behave the same
+        play(controller, 400, 1200);
+        play(restoredController, 400, 1200);
+        assertTrue(original.getScore() > 250, "The game should have gone through the difficulty levels");
+        assertEquals(original.getScore(), restored.getScore(), "Both games should score the same");
+        assertEquals(describe(original.getEntities()), describe(restored.getEntities()),
+                "Both games should play out the same");
+    }
+
+
+    @Test
+    public void testDamagedFile() throws IOException
+    {
+        Path dir = Files.createTempDirectory("save");
+        Model original = new Model();
+        Controller controller = new Controller(new LinkedBlockingQueue<>(), original, new HeadlessDisplay());
+        controller.dispatch(new NewGameMessage(1024, 768, 64));
+        play(controller, 0, 100);
+
+        Path file = dir.resolve("game.sav");
+        original.saveState(file);
+
+        Model other = new Model();
+        Controller otherController = new Controller(new LinkedBlockingQueue<>(), other, new HeadlessDisplay());
+        otherController.dispatch(new NewGameMessage(1024, 768, 64));
+        String before = describe(other.getEntities());
+
+        // flip a bit in the last entity column
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, channel.size() - 1);
+            b.put(0, (byte) (b.get(0) ^ 1)).rewind();
+            channel.write(b, channel.size() - 1);
+        }
+        assertThrows(IOException.class, () -> otherController.loadGame(file), "A damaged file should be rejected");
+        assertEquals(before, describe(other.getEntities()), "A rejected file shouldn't change the game");
+
+        Files.write(file, new byte[10]);
+        assertThrows(IOException.class, () -> other.loadState(file), "A truncated file should be rejected");
+        assertFalse(Files.exists(dir.resolve("game.sav.tmp")), "The temporary file should be moved into place");
+    }
+
+
+    /**
+     * Plays a game with input that only depends on the tick number, until the player dies
+     * @param controller controller of the game
+     * @param from first tick
+     * @param to tick to stop before
+     */
+    private static void play(Controller controller, int from, int to)
+    {
+        for (int tick = from; tick < to && controller.isRunning(); tick++)
+        {
+            if (tick % 10 == 0)
+            {
+                controller.dispatch(CreateEnemyMessage.SINGLE);
+            }
+            if (tick % 2 == 0)
+            {
+                controller.dispatch(new CreateProjectileMessage(new Point(tick * 37 % 1024, tick * 91 % 768)));
+            }
+            int keys = (tick / 60) % 2 == 0 ? ActionTracker.LEFT : ActionTracker.RIGHT;
+            controller.tick(keys);
+        }
+    }
+
+
+    /**
+     * @param entities entities of a model
+     * @return class, position, velocity and activity of every entity
+     */
+    private static String describe(List<Entity> entities)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (Entity e : entities)
+        {
+            sb.append(e.getClass().getSimpleName()).append(' ').append(e.getX()).append(',').append(e.getY())
+                    .append(' ').append(e.getDx()).append(',').append(e.getDy()).append(' ').append(e.isActive())
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,83 @@
+import ZombiesGame.arena.GameSession;
+import ZombiesGame.arena.SessionManager;
+import ZombiesGame.arena.SessionState;
+import ZombiesGame.headless.HeadlessGame;
+import ZombiesGame.headless.RandomInputScript;
+import ZombiesGame.messages.NewGameMessage;
+import ZombiesGame.metrics.GameMetrics;
+import ZombiesGame.view.ActionTracker;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SessionManagerTester
+{
+    private static final int TICK_RATE  = 60;
+    private static final int BOTS       = 50;
+
+
+    @Test
+    public void testSessionLifecycle() throws Exception
+    {
+        List<GameSession> bots = new ArrayList<>();
+        GameSession player;
+        ObjectName jitter;
+        SessionManager manager = new SessionManager(TICK_RATE, true);
+        try (manager)
+        {
+            for (int i = 0; i < BOTS; i++)
+            {
+                bots.add(manager.openBot(new RandomInputScript(i, TICK_RATE, HeadlessGame.WIDTH, HeadlessGame.HEIGHT), i));
+            }
+            player = manager.openPlayer(0);
+            assertEquals(BOTS + 1, manager.size(), "Every session should be open");
+
+            Thread.sleep(1000);
+            for (GameSession bot : bots)
+            {
+                assertEquals(SessionState.RUNNING, bot.getState(), "Bots should keep running");
+                assertTrue(bot.getTicks() > TICK_RATE / 2, "Every bot should tick on its own, got " + bot.getTicks());
+                assertTrue(bot.getMetrics().getTickJitter().getCount() > 0, "Tick jitter should be recorded");
+            }
+            assertEquals(0, player.getTicks(), "A player session should wait for a new game");
+
+            // played like the view would, keys are the session's own
+            int shared = ActionTracker.getInstance().getState();
+            player.getKeys().setLeft(!player.getKeys().isLeft());
+            player.getQueue().put(new NewGameMessage(HeadlessGame.WIDTH, HeadlessGame.HEIGHT, HeadlessGame.SPRITE_SIZE));
+            Thread.sleep(500);
+            assertTrue(player.getTicks() > 0, "The player session should tick once a game started");
+            assertEquals(shared, ActionTracker.getInstance().getState(), "Session keys shouldn't leak into the shared keys");
+
+            jitter = new ObjectName(GameMetrics.DOMAIN + ":game=\"" + bots.get(1).getName()
+                    + "\",type=Clock,name=tickJitter");
+            assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(jitter),
+                    "Session metrics should be published under the session name");
+
+            GameSession stopped = bots.get(0);
+            assertTrue(manager.stop(stopped.getId()), "A stopped session should end");
+            assertEquals(SessionState.STOPPED, stopped.getState(), "The session should be stopped");
+            assertNull(manager.get(stopped.getId()), "A stopped session should be forgotten");
+            assertEquals(BOTS, manager.size(), "The other sessions should stay open");
+            long ticks = stopped.getTicks();
+            Thread.sleep(100);
+            assertEquals(ticks, stopped.getTicks(), "A stopped session shouldn't tick");
+        }
+        assertEquals(0, manager.size(), "Closing should stop every session");
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(jitter),
+                "Metrics of stopped sessions should be removed");
+        for (GameSession bot : bots)
+        {
+            assertEquals(SessionState.STOPPED, bot.getState(), "Every bot should end");
+        }
+        assertEquals(SessionState.STOPPED, player.getState(), "The player session should end");
+    }
+}
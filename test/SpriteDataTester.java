@@ -0,0 +1,85 @@
+import ZombiesGame.view.SpriteData;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpriteDataTester
+{
+    private static final int SPRITE_SIZE = 48;
+
+
+    @Test
+    public void testCachedSpritesAreScaled()
+    {
+        SpriteData spriteData = new SpriteData();
+        assertThrows(IllegalStateException.class, spriteData::getScaledEnemySprite,
+                "Cached sprites shouldn't be used before they are prepared");
+
+        spriteData.prepare(null, SPRITE_SIZE);
+        Image cached = spriteData.getScaledEnemySprite();
+        assertEquals(SPRITE_SIZE, cached.getWidth(null), "Cached sprites should have the sprite size");
+        assertEquals(SPRITE_SIZE, cached.getHeight(null), "Cached sprites should have the sprite size");
+        assertSame(draw(spriteData.getEnemySprite(), true), draw(cached, false));
+        assertSame(draw(spriteData.getChickenSprite(), true), draw(spriteData.getScaledItemSprite(2), false));
+        assertNull(spriteData.getScaledItemSprite(3), "Unknown items have no sprite");
+
+        spriteData.prepare(null, SPRITE_SIZE / 2);
+        assertEquals(SPRITE_SIZE / 2, spriteData.getScaledProjectileSprite().getWidth(null),
+                "A new sprite size should rebuild the cache");
+        assertEquals(0, spriteData.getSurfaceLosses(), "Without a screen nothing can be lost");
+    }
+
+
+    /**
+     * @param sprite a sprite
+     * @param scale true to scale it to the sprite size while drawing
+     * @return image with the sprite drawn on a white background, like in the game
+     */
+    private static BufferedImage draw(Image sprite, boolean scale)
+    {
+        BufferedImage image = new BufferedImage(SPRITE_SIZE, SPRITE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, SPRITE_SIZE, SPRITE_SIZE);
+        if (scale)
+        {
+            g.drawImage(sprite, 0, 0, SPRITE_SIZE, SPRITE_SIZE, null);
+        }
+        else
+        {
+            g.drawImage(sprite, 0, 0, null);
+        }
+        g.dispose();
+        return image;
+    }
+
+
+    /**
+     * Asserts two images look the same, allowing rounding of the premultiplied alpha
+     * @param expected image drawn from the decoded sprite
+     * @param actual image drawn from the cached sprite
+     */
+    private static void assertSame(BufferedImage expected, BufferedImage actual)
+    {
+        for (int y = 0; y < SPRITE_SIZE; y++)
+        {
+            for (int x = 0; x < SPRITE_SIZE; x++)
+            {
+                int e = expected.getRGB(x, y);
+                int a = actual.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8)
+                {
+                    int diff = Math.abs(((e >> shift) & 0xff) - ((a >> shift) & 0xff));
+                    assertTrue(diff <= 2, "Pixel " + x + "," + y + " should match, was " + Integer.toHexString(a)
+                            + " instead of " + Integer.toHexString(e));
+                }
+            }
+        }
+    }
+}
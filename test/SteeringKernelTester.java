@@ -0,0 +1,54 @@
+import ZombiesGame.model.SteeringKernel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SteeringKernelTester
+{
+    @Test
+    public void testDirections()
+    {
+        // right, left, on the target, a 3-4-5 triangle, down and up
+        int[] x = { 100, 300, 200, 500, 200, 200 };
+        int[] y = { 100, 100, 100, 500, 0, 400 };
+        int[] dx = new int[x.length];
+        int[] dy = new int[x.length];
+
+        SteeringKernel.scalar().steer(200, 100, x, y, 0, x.length, 5, dx, dy);
+
+        assertArrayEquals(new int[] { 5, -5, 5, -3, 0, 0 }, dx, "Unexpected x velocities");
+        assertArrayEquals(new int[] { 0, 0, 0, -4, 5, -5 }, dy, "Unexpected y velocities");
+    }
+
+
+    @Test
+    public void testPlatformKernelMatchesScalar()
+    {
+        int count = 1003; // not a multiple of any vector length
+        Random r = new Random(7);
+        int[] x = new int[count];
+        int[] y = new int[count];
+        for (int i = 0; i < count; i++)
+        {
+            x[i] = r.nextInt(1200) - 100;
+            y[i] = r.nextInt(900) - 100;
+        }
+        x[10] = 512; // right on the target
+        y[10] = 384;
+
+        int[] expectedDx = new int[count];
+        int[] expectedDy = new int[count];
+        int[] actualDx = new int[count];
+        int[] actualDy = new int[count];
+
+        SteeringKernel.scalar().steer(512, 384, x, y, 3, count, 6, expectedDx, expectedDy);
+        SteeringKernel.forPlatform().steer(512, 384, x, y, 3, count, 6, actualDx, actualDy);
+
+        assertArrayEquals(expectedDx, actualDx, "Both kernels should give the same x velocities");
+        assertArrayEquals(expectedDy, actualDy, "Both kernels should give the same y velocities");
+        assertEquals(6, actualDx[10], "An entity on the target should move right");
+    }
+}
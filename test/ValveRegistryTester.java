@@ -0,0 +1,39 @@
+import ZombiesGame.controller.ValveRegistry;
+import ZombiesGame.controller.ValveResponse;
+import ZombiesGame.messages.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ValveRegistryTester
+{
+    @Test
+    public void testRoutesByClass()
+    {
+        ValveRegistry registry = new ValveRegistry();
+        registry.register(CreateEnemyMessage.class, message -> ValveResponse.EXECUTED);
+        registry.register(StartGameMessage.class, message -> ValveResponse.FINISH);
+
+        assertEquals(ValveResponse.EXECUTED, registry.dispatch(new CreateEnemyMessage()), "Enemy valve should handle it");
+        assertEquals(ValveResponse.FINISH, registry.dispatch(new StartGameMessage()), "Start valve should handle it");
+        assertEquals(ValveResponse.MISS, registry.dispatch(new FirstScreenMessage()), "No valve is registered for it");
+    }
+
+
+    @Test
+    public void testRegistrationRules()
+    {
+        ValveRegistry registry = new ValveRegistry();
+        registry.register(CreateEnemyMessage.class, message -> ValveResponse.EXECUTED);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.register(CreateEnemyMessage.class, message -> ValveResponse.EXECUTED),
+                "Only one valve may handle a class of messages");
+
+        registry.dispatch(new CreateEnemyMessage());
+        assertThrows(IllegalStateException.class,
+                () -> registry.register(StartGameMessage.class, message -> ValveResponse.EXECUTED),
+                "Valves can't be added once messages are dispatched");
+    }
+}
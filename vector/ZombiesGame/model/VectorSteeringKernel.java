@@ -0,0 +1,87 @@
+package ZombiesGame.model;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SteeringKernel using the jdk.incubator.vector API
+ * positions are loaded as ints, widened to doubles and normalized several entities at a time, then narrowed back
+ * every lane does the same IEEE operations as the scalar kernel (exact products, correctly rounded sqrt and division,
+ * truncating conversion), so both kernels produce identical velocities
+ * the narrowing back to ints goes through scratch arrays with a plain cast, the JDK 17 compiler doesn't turn the D2I
+ * lane conversion into SIMD instructions and would allocate a vector object per iteration instead
+ * compiled separately from src/ with --add-modules jdk.incubator.vector, and loaded by SteeringKernel.forPlatform()
+ * holds scratch arrays, so an instance must not be shared between threads
+ */
+class VectorSteeringKernel extends SteeringKernel
+{
+    // doubles use the widest shape the CPU supports, ints the shape with the same number of lanes
+    private static final VectorSpecies<Double> DOUBLES  = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS    =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+    // velocities before they are narrowed to ints, indexed like the positions
+    private double[] velocitiesX = new double[0];
+    private double[] velocitiesY = new double[0];
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void steer(int targetX, int targetY, int[] x, int[] y, int from, int to, int speed, int[] outDx, int[] outDy)
+    {
+        DoubleVector speeds = DoubleVector.broadcast(DOUBLES, speed);
+        DoubleVector zeros  = DoubleVector.zero(DOUBLES);
+        IntVector targetsX  = IntVector.broadcast(INTS, targetX);
+        IntVector targetsY  = IntVector.broadcast(INTS, targetY);
+
+        if (velocitiesX.length < to)
+        {
+            velocitiesX = new double[Math.max(to, velocitiesX.length * 2)];
+            velocitiesY = new double[velocitiesX.length];
+        }
+
+        int i = from;
+        int upperBound = from + INTS.loopBound(to - from);
+        for (; i < upperBound; i += INTS.length())
+        {
+            DoubleVector deltaX = (DoubleVector) targetsX.sub(IntVector.fromArray(INTS, x, i))
+                    .convertShape(VectorOperators.I2D, DOUBLES, 0);
+            DoubleVector deltaY = (DoubleVector) targetsY.sub(IntVector.fromArray(INTS, y, i))
+                    .convertShape(VectorOperators.I2D, DOUBLES, 0);
+
+            DoubleVector length = deltaX.mul(deltaX).add(deltaY.mul(deltaY)).sqrt();
+            VectorMask<Double> onTarget = length.compare(VectorOperators.EQ, 0);
+
+            DoubleVector velocityX = speeds.mul(deltaX).div(length).blend(speeds, onTarget);
+            DoubleVector velocityY = speeds.mul(deltaY).div(length).blend(zeros, onTarget);
+
+            velocityX.intoArray(velocitiesX, i);
+            velocityY.intoArray(velocitiesY, i);
+        }
+
+        for (int j = from; j < upperBound; j++)
+        {
+            outDx[j] = (int) velocitiesX[j];
+            outDy[j] = (int) velocitiesY[j];
+        }
+
+        // remaining entities that don't fill a whole vector
+        super.steer(targetX, targetY, x, y, i, to, speed, outDx, outDy);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isVectorized()
+    {
+        return true;
+    }
+}